@@ -148,6 +148,9 @@ public interface Status
                 "Supplied bookmark cannot be interpreted. You should only supply a bookmark previously that was " +
                 "previously generated by Neo4j. Maybe you have generated your own bookmark, " +
                 "or modified a bookmark since it was generated by Neo4j." ),
+        TransactionMemoryLimitExceeded( ClientError,
+                "The transaction state of the transaction needed more memory than it is allowed to use. You may want " +
+                "to split the transaction into smaller ones, or raise the limit." ),
 
         // database errors
         TransactionStartFailed( DatabaseError,
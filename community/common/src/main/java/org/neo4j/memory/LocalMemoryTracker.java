@@ -19,18 +19,65 @@
  */
 package org.neo4j.memory;
 
+import java.util.function.Consumer;
+
 /**
  * Memory allocation tracker that can be used in local context that required
  * tracking of memory that is independent from global.
  * All allocations/de-allocation reported to this trackers also will be reported to global tracker transparently.
+ * <p>
+ * A tracker can optionally be given a limit, in which case allocations that would take the locally used memory
+ * above that limit are refused with a {@link MemoryLimitExceededException}, before being recorded anywhere.
  */
 public class LocalMemoryTracker implements MemoryAllocationTracker
 {
+    public static final long NO_LIMIT = 0;
+
+    private final long maxAllocatedBytes;
+    private final Consumer<MemoryLimitExceededException> limitExceededListener;
     private long allocatedBytes;
 
+    public LocalMemoryTracker()
+    {
+        this( NO_LIMIT );
+    }
+
+    /**
+     * @param maxAllocatedBytes the maximum number of bytes that can be in use at any point in time,
+     * or {@link #NO_LIMIT} for no limit.
+     */
+    public LocalMemoryTracker( long maxAllocatedBytes )
+    {
+        this( maxAllocatedBytes, refusal ->
+        {
+        } );
+    }
+
+    /**
+     * @param maxAllocatedBytes the maximum number of bytes that can be in use at any point in time,
+     * or {@link #NO_LIMIT} for no limit.
+     * @param limitExceededListener notified of every refused allocation, before the refusal is thrown.
+     */
+    public LocalMemoryTracker( long maxAllocatedBytes, Consumer<MemoryLimitExceededException> limitExceededListener )
+    {
+        if ( maxAllocatedBytes < 0 )
+        {
+            throw new IllegalArgumentException( "Memory limit must not be negative, but was " + maxAllocatedBytes );
+        }
+        this.maxAllocatedBytes = maxAllocatedBytes;
+        this.limitExceededListener = limitExceededListener;
+    }
+
     @Override
     public void allocated( long bytes )
     {
+        if ( maxAllocatedBytes != NO_LIMIT && allocatedBytes + bytes > maxAllocatedBytes )
+        {
+            MemoryLimitExceededException refusal =
+                    new MemoryLimitExceededException( bytes, allocatedBytes, maxAllocatedBytes );
+            limitExceededListener.accept( refusal );
+            throw refusal;
+        }
         GlobalMemoryTracker.INSTANCE.allocated( bytes );
         this.allocatedBytes += bytes;
     }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.memory;
+
+import org.neo4j.kernel.api.exceptions.Status;
+
+/**
+ * Thrown by a {@link MemoryAllocationTracker} that refuses an allocation because it would take the tracked
+ * amount of memory above its configured limit.
+ */
+public class MemoryLimitExceededException extends RuntimeException implements Status.HasStatus
+{
+    private final long allocation;
+    private final long usedMemory;
+    private final long limit;
+
+    public MemoryLimitExceededException( long allocation, long usedMemory, long limit )
+    {
+        super( String.format( "Unable to allocate %d bytes, %d bytes are already in use out of a limit of %d bytes.",
+                allocation, usedMemory, limit ) );
+        this.allocation = allocation;
+        this.usedMemory = usedMemory;
+        this.limit = limit;
+    }
+
+    public long getAllocation()
+    {
+        return allocation;
+    }
+
+    public long getUsedMemory()
+    {
+        return usedMemory;
+    }
+
+    public long getLimit()
+    {
+        return limit;
+    }
+
+    @Override
+    public Status status()
+    {
+        return Status.Transaction.TransactionMemoryLimitExceeded;
+    }
+}
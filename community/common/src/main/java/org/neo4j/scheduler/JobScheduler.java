@@ -220,6 +220,22 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group pageCacheIOHelper = new Group( "PageCacheIOHelper" );
 
+        /**
+         * Detached stage of pipelined transaction application.
+         */
+        public static final Group transactionApply = new Group( "TransactionApply" );
+
+        public static final Group transactionLogWriter = new Group( "TransactionLogWriter" );
+
+        public static final Group transactionLogPreallocation = new Group( "TransactionLogPreallocation" );
+
+        public static final Group transactionLogPositionIndex = new Group( "TransactionLogPositionIndex" );
+
+        /**
+         * Writes freed ids to, and grabs free ids from, the free id trees of id generators.
+         */
+        public static final Group idGeneratorMaintenance = new Group( "IdGeneratorMaintenance" );
+
         /**
          * Bolt scheduler worker
          */
@@ -21,7 +21,15 @@ package org.neo4j.memory;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.api.exceptions.Status;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class LocalMemoryTrackerTest
 {
@@ -65,4 +73,69 @@ public class LocalMemoryTrackerTest
         assertEquals( 50, globalMemoryTracker.usedDirectMemory() - initialGlobalUsage );
     }
 
+    @Test
+    public void allowAllocationsUpToTheLimit()
+    {
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker( 100 );
+        memoryTracker.allocated( 60 );
+        memoryTracker.allocated( 40 );
+        assertEquals( 100, memoryTracker.usedDirectMemory() );
+
+        memoryTracker.deallocated( 30 );
+        memoryTracker.allocated( 30 );
+        assertEquals( 100, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void refuseAllocationsAboveTheLimitWithoutRecordingThem()
+    {
+        GlobalMemoryTracker globalMemoryTracker = GlobalMemoryTracker.INSTANCE;
+        long initialGlobalUsage = globalMemoryTracker.usedDirectMemory();
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker( 100 );
+        memoryTracker.allocated( 80 );
+
+        try
+        {
+            memoryTracker.allocated( 21 );
+            fail( "Allocation above the limit should have been refused" );
+        }
+        catch ( MemoryLimitExceededException e )
+        {
+            assertEquals( 21, e.getAllocation() );
+            assertEquals( 80, e.getUsedMemory() );
+            assertEquals( 100, e.getLimit() );
+        }
+
+        assertEquals( 80, memoryTracker.usedDirectMemory() );
+        assertEquals( 80, globalMemoryTracker.usedDirectMemory() - initialGlobalUsage );
+        memoryTracker.deallocated( 80 );
+    }
+
+    @Test
+    public void notifyListenerOfRefusedAllocationsBeforeThrowing()
+    {
+        List<MemoryLimitExceededException> refusals = new ArrayList<>();
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker( 100, refusals::add );
+        memoryTracker.allocated( 100 );
+        assertTrue( refusals.isEmpty() );
+
+        try
+        {
+            memoryTracker.allocated( 1 );
+            fail( "Allocation above the limit should have been refused" );
+        }
+        catch ( MemoryLimitExceededException e )
+        {
+            assertEquals( 1, refusals.size() );
+            assertSame( e, refusals.get( 0 ) );
+            assertEquals( Status.Transaction.TransactionMemoryLimitExceeded, e.status() );
+        }
+        memoryTracker.deallocated( 100 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void rejectNegativeLimit()
+    {
+        new LocalMemoryTracker( -1 );
+    }
 }
@@ -556,7 +556,22 @@ public class GBPTree<KEY,VALUE> implements Closeable
         {
             // We're only interested in the page size really, so don't involve layout at this point
             Meta meta = readMeta( null, pagedFile );
-            pagedFile = mapWithCorrectPageSize( pageCache, indexFile, pagedFile, meta.getPageSize() );
+            int pageSize = meta.getPageSize();
+            if ( pageSize != pageCache.pageSize() )
+            {
+                // This index was created with another page size, re-open with that actual page size
+                if ( pageSize > pageCache.pageSize() || pageSize < 0 )
+                {
+                    throw new MetadataMismatchException(
+                            "Tried to create tree with page size %d, but page cache used to open it this time " +
+                            "has a smaller page size %d so cannot be opened",
+                            pageSize, pageCache.pageSize() );
+                }
+                pagedFile.close();
+                // Already closed, so not to be closed again should mapping with the other page size fail
+                pagedFile = null;
+                pagedFile = pageCache.map( indexFile, pageSize );
+            }
             success = true;
             return pagedFile;
         }
@@ -566,7 +581,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         }
         finally
         {
-            if ( !success )
+            if ( !success && pagedFile != null )
             {
                 pagedFile.close();
             }
@@ -789,25 +804,6 @@ public class GBPTree<KEY,VALUE> implements Closeable
         }
     }
 
-    private static PagedFile mapWithCorrectPageSize( PageCache pageCache, File indexFile, PagedFile pagedFile, int pageSize )
-            throws IOException
-    {
-        // This index was created with another page size, re-open with that actual page size
-        if ( pageSize != pageCache.pageSize() )
-        {
-            if ( pageSize > pageCache.pageSize() || pageSize < 0 )
-            {
-                throw new MetadataMismatchException(
-                        "Tried to create tree with page size %d, but page cache used to open it this time " +
-                        "has a smaller page size %d so cannot be opened",
-                        pageSize, pageCache.pageSize() );
-            }
-            pagedFile.close();
-            return pageCache.map( indexFile, pageSize );
-        }
-        return pagedFile;
-    }
-
     /**
      * Utility for {@link PagedFile#io(long, int) acquiring} a new {@link PageCursor},
      * placed at the current root id and which have had its {@link PageCursor#next()} called-
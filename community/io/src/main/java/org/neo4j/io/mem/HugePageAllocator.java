@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.neo4j.io.ByteUnit.gibiBytes;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+import static org.neo4j.util.FeatureToggles.getLong;
+
+/**
+ * This memory allocator hands out memory from large chunks that are aligned to, and sized in multiples of, the huge
+ * page size of the operating system. This way, a large page cache can be backed by huge pages, and will need far
+ * fewer TLB entries than when it is backed by ordinary pages.
+ * <p>
+ * The chunks can come from two places. Without a hugetlbfs directory, the chunks are allocated as ordinary memory, and
+ * it is up to the operating system to back them with transparent huge pages. On Linux this happens when
+ * {@code /sys/kernel/mm/transparent_hugepage/enabled} is set to {@code always}. With a hugetlbfs directory, the chunks
+ * are memory mapped from files in that directory, and are thereby guaranteed to be backed by huge pages. The huge pages
+ * must have been reserved up front, for instance through {@code /proc/sys/vm/nr_hugepages}. The files are deleted as
+ * soon as they have been mapped, so nothing is left behind in the directory if the process dies.
+ */
+public final class HugePageAllocator implements MemoryAllocator
+{
+    /**
+     * The size of the huge pages of the operating system.
+     */
+    private static final long HUGE_PAGE_SIZE = getLong( HugePageAllocator.class, "HUGE_PAGE_SIZE", mebiBytes( 2 ) );
+
+    /**
+     * The amount of memory, in bytes, to allocate in each chunk.
+     */
+    private static final long CHUNK_SIZE = getLong( HugePageAllocator.class, "CHUNK_SIZE", gibiBytes( 1 ) );
+
+    /**
+     * The largest chunk we can memory map. Larger allocations are allocated as ordinary memory.
+     */
+    private static final long MAX_MAPPED_CHUNK_SIZE = Integer.MAX_VALUE - Integer.MAX_VALUE % HUGE_PAGE_SIZE;
+
+    private final File hugeTlbFsDirectory;
+    private final MemoryAllocationTracker memoryTracker;
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /**
+     * The amount of memory that this memory manager can still allocate.
+     */
+    private long memoryReserve;
+    private Chunk current;
+
+    /**
+     * Create a new HugePageAllocator.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate.
+     * @param hugeTlbFsDirectory A directory on a hugetlbfs mount to map the memory from, or {@code null} to rely on
+     * transparent huge pages.
+     * @param memoryTracker memory usage tracker
+     */
+    HugePageAllocator( long expectedMaxMemory, File hugeTlbFsDirectory, MemoryAllocationTracker memoryTracker )
+    {
+        this.memoryReserve = expectedMaxMemory;
+        this.hugeTlbFsDirectory = hugeTlbFsDirectory;
+        this.memoryTracker = memoryTracker;
+    }
+
+    @Override
+    public synchronized long usedMemory()
+    {
+        long sum = 0;
+        for ( Chunk chunk : chunks )
+        {
+            sum += chunk.nextPointer - chunk.address;
+        }
+        return sum;
+    }
+
+    @Override
+    public synchronized long availableMemory()
+    {
+        return Math.max( memoryReserve, 0L );
+    }
+
+    @Override
+    public synchronized long allocateAligned( long bytes, long alignment )
+    {
+        if ( alignment <= 0 )
+        {
+            throw new IllegalArgumentException( "Invalid alignment: " + alignment + ". Alignment must be positive." );
+        }
+        Chunk chunk = current;
+        if ( chunk == null || !chunk.canAllocate( bytes, alignment ) )
+        {
+            // Make room for alignment padding, in case the chunk does not happen to start at a suitable boundary.
+            long required = bytes + alignment;
+            if ( required > CHUNK_SIZE )
+            {
+                // This is a huge allocation. Give it a chunk of its own, and keep allocating from the current chunk.
+                chunk = newChunk( required );
+            }
+            else
+            {
+                chunk = newChunk( Math.max( required, Math.min( CHUNK_SIZE, memoryReserve ) ) );
+                current = chunk;
+            }
+        }
+        long usedBefore = chunk.nextPointer;
+        long allocation = chunk.allocate( bytes, alignment );
+        memoryReserve -= chunk.nextPointer - usedBefore;
+        return allocation;
+    }
+
+    private static long roundUpToHugePage( long size )
+    {
+        long remainder = size % HUGE_PAGE_SIZE;
+        return remainder == 0 ? size : size + HUGE_PAGE_SIZE - remainder;
+    }
+
+    private Chunk newChunk( long size )
+    {
+        Chunk chunk;
+        if ( size < HUGE_PAGE_SIZE )
+        {
+            // Too small to benefit from huge pages anyway.
+            chunk = AllocatedChunk.allocate( size, false, memoryTracker );
+        }
+        else
+        {
+            size = roundUpToHugePage( size );
+            chunk = hugeTlbFsDirectory != null && size <= MAX_MAPPED_CHUNK_SIZE
+                    ? new MappedChunk( hugeTlbFsDirectory, size, memoryTracker )
+                    : AllocatedChunk.allocate( size, true, memoryTracker );
+        }
+        chunks.add( chunk );
+        return chunk;
+    }
+
+    @Override
+    protected synchronized void finalize() throws Throwable
+    {
+        super.finalize();
+        for ( Chunk chunk : chunks )
+        {
+            chunk.free();
+        }
+        chunks.clear();
+        current = null;
+    }
+
+    private abstract static class Chunk
+    {
+        final long address;
+        final long limit;
+        long nextPointer;
+
+        Chunk( long address, long size )
+        {
+            this.address = address;
+            this.limit = address + size;
+            this.nextPointer = address;
+        }
+
+        private long nextAligned( long pointer, long alignment )
+        {
+            long off = pointer % alignment;
+            return off == 0 ? pointer : pointer + (alignment - off);
+        }
+
+        long allocate( long bytes, long alignment )
+        {
+            long allocation = nextAligned( nextPointer, alignment );
+            nextPointer = allocation + bytes;
+            return allocation;
+        }
+
+        boolean canAllocate( long bytes, long alignment )
+        {
+            return nextAligned( nextPointer, alignment ) + bytes <= limit;
+        }
+
+        abstract void free();
+    }
+
+    /**
+     * A chunk of ordinary memory. Transparent huge pages can only back memory that covers whole, aligned huge pages, so
+     * for huge page aligned chunks we allocate a huge page more than we need, and skip ahead to the first huge page
+     * boundary.
+     */
+    private static final class AllocatedChunk extends Chunk
+    {
+        private final long rawAddress;
+        private final long rawSize;
+        private final MemoryAllocationTracker memoryTracker;
+
+        private AllocatedChunk( long rawAddress, long rawSize, long address, long size,
+                MemoryAllocationTracker memoryTracker )
+        {
+            super( address, size );
+            this.rawAddress = rawAddress;
+            this.rawSize = rawSize;
+            this.memoryTracker = memoryTracker;
+        }
+
+        static AllocatedChunk allocate( long size, boolean hugePageAligned, MemoryAllocationTracker memoryTracker )
+        {
+            long rawSize = hugePageAligned ? size + HUGE_PAGE_SIZE : size;
+            long rawAddress = UnsafeUtil.allocateMemory( rawSize, memoryTracker );
+            long address = hugePageAligned ? roundUpToHugePage( rawAddress ) : rawAddress;
+            return new AllocatedChunk( rawAddress, rawSize, address, size, memoryTracker );
+        }
+
+        @Override
+        void free()
+        {
+            UnsafeUtil.free( rawAddress, rawSize, memoryTracker );
+        }
+    }
+
+    /**
+     * A chunk that is memory mapped from a file on a hugetlbfs mount. The kernel aligns such mappings to huge page
+     * boundaries on its own.
+     */
+    private static final class MappedChunk extends Chunk
+    {
+        private final MemoryAllocationTracker memoryTracker;
+        private MappedByteBuffer buffer;
+
+        MappedChunk( File directory, long size, MemoryAllocationTracker memoryTracker )
+        {
+            this( map( directory, size ), memoryTracker );
+        }
+
+        private MappedChunk( MappedByteBuffer buffer, MemoryAllocationTracker memoryTracker )
+        {
+            super( UnsafeUtil.getDirectByteBufferAddress( buffer ), buffer.capacity() );
+            this.buffer = buffer;
+            this.memoryTracker = memoryTracker;
+            memoryTracker.allocated( buffer.capacity() );
+        }
+
+        private static MappedByteBuffer map( File directory, long size )
+        {
+            File file = null;
+            try
+            {
+                file = File.createTempFile( "neo4j-memory", ".chunk", directory );
+                try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+                      FileChannel channel = raf.getChannel() )
+                {
+                    // The mapping stays valid after the channel is closed and the file is deleted.
+                    return channel.map( FileChannel.MapMode.READ_WRITE, 0, size );
+                }
+            }
+            catch ( IOException e )
+            {
+                OutOfMemoryError error = new OutOfMemoryError(
+                        "Could not map " + size + " bytes of memory from the hugetlbfs directory " + directory +
+                        ". Check that the directory is on a hugetlbfs mount, and that enough huge pages are " +
+                        "reserved." );
+                error.initCause( e );
+                throw error;
+            }
+            finally
+            {
+                if ( file != null )
+                {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+        }
+
+        @Override
+        void free()
+        {
+            if ( buffer != null )
+            {
+                // The memory is unmapped when the buffer is garbage collected.
+                memoryTracker.deallocated( buffer.capacity() );
+                buffer = null;
+            }
+        }
+    }
+}
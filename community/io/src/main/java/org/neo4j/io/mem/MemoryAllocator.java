@@ -19,6 +19,8 @@
  */
 package org.neo4j.io.mem;
 
+import java.io.File;
+
 import org.neo4j.io.ByteUnit;
 import org.neo4j.memory.MemoryAllocationTracker;
 
@@ -32,6 +34,26 @@ public interface MemoryAllocator
         return new GrabAllocator( ByteUnit.parse( expectedMemory ), memoryTracker );
     }
 
+    /**
+     * Create an allocator that hands out memory aligned to huge page boundaries, so the operating system can back it
+     * with transparent huge pages.
+     */
+    static MemoryAllocator createTransparentHugePageAllocator( String expectedMemory,
+            MemoryAllocationTracker memoryTracker )
+    {
+        return new HugePageAllocator( ByteUnit.parse( expectedMemory ), null, memoryTracker );
+    }
+
+    /**
+     * Create an allocator that memory maps its memory from files in the given directory, which must be on a hugetlbfs
+     * mount for the memory to be backed by huge pages.
+     */
+    static MemoryAllocator createHugeTlbFsAllocator( String expectedMemory, File hugeTlbFsDirectory,
+            MemoryAllocationTracker memoryTracker )
+    {
+        return new HugePageAllocator( ByteUnit.parse( expectedMemory ), hugeTlbFsDirectory, memoryTracker );
+    }
+
     /**
      * @return The sum, in bytes, of all the memory currently allocating through this allocator.
      */
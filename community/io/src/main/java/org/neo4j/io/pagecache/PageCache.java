@@ -111,6 +111,33 @@ public interface PageCache extends AutoCloseable
      */
     void flushAndForce( IOLimiter limiter ) throws IOException;
 
+    /**
+     * Write all dirty pages back to their files, but without forcing the files to the storage device, and limit the
+     * rate of IO as advised by the given {@link IOLimiter}. This can be used for writing back dirty pages in the
+     * background, such that a later {@link #flushAndForce(IOLimiter)} has less work to do. Implementations that
+     * cannot separate the writing from the forcing will also force the files.
+     *
+     * @param limiter The {@link IOLimiter} that determines if pauses or sleeps should be injected into the flushing
+     * process to keep the IO rate down.
+     */
+    default void flush( IOLimiter limiter ) throws IOException
+    {
+        flushAndForce( limiter );
+    }
+
+    /**
+     * Count the pages that are dirty, i.e. the pages that a flush would currently have to write back. The pages are
+     * counted without taking any locks, so the count can be slightly off while pages are modified or flushed. Large
+     * page caches may estimate the count from a sample of their pages, rather than look at every page.
+     *
+     * @return the number, or estimated number, of dirty pages, or {@code -1} if this page cache doesn't know how many
+     * pages are dirty.
+     */
+    default long countDirtyPages()
+    {
+        return -1;
+    }
+
     /**
      * Close the page cache to prevent any future mapping of files.
      * This also releases any internal resources, including the {@link PageSwapperFactory} through its
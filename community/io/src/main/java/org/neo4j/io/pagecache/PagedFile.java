@@ -63,8 +63,12 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * Once the cursor observes that it is page faulting its way forward through the file, one page after the other,
+     * it will fault in a number of the following pages with a single vectored read, instead of faulting them one by
+     * one. This has no effect in combination with {@link #PF_NO_FAULT}.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. The methods {@link PageCursor#next()} and
      * {@link PageCursor#next(long)} will always return {@code true} for pages that are within the range of the file,
@@ -77,8 +81,14 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_FAULT = 1 << 4;
     /**
      * Do not update page access statistics.
+     * <p>
+     * Pages that are only ever accessed through transient cursors will look unused to the eviction algorithm, and will
+     * therefor be evicted before the pages that other cursors are using. Read cursors additionally put the pages they
+     * move away from straight back on the free-list, if the pages are clean and nobody else has used them since they
+     * were faulted in. This makes large scans cycle through a small number of pages, instead of pushing the working
+     * set out of the cache.
      */
-    int PF_TRANSIENT = 1 << 5; // TBD
+    int PF_TRANSIENT = 1 << 5;
     /**
      * Flush pages more aggressively, after they have been dirtied by a write cursor.
      */
@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static java.lang.String.format;
+
+/**
+ * A PageSwapper implementation that does its IO through an {@link AsynchronousFileChannel}.
+ * <p>
+ * The vectored reads and writes cover a range of consecutive file pages. The channel has no scatter/gather
+ * operations, so the range is split into runs of pages that are also consecutive in memory, and each run is transferred
+ * with a single IO straight to or from page memory. The IOs of all runs are submitted at once, and only then waited
+ * for, so they are performed in parallel by the bounded thread pool given by the {@link AsyncFilePageSwapperFactory}.
+ * <p>
+ * Unlike a {@link java.nio.channels.FileChannel}, the asynchronous channel is not closed when the thread waiting on it
+ * is interrupted. The interrupt is instead remembered, and raised again once the IO has completed, which also makes
+ * sure that the IO never writes into page memory after the page cache thinks it is done.
+ */
+public class AsyncFilePageSwapper implements PageSwapper
+{
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final int filePageSize;
+    private volatile PageEvictionCallback onEviction;
+    private final AsynchronousFileChannel channel;
+    private final AtomicLong fileSize;
+    private FileLock fileLock;
+
+    public AsyncFilePageSwapper(
+            File file,
+            FileSystemAbstraction fs,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            ExecutorService ioExecutor ) throws IOException
+    {
+        this.fs = fs;
+        this.file = file;
+        this.filePageSize = filePageSize;
+        this.onEviction = onEviction;
+        this.channel = AsynchronousFileChannel.open( file.toPath(),
+                EnumSet.of( StandardOpenOption.READ, StandardOpenOption.WRITE ), ioExecutor );
+        this.fileSize = new AtomicLong( channel.size() );
+
+        try
+        {
+            acquireLock();
+        }
+        catch ( IOException e )
+        {
+            try
+            {
+                channel.close();
+            }
+            catch ( IOException closeException )
+            {
+                e.addSuppressed( closeException );
+            }
+            throw e;
+        }
+    }
+
+    private void acquireLock() throws IOException
+    {
+        if ( SystemUtils.IS_OS_WINDOWS )
+        {
+            // See SingleFilePageSwapper.acquireLock() for why we don't lock store files on Windows.
+            return;
+        }
+
+        try
+        {
+            fileLock = channel.tryLock();
+            if ( fileLock == null )
+            {
+                throw new FileLockException( file );
+            }
+        }
+        catch ( OverlappingFileLockException e )
+        {
+            throw new FileLockException( file, e );
+        }
+    }
+
+    private void increaseFileSizeTo( long newFileSize )
+    {
+        long currentFileSize;
+        do
+        {
+            currentFileSize = fileSize.get();
+        }
+        while ( currentFileSize < newFileSize && !fileSize.compareAndSet( currentFileSize, newFileSize ) );
+    }
+
+    private long pageIdToPosition( long pageId ) throws IOException
+    {
+        if ( pageId < 0 )
+        {
+            throw new IOException( "Invalid file page id: " + pageId );
+        }
+        return filePageSize * pageId;
+    }
+
+    private long pageOffset( long startFileOffset, int index )
+    {
+        return startFileOffset + ((long) filePageSize) * index;
+    }
+
+    private static ByteBuffer buffer( long address, int size ) throws IOException
+    {
+        try
+        {
+            return UnsafeUtil.newDirectByteBuffer( address, size );
+        }
+        catch ( Exception e )
+        {
+            throw new IOException( e );
+        }
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( filePageId );
+        int readTotal = 0;
+        if ( fileOffset < fileSize.get() )
+        {
+            // Never read more than a file page, or the page would get the start of the next page in the file.
+            readTotal = readFully( bufferAddress, Math.min( bufferSize, filePageSize ), fileOffset );
+        }
+        UnsafeUtil.setMemory( bufferAddress + readTotal, bufferSize - readTotal, MuninnPageCache.ZERO_BYTE );
+        return readTotal;
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+            throws IOException
+    {
+        checkRange( bufferAddresses, arrayOffset, length );
+        long startFileOffset = pageIdToPosition( startFilePageId );
+        // Never read more than a file page into a page, or the page would get the start of the next page in the file.
+        int pageReadSize = Math.min( bufferSize, filePageSize );
+        long available = Math.max( 0, fileSize.get() - startFileOffset );
+        int pagesToRead = (int) Math.min( length, (available + filePageSize - 1) / filePageSize );
+
+        Run[] runs = runs( bufferAddresses, arrayOffset, pagesToRead, bufferSize, pageReadSize, startFileOffset );
+        submitAndAwait( runs, true );
+
+        long readTotal = 0;
+        int page = 0;
+        for ( Run run : runs )
+        {
+            for ( int i = 0; i < run.pages; i++, page++ )
+            {
+                int bytes = Math.max( 0, Math.min( pageReadSize, run.transferred - i * pageReadSize ) );
+                UnsafeUtil.setMemory( bufferAddresses[arrayOffset + page] + bytes, bufferSize - bytes,
+                        MuninnPageCache.ZERO_BYTE );
+            }
+            readTotal += run.transferred;
+        }
+        for ( ; page < length; page++ )
+        {
+            UnsafeUtil.setMemory( bufferAddresses[arrayOffset + page], bufferSize, MuninnPageCache.ZERO_BYTE );
+        }
+        return readTotal;
+    }
+
+    private int readFully( long address, int size, long fileOffset ) throws IOException
+    {
+        ByteBuffer buffer = buffer( address, size );
+        int readTotal = 0;
+        int bytes;
+        do
+        {
+            bytes = await( channel.read( buffer, fileOffset + readTotal ) );
+        }
+        while ( bytes != -1 && (readTotal += bytes) < size );
+        return readTotal;
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( filePageId );
+        increaseFileSizeTo( fileOffset + filePageSize );
+        return writeFully( bufferAddress, filePageSize, fileOffset );
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        checkRange( bufferAddresses, arrayOffset, length );
+        long startFileOffset = pageIdToPosition( startFilePageId );
+        increaseFileSizeTo( startFileOffset + ((long) filePageSize) * length );
+
+        Run[] runs = runs( bufferAddresses, arrayOffset, length, filePageSize, filePageSize, startFileOffset );
+        submitAndAwait( runs, false );
+
+        long writtenTotal = 0;
+        for ( Run run : runs )
+        {
+            writtenTotal += run.transferred;
+        }
+        return writtenTotal;
+    }
+
+    private int writeFully( long address, int size, long fileOffset ) throws IOException
+    {
+        ByteBuffer buffer = buffer( address, size );
+        int writtenTotal = 0;
+        while ( writtenTotal < size )
+        {
+            writtenTotal += await( channel.write( buffer, fileOffset + writtenTotal ) );
+        }
+        return writtenTotal;
+    }
+
+    /**
+     * Splits the given pages, which are consecutive in the file, into runs of pages that are also consecutive in
+     * memory, so that each run can be transferred with a single IO straight to or from page memory.
+     *
+     * @param bufferSize the size of each page in memory.
+     * @param transferSize the number of bytes to transfer to or from each page.
+     */
+    private Run[] runs( long[] bufferAddresses, int arrayOffset, int length, int bufferSize, int transferSize,
+            long startFileOffset ) throws IOException
+    {
+        int runCount = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( i == 0 || !continuesRun( bufferAddresses, arrayOffset + i, bufferSize, transferSize ) )
+            {
+                runCount++;
+            }
+        }
+
+        Run[] runs = new Run[runCount];
+        int run = -1;
+        int runStart = 0;
+        for ( int i = 0; i <= length; i++ )
+        {
+            if ( i == length || i == 0 || !continuesRun( bufferAddresses, arrayOffset + i, bufferSize, transferSize ) )
+            {
+                if ( run >= 0 )
+                {
+                    int pages = i - runStart;
+                    runs[run] = new Run( buffer( bufferAddresses[arrayOffset + runStart], pages * transferSize ),
+                            pageOffset( startFileOffset, runStart ), pages );
+                }
+                run++;
+                runStart = i;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * A page continues the run of the page before it, if it follows it directly both in memory and in the file.
+     */
+    private boolean continuesRun( long[] bufferAddresses, int index, int bufferSize, int transferSize )
+    {
+        return bufferSize == filePageSize && transferSize == filePageSize &&
+               bufferAddresses[index] == bufferAddresses[index - 1] + filePageSize;
+    }
+
+    /**
+     * Submit the IO of every run at once, and then wait for all of them. Every submitted IO is waited for, even when
+     * some of them fail, because they transfer straight to or from page memory.
+     */
+    private void submitAndAwait( Run[] runs, boolean read ) throws IOException
+    {
+        IOException failure = null;
+        try
+        {
+            for ( Run run : runs )
+            {
+                run.submit( channel, read );
+            }
+        }
+        finally
+        {
+            for ( Run run : runs )
+            {
+                try
+                {
+                    run.await( channel, read );
+                }
+                catch ( IOException e )
+                {
+                    if ( failure == null )
+                    {
+                        failure = e;
+                    }
+                    else
+                    {
+                        failure.addSuppressed( e );
+                    }
+                }
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Pages that are consecutive both in the file and in memory, and which are transferred with a single IO.
+     */
+    private static final class Run
+    {
+        private final ByteBuffer buffer;
+        private final long fileOffset;
+        private final int pages;
+        private Future<Integer> io;
+        private int transferred;
+
+        Run( ByteBuffer buffer, long fileOffset, int pages )
+        {
+            this.buffer = buffer;
+            this.fileOffset = fileOffset;
+            this.pages = pages;
+        }
+
+        void submit( AsynchronousFileChannel channel, boolean read )
+        {
+            long position = fileOffset + transferred;
+            io = read ? channel.read( buffer, position ) : channel.write( buffer, position );
+        }
+
+        /**
+         * Wait for the submitted IO, if any, and resubmit the rest of the run after a short transfer, until the whole
+         * run is transferred or a read reaches the end of the file.
+         */
+        void await( AsynchronousFileChannel channel, boolean read ) throws IOException
+        {
+            while ( io != null )
+            {
+                int bytes = AsyncFilePageSwapper.await( io );
+                io = null;
+                if ( bytes != -1 )
+                {
+                    transferred += bytes;
+                    if ( buffer.hasRemaining() )
+                    {
+                        submit( channel, read );
+                    }
+                }
+            }
+        }
+    }
+
+    private static void checkRange( long[] bufferAddresses, int arrayOffset, int length )
+    {
+        if ( arrayOffset < 0 || length < 0 || arrayOffset + length > bufferAddresses.length ||
+             (length > 0 && arrayOffset >= bufferAddresses.length) )
+        {
+            throw new ArrayIndexOutOfBoundsException( format(
+                    "Array offset %s and length %s are out of bounds for array of length %s",
+                    arrayOffset, length, bufferAddresses.length ) );
+        }
+    }
+
+    /**
+     * Wait for the given IO to complete, without letting an interrupt cut the wait short. The IO writes directly to
+     * or from page memory, so we cannot return before it is done. The interrupt status is restored afterwards.
+     */
+    private static int await( Future<Integer> io ) throws IOException
+    {
+        boolean interrupted = false;
+        try
+        {
+            for ( ;; )
+            {
+                try
+                {
+                    return io.get();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+                catch ( ExecutionException e )
+                {
+                    Throwable cause = e.getCause();
+                    if ( cause instanceof IOException )
+                    {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException( cause );
+                }
+            }
+        }
+        finally
+        {
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void evicted( long filePageId )
+    {
+        PageEvictionCallback callback = this.onEviction;
+        if ( callback != null )
+        {
+            callback.onEvict( filePageId );
+        }
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        try
+        {
+            channel.close();
+        }
+        finally
+        {
+            // See SingleFilePageSwapper.close() for why we eagerly drop the callback.
+            onEviction = null;
+        }
+    }
+
+    @Override
+    public synchronized void closeAndDelete() throws IOException
+    {
+        close();
+        fs.deleteFile( file );
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        channel.force( false );
+    }
+
+    @Override
+    public long getLastPageId()
+    {
+        long channelSize = fileSize.get();
+        if ( channelSize == 0 )
+        {
+            return PageCursor.UNBOUND_PAGE_ID;
+        }
+        long div = channelSize / filePageSize;
+        long mod = channelSize % filePageSize;
+        return mod == 0 ? div - 1 : div;
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        fileSize.set( 0 );
+        channel.truncate( 0 );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+
+        AsyncFilePageSwapper that = (AsyncFilePageSwapper) o;
+
+        return file.equals( that.file );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return file.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AsyncFilePageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", file=" + file +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * A factory for AsyncFilePageSwapper instances.
+ * <p>
+ * All the swappers created by this factory share a bounded pool of IO threads, which bounds the number of IO
+ * operations that can be in flight at the same time. This factory is selected by configuring the page cache swapper
+ * as {@code async}.
+ * <p>
+ * The asynchronous file channels bypass the {@link FileSystemAbstraction}, so they can only be used with the real file
+ * system. If this factory is opened with any other file system, then it will create {@link SingleFilePageSwapper}
+ * instances instead.
+ *
+ * @see org.neo4j.io.pagecache.impl.AsyncFilePageSwapper
+ */
+public class AsyncFilePageSwapperFactory implements PageSwapperFactory
+{
+    private static final int ioThreads = getInteger(
+            AsyncFilePageSwapperFactory.class, "ioThreads", Runtime.getRuntime().availableProcessors() * 2 );
+
+    private FileSystemAbstraction fs;
+    private ExecutorService ioExecutor;
+
+    @Override
+    public void open( FileSystemAbstraction fs, Configuration config )
+    {
+        this.fs = fs;
+        if ( fs.getClass() == DefaultFileSystemAbstraction.class )
+        {
+            this.ioExecutor = createIoExecutor( ioThreads );
+        }
+    }
+
+    private static ExecutorService createIoExecutor( int threads )
+    {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable ->
+        {
+            Thread thread = new Thread( runnable, "PageCacheIO-" + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        executor.allowCoreThreadTimeOut( true );
+        return executor;
+    }
+
+    @Override
+    public FileSystemAbstraction getFileSystemAbstraction()
+    {
+        return fs;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist ) throws IOException
+    {
+        if ( !fs.fileExists( file ) )
+        {
+            if ( createIfNotExist )
+            {
+                fs.create( file ).close();
+            }
+            else
+            {
+                throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
+            }
+        }
+        if ( ioExecutor == null )
+        {
+            return new SingleFilePageSwapper( file, fs, filePageSize, onEviction );
+        }
+        return new AsyncFilePageSwapper( file, fs, filePageSize, onEviction, ioExecutor );
+    }
+
+    @Override
+    public void syncDevice()
+    {
+        // Nothing do to, since we `fsync` files individually in `force()`.
+    }
+
+    @Override
+    public void close()
+    {
+        if ( ioExecutor != null )
+        {
+            ioExecutor.shutdown();
+            ioExecutor = null;
+        }
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "async";
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return 1;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * An eviction policy decides how long a page gets to stay in the page cache, relative to the other pages.
+ * <p>
+ * The page cache evicts pages with a CLOCK sweep: every page has a small usage count, which is incremented when the
+ * page is accessed, and decremented when the eviction sweep passes the page. The sweep evicts the pages whose usage
+ * count runs out. This only takes into account the accesses that happen while a page is in memory. Everything we
+ * knew about a page is forgotten when it is evicted. The eviction policy can bring in that history, by deciding the
+ * usage count that a page starts out with when it is faulted in.
+ * <p>
+ * The policy is told about every page fault, and about every access that increments the usage count of a page, by
+ * the threads doing the accesses, so it must be thread-safe and cheap. Anything more expensive belongs in
+ * {@link #maintenance()}, which is called by the eviction threads.
+ */
+public interface EvictionPolicy
+{
+    /**
+     * Creates eviction policies for page caches.
+     */
+    interface Factory
+    {
+        /**
+         * Create an eviction policy for a page cache with the given number of cache pages.
+         */
+        EvictionPolicy create( int cachePages );
+    }
+
+    /**
+     * Plain CLOCK, where all faulted pages start out the same.
+     */
+    Factory CLOCK = cachePages -> pageKey -> 0;
+
+    /**
+     * A frequency aware policy, in the style of TinyLFU. It estimates how often each page has been accessed recently,
+     * also across the times it was evicted, and gives frequently accessed pages a higher starting usage count when
+     * they are faulted in. Pages that are only accessed once, for instance by a large scan, get no such head start,
+     * and are evicted first.
+     */
+    Factory TINY_LFU = TinyLfuEvictionPolicy::new;
+
+    /**
+     * Get the eviction policy factory with the given name, which is either "clock" or "tinylfu".
+     */
+    static Factory byName( String name )
+    {
+        switch ( name.toLowerCase() )
+        {
+        case "clock":
+            return CLOCK;
+        case "tinylfu":
+            return TINY_LFU;
+        default:
+            throw new IllegalArgumentException( "Unknown eviction policy: " + name );
+        }
+    }
+
+    /**
+     * Called when the page with the given key has been faulted into the page cache.
+     *
+     * @param pageKey identifies the file page, by combining the file page id and the id of the file.
+     * @return the usage count to give the page, on top of the usage of the access that faulted it in. The page cache
+     * caps the usage count at its maximum.
+     */
+    int admit( long pageKey );
+
+    /**
+     * Called when the page with the given key is accessed, and its usage count is incremented. Accesses to pages whose
+     * usage count is already at its maximum are not reported.
+     *
+     * @param pageKey identifies the file page, like in {@link #admit(long)}.
+     */
+    default void accessed( long pageKey )
+    {
+    }
+
+    /**
+     * Called regularly by the eviction threads, whether they are evicting pages or not, so the policy can do its
+     * housekeeping away from the threads accessing pages. May be called by several eviction threads at the same time.
+     */
+    default void maintenance()
+    {
+    }
+}
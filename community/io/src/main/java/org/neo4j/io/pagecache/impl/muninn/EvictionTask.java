@@ -20,22 +20,44 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 /**
- * This Runnable runs the eviction algorithm. Only one is expected for each page cache.
+ * This Runnable runs the eviction algorithm. A page cache has one of these for each of its eviction threads, and each
+ * of them sweep their own partition of the page list, given by the {@code partitionStart} (inclusive) and
+ * {@code partitionEnd} (exclusive) page ids.
  *
  * Interrupting the thread running this runnable, will be interpreted as a shutdown signal.
  *
- * @see MuninnPageCache#continuouslySweepPages()
+ * @see MuninnPageCache#continuouslySweepPages(EvictionTask)
  */
 final class EvictionTask extends BackgroundTask
 {
-    EvictionTask( MuninnPageCache pageCache )
+    final int evictorId;
+    final int partitionStart;
+    final int partitionEnd;
+
+    // The thread that runs this eviction task. We unpark this when we've run out of free pages to grab.
+    volatile Thread evictionThread;
+    // True if the eviction thread is currently parked, without someone having signalled it to wake up. This is used as
+    // a weak guard for unparking the eviction thread, because calling unpark too much (from many page faulting
+    // threads) can cause contention on the locks protecting that threads scheduling meta-data in the OS kernel.
+    volatile boolean parked;
+
+    EvictionTask( MuninnPageCache pageCache, int evictorId, int partitionStart, int partitionEnd )
     {
         super( pageCache );
+        this.evictorId = evictorId;
+        this.partitionStart = partitionStart;
+        this.partitionEnd = partitionEnd;
+    }
+
+    @Override
+    protected String taskName()
+    {
+        return super.taskName() + "-" + evictorId;
     }
 
     @Override
     protected void run( MuninnPageCache pageCache )
     {
-        pageCache.continuouslySweepPages();
+        pageCache.continuouslySweepPages( this );
     }
 }
@@ -19,38 +19,25 @@
  */
 package org.neo4j.io.pagecache.impl.muninn;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
- * A free page in the MuninnPageCache.freelist.
+ * A free page in one of the stripes of the {@link StripedFreelist}.
  *
- * The next pointers are always other FreePage instances.
+ * The next pointers are always other FreePage instances, or null at the bottom of the stack.
  */
 final class FreePage
 {
     final long pageRef;
     int count;
-    Object next;
+    FreePage next;
 
     FreePage( long pageRef )
     {
         this.pageRef = pageRef;
     }
 
-    void setNext( Object next )
+    void setNext( FreePage next )
     {
         this.next = next;
-        if ( next == null )
-        {
-            count = 1;
-        }
-        else if ( next.getClass() == AtomicInteger.class )
-        {
-            count = 1 + ((AtomicInteger) next).get();
-        }
-        else
-        {
-            this.count = 1 + ((FreePage) next).count;
-        }
+        this.count = next == null ? 1 : 1 + next.count;
     }
 }
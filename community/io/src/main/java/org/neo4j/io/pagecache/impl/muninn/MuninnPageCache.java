@@ -27,6 +27,7 @@ import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -44,7 +45,6 @@ import org.neo4j.io.pagecache.PageCacheOpenOptions;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
-import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
@@ -121,6 +121,21 @@ public class MuninnPageCache implements PageCache
     private static final int pagesToKeepFree = getInteger(
             MuninnPageCache.class, "pagesToKeepFree", 30 );
 
+    // The number of background eviction threads to use, when none is given to the constructor. Each eviction thread
+    // sweeps its own partition of the page list with its own clock arm.
+    private static final int defaultEvictionThreads = getInteger(
+            MuninnPageCache.class, "evictionThreads", 1 );
+
+    // The number of stripes in the freelist. Page faulting threads are spread over the stripes, so they don't all have
+    // to CAS the same stack head. This is rounded up to the nearest power of two.
+    private static final int freelistStripes = getInteger(
+            MuninnPageCache.class, "freelistStripes", Runtime.getRuntime().availableProcessors() );
+
+    // The number of pages that countDirtyPages looks at. Caches with more pages than this get their dirty pages
+    // estimated from an evenly spread sample, so the cost of counting doesn't grow with the size of the cache.
+    private static final int dirtyPageCountSampleSize = getInteger(
+            MuninnPageCache.class, "dirtyPageCountSampleSize", 4096 );
+
     // This is how many times that, during cooperative eviction, we'll iterate through the entire set of pages looking
     // for a page to evict, before we give up and throw CacheLiveLockException. This MUST be greater than 1.
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
@@ -135,7 +150,7 @@ public class MuninnPageCache implements PageCache
     private static final long freelistOffset =
             UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
 
-    // This is used as a poison-pill signal in the freelist, to inform any
+    // This is used as a poison-pill signal in the freelist field, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
     // down.
@@ -162,6 +177,7 @@ public class MuninnPageCache implements PageCache
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
     private final int keepFree;
+    private final EvictionTask[] evictionTasks;
     private final PageCacheTracer pageCacheTracer;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
     private final VersionContextSupplier versionContextSupplier;
@@ -171,27 +187,19 @@ public class MuninnPageCache implements PageCache
     // accesses to take place without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of FreePage objects, or an AtomicInteger, or null.
+    // The freelist field is an AtomicInteger, or null, or the shutdownSignal.
     // Initially, the field is an AtomicInteger that counts from zero to the max page count, at which point all of the
-    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction thread
-    // to start its work. From that point on, the field will operate as a concurrent stack of FreePage objects. The
-    // eviction thread pushes newly freed FreePage objects onto the stack, and page faulting threads pops FreePage
-    // objects from the stack. The FreePage objects are single-use, to avoid running into the ABA-problem.
+    // pages have been put in use. Once this happens, the field is set to null to allow the background eviction threads
+    // to start their work. From that point on, the free pages are found in the freePages stripes. The eviction threads
+    // push newly freed pages onto the stripes, and page faulting threads pop them from the stripes, starting with the
+    // stripe picked by their thread id. When the page cache shuts down, the field is set to the shutdownSignal.
     @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
     private volatile Object freelist;
+    private final StripedFreelist freePages;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
@@ -258,6 +266,54 @@ public class MuninnPageCache implements PageCache
         this( swapperFactory, memoryAllocator, PAGE_SIZE, pageCacheTracer, pageCursorTracerSupplier, versionContextSupplier );
     }
 
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide
+     *        access to thread local version context
+     * @param evictionThreads the number of background eviction threads, each sweeping its own partition of the pages
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            int evictionThreads )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, evictionThreads, EvictionPolicy.CLOCK, pageCacheTracer,
+                pageCursorTracerSupplier, versionContextSupplier );
+    }
+
+    /**
+     * Create page cache.
+     * @param swapperFactory page cache swapper factory
+     * @param memoryAllocator the source of native memory the page cache should use
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param versionContextSupplier supplier of thread local (transaction local) version context that will provide
+     *        access to thread local version context
+     * @param evictionThreads the number of background eviction threads, each sweeping its own partition of the pages
+     * @param evictionPolicyFactory creates the policy that decides how long the faulted pages get to stay in memory
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier,
+            int evictionThreads,
+            EvictionPolicy.Factory evictionPolicyFactory )
+    {
+        this( swapperFactory, memoryAllocator, PAGE_SIZE, evictionThreads, evictionPolicyFactory, pageCacheTracer,
+                pageCursorTracerSupplier, versionContextSupplier );
+    }
+
     /**
      * Constructor variant that allows setting a non-standard cache page size.
      * Only ever use this for testing.
@@ -271,8 +327,23 @@ public class MuninnPageCache implements PageCache
             PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier,
             VersionContextSupplier versionContextSupplier )
+    {
+        this( swapperFactory, memoryAllocator, cachePageSize, defaultEvictionThreads, EvictionPolicy.CLOCK,
+                pageCacheTracer, pageCursorTracerSupplier, versionContextSupplier );
+    }
+
+    private MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            MemoryAllocator memoryAllocator,
+            int cachePageSize,
+            int evictionThreads,
+            EvictionPolicy.Factory evictionPolicyFactory,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            VersionContextSupplier versionContextSupplier )
     {
         verifyHacks();
+        verifyEvictionThreadCount( evictionThreads );
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
         int maxPages = calculatePageCount( memoryAllocator, cachePageSize );
 
@@ -283,18 +354,38 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
+        // Every eviction thread sweeps a partition of at least one page, and each of them wants to stay a bit ahead.
+        int evictorCount = Math.min( evictionThreads, maxPages );
+        this.keepFree = Math.min( pagesToKeepFree * evictorCount, maxPages / 2 );
         this.pageCacheTracer = pageCacheTracer;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.versionContextSupplier = versionContextSupplier;
         this.printExceptionsOnClose = true;
         long alignment = swapperFactory.getRequiredBufferAlignment();
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize, memoryTracker );
-        this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment );
+        this.pages = new PageList( maxPages, cachePageSize, memoryAllocator, new SwapperSet(), victimPage, alignment,
+                evictionPolicyFactory.create( maxPages ) );
+        this.freePages = new StripedFreelist( freelistStripes );
+        this.evictionTasks = new EvictionTask[evictorCount];
+        for ( int i = 0; i < evictorCount; i++ )
+        {
+            int partitionStart = (int) ((long) maxPages * i / evictorCount);
+            int partitionEnd = (int) ((long) maxPages * (i + 1) / evictorCount);
+            evictionTasks[i] = new EvictionTask( this, i, partitionStart, partitionEnd );
+        }
 
         setFreelistHead( new AtomicInteger() );
     }
 
+    private static void verifyEvictionThreadCount( int evictionThreads )
+    {
+        if ( evictionThreads < 1 )
+        {
+            throw new IllegalArgumentException(
+                    "The page cache needs at least one eviction thread, but " + evictionThreads + " was requested." );
+        }
+    }
+
     private static void verifyHacks()
     {
         // Make sure that we have access to theUnsafe.
@@ -418,6 +509,7 @@ public class MuninnPageCache implements PageCache
         current.next = mappedFiles;
         mappedFiles = current;
         pageCacheTracer.mappedFile( file );
+        pageCacheTracer.addPagedFileCounters( pagedFile.counters );
         return pagedFile;
     }
 
@@ -488,7 +580,10 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            for ( EvictionTask evictionTask : evictionTasks )
+            {
+                backgroundThreadExecutor.execute( evictionTask );
+            }
         }
         catch ( Exception e )
         {
@@ -527,6 +622,7 @@ public class MuninnPageCache implements PageCache
                         prev.next = current.next;
                     }
                     pageCacheTracer.unmappedFile( current.file );
+                    pageCacheTracer.removePagedFileCounters( file.counters );
                     flushAndCloseWithoutFail( file );
                     break;
                 }
@@ -586,11 +682,27 @@ public class MuninnPageCache implements PageCache
         }
         assertNotClosed();
         List<PagedFile> files = listExistingMappings();
-        flushAllPages( files, limiter );
+        // Each file is written in file page order, so flushing the files in path order makes the write-back of the
+        // whole cache proceed in file and offset order.
+        files.sort( Comparator.comparing( PagedFile::file ) );
+        flushAllPages( files, limiter, true );
         clearEvictorException();
     }
 
-    private void flushAllPages( List<PagedFile> files, IOLimiter limiter ) throws IOException
+    @Override
+    public void flush( IOLimiter limiter ) throws IOException
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOLimiter cannot be null" );
+        }
+        assertNotClosed();
+        List<PagedFile> files = listExistingMappings();
+        files.sort( Comparator.comparing( PagedFile::file ) );
+        flushAllPages( files, limiter, false );
+    }
+
+    private void flushAllPages( List<PagedFile> files, IOLimiter limiter, boolean force ) throws IOException
     {
         try ( MajorFlushEvent cacheFlush = pageCacheTracer.beginCacheFlush() )
         {
@@ -599,8 +711,7 @@ public class MuninnPageCache implements PageCache
                 MuninnPagedFile muninnPagedFile = (MuninnPagedFile) file;
                 try ( MajorFlushEvent fileFlush = pageCacheTracer.beginFileFlush( muninnPagedFile.swapper ) )
                 {
-                    FlushEventOpportunity flushOpportunity = fileFlush.flushEventOpportunity();
-                    muninnPagedFile.flushAndForceInternal( flushOpportunity, false, limiter );
+                    muninnPagedFile.flushInternal( fileFlush, false, limiter, force );
                 }
                 catch ( ClosedChannelException e )
                 {
@@ -616,7 +727,10 @@ public class MuninnPageCache implements PageCache
                     // really matter how that happened. We'll ignore this exception.
                 }
             }
-            syncDevice();
+            if ( force )
+            {
+                syncDevice();
+            }
         }
     }
 
@@ -652,8 +766,11 @@ public class MuninnPageCache implements PageCache
 
         closed = true;
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( EvictionTask evictionTask : evictionTasks )
+        {
+            interrupt( evictionTask.evictionThread );
+            evictionTask.evictionThread = null;
+        }
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -704,6 +821,29 @@ public class MuninnPageCache implements PageCache
         return pages.getPageCount();
     }
 
+    @Override
+    public long countDirtyPages()
+    {
+        int pageCount = pages.getPageCount();
+        if ( pageCount == 0 )
+        {
+            return 0;
+        }
+        int stride = Math.max( 1, pageCount / Math.max( 1, dirtyPageCountSampleSize ) );
+        int pageId = stride == 1 ? 0 : ThreadLocalRandom.current().nextInt( stride );
+        long sampledPages = 0;
+        long dirtyPages = 0;
+        for ( ; pageId < pageCount; pageId += stride )
+        {
+            sampledPages++;
+            if ( pages.isModified( pages.deref( pageId ) ) )
+            {
+                dirtyPages++;
+            }
+        }
+        return stride == 1 ? dirtyPages : dirtyPages * pageCount / sampledPages;
+    }
+
     @Override
     public FileSystemAbstraction getCachedFileSystem()
     {
@@ -732,63 +872,58 @@ public class MuninnPageCache implements PageCache
     {
         // Review the comment on the freelist field before making changes to
         // this part of the code.
-        // Whatever the case, we're going to the head-pointer of the freelist,
-        // and in doing so, we can discover a number of things.
-        // We can discover a MuninnPage object, in which case we can try to
-        // CAS the freelist pointer to the value of the MuninnPage.nextFree
-        // pointer, and if this succeeds then we've grabbed that page.
-        // We can discover a FreePage object, in which case we'll do a similar
-        // dance by attempting to CAS the freelist to the FreePage objects next
-        // pointer, and again, if we succeed then we've grabbed the MuninnPage
-        // given by the FreePage object.
-        // We can discover a null-pointer, in which case the freelist has just
-        // been emptied for whatever it contained before. New FreePage objects
-        // are eventually going to be added to the freelist, but we are not
-        // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
-        // If we find a FreePage object on the freelist, then it is important
-        // to check and see if it is the shutdownSignal instance. If that's the
-        // case, then the page cache has been shut down, and we should throw an
-        // exception from our page fault routine.
+        // Whatever the case, we're going to look at the freelist field, and
+        // in doing so, we can discover a number of things.
+        // We can discover the shutdownSignal, in which case the page cache has
+        // been shut down, and we should throw an exception from our page fault
+        // routine.
+        // We can discover an AtomicInteger, in which case there are still
+        // pages that have never been used, and we take the next one by
+        // incrementing the counter. This is a single atomic increment, rather
+        // than a CAS loop, so warmup scales with the number of faulting
+        // threads.
+        // Otherwise, we try to pop a FreePage from the striped freelist,
+        // starting with the stripe that belongs to our thread.
+        // If the freelist is empty, then the stripes have just been emptied
+        // for whatever they contained before. New FreePage objects are
+        // eventually going to be added to the freelist, but we are not going
+        // to wait around for that to happen. If the freelist is empty, then
+        // we do our own eviction to get a free page.
         Object current;
         for (;;)
         {
             assertHealthy();
             current = getFreelistHead();
-            if ( current == null )
+            if ( current == shutdownSignal )
             {
-                unparkEvictor();
-                long pageRef = cooperativelyEvict( faultEvent );
-                if ( pageRef != 0 )
-                {
-                    return pageRef;
-                }
+                throw new IllegalStateException( "The PageCache has been shut down." );
             }
-            else if ( current instanceof AtomicInteger )
+            if ( current != null )
             {
                 int pageCount = pages.getPageCount();
                 AtomicInteger counter = (AtomicInteger) current;
-                int pageId = counter.get();
-                if ( pageId < pageCount && counter.compareAndSet( pageId, pageId + 1 ) )
+                int pageId = counter.getAndIncrement();
+                if ( pageId < pageCount )
                 {
                     return pages.deref( pageId );
                 }
-                if ( pageId >= pageCount )
-                {
-                    compareAndSetFreelistHead( current, null );
-                }
+                compareAndSetFreelistHead( current, null );
             }
-            else if ( current instanceof FreePage )
+
+            long pageRef = freePages.pop( (int) Thread.currentThread().getId() );
+            if ( pageRef != 0 )
             {
-                FreePage freePage = (FreePage) current;
-                if ( freePage == shutdownSignal )
-                {
-                    throw new IllegalStateException( "The PageCache has been shut down." );
-                }
+                return pageRef;
+            }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+            if ( current == null )
+            {
+                unparkEvictor();
+                pageRef = cooperativelyEvict( faultEvent );
+                if ( pageRef != 0 )
                 {
-                    return freePage.pageRef;
+                    pageCacheTracer.cooperativeEvictions( 1 );
+                    return pageRef;
                 }
             }
         }
@@ -804,7 +939,7 @@ public class MuninnPageCache implements PageCache
         do
         {
             assertHealthy();
-            if ( getFreelistHead() != null )
+            if ( getFreelistHead() != null || !freePages.isEmpty() )
             {
                 return 0;
             }
@@ -847,19 +982,22 @@ public class MuninnPageCache implements PageCache
 
     private void unparkEvictor()
     {
-        if ( evictorParked )
+        for ( EvictionTask evictionTask : evictionTasks )
         {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
+            if ( evictionTask.parked )
+            {
+                evictionTask.parked = false;
+                LockSupport.unpark( evictionTask.evictionThread );
+            }
         }
     }
 
-    private void parkEvictor( long parkNanos )
+    private void parkEvictor( EvictionTask evictionTask, long parkNanos )
     {
         // Only called from the background eviction thread!
-        evictorParked = true;
+        evictionTask.parked = true;
         LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
+        evictionTask.parked = false;
     }
 
     private Object getFreelistHead()
@@ -884,18 +1022,25 @@ public class MuninnPageCache implements PageCache
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
+     * <p>
+     * When there are multiple eviction threads, each of them only sweeps the
+     * pages in the partition of its given eviction task, and takes on its
+     * share of the pages that needs to be evicted.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( EvictionTask evictionTask )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        evictionTask.evictionThread = Thread.currentThread();
+        int clockArm = evictionTask.partitionStart;
+        int evictorCount = evictionTasks.length;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( evictionTask, keepFree );
+            pageCountToEvict = (pageCountToEvict + evictorCount - 1) / evictorCount;
             try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                clockArm = evictPages( pageCountToEvict, clockArm,
+                        evictionTask.partitionStart, evictionTask.partitionEnd, evictionRunEvent );
             }
         }
 
@@ -904,18 +1049,19 @@ public class MuninnPageCache implements PageCache
         setFreelistHead( shutdownSignal );
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( EvictionTask evictionTask, int keepFree )
     {
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            parkEvictor( evictionTask, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
+            pages.evictionPolicyMaintenance();
 
             int availablePages = tryGetNumberOfAvailablePages( keepFree );
             if ( availablePages != UNKNOWN_AVAILABLE_PAGES )
@@ -928,38 +1074,33 @@ public class MuninnPageCache implements PageCache
     private int tryGetNumberOfAvailablePages( int keepFree )
     {
         Object freelistHead = getFreelistHead();
+        long availablePages = freePages.count();
 
-        if ( freelistHead == null )
+        if ( freelistHead != null && freelistHead.getClass() == AtomicInteger.class )
         {
-            return keepFree;
-        }
-        else if ( freelistHead.getClass() == FreePage.class )
-        {
-            int availablePages = ((FreePage) freelistHead).count;
-            if ( availablePages < keepFree )
-            {
-                return keepFree - availablePages;
-            }
+            AtomicInteger counter = (AtomicInteger) freelistHead;
+            availablePages += Math.max( 0, pages.getPageCount() - counter.get() );
         }
-        else if ( freelistHead.getClass() == AtomicInteger.class )
+        if ( availablePages < keepFree )
         {
-            AtomicInteger counter = (AtomicInteger) freelistHead;
-            long count = pages.getPageCount() - counter.get();
-            if ( count < keepFree )
-            {
-                return count < 0 ? keepFree : (int) (keepFree - count);
-            }
+            return (int) (keepFree - availablePages);
         }
         return UNKNOWN_AVAILABLE_PAGES;
     }
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
+    {
+        return evictPages( pageCountToEvict, clockArm, 0, pages.getPageCount(), evictionRunEvent );
+    }
+
+    private int evictPages( int pageCountToEvict, int clockArm, int partitionStart, int partitionEnd,
+            EvictionRunEvent evictionRunEvent )
     {
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.getPageCount() )
+            if ( clockArm == partitionEnd )
             {
-                clockArm = 0;
+                clockArm = partitionStart;
             }
 
             if ( closed )
@@ -1003,18 +1144,9 @@ public class MuninnPageCache implements PageCache
 
     void addFreePageToFreelist( long pageRef )
     {
-        Object current;
-        FreePage freePage = new FreePage( pageRef );
-        do
-        {
-            current = getFreelistHead();
-            if ( current instanceof AtomicInteger && ((AtomicInteger) current).get() > pages.getPageCount() )
-            {
-                current = null;
-            }
-            freePage.setNext( current );
-        }
-        while ( !compareAndSetFreelistHead( current, freePage ) );
+        // Spread the freed pages over the stripes by their page id. The eviction threads sweep the pages in order,
+        // so this distributes them evenly.
+        freePages.push( pages.toId( pageRef ), pageRef );
     }
 
     void clearEvictorException()
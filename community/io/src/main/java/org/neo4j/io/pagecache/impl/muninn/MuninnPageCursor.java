@@ -38,9 +38,12 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.util.FeatureToggles.flag;
+import static org.neo4j.util.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -49,6 +52,10 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // The maximum number of pages that a PF_READ_AHEAD cursor will speculatively fault in with a single vectored read,
+    // once it has detected that it is scanning the file sequentially.
+    private static final int readAheadPages = getInteger( MuninnPageCursor.class, "readAheadPages", 32 );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -67,6 +74,16 @@ abstract class MuninnPageCursor extends PageCursor
     protected boolean eagerFlush;
     protected boolean noFault;
     protected boolean noGrow;
+    protected boolean readAhead;
+    protected boolean transientAccess;
+    // The file page id that a sequential scan would pin next. Faulting on this page triggers read-ahead.
+    private long readAheadNextPageId;
+    private long[] readAheadPageRefs;
+    private long[] readAheadBufferAddresses;
+    private LatchMap.Latch[] readAheadLatches;
+    // The hits and faults on the current paged file, that have not yet been added to its counters.
+    private long fileHits;
+    private long fileFaults;
     protected long currentPageId;
     protected long nextPageId;
     protected MuninnPageCursor linkedCursor;
@@ -101,6 +118,9 @@ abstract class MuninnPageCursor extends PageCursor
         this.eagerFlush = isFlagRaised( pf_flags, PF_EAGER_FLUSH );
         this.noFault = isFlagRaised( pf_flags, PF_NO_FAULT );
         this.noGrow = noFault | isFlagRaised( pf_flags, PagedFile.PF_NO_GROW );
+        this.readAhead = !noFault & readAheadPages > 1 & isFlagRaised( pf_flags, PF_READ_AHEAD );
+        this.readAheadNextPageId = UNBOUND_PAGE_ID;
+        this.transientAccess = isFlagRaised( pf_flags, PF_TRANSIENT );
     }
 
     private boolean isFlagRaised( int flagSet, int flag )
@@ -179,6 +199,9 @@ abstract class MuninnPageCursor extends PageCursor
         while ( cursor != null && cursor.pagedFile != null )
         {
             cursor.unpinCurrentPage();
+            cursor.pagedFile.counters.cursorClosed( cursor.fileHits, cursor.fileFaults );
+            cursor.fileHits = 0;
+            cursor.fileFaults = 0;
             // We null out the pagedFile field to allow it and its (potentially big) translation table to be garbage
             // collected when the file is unmapped, since the cursors can stick around in thread local caches, etc.
             cursor.pagedFile = null;
@@ -296,6 +319,11 @@ abstract class MuninnPageCursor extends PageCursor
                 {
                     pinCursorToPage( pageRef, filePageId, swapper );
                     pinEvent.hit();
+                    fileHits++;
+                    if ( readAhead & filePageId == readAheadNextPageId )
+                    {
+                        readAheadNextPageId++;
+                    }
                     return;
                 }
                 if ( locked )
@@ -313,6 +341,17 @@ abstract class MuninnPageCursor extends PageCursor
         }
     }
 
+    /**
+     * Bump the usage counter of the given page, unless this is a {@link PagedFile#PF_TRANSIENT} cursor.
+     */
+    protected final void incrementUsage( long pageRef )
+    {
+        if ( !transientAccess )
+        {
+            pagedFile.incrementUsage( pageRef );
+        }
+    }
+
     private int[][] expandTranslationTableCapacity( int chunkId )
     {
         return pagedFile.expandCapacity( chunkId );
@@ -339,6 +378,10 @@ abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                if ( readAhead )
+                {
+                    trackSequentialFault( filePageId );
+                }
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -406,9 +449,152 @@ abstract class MuninnPageCursor extends PageCursor
         convertPageFaultLock( pageRef );
         latch.release();
         faultEvent.done();
+        fileFaults++;
         return pageRef;
     }
 
+    private void trackSequentialFault( long filePageId ) throws IOException
+    {
+        if ( filePageId == readAheadNextPageId )
+        {
+            // We have faulted on the very page that a forward scan would visit next, so we are most likely scanning
+            // the file sequentially. Fault in the next bunch of pages in one go, before we need them.
+            readAheadNextPageId = filePageId + 1 + readAhead( filePageId + 1 );
+        }
+        else
+        {
+            readAheadNextPageId = filePageId + 1;
+        }
+    }
+
+    /**
+     * Speculatively fault in up to {@code readAheadPages} consecutive file pages, starting at the given file page id,
+     * with a single vectored read. The read-ahead stops early at the end of the file, at the first page that is
+     * already in memory, or at the first page that someone else is already faulting.
+     * <p>
+     * The pages are published to the translation table with a zero usage count, so they will be the first to go if
+     * nobody ends up pinning them. The pages are not pinned by this cursor.
+     *
+     * @param startFilePageId The first file page id to read ahead.
+     * @return The number of pages that were faulted in.
+     */
+    private int readAhead( long startFilePageId ) throws IOException
+    {
+        long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
+        int length = (int) Math.min( readAheadPages - 1, lastPageId - startFilePageId + 1 );
+        if ( length <= 0 )
+        {
+            return 0;
+        }
+        if ( readAheadLatches == null )
+        {
+            readAheadPageRefs = new long[readAheadPages];
+            readAheadBufferAddresses = new long[readAheadPages];
+            readAheadLatches = new LatchMap.Latch[readAheadPages];
+        }
+        long[] pageRefs = readAheadPageRefs;
+        LatchMap.Latch[] latches = readAheadLatches;
+
+        // First claim the fault latches for the run of unmapped pages. We never wait for a latch here, since we would
+        // then risk blocking on a page fault that is itself waiting for a free page.
+        int latched = 0;
+        while ( latched < length )
+        {
+            long filePageId = startFilePageId + latched;
+            LatchMap.Latch latch = null;
+            if ( lookupTranslationTableEntry( filePageId ) == UNMAPPED_TTE )
+            {
+                latch = pagedFile.pageFaultLatches.tryTakeLatch( filePageId );
+                if ( latch != null && lookupTranslationTableEntry( filePageId ) != UNMAPPED_TTE )
+                {
+                    latch.release();
+                    latch = null;
+                }
+            }
+            if ( latch == null )
+            {
+                break;
+            }
+            latches[latched] = latch;
+            latched++;
+        }
+        if ( latched == 0 )
+        {
+            return 0;
+        }
+
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        int grabbed = 0;
+        boolean faulted = false;
+        try
+        {
+            while ( grabbed < latched )
+            {
+                pageRefs[grabbed] = pagedFile.grabFreeAndExclusivelyLockedPage( faultEvent );
+                pagedFile.initBuffer( pageRefs[grabbed] );
+                grabbed++;
+            }
+            assertPagedFileStillMappedAndGetIdOfLastPage();
+            pagedFile.fault( pageRefs, readAheadBufferAddresses, latched, swapper, swapperId, startFilePageId,
+                    faultEvent );
+            faulted = true;
+        }
+        catch ( IOException e )
+        {
+            // Read-ahead is only a hint, so we don't fail the cursor because of it. If the problem persists, then the
+            // cursor will run into it again when it faults on those pages itself.
+            faultEvent.done( e );
+        }
+        finally
+        {
+            for ( int i = 0; i < latched; i++ )
+            {
+                if ( faulted )
+                {
+                    // Publish the page before releasing our exclusive lock. Same as in the regular page fault.
+                    long filePageId = startFilePageId + i;
+                    int[] chunk = pagedFile.translationTable[MuninnPagedFile.computeChunkId( filePageId )];
+                    long chunkOffset = MuninnPagedFile.computeChunkOffset( filePageId );
+                    UnsafeUtil.putIntVolatile( chunk, chunkOffset, pagedFile.toId( pageRefs[i] ) );
+                }
+                if ( i < grabbed )
+                {
+                    long pageRef = pageRefs[i];
+                    if ( faulted || pagedFile.isLoaded( pageRef ) )
+                    {
+                        // If the fault failed, then the eviction thread will pick up the unlocked page.
+                        pagedFile.unlockExclusive( pageRef );
+                    }
+                    else
+                    {
+                        // The page never got bound, so eviction won't find it. Give it back to the free-list directly.
+                        pagedFile.pageCache.addFreePageToFreelist( pageRef );
+                    }
+                }
+                latches[i].release();
+                latches[i] = null;
+            }
+        }
+        if ( faulted )
+        {
+            faultEvent.done();
+            fileFaults += latched;
+            return latched;
+        }
+        return 0;
+    }
+
+    private int lookupTranslationTableEntry( long filePageId )
+    {
+        int chunkId = MuninnPagedFile.computeChunkId( filePageId );
+        int[][] tt = pagedFile.translationTable;
+        if ( tt.length <= chunkId )
+        {
+            tt = expandTranslationTableCapacity( chunkId );
+        }
+        return UnsafeUtil.getIntVolatile( tt[chunkId], MuninnPagedFile.computeChunkOffset( filePageId ) );
+    }
+
     private void abortPageFault( Throwable throwable, int[] chunk, long chunkOffset,
                                  LatchMap.Latch latch,
                                  PageFaultEvent faultEvent )
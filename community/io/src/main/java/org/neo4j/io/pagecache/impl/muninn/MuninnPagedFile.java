@@ -45,12 +45,19 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static org.neo4j.util.FeatureToggles.getInteger;
+
 final class MuninnPagedFile extends PageList implements PagedFile, Flushable
 {
     static final int UNMAPPED_TTE = -1;
     private static final int translationTableChunkSizePower = Integer.getInteger(
             "org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.translationTableChunkSizePower", 12 );
     private static final int translationTableChunkSize = 1 << translationTableChunkSizePower;
+    /**
+     * The maximum number of clean, but loaded, pages that a flush will include in a write, in order to join two runs
+     * of dirty pages into a single larger write.
+     */
+    private static final int maxFlushGapPages = getInteger( MuninnPagedFile.class, "maxFlushGapPages", 8 );
     private static final long translationTableChunkSizeMask = translationTableChunkSize - 1;
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( int[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( int[].class );
@@ -67,6 +74,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     final int filePageSize;
     private final PageCacheTracer pageCacheTracer;
     final LatchMap pageFaultLatches;
+    final MuninnPagedFileCounters counters;
 
     // This is the table where we translate file-page-ids to cache-page-ids. Only one thread can perform a resize at
     // a time, and we ensure this mutual exclusion using the monitor lock on this MuninnPagedFile object.
@@ -129,6 +137,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         this.cursorFactory = new CursorFactory( this, pageCursorTracerSupplier, pageCacheTracer, versionContextSupplier );
         this.pageCacheTracer = pageCacheTracer;
         this.pageFaultLatches = new LatchMap();
+        this.counters = new MuninnPagedFileCounters( file, filePageSize );
 
         // The translation table is an array of arrays of integers that are either UNMAPPED_TTE, or the id of a page in
         // the page list. The table only grows the outer array, and all the inner "chunks" all stay the same size. This
@@ -286,7 +295,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         try ( MajorFlushEvent flushEvent = pageCacheTracer.beginFileFlush( swapper ) )
         {
-            flushAndForceInternal( flushEvent.flushEventOpportunity(), false, limiter );
+            flushAndForceInternal( flushEvent, false, limiter );
             syncDevice();
         }
         pageCache.clearEvictorException();
@@ -304,7 +313,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
         try ( MajorFlushEvent flushEvent = pageCacheTracer.beginFileFlush( swapper ) )
         {
-            flushAndForceInternal( flushEvent.flushEventOpportunity(), true, IOLimiter.unlimited() );
+            flushAndForceInternal( flushEvent, true, IOLimiter.unlimited() );
             syncDevice();
         }
         pageCache.clearEvictorException();
@@ -357,12 +366,26 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
     }
 
-    void flushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter )
+    void flushAndForceInternal( MajorFlushEvent flushEvent, boolean forClosing, IOLimiter limiter )
+            throws IOException
+    {
+        flushInternal( flushEvent, forClosing, limiter, true );
+    }
+
+    /**
+     * Write back all dirty pages of this file, and force the file to the storage device if {@code force} is set.
+     */
+    void flushInternal( MajorFlushEvent flushEvent, boolean forClosing, IOLimiter limiter, boolean force )
             throws IOException
     {
         try
         {
-            doFlushAndForceInternal( flushes, forClosing, limiter );
+            doFlushInternal( flushEvent, forClosing, limiter );
+            if ( force )
+            {
+                // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
+                swapper.force();
+            }
         }
         catch ( ClosedChannelException e )
         {
@@ -371,22 +394,22 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         }
     }
 
-    private void doFlushAndForceInternal( FlushEventOpportunity flushes, boolean forClosing, IOLimiter limiter )
+    private void doFlushInternal( MajorFlushEvent flushEvent, boolean forClosing, IOLimiter limiter )
             throws IOException
     {
-        // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
+        FlushEventOpportunity flushes = flushEvent.flushEventOpportunity();
         long[] pages = new long[translationTableChunkSize];
         long[] flushStamps = forClosing ? null : new long[translationTableChunkSize];
         long[] bufferAddresses = new long[translationTableChunkSize];
         long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
         long limiterStamp = IOLimiter.INITIAL_STAMP;
+        int pagesGrabbed = 0;
+        // The number of clean pages at the end of the vector. These pages are only there to bridge a gap between
+        // dirty pages, and will be left out of the write if no dirty page follows them.
+        int cleanPagesGrabbed = 0;
         int[][] tt = this.translationTable;
         for ( int[] chunk : tt )
         {
-            // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
-            // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
-            // TODO garbage to the file.
-            int pagesGrabbed = 0;
             chunkLoop:
             for ( int i = 0; i < chunk.length; i++ )
             {
@@ -402,7 +425,8 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                     {
                         long pageRef = deref( pageId );
                         long stamp = tryOptimisticReadLock( pageRef );
-                        if ( (!isModified( pageRef )) && validateReadLock( pageRef, stamp ) )
+                        boolean canBridgeGap = pagesGrabbed > 0 && cleanPagesGrabbed < maxFlushGapPages;
+                        if ( (!canBridgeGap) && (!isModified( pageRef )) && validateReadLock( pageRef, stamp ) )
                         {
                             break;
                         }
@@ -412,10 +436,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                         {
                             continue;
                         }
-                        if ( isBoundTo( pageRef, swapperId, filePageId ) && isModified( pageRef ) )
+                        if ( isBoundTo( pageRef, swapperId, filePageId ) && (canBridgeGap || isModified( pageRef )) )
                         {
                             // The page is still bound to the expected file and file page id after we locked it,
-                            // so we didn't race with eviction and faulting, and the page is dirty.
+                            // so we didn't race with eviction and faulting, and the page is either dirty, or a
+                            // loaded clean page that may let us write the next dirty page as part of this vector.
                             // So we add it to our IO vector.
                             pages[pagesGrabbed] = pageRef;
                             if ( !forClosing )
@@ -424,34 +449,65 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                             }
                             bufferAddresses[pagesGrabbed] = getAddress( pageRef );
                             pagesGrabbed++;
+                            cleanPagesGrabbed = isModified( pageRef ) ? 0 : cleanPagesGrabbed + 1;
+                            if ( pagesGrabbed == pages.length )
+                            {
+                                int pagesWritten = flushGrabbedPages( pages, bufferAddresses, flushStamps,
+                                        pagesGrabbed, cleanPagesGrabbed, flushEvent, flushes, forClosing );
+                                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesWritten, this );
+                                pagesGrabbed = 0;
+                                cleanPagesGrabbed = 0;
+                            }
                             continue chunkLoop;
                         }
-                        else if ( forClosing )
-                        {
-                            unlockExclusive( pageRef );
-                        }
-                        else
-                        {
-                            unlockFlush( pageRef, flushStamp, false );
-                        }
+                        unlockGrabbedPage( pageRef, flushStamp, forClosing );
                     }
                     break;
                 }
                 if ( pagesGrabbed > 0 )
                 {
-                    vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                    int pagesWritten = flushGrabbedPages( pages, bufferAddresses, flushStamps,
+                            pagesGrabbed, cleanPagesGrabbed, flushEvent, flushes, forClosing );
+                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesWritten, this );
                     pagesGrabbed = 0;
+                    cleanPagesGrabbed = 0;
                 }
             }
-            if ( pagesGrabbed > 0 )
-            {
-                vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushes, forClosing );
-                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
-            }
         }
+        if ( pagesGrabbed > 0 )
+        {
+            int pagesWritten = flushGrabbedPages( pages, bufferAddresses, flushStamps,
+                    pagesGrabbed, cleanPagesGrabbed, flushEvent, flushes, forClosing );
+            limiter.maybeLimitIO( limiterStamp, pagesWritten, this );
+        }
+    }
 
-        swapper.force();
+    private int flushGrabbedPages(
+            long[] pages, long[] bufferAddresses, long[] flushStamps, int pagesGrabbed, int cleanPagesGrabbed,
+            MajorFlushEvent flushEvent, FlushEventOpportunity flushOpportunity, boolean forClosing ) throws IOException
+    {
+        // Trailing clean pages did not lead up to another dirty page, so there is no point in writing them.
+        // The vector always starts with a dirty page, so there is at least one page left to write.
+        int pagesToWrite = pagesGrabbed - cleanPagesGrabbed;
+        for ( int i = pagesToWrite; i < pagesGrabbed; i++ )
+        {
+            unlockGrabbedPage( pages[i], forClosing ? 0 : flushStamps[i], forClosing );
+        }
+        vectoredFlush( pages, bufferAddresses, flushStamps, pagesToWrite, flushOpportunity, forClosing );
+        flushEvent.addVectoredWrite( pagesToWrite );
+        return pagesToWrite;
+    }
+
+    private void unlockGrabbedPage( long pageRef, long flushStamp, boolean forClosing )
+    {
+        if ( forClosing )
+        {
+            unlockExclusive( pageRef );
+        }
+        else
+        {
+            unlockFlush( pageRef, flushStamp, false );
+        }
     }
 
     private void vectoredFlush(
@@ -472,6 +528,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             flush.addBytesWritten( bytesWritten );
             flush.addPagesFlushed( pagesGrabbed );
             flush.done();
+            counters.flushed( pagesGrabbed, bytesWritten );
             successful = true;
 
             // There are now 0 'grabbed' pages
@@ -522,6 +579,7 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
                 flush.addBytesWritten( bytesWritten );
                 flush.addPagesFlushed( 1 );
                 flush.done();
+                counters.flushed( 1, bytesWritten );
                 success = true;
             }
             catch ( IOException e )
@@ -690,6 +748,28 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         long pageRef = deref( mappedPageId );
         setHighestEvictedTransactionId( getAndResetLastModifiedTransactionId( pageRef ) );
         UnsafeUtil.putIntVolatile( chunk, chunkOffset, UNMAPPED_TTE );
+        counters.evicted();
+    }
+
+    /**
+     * Called by {@link PagedFile#PF_TRANSIENT} cursors when they move away from a page. If nobody else has used the
+     * page since it was faulted in, then we put it straight back on the free-list, rather than let it push other pages
+     * out of the cache.
+     */
+    void evictIfUnused( long pageRef )
+    {
+        try
+        {
+            if ( tryEvictUnusedCleanPage( pageRef, pageCacheTracer ) )
+            {
+                pageCache.addFreePageToFreelist( pageRef );
+            }
+        }
+        catch ( IOException ignore )
+        {
+            // We only evict clean pages here, so there is nothing to flush and nothing that could fail.
+            // If it fails anyway, then we leave the page for the eviction thread to deal with.
+        }
     }
 
     private void setHighestEvictedTransactionId( long modifiedTransactionId )
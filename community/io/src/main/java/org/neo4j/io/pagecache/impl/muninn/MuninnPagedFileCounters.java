@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.neo4j.helpers.MathUtil;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+
+/**
+ * The counters of a single {@link MuninnPagedFile}.
+ * <p>
+ * The page cursors collect their hits and faults locally, and only add them to these counters when they are closed,
+ * so the hot pinning path never touches any shared state on behalf of these counters.
+ */
+final class MuninnPagedFileCounters implements PagedFileCounters
+{
+    private final File file;
+    private final int filePageSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder faults = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+
+    MuninnPagedFileCounters( File file, int filePageSize )
+    {
+        this.file = file;
+        this.filePageSize = filePageSize;
+    }
+
+    void cursorClosed( long cursorHits, long cursorFaults )
+    {
+        if ( cursorHits > 0 )
+        {
+            hits.add( cursorHits );
+        }
+        if ( cursorFaults > 0 )
+        {
+            faults.add( cursorFaults );
+        }
+    }
+
+    void evicted()
+    {
+        evictions.increment();
+    }
+
+    void flushed( int pagesFlushed, long bytes )
+    {
+        flushes.add( pagesFlushed );
+        bytesWritten.add( bytes );
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public long hits()
+    {
+        return hits.sum();
+    }
+
+    @Override
+    public long faults()
+    {
+        return faults.sum();
+    }
+
+    @Override
+    public long evictions()
+    {
+        return evictions.sum();
+    }
+
+    @Override
+    public long flushes()
+    {
+        return flushes.sum();
+    }
+
+    @Override
+    public long bytesRead()
+    {
+        // Every page fault reads in exactly one file page, except at the end of the file, where we count the
+        // zero-padding as well. This saves us from tracking the byte counts in the page fault path.
+        return faults() * filePageSize;
+    }
+
+    @Override
+    public long bytesWritten()
+    {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double hitRatio()
+    {
+        return MathUtil.portion( hits(), faults() );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MuninnPagedFileCounters[file=" + file + ", hits=" + hits() + ", faults=" + faults() +
+               ", evictions=" + evictions() + ", flushes=" + flushes() + "]";
+    }
+}
@@ -38,9 +38,14 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     @Override
     protected void unpinCurrentPage()
     {
-        if ( pinnedPageRef != 0 )
+        long pageRef = pinnedPageRef;
+        if ( pageRef != 0 )
         {
             pinEvent.done();
+            if ( transientAccess )
+            {
+                pagedFile.evictIfUnused( pageRef );
+            }
         }
         lockStamp = 0; // make sure not to accidentally keep a lock state around
         clearPageCursorState();
@@ -78,7 +83,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
     {
         reset( pageRef );
-        pagedFile.incrementUsage( pageRef );
+        incrementUsage( pageRef );
     }
 
     @Override
@@ -26,7 +26,9 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionEventOpportunity;
+import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
@@ -84,9 +86,17 @@ class PageList
     private final long victimPageAddress;
     private final long baseAddress;
     private final long bufferAlignment;
+    private final EvictionPolicy evictionPolicy;
 
     PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
               long victimPageAddress, long bufferAlignment )
+    {
+        this( pageCount, cachePageSize, memoryAllocator, swappers, victimPageAddress, bufferAlignment,
+                EvictionPolicy.CLOCK.create( pageCount ) );
+    }
+
+    PageList( int pageCount, int cachePageSize, MemoryAllocator memoryAllocator, SwapperSet swappers,
+              long victimPageAddress, long bufferAlignment, EvictionPolicy evictionPolicy )
     {
         this.pageCount = pageCount;
         this.cachePageSize = cachePageSize;
@@ -96,6 +106,7 @@ class PageList
         long bytes = ((long) pageCount) * META_DATA_BYTES_PER_PAGE;
         this.baseAddress = memoryAllocator.allocateAligned( bytes, Long.BYTES );
         this.bufferAlignment = bufferAlignment;
+        this.evictionPolicy = evictionPolicy;
         clearMemory( baseAddress, pageCount );
     }
 
@@ -116,6 +127,7 @@ class PageList
         this.victimPageAddress = pageList.victimPageAddress;
         this.baseAddress = pageList.baseAddress;
         this.bufferAlignment = pageList.bufferAlignment;
+        this.evictionPolicy = pageList.evictionPolicy;
     }
 
     private void clearMemory( long baseAddress, long pageCount )
@@ -324,9 +336,32 @@ class PageList
             // that here, and in that case we would never want a usage counter update to clobber a page
             // binding update.
             UnsafeUtil.compareAndSwapLong( null, address, value, update );
+            evictionPolicy.accessed( value >>> SHIFT_SWAPPER_ID );
         }
     }
 
+    /**
+     * Let the eviction policy do its housekeeping. Only called by the eviction threads.
+     */
+    void evictionPolicyMaintenance()
+    {
+        evictionPolicy.maintenance();
+    }
+
+    /**
+     * Add the given amount to the usage stamp, up to at most 4.
+     **/
+    private void addUsage( long pageRef, int amount )
+    {
+        // This is racy like `incrementUsage`, but the page is exclusively locked, so we only race with cursors that
+        // optimistically bump the usage count.
+        long address = offPageBinding( pageRef );
+        long value = UnsafeUtil.getLongVolatile( address );
+        long usage = value & MASK_USAGE_COUNT;
+        long update = value - usage + Math.min( usage + amount, MAX_USAGE_COUNT );
+        UnsafeUtil.compareAndSwapLong( null, address, value, update );
+    }
+
     /**
      * Decrement the usage stamp. Returns true if it reaches 0.
      **/
@@ -345,6 +380,36 @@ class PageList
         return usage <= 1;
     }
 
+    /**
+     * Evict the given page right away, if it is loaded, clean and has a usage count of zero. That is, nobody has shown
+     * any interest in the page since it was faulted in, other than through
+     * {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT} accesses.
+     * <p>
+     * If the page is evicted, then it is left exclusively locked and ready to be put on the free-list.
+     * The eviction run is only reported to the tracer once it is certain that the page will be evicted.
+     *
+     * @return {@code true} if the page was evicted.
+     */
+    boolean tryEvictUnusedCleanPage( long pageRef, PageCacheTracer pageCacheTracer ) throws IOException
+    {
+        if ( getUsageCounter( pageRef ) == 0 && !isModified( pageRef ) && tryExclusiveLock( pageRef ) )
+        {
+            // We have to double check now that we have the lock, because someone might have pinned or written to the
+            // page in the meantime.
+            if ( isLoaded( pageRef ) && getUsageCounter( pageRef ) == 0 && !isModified( pageRef ) )
+            {
+                try ( EvictionRunEvent evictions = pageCacheTracer.beginPageEvictions( 1 );
+                      EvictionEvent evictionEvent = evictions.beginEviction() )
+                {
+                    evict( pageRef, evictionEvent );
+                    return true;
+                }
+            }
+            unlockExclusive( pageRef );
+        }
+        return false;
+    }
+
     long getFilePageId( long pageRef )
     {
         long filePageId = UnsafeUtil.getLong( offPageBinding( pageRef ) ) >>> SHIFT_FILE_PAGE_ID;
@@ -435,6 +500,48 @@ class PageList
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
+        int admissionUsage = evictionPolicy.admit( (filePageId << SHIFT_PARTIAL_FILE_PAGE_ID) + swapperId );
+        if ( admissionUsage > 0 )
+        {
+            addUsage( pageRef, admissionUsage );
+        }
+    }
+
+    /**
+     * Fault the given number of consecutive file pages, starting at {@code startFilePageId}, into the given cache
+     * pages using a single vectored read. This works like {@link #fault(long, PageSwapper, int, long, PageFaultEvent)},
+     * except for a whole run of pages at once. All the given pages must be exclusively locked and unbound.
+     * The pages are not admitted through the eviction policy, so they keep their zero usage count.
+     */
+    void fault( long[] pageRefs, long[] bufferAddresses, int length, PageSwapper swapper, int swapperId,
+            long startFilePageId, PageFaultEvent event ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( !isExclusivelyLocked( pageRef ) || currentSwapper != 0 ||
+                 currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException( pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            // See the comment in the single page fault method, about why we assign the filePageId before swapping.
+            setFilePageId( pageRef, filePageId );
+            bufferAddresses[i] = getAddress( pageRef );
+        }
+        long bytesRead = swapper.read( startFilePageId, bufferAddresses, cachePageSize, 0, length );
+        event.addBytesRead( bytesRead );
+        event.setCachePageId( toId( pageRefs[0] ) );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
     }
 
     private static IllegalArgumentException swapperCannotBeNull()
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The freelist of the {@link MuninnPageCache}, split into a number of stripes.
+ * <p>
+ * Each stripe is a concurrent stack of {@link FreePage} objects. Freed pages are spread over the stripes by their page
+ * id, and page faulting threads pop from the stripe picked by their thread id, only looking at the other stripes when
+ * their own is empty. This way, the page faulting threads are not all competing to CAS the same stack head.
+ * <p>
+ * The FreePage objects are single-use, to avoid running into the ABA-problem.
+ */
+final class StripedFreelist
+{
+    private static final int MAX_STRIPES = 128;
+    // The stripe heads are placed this many references apart, so they don't share cache lines.
+    private static final int STRIPE_SPACING = 16;
+
+    private final AtomicReferenceArray<FreePage> heads;
+    private final int stripeMask;
+
+    /**
+     * @param stripes the desired number of stripes. This is rounded up to the nearest power of two, and capped at 128.
+     */
+    StripedFreelist( int stripes )
+    {
+        int stripeCount = Math.min( MAX_STRIPES, Integer.highestOneBit( Math.max( 1, stripes ) * 2 - 1 ) );
+        this.heads = new AtomicReferenceArray<>( stripeCount * STRIPE_SPACING );
+        this.stripeMask = stripeCount - 1;
+    }
+
+    int stripeCount()
+    {
+        return stripeMask + 1;
+    }
+
+    /**
+     * Push the given page onto the stripe picked by the given hint.
+     */
+    void push( int stripeHint, long pageRef )
+    {
+        int index = (stripeHint & stripeMask) * STRIPE_SPACING;
+        FreePage freePage = new FreePage( pageRef );
+        FreePage current;
+        do
+        {
+            current = heads.get( index );
+            freePage.setNext( current );
+        }
+        while ( !heads.compareAndSet( index, current, freePage ) );
+    }
+
+    /**
+     * Pop a free page, preferably from the stripe picked by the given hint.
+     *
+     * @return the page reference of the free page, or zero if all the stripes are empty.
+     */
+    long pop( int stripeHint )
+    {
+        for ( int i = 0; i <= stripeMask; i++ )
+        {
+            int index = ((stripeHint + i) & stripeMask) * STRIPE_SPACING;
+            FreePage current;
+            while ( (current = heads.get( index )) != null )
+            {
+                if ( heads.compareAndSet( index, current, current.next ) )
+                {
+                    return current.pageRef;
+                }
+            }
+        }
+        return 0;
+    }
+
+    boolean isEmpty()
+    {
+        for ( int i = 0; i <= stripeMask; i++ )
+        {
+            if ( heads.get( i * STRIPE_SPACING ) != null )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of free pages in all the stripes. The stripes are not counted atomically together, so this
+     * is only an estimate when the freelist is being concurrently modified.
+     */
+    int count()
+    {
+        int count = 0;
+        for ( int i = 0; i <= stripeMask; i++ )
+        {
+            FreePage head = heads.get( i * STRIPE_SPACING );
+            if ( head != null )
+            {
+                count += head.count;
+            }
+        }
+        return count;
+    }
+}
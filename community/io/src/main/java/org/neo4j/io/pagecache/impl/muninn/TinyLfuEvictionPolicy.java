@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A frequency aware {@link EvictionPolicy}, in the style of TinyLFU. It keeps a count-min sketch of how often each
+ * page has been accessed, and gives the frequently accessed pages a higher starting usage count when they are faulted
+ * in, so they survive more passes of the eviction sweep than pages that are rarely used.
+ * <p>
+ * Page faults are counted, and so are the accesses that increment the usage count of a page. Accesses to pages that
+ * already have the maximum usage count are not counted, so a page contributes at most a few counts per pass of the
+ * eviction sweep, and the hottest pages do not pay for the sketch updates. The counters are periodically halved, so
+ * the sketch favours the recent history. The halving goes through the whole sketch, so it is done by the eviction
+ * threads, through {@link #maintenance()}, instead of by whichever thread happened to record the last sample.
+ * <p>
+ * The sketch packs sixteen 4-bit counters into each long. Each page key maps to four counters, in four different
+ * longs, and the estimated frequency is the smallest of them. The counters are updated without synchronisation,
+ * since the occasional lost update does not matter to the estimate.
+ */
+final class TinyLfuEvictionPolicy implements EvictionPolicy
+{
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_TABLE_SIZE = 1 << 22;
+    private static final int MIN_TABLE_SIZE = 64;
+    private static final int MAX_COUNT = 15;
+    // The estimated frequencies at which pages are admitted with one or two extra usage counts.
+    private static final int FREQUENT = 5;
+    private static final int VERY_FREQUENT = 10;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final LongAdder samples = new LongAdder();
+
+    TinyLfuEvictionPolicy( int cachePages )
+    {
+        int tableSize = Math.min( MAX_TABLE_SIZE, Math.max( MIN_TABLE_SIZE, ceilingPowerOfTwo( cachePages ) ) );
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = 10 * tableSize;
+    }
+
+    private static int ceilingPowerOfTwo( int value )
+    {
+        return value <= 1 ? 1 : Integer.highestOneBit( value - 1 ) << 1;
+    }
+
+    @Override
+    public int admit( long pageKey )
+    {
+        int frequency = record( pageKey );
+        return frequency >= VERY_FREQUENT ? 2 : frequency >= FREQUENT ? 1 : 0;
+    }
+
+    @Override
+    public void accessed( long pageKey )
+    {
+        record( pageKey );
+    }
+
+    private int record( long key )
+    {
+        samples.increment();
+        return increment( key );
+    }
+
+    @Override
+    public synchronized void maintenance()
+    {
+        long sampled = samples.sum();
+        if ( sampled >= sampleSize )
+        {
+            samples.add( -sampled );
+            reset();
+        }
+    }
+
+    /**
+     * Increment the counters of the given key, and return the estimated frequency of the key, including this increment.
+     */
+    int increment( long key )
+    {
+        int hash = spread( key );
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for ( int i = 0; i < 4; i++ )
+        {
+            int index = indexOf( hash, i );
+            int offset = (start + i) << 2;
+            long word = table[index];
+            int count = (int) ((word >>> offset) & 0xFL);
+            if ( count < MAX_COUNT )
+            {
+                table[index] = word + (1L << offset);
+                count++;
+            }
+            frequency = Math.min( frequency, count );
+        }
+        return frequency;
+    }
+
+    /**
+     * @return the estimated frequency of the given key.
+     */
+    int frequency( long key )
+    {
+        int hash = spread( key );
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for ( int i = 0; i < 4; i++ )
+        {
+            int index = indexOf( hash, i );
+            int offset = (start + i) << 2;
+            int count = (int) ((table[index] >>> offset) & 0xFL);
+            frequency = Math.min( frequency, count );
+        }
+        return frequency;
+    }
+
+    private void reset()
+    {
+        for ( int i = 0; i < table.length; i++ )
+        {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+    }
+
+    private static int spread( long key )
+    {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int indexOf( int hash, int i )
+    {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+}
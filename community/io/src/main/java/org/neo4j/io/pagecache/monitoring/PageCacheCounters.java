@@ -19,6 +19,8 @@
  */
 package org.neo4j.io.pagecache.monitoring;
 
+import java.util.List;
+
 /**
  * The PageCacheCounters exposes internal counters from the page cache.
  * The data for these counters is sourced through the PageCacheTracer API.
@@ -80,6 +82,12 @@ public interface PageCacheCounters
      */
     long evictionExceptions();
 
+    /**
+     * @return The number of pages that page faulting threads have evicted themselves thus far, because the free-list
+     * was empty and the background eviction threads could not keep up.
+     */
+    long cooperativeEvictions();
+
     /**
      * @return The cache hit ratio observed thus far.
      */
@@ -90,4 +98,9 @@ public interface PageCacheCounters
      * be determined.
      */
     double usageRatio();
+
+    /**
+     * @return The counters of each of the currently mapped files.
+     */
+    List<PagedFileCounters> pagedFileCounters();
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.File;
+
+/**
+ * The PagedFileCounters exposes the internal counters of a single mapped file. Unlike the {@link PageCacheCounters},
+ * these counters are maintained by the page cache itself, and cover the life time of the file mapping.
+ */
+public interface PagedFileCounters
+{
+    /**
+     * @return The mapped file that these counters are for.
+     */
+    File file();
+
+    /**
+     * @return The number of page cache hits on pages of this file so far.
+     */
+    long hits();
+
+    /**
+     * @return The number of pages of this file that have been faulted into the page cache so far.
+     */
+    long faults();
+
+    /**
+     * @return The number of pages of this file that have been evicted from the page cache so far.
+     */
+    long evictions();
+
+    /**
+     * @return The number of pages of this file that have been written out by flushes of the file so far. Pages that
+     * are written out as part of being evicted are not counted here.
+     */
+    long flushes();
+
+    /**
+     * @return The sum total of bytes read in through page faults on this file so far.
+     */
+    long bytesRead();
+
+    /**
+     * @return The sum total of bytes written through flushes of this file so far.
+     */
+    long bytesWritten();
+
+    /**
+     * @return The cache hit ratio observed on this file so far.
+     */
+    double hitRatio();
+}
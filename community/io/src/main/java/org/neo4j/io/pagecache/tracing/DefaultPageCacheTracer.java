@@ -21,11 +21,15 @@ package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * The default PageCacheTracer implementation, that just increments counters.
@@ -43,7 +47,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesMapped = new LongAdder();
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
+    protected final LongAdder cooperativeEvictions = new LongAdder();
     protected final AtomicLong maxPages = new AtomicLong();
+    // Files are mapped and unmapped rarely, compared to how often the counters are read.
+    private final List<PagedFileCounters> pagedFileCounters = new CopyOnWriteArrayList<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -149,6 +156,24 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         filesUnmapped.increment();
     }
 
+    @Override
+    public void addPagedFileCounters( PagedFileCounters counters )
+    {
+        pagedFileCounters.add( counters );
+    }
+
+    @Override
+    public void removePagedFileCounters( PagedFileCounters counters )
+    {
+        pagedFileCounters.remove( counters );
+    }
+
+    @Override
+    public List<PagedFileCounters> pagedFileCounters()
+    {
+        return new ArrayList<>( pagedFileCounters );
+    }
+
     @Override
     public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
     {
@@ -233,6 +258,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return evictionExceptions.sum();
     }
 
+    @Override
+    public long cooperativeEvictions()
+    {
+        return cooperativeEvictions.sum();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -287,6 +318,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         this.evictionExceptions.add( evictionExceptions );
     }
 
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+        this.cooperativeEvictions.add( cooperativeEvictions );
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
@@ -45,4 +45,12 @@ public interface MajorFlushEvent extends AutoCloseablePageCacheTracerEvent
      * Mass-flushing obviously imply flushing opportunities.
      */
     FlushEventOpportunity flushEventOpportunity();
+
+    /**
+     * A vectored write of the given number of consecutive pages has been issued as part of this mass-flushing.
+     * This is reported once per write, so tracers can keep track of the distribution of achieved write sizes.
+     */
+    default void addVectoredWrite( int pageCount )
+    {
+    }
 }
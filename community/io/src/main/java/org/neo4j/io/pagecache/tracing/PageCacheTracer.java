@@ -20,9 +20,12 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer receives a steady stream of events and data about what
@@ -130,6 +133,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long cooperativeEvictions()
+        {
+            return 0;
+        }
+
         @Override
         public double hitRatio()
         {
@@ -177,6 +186,11 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void cooperativeEvictions( long cooperativeEvictions )
+        {
+        }
+
         @Override
         public void bytesWritten( long bytesWritten )
         {
@@ -192,6 +206,22 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void addPagedFileCounters( PagedFileCounters counters )
+        {
+        }
+
+        @Override
+        public void removePagedFileCounters( PagedFileCounters counters )
+        {
+        }
+
+        @Override
+        public List<PagedFileCounters> pagedFileCounters()
+        {
+            return Collections.emptyList();
+        }
+
         @Override
         public String toString()
         {
@@ -209,6 +239,16 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void unmappedFile( File file );
 
+    /**
+     * Start exposing the counters of a newly mapped file through {@link #pagedFileCounters()}.
+     */
+    void addPagedFileCounters( PagedFileCounters counters );
+
+    /**
+     * Stop exposing the counters of a file, because the last reference to it has been unmapped.
+     */
+    void removePagedFileCounters( PagedFileCounters counters );
+
     /**
      * A background eviction has begun. Called from the background eviction thread.
      *
@@ -270,6 +310,12 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void evictionExceptions( long evictionExceptions );
 
+    /**
+     * Report number of pages evicted by page faulting threads, rather than by the background eviction threads
+     * @param cooperativeEvictions number of cooperative evictions
+     */
+    void cooperativeEvictions( long cooperativeEvictions );
+
     /**
      * Report number of bytes written
      * @param bytesWritten number of written bytes
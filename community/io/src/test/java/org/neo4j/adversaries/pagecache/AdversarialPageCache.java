@@ -104,6 +104,13 @@ public class AdversarialPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public void flush( IOLimiter limiter ) throws IOException
+    {
+        adversary.injectFailure( FileNotFoundException.class, IOException.class, SecurityException.class );
+        delegate.flush( limiter );
+    }
+
     @Override
     public void close()
     {
@@ -111,6 +118,12 @@ public class AdversarialPageCache implements PageCache
         delegate.close();
     }
 
+    @Override
+    public long countDirtyPages()
+    {
+        return delegate.countDirtyPages();
+    }
+
     @Override
     public int pageSize()
     {
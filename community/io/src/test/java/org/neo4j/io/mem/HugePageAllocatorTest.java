@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.mem;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class HugePageAllocatorTest extends MemoryAllocatorTest
+{
+    @Rule
+    public final TestDirectory directory = TestDirectory.testDirectory();
+
+    @Override
+    protected MemoryAllocator createAllocator( String expectedMaxMemory )
+    {
+        return MemoryAllocator.createTransparentHugePageAllocator( expectedMaxMemory, new LocalMemoryTracker() );
+    }
+
+    @Test
+    public void largeAllocationsMustBeHugePageAligned()
+    {
+        MemoryAllocator mman = createAllocator( "8 MiB" );
+        long address = mman.allocateAligned( 8192, 8192 );
+        assertThat( address % ByteUnit.mebiBytes( 2 ), is( 0L ) );
+    }
+
+    @Test
+    public void mustAllocateMemoryMappedFromDirectory() throws Throwable
+    {
+        File dir = directory.directory( "hugetlbfs" );
+        LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+        HugePageAllocator mman = (HugePageAllocator) MemoryAllocator.createHugeTlbFsAllocator(
+                "4 MiB", dir, memoryTracker );
+
+        long first = mman.allocateAligned( 8192, 8192 );
+        long second = mman.allocateAligned( 8192, 8192 );
+        UnsafeUtil.putLong( first, 42 );
+        UnsafeUtil.putLong( second, 43 );
+        assertEquals( 42, UnsafeUtil.getLong( first ) );
+        assertEquals( 43, UnsafeUtil.getLong( second ) );
+        assertEquals( ByteUnit.mebiBytes( 4 ), memoryTracker.usedDirectMemory() );
+
+        // The backing files are deleted as soon as they are mapped.
+        assertThat( dir.listFiles(), is( emptyArray() ) );
+
+        //noinspection FinalizeCalledExplicitly
+        mman.finalize();
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test( expected = OutOfMemoryError.class )
+    public void mustThrowOutOfMemoryErrorIfMemoryCannotBeMapped()
+    {
+        File missingDirectory = new File( directory.directory(), "missing" );
+        MemoryAllocator.createHugeTlbFsAllocator( "4 MiB", missingDirectory, new LocalMemoryTracker() )
+                .allocateAligned( 8192, 8192 );
+    }
+}
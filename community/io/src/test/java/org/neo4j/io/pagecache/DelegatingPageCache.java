@@ -54,6 +54,12 @@ public class DelegatingPageCache implements PageCache
         return delegate.listExistingMappings();
     }
 
+    @Override
+    public long countDirtyPages()
+    {
+        return delegate.countDirtyPages();
+    }
+
     @Override
     public int pageSize()
     {
@@ -90,6 +96,12 @@ public class DelegatingPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public void flush( IOLimiter limiter ) throws IOException
+    {
+        delegate.flush( limiter );
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {
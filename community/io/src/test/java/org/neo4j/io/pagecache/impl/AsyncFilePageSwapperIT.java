@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PageSwapperTest;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AsyncFilePageSwapperIT extends PageSwapperTest
+{
+    private DefaultFileSystemAbstraction fileSystem;
+
+    @Before
+    public void setUp()
+    {
+        fileSystem = new DefaultFileSystemAbstraction();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        IOUtils.closeAll( fileSystem );
+    }
+
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        AsyncFilePageSwapperFactory factory = new AsyncFilePageSwapperFactory();
+        factory.open( fileSystem, Configuration.EMPTY );
+        return factory;
+    }
+
+    @Override
+    protected void mkdirs( File dir ) throws IOException
+    {
+        fileSystem.mkdirs( dir );
+    }
+
+    @Override
+    protected File baseDirectory()
+    {
+        return testDir.directory();
+    }
+
+    @Override
+    protected boolean isRootAccessible()
+    {
+        return false;
+    }
+
+    @Test
+    public void mustCreateAsyncSwappersOnRealFileSystem() throws Exception
+    {
+        PageSwapper swapper = createSwapper( createSwapperFactory(), testDir.file( "a" ), cachePageSize(),
+                NO_CALLBACK, true );
+        assertThat( swapper, instanceOf( AsyncFilePageSwapper.class ) );
+    }
+
+    @Test
+    public void mustFallBackToSingleFileSwappersOnOtherFileSystems() throws Exception
+    {
+        try ( EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction() )
+        {
+            AsyncFilePageSwapperFactory factory = new AsyncFilePageSwapperFactory();
+            factory.open( fs, Configuration.EMPTY );
+            File file = new File( "a" ).getCanonicalFile();
+            fs.mkdirs( file.getParentFile() );
+            PageSwapper swapper = factory.createPageSwapper( file, cachePageSize(), NO_CALLBACK, true );
+            try
+            {
+                assertThat( swapper, instanceOf( SingleFilePageSwapper.class ) );
+            }
+            finally
+            {
+                swapper.close();
+                factory.close();
+            }
+        }
+    }
+
+    @Test
+    public void vectoredReadAndWriteMustWorkOnPagesThatAreContiguousInMemory() throws Exception
+    {
+        PageSwapper swapper = createSwapperAndFile( createSwapperFactory(), testDir.file( "a" ), 4 );
+        long block = createPage( 4 * 4 );
+        long[] pages = {block, block + 4, block + 8, block + 12};
+        for ( int i = 0; i < pages.length; i++ )
+        {
+            putInt( pages[i], 0, i + 1 );
+        }
+
+        assertThat( swapper.write( 1, pages, 0, pages.length ), is( 16L ) );
+
+        long[] reversed = {block + 12, block + 8, block + 4, block};
+        assertThat( swapper.read( 1, reversed, 4, 0, reversed.length ), is( 16L ) );
+        assertThat( getInt( block + 12, 0 ), is( 1 ) );
+        assertThat( getInt( block + 8, 0 ), is( 2 ) );
+        assertThat( getInt( block + 4, 0 ), is( 3 ) );
+        assertThat( getInt( block, 0 ), is( 4 ) );
+
+        assertThat( swapper.read( 3, pages, 4, 0, pages.length ), is( 8L ) );
+        assertThat( getInt( pages[0], 0 ), is( 3 ) );
+        assertThat( getInt( pages[1], 0 ), is( 4 ) );
+        assertThat( getInt( pages[2], 0 ), is( 0 ) );
+        assertThat( getInt( pages[3], 0 ), is( 0 ) );
+    }
+
+    @Test
+    public void vectoredReadAndWriteMustWorkOnPagesThatAreOnlyPartlyContiguousInMemory() throws Exception
+    {
+        PageSwapper swapper = createSwapperAndFile( createSwapperFactory(), testDir.file( "a" ), 4 );
+        long block = createPage( 5 * 4 );
+        long[] pages = {block + 16, block, block + 4, block + 8, block + 12};
+        for ( int i = 0; i < pages.length; i++ )
+        {
+            putInt( pages[i], 0, i + 1 );
+        }
+
+        assertThat( swapper.write( 0, pages, 0, pages.length ), is( 20L ) );
+
+        long[] mixed = {block + 8, block + 12, block + 16, block, block + 4};
+        assertThat( swapper.read( 1, mixed, 4, 0, mixed.length ), is( 16L ) );
+        assertThat( getInt( block + 8, 0 ), is( 2 ) );
+        assertThat( getInt( block + 12, 0 ), is( 3 ) );
+        assertThat( getInt( block + 16, 0 ), is( 4 ) );
+        assertThat( getInt( block, 0 ), is( 5 ) );
+        assertThat( getInt( block + 4, 0 ), is( 0 ) );
+    }
+
+    @Test
+    public void readMustHonourBufferSize() throws Exception
+    {
+        PageSwapper swapper = createSwapperAndFile( createSwapperFactory(), testDir.file( "a" ), 8 );
+        long page = createPage( 16 );
+        putInt( page, 0, 1 );
+        putInt( page, 4, 2 );
+        putInt( page, 8, 3 );
+        swapper.write( 0, page );
+        swapper.write( 1, page );
+
+        putInt( page, 0, 0 );
+        putInt( page, 4, 7 );
+        assertThat( swapper.read( 0, page, 4 ), is( 4L ) );
+        assertThat( getInt( page, 0 ), is( 1 ) );
+        assertThat( getInt( page, 4 ), is( 7 ) );
+        assertThat( getInt( page, 8 ), is( 3 ) );
+
+        assertThat( swapper.read( 1, page, 16 ), is( 8L ) );
+        assertThat( getInt( page, 0 ), is( 1 ) );
+        assertThat( getInt( page, 4 ), is( 2 ) );
+        assertThat( getInt( page, 8 ), is( 0 ) );
+    }
+}
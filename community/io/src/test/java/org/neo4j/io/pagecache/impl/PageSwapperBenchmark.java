@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.memory.LocalMemoryTracker;
+
+/**
+ * Compares the throughput of the {@link SingleFilePageSwapperFactory} and the {@link AsyncFilePageSwapperFactory}
+ * swappers, for random single page reads, and for vectored reads and writes of runs of pages.
+ * <p>
+ * Run with the directory to put the test file in as the first argument. The file size in MiB, the number of threads,
+ * and the number of seconds to run each scenario, can optionally be given as the following arguments.
+ * The file should be larger than the OS file cache for the numbers to say anything about the storage device.
+ */
+public class PageSwapperBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int VECTOR_LENGTH = 16;
+
+    private final File file;
+    private final long filePages;
+    private final int threads;
+    private final long durationNanos;
+
+    private PageSwapperBenchmark( File file, long filePages, int threads, long durationNanos )
+    {
+        this.file = file;
+        this.filePages = filePages;
+        this.threads = threads;
+        this.durationNanos = durationNanos;
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        File directory = new File( args[0] );
+        long fileSizeMiB = args.length > 1 ? Long.parseLong( args[1] ) : 4096;
+        int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 3 ? Integer.parseInt( args[3] ) : 30;
+
+        File file = new File( directory, "swapper-benchmark.data" );
+        long filePages = fileSizeMiB * 1024 * 1024 / PAGE_SIZE;
+        PageSwapperBenchmark benchmark =
+                new PageSwapperBenchmark( file, filePages, threads, TimeUnit.SECONDS.toNanos( seconds ) );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+        {
+            benchmark.run( fs, new SingleFilePageSwapperFactory() );
+            benchmark.run( fs, new AsyncFilePageSwapperFactory() );
+        }
+        finally
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private void run( FileSystemAbstraction fs, PageSwapperFactory factory ) throws Exception
+    {
+        factory.open( fs, Configuration.EMPTY );
+        // Twice the memory we need, to leave room for the alignment of every page.
+        MemoryAllocator allocator = MemoryAllocator.createAllocator(
+                String.valueOf( 2L * threads * VECTOR_LENGTH * PAGE_SIZE ), new LocalMemoryTracker() );
+        long[][] threadPages = new long[threads][];
+        for ( int i = 0; i < threads; i++ )
+        {
+            threadPages[i] = allocatePages( allocator );
+        }
+        try
+        {
+            PageSwapper swapper = factory.createPageSwapper( file, PAGE_SIZE, filePageId -> {}, true );
+            try
+            {
+                fill( swapper, threadPages[0] );
+                report( factory, "random single page reads", measure( threadPages, ( pages, rng ) ->
+                        swapper.read( rng.nextLong( filePages ), pages[0], PAGE_SIZE ) ) );
+                report( factory, "random vectored reads", measure( threadPages, ( pages, rng ) ->
+                        swapper.read( rng.nextLong( filePages - VECTOR_LENGTH ), pages, PAGE_SIZE, 0, VECTOR_LENGTH ) ) );
+                report( factory, "random vectored writes", measure( threadPages, ( pages, rng ) ->
+                        swapper.write( rng.nextLong( filePages - VECTOR_LENGTH ), pages, 0, VECTOR_LENGTH ) ) );
+            }
+            finally
+            {
+                swapper.close();
+            }
+        }
+        finally
+        {
+            factory.close();
+        }
+    }
+
+    private void fill( PageSwapper swapper, long[] pages ) throws IOException
+    {
+        for ( long filePageId = 0; filePageId < filePages; filePageId += VECTOR_LENGTH )
+        {
+            int length = (int) Math.min( VECTOR_LENGTH, filePages - filePageId );
+            swapper.write( filePageId, pages, 0, length );
+        }
+        swapper.force();
+    }
+
+    private long[] allocatePages( MemoryAllocator allocator )
+    {
+        long[] pages = new long[VECTOR_LENGTH];
+        for ( int i = 0; i < VECTOR_LENGTH; i++ )
+        {
+            pages[i] = allocator.allocateAligned( PAGE_SIZE, PAGE_SIZE );
+        }
+        return pages;
+    }
+
+    private long measure( long[][] threadPages, Operation operation ) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<Long>> futures = new ArrayList<>();
+            long deadline = System.nanoTime() + durationNanos;
+            for ( int i = 0; i < threads; i++ )
+            {
+                long[] pages = threadPages[i];
+                futures.add( executor.submit( () ->
+                {
+                    ThreadLocalRandom rng = ThreadLocalRandom.current();
+                    long bytes = 0;
+                    while ( System.nanoTime() < deadline )
+                    {
+                        bytes += operation.perform( pages, rng );
+                    }
+                    return bytes;
+                } ) );
+            }
+            long bytes = 0;
+            for ( Future<Long> future : futures )
+            {
+                bytes += future.get();
+            }
+            return bytes;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void report( PageSwapperFactory factory, String scenario, long bytes )
+    {
+        double seconds = durationNanos / (double) TimeUnit.SECONDS.toNanos( 1 );
+        System.out.printf( "%-8s %-26s %10.1f MiB/s%n",
+                factory.implementationName(), scenario, bytes / seconds / (1024 * 1024) );
+    }
+
+    private interface Operation
+    {
+        long perform( long[] pages, ThreadLocalRandom rng ) throws IOException;
+    }
+}
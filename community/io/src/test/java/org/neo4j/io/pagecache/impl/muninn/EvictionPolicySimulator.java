@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simulates the CLOCK sweep of the page cache, with a given {@link EvictionPolicy}, so the hit ratio of the policies
+ * can be compared on recorded page access traces, without any IO.
+ * <p>
+ * The simulation follows the page cache in the way it treats usage counts: a hit adds one to the usage count, up to
+ * at most 4, and tells the policy about it if the count changed. A fault gives the page a usage count of one, plus
+ * whatever the eviction policy admits it with. The sweep decrements the usage counts of the pages it passes, and
+ * evicts the first page whose usage count runs out.
+ */
+class EvictionPolicySimulator
+{
+    private static final int MAX_USAGE_COUNT = 4;
+
+    private final EvictionPolicy policy;
+    private final long[] keys;
+    private final int[] usage;
+    private final Map<Long,Integer> pageTable;
+    private int loadedPages;
+    private int clockArm;
+    private long hits;
+    private long faults;
+
+    EvictionPolicySimulator( int cachePages, EvictionPolicy.Factory policyFactory )
+    {
+        this.policy = policyFactory.create( cachePages );
+        this.keys = new long[cachePages];
+        this.usage = new int[cachePages];
+        this.pageTable = new HashMap<>( cachePages * 2 );
+        Arrays.fill( keys, -1 );
+    }
+
+    void access( long pageKey )
+    {
+        Integer cachePage = pageTable.get( pageKey );
+        if ( cachePage != null )
+        {
+            hits++;
+            if ( usage[cachePage] < MAX_USAGE_COUNT )
+            {
+                usage[cachePage]++;
+                policy.accessed( pageKey );
+            }
+            return;
+        }
+
+        faults++;
+        int victim = loadedPages < keys.length ? loadedPages++ : sweep();
+        keys[victim] = pageKey;
+        usage[victim] = Math.min( 1 + policy.admit( pageKey ), MAX_USAGE_COUNT );
+        pageTable.put( pageKey, victim );
+    }
+
+    private int sweep()
+    {
+        // The sweep stands in for the eviction thread, which is where the policy does its housekeeping.
+        policy.maintenance();
+        for ( ;; )
+        {
+            int cachePage = clockArm;
+            clockArm = (clockArm + 1) % keys.length;
+            if ( usage[cachePage] <= 1 )
+            {
+                pageTable.remove( keys[cachePage] );
+                return cachePage;
+            }
+            usage[cachePage]--;
+        }
+    }
+
+    long hits()
+    {
+        return hits;
+    }
+
+    long faults()
+    {
+        return faults;
+    }
+
+    double hitRatio()
+    {
+        long accesses = hits + faults;
+        return accesses == 0 ? 0.0 : hits / (double) accesses;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+public class EvictionPolicyTest
+{
+    @Rule
+    public final TestDirectory directory = TestDirectory.testDirectory();
+
+    @Test
+    public void clockMustNotGiveAnyPageHeadStart()
+    {
+        EvictionPolicy policy = EvictionPolicy.CLOCK.create( 100 );
+        for ( int i = 0; i < 20; i++ )
+        {
+            policy.accessed( 42 );
+        }
+        assertThat( policy.admit( 42 ), is( 0 ) );
+    }
+
+    @Test
+    public void tinyLfuMustNotGiveHeadStartToPagesSeenForTheFirstTime()
+    {
+        EvictionPolicy policy = EvictionPolicy.TINY_LFU.create( 1000 );
+        assertThat( policy.admit( 42 ), is( 0 ) );
+        assertThat( policy.admit( 43 ), is( 0 ) );
+    }
+
+    @Test
+    public void tinyLfuMustGiveFrequentlyAccessedPagesHeadStart()
+    {
+        EvictionPolicy policy = EvictionPolicy.TINY_LFU.create( 1000 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            policy.accessed( 42 );
+        }
+        assertThat( policy.admit( 42 ), is( 1 ) );
+        for ( int i = 0; i < 5; i++ )
+        {
+            policy.accessed( 42 );
+        }
+        assertThat( policy.admit( 42 ), is( 2 ) );
+    }
+
+    @Test
+    public void tinyLfuMustPeriodicallyHalveFrequencies()
+    {
+        TinyLfuEvictionPolicy policy = new TinyLfuEvictionPolicy( 64 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            policy.accessed( 42 );
+        }
+        assertThat( policy.frequency( 42 ), is( 8 ) );
+
+        // The sketch of a 64 page cache is reset after 640 samples, but only by the maintenance of the eviction threads.
+        for ( int i = 0; i < 640; i++ )
+        {
+            policy.accessed( 1000 + i );
+        }
+        assertThat( policy.frequency( 42 ), is( 8 ) );
+        policy.maintenance();
+        int halved = policy.frequency( 42 );
+        assertThat( halved, is( lessThan( 8 ) ) );
+
+        // Nothing was sampled since the reset, so there is nothing to do.
+        policy.maintenance();
+        assertThat( policy.frequency( 42 ), is( halved ) );
+    }
+
+    @Test
+    public void tinyLfuMustHaveBetterHitRatioThanClockWhenScansCompeteWithWorkingSet()
+    {
+        EvictionPolicySimulator clock = new EvictionPolicySimulator( 1000, EvictionPolicy.CLOCK );
+        EvictionPolicySimulator tinyLfu = new EvictionPolicySimulator( 1000, EvictionPolicy.TINY_LFU );
+        Random rng = new Random( 1 );
+        long scanPage = 1_000_000;
+        for ( int i = 0; i < 1_000_000; i++ )
+        {
+            // Every other access is to a working set that is a bit larger than the cache, the rest is a long scan.
+            long pageKey = rng.nextBoolean() ? rng.nextInt( 1500 ) : scanPage++;
+            clock.access( pageKey );
+            tinyLfu.access( pageKey );
+        }
+        assertThat( tinyLfu.hitRatio(), is( greaterThan( clock.hitRatio() ) ) );
+    }
+
+    @Test
+    public void byNameMustFindPolicies()
+    {
+        assertThat( EvictionPolicy.byName( "clock" ), is( EvictionPolicy.CLOCK ) );
+        assertThat( EvictionPolicy.byName( "TinyLFU" ), is( EvictionPolicy.TINY_LFU ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void byNameMustThrowOnUnknownPolicy()
+    {
+        EvictionPolicy.byName( "random" );
+    }
+
+    @Test
+    public void recordedTraceMustReplayThePinsInOrder() throws Exception
+    {
+        File traceFile = directory.file( "trace" );
+        File file = directory.file( "a" );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+        {
+            PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+            swapperFactory.open( fs, Configuration.EMPTY );
+            try ( PageAccessTraceRecorder recorder = new PageAccessTraceRecorder( traceFile );
+                  MuninnPageCache pageCache = new MuninnPageCacheFixture().createPageCache( swapperFactory, 20,
+                          PageCacheTracer.NULL, recorder, EmptyVersionContextSupplier.EMPTY );
+                  PagedFile pagedFile = pageCache.map( file, 8192 );
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                cursor.next( 3 );
+                cursor.next( 1 );
+                cursor.next( 3 );
+            }
+        }
+
+        List<Long> pageKeys = new ArrayList<>();
+        PageAccessTraceRecorder.replay( traceFile, pageKeys::add );
+        long fileId = 1;
+        assertThat( pageKeys, contains( (3L << 21) + fileId, (1L << 21) + fileId, (3L << 21) + fileId ) );
+    }
+}
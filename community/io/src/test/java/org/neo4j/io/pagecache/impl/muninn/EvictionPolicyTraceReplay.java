@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * Replays a page access trace, recorded by a {@link PageAccessTraceRecorder}, against each of the eviction policies,
+ * for a range of cache sizes, and prints the hit ratio that each policy would have given.
+ * <p>
+ * Run with the trace file as the first argument, followed by the cache sizes to try, in number of pages. Without any
+ * cache sizes, the sizes of 1%, 5%, 10%, 25% and 50% of the number of distinct pages in the trace are tried.
+ */
+public class EvictionPolicyTraceReplay
+{
+    private static final String[] POLICIES = {"clock", "tinylfu"};
+
+    public static void main( String[] args ) throws Exception
+    {
+        File traceFile = new File( args[0] );
+        long[] trace = readTrace( traceFile );
+        int[] cacheSizes = new int[args.length - 1];
+        for ( int i = 1; i < args.length; i++ )
+        {
+            cacheSizes[i - 1] = Integer.parseInt( args[i] );
+        }
+        if ( cacheSizes.length == 0 )
+        {
+            long distinctPages = Arrays.stream( trace ).distinct().count();
+            cacheSizes = new int[]{percentOf( distinctPages, 1 ), percentOf( distinctPages, 5 ),
+                    percentOf( distinctPages, 10 ), percentOf( distinctPages, 25 ), percentOf( distinctPages, 50 )};
+        }
+
+        System.out.printf( "%,d page accesses in %s%n", trace.length, traceFile );
+        System.out.printf( "%12s %10s %10s%n", "cache pages", "policy", "hit ratio" );
+        for ( int cacheSize : cacheSizes )
+        {
+            for ( String policy : POLICIES )
+            {
+                EvictionPolicySimulator simulator =
+                        new EvictionPolicySimulator( cacheSize, EvictionPolicy.byName( policy ) );
+                for ( long pageKey : trace )
+                {
+                    simulator.access( pageKey );
+                }
+                System.out.printf( "%,12d %10s %10.4f%n", cacheSize, policy, simulator.hitRatio() );
+            }
+        }
+    }
+
+    private static int percentOf( long pages, int percent )
+    {
+        return (int) Math.max( 2, pages * percent / 100 );
+    }
+
+    private static long[] readTrace( File traceFile ) throws Exception
+    {
+        LongStream.Builder trace = LongStream.builder();
+        PageAccessTraceRecorder.replay( traceFile, trace::add );
+        return trace.build().toArray();
+    }
+}
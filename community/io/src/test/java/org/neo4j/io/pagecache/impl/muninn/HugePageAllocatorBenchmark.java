@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.mem.MemoryAllocator;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.memory.LocalMemoryTracker;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Compares the throughput of random page pins and unpins, on a page cache that is backed by the default memory
+ * allocator, and by the huge page allocators. All pages of the file fit in the page cache, so after warmup the
+ * benchmark only measures the cost of finding and pinning pages in memory, which is where TLB misses show up.
+ * <p>
+ * Run with the directory to put the test file in as the first argument. The page cache size in MiB, the number of
+ * threads, the number of seconds to run each scenario, and a hugetlbfs directory, can optionally be given as the
+ * following arguments. The hugetlbfs allocator is only measured if the directory is given. For the transparent huge
+ * page allocator to make a difference, transparent huge pages must be enabled in the operating system.
+ */
+public class HugePageAllocatorBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+
+    private final File file;
+    private final long cacheSizeBytes;
+    private final int threads;
+    private final long durationNanos;
+
+    private HugePageAllocatorBenchmark( File file, long cacheSizeBytes, int threads, long durationNanos )
+    {
+        this.file = file;
+        this.cacheSizeBytes = cacheSizeBytes;
+        this.threads = threads;
+        this.durationNanos = durationNanos;
+    }
+
+    public static void main( String[] args ) throws Exception
+    {
+        File directory = new File( args[0] );
+        long cacheSizeMiB = args.length > 1 ? Long.parseLong( args[1] ) : 4096;
+        int threads = args.length > 2 ? Integer.parseInt( args[2] ) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 3 ? Integer.parseInt( args[3] ) : 30;
+        File hugeTlbFsDirectory = args.length > 4 ? new File( args[4] ) : null;
+
+        File file = new File( directory, "huge-page-benchmark.data" );
+        String cacheSize = String.valueOf( cacheSizeMiB * 1024 * 1024 );
+        HugePageAllocatorBenchmark benchmark = new HugePageAllocatorBenchmark(
+                file, cacheSizeMiB * 1024 * 1024, threads, TimeUnit.SECONDS.toNanos( seconds ) );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+        {
+            benchmark.run( fs, "default", MemoryAllocator.createAllocator( cacheSize, new LocalMemoryTracker() ) );
+            benchmark.run( fs, "transparent", MemoryAllocator.createTransparentHugePageAllocator(
+                    cacheSize, new LocalMemoryTracker() ) );
+            if ( hugeTlbFsDirectory != null )
+            {
+                benchmark.run( fs, "hugetlbfs", MemoryAllocator.createHugeTlbFsAllocator(
+                        cacheSize, hugeTlbFsDirectory, new LocalMemoryTracker() ) );
+            }
+        }
+        finally
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private void run( FileSystemAbstraction fs, String allocatorName, MemoryAllocator allocator ) throws Exception
+    {
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        try ( MuninnPageCache pageCache = new MuninnPageCache( swapperFactory, allocator, PageCacheTracer.NULL,
+                      PageCursorTracerSupplier.NULL, EmptyVersionContextSupplier.EMPTY );
+              PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            // Leave some pages free, so the eviction thread has nothing to do.
+            long filePages = Math.min( cacheSizeBytes / PAGE_SIZE, pageCache.maxCachedPages() ) * 9 / 10;
+            fill( pagedFile, filePages );
+            measure( pagedFile, filePages ); // Warmup
+            long pins = measure( pagedFile, filePages );
+            double seconds = durationNanos / (double) TimeUnit.SECONDS.toNanos( 1 );
+            System.out.printf( "%-12s %14.1f pins/s%n", allocatorName, pins / seconds );
+        }
+    }
+
+    private void fill( PagedFile pagedFile, long filePages ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long filePageId = 0; filePageId < filePages; filePageId++ )
+            {
+                cursor.next( filePageId );
+                cursor.putLong( filePageId );
+            }
+        }
+    }
+
+    private long measure( PagedFile pagedFile, long filePages ) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<Long>> futures = new ArrayList<>();
+            long deadline = System.nanoTime() + durationNanos;
+            for ( int i = 0; i < threads; i++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    ThreadLocalRandom rng = ThreadLocalRandom.current();
+                    long pins = 0;
+                    long sum = 0;
+                    try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                    {
+                        while ( System.nanoTime() < deadline )
+                        {
+                            // Check the clock only once in a while, so we mostly measure the pins.
+                            for ( int j = 0; j < 1000; j++ )
+                            {
+                                cursor.next( rng.nextLong( filePages ) );
+                                do
+                                {
+                                    sum += cursor.getLong( 0 );
+                                }
+                                while ( cursor.shouldRetry() );
+                            }
+                            pins += 1000;
+                        }
+                    }
+                    // Use the sum, so the reads cannot be optimised away.
+                    return sum == 42 ? pins + 1 : pins;
+                } ) );
+            }
+            long pins = 0;
+            for ( Future<Long> future : futures )
+            {
+                pins += future.get();
+            }
+            return pins;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -33,6 +33,8 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnPageCache>
 {
     CountDownLatch backgroundFlushLatch;
+    int evictionThreads = 1;
+    EvictionPolicy.Factory evictionPolicy = EvictionPolicy.CLOCK;
 
     @Override
     public MuninnPageCache createPageCache( PageSwapperFactory swapperFactory, int maxPages,
@@ -42,7 +44,8 @@ public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnP
         long memory = MuninnPageCache.memoryRequiredForPages( maxPages );
         MemoryAllocator allocator = MemoryAllocator.createAllocator( String.valueOf( memory ),
                 new LocalMemoryTracker() );
-        return new MuninnPageCache( swapperFactory, allocator, tracer, cursorTracerSupplier, contextSupplier );
+        return new MuninnPageCache( swapperFactory, allocator, tracer, cursorTracerSupplier, contextSupplier,
+                evictionThreads, evictionPolicy );
     }
 
     @Override
@@ -25,8 +25,11 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 
@@ -35,12 +38,17 @@ import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.ConfigurablePageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
+import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
@@ -51,16 +59,22 @@ import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
 
 public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
@@ -679,6 +693,409 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    public void readAheadCursorMustFaultSequentialPagesInBatches() throws Exception
+    {
+        int pageCount = 20;
+        RecordingPageCursorTracer cursorTracer = new RecordingPageCursorTracer();
+        ConfigurablePageCursorTracerSupplier<RecordingPageCursorTracer> cursorTracerSupplier =
+                new ConfigurablePageCursorTracerSupplier<>( cursorTracer );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 40, PageCacheTracer.NULL, cursorTracerSupplier );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+            evictAllPages( pageCache );
+            cursorTracer.reportEvents();
+            long faultsBefore = cursorTracer.faults();
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertEquals( i, value );
+                }
+                assertFalse( cursor.next() );
+            }
+            cursorTracer.reportEvents();
+            assertThat( cursorTracer.faults() - faultsBefore, lessThan( (long) pageCount ) );
+        }
+    }
+
+    @Test
+    public void readAheadCursorMustNotFaultPagesAheadOnRandomAccess() throws Exception
+    {
+        int pageCount = 20;
+        try ( MuninnPageCache pageCache = createPageCache( fs, 40, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+            evictAllPages( pageCache );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                assertTrue( cursor.next( 10 ) );
+                assertTrue( cursor.next( 2 ) );
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next( 3 ) );
+                assertEquals( PageCursor.UNBOUND_PAGE_ID, cursor.getCurrentPageId() );
+                assertTrue( cursor.next( 11 ) );
+                assertEquals( PageCursor.UNBOUND_PAGE_ID, cursor.getCurrentPageId() );
+            }
+        }
+    }
+
+    @Test
+    public void transientScanMustNotPushOutFrequentlyUsedPages() throws Exception
+    {
+        int pageCount = 20;
+        try ( MuninnPageCache pageCache = createPageCache( fs, 40, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+            evictAllPages( pageCache );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < 3; i++ )
+                {
+                    assertTrue( cursor.next( 0 ) );
+                    assertTrue( cursor.next( 1 ) );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_TRANSIENT ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next( 0 ) );
+                assertEquals( 0, cursor.getCurrentPageId() );
+                assertTrue( cursor.next( 1 ) );
+                assertEquals( 1, cursor.getCurrentPageId() );
+                for ( int i = 2; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next( i ) );
+                    assertEquals( PageCursor.UNBOUND_PAGE_ID, cursor.getCurrentPageId() );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void transientAccessToUsedPagesMustNotBeginEvictionRuns() throws Exception
+    {
+        AtomicInteger evictionRuns = new AtomicInteger();
+        PageCacheTracer tracer = new DelegatingPageCacheTracer( PageCacheTracer.NULL )
+        {
+            @Override
+            public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
+            {
+                evictionRuns.incrementAndGet();
+                return super.beginPageEvictions( pageCountToEvict );
+            }
+        };
+        try ( MuninnPageCache pageCache = createPageCache( fs, 40, tracer, DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < 4; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < 4; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            int runsBefore = evictionRuns.get();
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_TRANSIENT ) )
+            {
+                for ( int i = 0; i < 4; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+
+            assertEquals( runsBefore, evictionRuns.get() );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void multipleEvictionThreadsMustKeepPagesFlowingThroughTheCache() throws Exception
+    {
+        fixture.evictionThreads = 4;
+        int maxPages = 40;
+        int filePages = maxPages * 10;
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, maxPages, tracer, DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int i = 0; i < filePages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertEquals( i, value );
+                }
+            }
+            assertThat( tracer.evictions(), greaterThan( 0L ) );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustThrowIfAskedToUseLessThanOneEvictionThread() throws Exception
+    {
+        fixture.evictionThreads = 0;
+        createPageCache( fs, 10, PageCacheTracer.NULL, DefaultPageCursorTracerSupplier.NULL );
+    }
+
+    @Test
+    public void mustTrackHitsFaultsFlushesAndEvictionsPerPagedFile() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, tracer, DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFileA = pageCache.map( file( "a" ), 8 );
+              PagedFile pagedFileB = pageCache.map( file( "b" ), 8 ) )
+        {
+            assertThat( tracer.pagedFileCounters().size(), is( 2 ) );
+            PagedFileCounters countersA = countersOf( tracer, pagedFileA );
+            PagedFileCounters countersB = countersOf( tracer, pagedFileB );
+
+            try ( PageCursor cursor = pagedFileA.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next( 0 ) );
+                assertTrue( cursor.next( 1 ) );
+                assertTrue( cursor.next( 0 ) );
+            }
+            try ( PageCursor cursor = pagedFileB.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 0 ) );
+            }
+
+            assertThat( countersA.faults(), is( 2L ) );
+            assertThat( countersA.hits(), is( 1L ) );
+            assertThat( countersA.bytesRead(), is( 16L ) );
+            assertThat( countersB.faults(), is( 1L ) );
+            assertThat( countersB.hits(), is( 0L ) );
+
+            pagedFileA.flushAndForce();
+            assertThat( countersA.flushes(), is( 2L ) );
+            assertThat( countersA.bytesWritten(), is( 16L ) );
+            assertThat( countersB.flushes(), is( 0L ) );
+
+            evictAllPages( pageCache );
+            assertThat( countersA.evictions(), is( 2L ) );
+            assertThat( countersB.evictions(), is( 1L ) );
+        }
+        assertTrue( tracer.pagedFileCounters().isEmpty() );
+    }
+
+    @Test
+    public void flushMustCoalesceDirtyPagesAcrossSmallGapsOfCleanPages() throws Exception
+    {
+        int pageCount = 20;
+        List<Integer> vectoredWrites = new ArrayList<>();
+        PageCacheTracer tracer = new DelegatingPageCacheTracer( new DefaultPageCacheTracer() )
+        {
+            @Override
+            public MajorFlushEvent beginFileFlush( PageSwapper swapper )
+            {
+                MajorFlushEvent delegate = super.beginFileFlush( swapper );
+                return new MajorFlushEvent()
+                {
+                    @Override
+                    public FlushEventOpportunity flushEventOpportunity()
+                    {
+                        return delegate.flushEventOpportunity();
+                    }
+
+                    @Override
+                    public void addVectoredWrite( int pages )
+                    {
+                        vectoredWrites.add( pages );
+                    }
+
+                    @Override
+                    public void close()
+                    {
+                        delegate.close();
+                    }
+                };
+            }
+        };
+        try ( MuninnPageCache pageCache = createPageCache( fs, 40, tracer, DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < pageCount; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            pagedFile.flushAndForce();
+            assertThat( vectoredWrites, contains( pageCount ) );
+
+            // Pages 0, 2 and 4 are dirty, and the clean pages in between are written along with them.
+            // Page 19 is too far away to be included, and the clean pages after page 4 are not written at all.
+            vectoredWrites.clear();
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int pageId : new int[] {0, 2, 4, 19} )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                    cursor.putLong( pageId + 100 );
+                }
+            }
+            pagedFile.flushAndForce();
+            assertThat( vectoredWrites, contains( 5, 1 ) );
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate( 8 * pageCount );
+        try ( StoreChannel channel = fs.open( file( "a" ), OpenMode.READ ) )
+        {
+            channel.readAll( buffer );
+        }
+        buffer.flip();
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            boolean rewritten = i == 0 || i == 2 || i == 4 || i == 19;
+            assertEquals( rewritten ? i + 100 : i, buffer.getLong() );
+        }
+    }
+
+    @Test
+    public void flushMustWriteBackDirtyPagesOfAllFiles() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, tracer, DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFileA = pageCache.map( file( "a" ), 8 );
+              PagedFile pagedFileB = pageCache.map( file( "b" ), 8 ) )
+        {
+            PagedFileCounters countersA = countersOf( tracer, pagedFileA );
+            PagedFileCounters countersB = countersOf( tracer, pagedFileB );
+            for ( PagedFile pagedFile : new PagedFile[] {pagedFileA, pagedFileB} )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    assertTrue( cursor.next( 1 ) );
+                    cursor.putLong( y + 1 );
+                }
+            }
+
+            pageCache.flush( IOLimiter.unlimited() );
+            assertThat( countersA.flushes(), is( 1L ) );
+            assertThat( countersB.flushes(), is( 1L ) );
+            for ( String fileName : new String[] {"a", "b"} )
+            {
+                ByteBuffer buffer = readIntoBuffer( fileName );
+                assertThat( buffer.getLong(), is( x ) );
+                assertThat( buffer.getLong(), is( y + 1 ) );
+            }
+
+            // The pages are clean now, so there is nothing left to flush
+            pageCache.flushAndForce();
+            assertThat( countersA.flushes(), is( 1L ) );
+            assertThat( countersB.flushes(), is( 1L ) );
+        }
+    }
+
+    @Test
+    public void mustCountDirtyPages() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, PageCacheTracer.NULL, DefaultPageCursorTracerSupplier.NULL );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            assertThat( pageCache.countDirtyPages(), is( 0L ) );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( y + 1 );
+                assertTrue( cursor.next() );
+                cursor.putLong( y + 1 );
+            }
+            assertThat( pageCache.countDirtyPages(), is( 2L ) );
+
+            pageCache.flush( IOLimiter.unlimited() );
+            assertThat( pageCache.countDirtyPages(), is( 0L ) );
+        }
+    }
+
+    private PagedFileCounters countersOf( PageCacheTracer tracer, PagedFile pagedFile )
+    {
+        List<PagedFileCounters> counters = tracer.pagedFileCounters();
+        return counters.stream().filter( c -> c.file().equals( pagedFile.file() ) ).findFirst().get();
+    }
+
     private void evictAllPages( MuninnPageCache pageCache ) throws IOException
     {
         PageList pages = pageCache.pages;
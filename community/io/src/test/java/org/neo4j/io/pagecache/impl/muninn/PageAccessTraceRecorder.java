@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.tracing.PinEvent;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
+import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+
+/**
+ * Records every page pin made through a page cache to a trace file, which can later be replayed against the eviction
+ * policies with {@link EvictionPolicyTraceReplay}. Give it to the page cache as its page cursor tracer supplier.
+ * <p>
+ * The trace is a sequence of records. A file record is a {@code 'F'} byte, followed by the id the trace gives the
+ * file, and the path of the file. A pin record is a {@code 'P'} byte, followed by the file id and the file page id.
+ */
+public class PageAccessTraceRecorder implements PageCursorTracerSupplier, Closeable
+{
+    private static final byte FILE_RECORD = 'F';
+    private static final byte PIN_RECORD = 'P';
+
+    private final DataOutputStream out;
+    private final Map<File,Integer> fileIds = new HashMap<>();
+    private final ThreadLocal<PageCursorTracer> tracers = ThreadLocal.withInitial( RecordingCursorTracer::new );
+
+    public PageAccessTraceRecorder( File traceFile ) throws IOException
+    {
+        out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( traceFile ) ) );
+    }
+
+    @Override
+    public PageCursorTracer get()
+    {
+        return tracers.get();
+    }
+
+    private synchronized void record( PageSwapper swapper, long filePageId )
+    {
+        try
+        {
+            File file = swapper.file();
+            Integer fileId = fileIds.get( file );
+            if ( fileId == null )
+            {
+                fileId = fileIds.size() + 1;
+                fileIds.put( file, fileId );
+                out.writeByte( FILE_RECORD );
+                out.writeInt( fileId );
+                out.writeUTF( file.getPath() );
+            }
+            out.writeByte( PIN_RECORD );
+            out.writeInt( fileId );
+            out.writeLong( filePageId );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        out.close();
+    }
+
+    /**
+     * Read the given trace, and give the page key of every recorded pin to the given consumer, in order. The page keys
+     * combine the file id and the file page id, like the page keys the page cache gives to its eviction policy.
+     */
+    public static void replay( File traceFile, LongConsumer pageKeys ) throws IOException
+    {
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( traceFile ) ) ) )
+        {
+            for ( ;; )
+            {
+                int recordType;
+                try
+                {
+                    recordType = in.readByte();
+                }
+                catch ( EOFException e )
+                {
+                    return;
+                }
+                int fileId = in.readInt();
+                if ( recordType == FILE_RECORD )
+                {
+                    in.readUTF();
+                }
+                else if ( recordType == PIN_RECORD )
+                {
+                    long filePageId = in.readLong();
+                    pageKeys.accept( (filePageId << 21) + fileId );
+                }
+                else
+                {
+                    throw new IOException( "Unknown record type " + recordType + " in trace " + traceFile );
+                }
+            }
+        }
+    }
+
+    private class RecordingCursorTracer extends DefaultPageCursorTracer
+    {
+        @Override
+        public PinEvent beginPin( boolean writeLock, long filePageId, PageSwapper swapper )
+        {
+            record( swapper, filePageId );
+            return super.beginPin( writeLock, filePageId, swapper );
+        }
+    }
+}
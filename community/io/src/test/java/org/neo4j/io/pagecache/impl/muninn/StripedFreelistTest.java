@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class StripedFreelistTest
+{
+    @Test
+    public void stripeCountMustBeRoundedUpToPowerOfTwo()
+    {
+        assertThat( new StripedFreelist( 0 ).stripeCount(), is( 1 ) );
+        assertThat( new StripedFreelist( 1 ).stripeCount(), is( 1 ) );
+        assertThat( new StripedFreelist( 3 ).stripeCount(), is( 4 ) );
+        assertThat( new StripedFreelist( 8 ).stripeCount(), is( 8 ) );
+        assertThat( new StripedFreelist( 1000 ).stripeCount(), is( 128 ) );
+    }
+
+    @Test
+    public void popMustReturnZeroWhenEmpty()
+    {
+        StripedFreelist freelist = new StripedFreelist( 4 );
+        assertTrue( freelist.isEmpty() );
+        assertThat( freelist.pop( 0 ), is( 0L ) );
+    }
+
+    @Test
+    public void popMustPreferTheHintedStripe()
+    {
+        StripedFreelist freelist = new StripedFreelist( 4 );
+        freelist.push( 1, 11 );
+        freelist.push( 2, 12 );
+        assertThat( freelist.pop( 2 ), is( 12L ) );
+        assertThat( freelist.pop( 1 ), is( 11L ) );
+    }
+
+    @Test
+    public void popMustTakePagesFromOtherStripesWhenHintedStripeIsEmpty()
+    {
+        StripedFreelist freelist = new StripedFreelist( 4 );
+        freelist.push( 3, 13 );
+        assertFalse( freelist.isEmpty() );
+        assertThat( freelist.pop( 0 ), is( 13L ) );
+        assertTrue( freelist.isEmpty() );
+    }
+
+    @Test
+    public void countMustIncludeAllStripes()
+    {
+        StripedFreelist freelist = new StripedFreelist( 4 );
+        for ( int i = 1; i <= 10; i++ )
+        {
+            freelist.push( i, i );
+        }
+        assertThat( freelist.count(), is( 10 ) );
+        freelist.pop( 0 );
+        assertThat( freelist.count(), is( 9 ) );
+    }
+
+    @Test
+    public void concurrentPushAndPopMustNotLoseOrDuplicatePages() throws Exception
+    {
+        StripedFreelist freelist = new StripedFreelist( 4 );
+        int threads = 4;
+        int pagesPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                int offset = t * pagesPerThread;
+                futures.add( executor.submit( () ->
+                {
+                    List<Long> popped = new ArrayList<>();
+                    for ( int i = 1; i <= pagesPerThread; i++ )
+                    {
+                        freelist.push( offset + i, offset + i );
+                        long pageRef = freelist.pop( offset );
+                        if ( pageRef != 0 )
+                        {
+                            popped.add( pageRef );
+                        }
+                    }
+                    return popped;
+                } ) );
+            }
+            Set<Long> seen = new HashSet<>();
+            for ( Future<List<Long>> future : futures )
+            {
+                for ( Long pageRef : future.get() )
+                {
+                    assertTrue( seen.add( pageRef ) );
+                }
+            }
+            long pageRef;
+            while ( (pageRef = freelist.pop( 0 )) != 0 )
+            {
+                assertTrue( seen.add( pageRef ) );
+            }
+            assertThat( seen.size(), is( threads * pagesPerThread ) );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
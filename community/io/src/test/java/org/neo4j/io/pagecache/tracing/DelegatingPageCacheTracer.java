@@ -20,8 +20,10 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.List;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer that delegates all calls to a wrapped instance.
@@ -109,6 +111,30 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.evictionExceptions();
     }
 
+    @Override
+    public long cooperativeEvictions()
+    {
+        return delegate.cooperativeEvictions();
+    }
+
+    @Override
+    public void addPagedFileCounters( PagedFileCounters counters )
+    {
+        delegate.addPagedFileCounters( counters );
+    }
+
+    @Override
+    public void removePagedFileCounters( PagedFileCounters counters )
+    {
+        delegate.removePagedFileCounters( counters );
+    }
+
+    @Override
+    public List<PagedFileCounters> pagedFileCounters()
+    {
+        return delegate.pagedFileCounters();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -163,6 +189,12 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.evictionExceptions( evictionExceptions );
     }
 
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+        delegate.cooperativeEvictions( cooperativeEvictions );
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
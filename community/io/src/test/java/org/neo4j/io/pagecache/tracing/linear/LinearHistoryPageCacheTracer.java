@@ -20,8 +20,11 @@
 package org.neo4j.io.pagecache.tracing.linear;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
@@ -144,6 +147,28 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long cooperativeEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public void addPagedFileCounters( PagedFileCounters counters )
+    {
+    }
+
+    @Override
+    public void removePagedFileCounters( PagedFileCounters counters )
+    {
+    }
+
+    @Override
+    public List<PagedFileCounters> pagedFileCounters()
+    {
+        return Collections.emptyList();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -191,6 +216,11 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     {
     }
 
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
@@ -21,9 +21,12 @@ package org.neo4j.io.pagecache.tracing.recording;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
@@ -149,6 +152,28 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
         return 0;
     }
 
+    @Override
+    public long cooperativeEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public void addPagedFileCounters( PagedFileCounters counters )
+    {
+    }
+
+    @Override
+    public void removePagedFileCounters( PagedFileCounters counters )
+    {
+    }
+
+    @Override
+    public List<PagedFileCounters> pagedFileCounters()
+    {
+        return Collections.emptyList();
+    }
+
     @Override
     public double hitRatio()
     {
@@ -199,6 +224,11 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
     {
     }
 
+    @Override
+    public void cooperativeEvictions( long cooperativeEvictions )
+    {
+    }
+
     @Override
     public void bytesWritten( long bytesWritten )
     {
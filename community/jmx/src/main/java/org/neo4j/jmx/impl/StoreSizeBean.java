@@ -44,6 +44,7 @@ import org.neo4j.util.VisibleForTesting;
 
 import static java.util.Objects.requireNonNull;
 import static org.neo4j.jmx.impl.ThrottlingBeanSnapshotProxy.newThrottlingBeanSnapshotProxy;
+import static org.neo4j.kernel.impl.store.StoreFile.COUNTS_STORE_GBPTREE;
 import static org.neo4j.kernel.impl.store.StoreFile.COUNTS_STORE_LEFT;
 import static org.neo4j.kernel.impl.store.StoreFile.COUNTS_STORE_RIGHT;
 import static org.neo4j.kernel.impl.store.StoreFile.LABEL_TOKEN_NAMES_STORE;
@@ -339,7 +340,7 @@ public final class StoreSizeBean extends ManagementBeanProvider
         @Override
         public long getCountStoreSize()
         {
-            return sizeOfStoreFiles( COUNTS_STORE_LEFT, COUNTS_STORE_RIGHT );
+            return sizeOfStoreFiles( COUNTS_STORE_LEFT, COUNTS_STORE_RIGHT, COUNTS_STORE_GBPTREE );
         }
 
         @Override
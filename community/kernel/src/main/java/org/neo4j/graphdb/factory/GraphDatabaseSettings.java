@@ -476,6 +476,37 @@ public class GraphDatabaseSettings implements LoadableConfig
                   "Removing the setting, or commenting it out, will set the default value of 300." )
     public static final Setting<Integer> check_point_iops_limit = setting( "dbms.checkpoint.iops.limit", INTEGER, "300" );
 
+    @Description( "Write dirty pages back to the store files in the background, every " +
+                  "'unsupported.dbms.checkpoint.incremental.interval' if any transactions have been closed since " +
+                  "the last write-back. The write-back is limited by the same IO limit as check points, and does not " +
+                  "force the files. Check points are still made according to the 'dbms.checkpoint' policy, but only " +
+                  "have to flush and force what was changed since the last write-back, which avoids bursts of IO." )
+    @Internal
+    public static final Setting<Boolean> check_point_incremental =
+            setting( "unsupported.dbms.checkpoint.incremental", BOOLEAN, FALSE );
+
+    @Description( "How often to write back dirty pages in the background, when " +
+                  "'unsupported.dbms.checkpoint.incremental' is enabled." )
+    @Internal
+    public static final Setting<Duration> check_point_incremental_interval =
+            setting( "unsupported.dbms.checkpoint.incremental.interval", DURATION, "1s" );
+
+    @Description( "The longest that recovery should take after a crash, for the 'recovery-time' check-point policy of " +
+                  "the Neo4j Enterprise Edition. That policy estimates how long recovery would take from the amount " +
+                  "of transaction log written since the last check-point, and check-points early enough for the " +
+                  "next check-point to complete, at the rate allowed by 'dbms.checkpoint.iops.limit', before the " +
+                  "estimate exceeds this." )
+    @Internal
+    public static final Setting<Duration> check_point_recovery_time =
+            setting( "unsupported.dbms.checkpoint.recovery_time", DURATION, "5m" );
+
+    @Description( "How many bytes of transaction log recovery is assumed to replay per second, for the " +
+                  "'recovery-time' check-point policy, until a recovery of this database has been timed." )
+    @Internal
+    public static final Setting<Long> check_point_recovery_replay_rate =
+            buildSetting( "unsupported.dbms.checkpoint.recovery_time.replay_rate", BYTES, "16m" )
+                    .constraint( min( 1L ) ).build();
+
     // Auto Indexing
     @Description( "Controls the auto indexing feature for nodes. Setting it to `false` shuts it down, " +
             "while `true` enables it by default for properties listed in the dbms.auto_index.nodes.keys setting." )
@@ -611,18 +642,90 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Long> logical_log_rotation_threshold =
             buildSetting( "dbms.tx_log.rotation.size", BYTES, "250M" ).constraint( min( ByteUnit.mebiBytes( 1 ) ) ).build();
 
+    @Description( "Pre-allocate transaction log files to the rotation size in the background, so that rotating to " +
+            "a new log file doesn't have to create and grow a file while transactions are waiting to commit." )
+    @Internal
+    public static final Setting<Boolean> preallocate_logical_logs =
+            setting( "unsupported.dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
+    @Description( "Reuse pruned transaction log files as pre-allocated log files, instead of deleting them. " +
+            "Only has an effect if transaction log files are pre-allocated." )
+    @Internal
+    public static final Setting<Boolean> recycle_logical_logs =
+            setting( "unsupported.dbms.tx_log.recycle", BOOLEAN, FALSE );
+
+    @Description( "Keep a sparse index of where transactions start in each transaction log file, written next to " +
+            "the log file when it's rotated. Looking up a transaction by id, f.ex. for catching up other cluster " +
+            "members or for backups, can then seek close to the transaction instead of reading its log file from " +
+            "the start." )
+    @Internal
+    public static final Setting<Boolean> transaction_log_position_index =
+            setting( "unsupported.dbms.tx_log.position_index", BOOLEAN, FALSE );
+
+    @Description( "Read transaction log files that have been rotated away from through memory mapping, instead of " +
+            "with a system call per read. Speeds up recovery and serving transactions to other cluster members " +
+            "and backups. Not used if pruned log files are recycled, since they are changed in place." )
+    @Internal
+    public static final Setting<Boolean> read_mapped_logical_logs =
+            setting( "unsupported.dbms.tx_log.read_mapped", BOOLEAN, FALSE );
+
+    @Description( "Write the commands of larger transactions to the transaction log in compressed form. " +
+            "Transaction logs written with this enabled can not be read by versions that lack support for it. " +
+            "Transactions sent to other cluster members are never compressed." )
+    @Internal
+    public static final Setting<Boolean> compress_transaction_log_commands =
+            setting( "unsupported.dbms.tx_log.compress_commands", BOOLEAN, FALSE );
+
     @Description( "If `true`, Neo4j will abort recovery if any errors are encountered in the logical log. Setting " +
             "this to `false` will allow Neo4j to restore as much as possible from the corrupted log files and ignore " +
             "the rest, but, the integrity of the database might be compromised." )
     @Internal
     public static final Setting<Boolean> fail_on_corrupted_log_files = setting("unsupported.dbms.tx_log.fail_on_corrupted_log_files", BOOLEAN, TRUE );
 
+    @Description( "The number of threads used to apply recovered transactions to the store. Recovered transactions " +
+            "that touch different records are applied in parallel, while transactions that touch the same records, " +
+            "or that change schema or tokens, are applied in commit order. With 1, transactions are applied one " +
+            "by one." )
+    @Internal
+    public static final Setting<Integer> recovery_parallelism =
+            buildSetting( "unsupported.dbms.recovery.parallelism", INTEGER, "1" ).constraint( min( 1 ) ).build();
+
+    @Description( "Apply batches of transactions, such as those pulled by read replicas and slaves, as a pipeline. " +
+            "Store and schema index changes are applied by the applying thread, while counts store and explicit " +
+            "index changes are applied behind them on a separate thread. A batch is only considered applied when " +
+            "both have applied all of it." )
+    @Internal
+    public static final Setting<Boolean> pipelined_transaction_application =
+            setting( "unsupported.dbms.tx_apply.pipelined", BOOLEAN, FALSE );
+
+    @Description( "Let a dedicated thread append and force committed transactions to the transaction log. " +
+            "Committing threads serialize their transactions concurrently and hand them over to this thread, which " +
+            "appends and forces them in batches." )
+    @Internal
+    public static final Setting<Boolean> dedicated_transaction_log_writer =
+            setting( "unsupported.dbms.tx_log.dedicated_writer", BOOLEAN, FALSE );
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities." )
     @Internal
     public static final Setting<Boolean> rebuild_idgenerators_fast =
             setting( "unsupported.dbms.id_generator_fast_rebuild_enabled", BOOLEAN, TRUE );
 
+    @Description( "[Experimental] Keep the free ids of the record stores in crash-safe trees instead of in the " +
+            "regular id files, so that free ids survive an unclean shutdown and are reused in ascending order. " +
+            "Existing id files are converted by rebuilding them on the next startup, and the converted id files " +
+            "cannot be read by tools that read id files directly." )
+    @Internal
+    public static final Setting<Boolean> id_generator_gbptree =
+            setting( "unsupported.dbms.id_generator.gbptree", BOOLEAN, FALSE );
+
+    @Description( "[Experimental] Keep the counts store in a crash-safe tree, which only writes the changed counts " +
+            "on checkpoint, instead of in the regular counts store files, which are rewritten as a whole on every " +
+            "checkpoint. Switching between the two rebuilds the counts store on the next startup." )
+    @Internal
+    public static final Setting<Boolean> counts_store_gbptree =
+            setting( "unsupported.dbms.counts_store.gbptree", BOOLEAN, FALSE );
+
     @Description( "Specifies if engine should run cypher query based on a snapshot of accessed data. " +
             "Query will be restarted in case if concurrent modification of data will be detected." )
     @Internal
@@ -653,10 +756,45 @@ public class GraphDatabaseSettings implements LoadableConfig
             buildSetting( "dbms.memory.pagecache.size", STRING, null ).build();
 
     @Description( "Specify which page swapper to use for doing paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+                  "The `async` swapper keeps many reads and writes in flight at the same time, which can help on " +
+                  "storage devices with deep command queues. " +
+                  "Other values are only used when integrating with proprietary storage technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Internal
+    @Description( "Back the page cache memory with huge pages, to reduce the number of TLB misses when accessing a " +
+                  "large page cache. With `transparent`, the memory is aligned to huge page boundaries, so the " +
+                  "operating system can back it with transparent huge pages, if they are enabled. With `hugetlbfs`, " +
+                  "the memory is mapped from files in the directory given by " +
+                  "`unsupported.dbms.memory.pagecache.huge_pages.directory`, which must be on a hugetlbfs mount " +
+                  "with enough huge pages reserved for the page cache." )
+    public static final Setting<String> pagecache_huge_pages =
+            setting( "unsupported.dbms.memory.pagecache.huge_pages", options( "none", "transparent", "hugetlbfs" ),
+                    "none" );
+
+    @Internal
+    @Description( "The hugetlbfs directory to map the page cache memory from, " +
+                  "when `unsupported.dbms.memory.pagecache.huge_pages` is set to `hugetlbfs`." )
+    public static final Setting<File> pagecache_huge_pages_directory =
+            setting( "unsupported.dbms.memory.pagecache.huge_pages.directory", PATH, "/dev/hugepages" );
+
+    @Internal
+    @Description( "The number of background threads the page cache uses for evicting pages. Each thread sweeps its " +
+                  "own part of the page cache. More threads can help keep up with page faulting on machines with " +
+                  "many cores and fast storage, which shows as a growing number of cooperative evictions." )
+    public static final Setting<Integer> pagecache_eviction_threads =
+            buildSetting( "unsupported.dbms.memory.pagecache.eviction_threads", INTEGER, "1" )
+                    .constraint( min( 1 ) ).build();
+
+    @Internal
+    @Description( "The policy the page cache uses for deciding which pages to evict. `clock` treats all newly loaded " +
+                  "pages the same. `tinylfu` remembers how often pages have been loaded recently, and lets the pages " +
+                  "that keep getting loaded stay longer in memory. This helps workloads where large scans compete " +
+                  "with a frequently used working set." )
+    public static final Setting<String> pagecache_eviction_policy =
+            setting( "unsupported.dbms.memory.pagecache.eviction_policy", options( "clock", "tinylfu" ), "clock" );
+
     @Internal
     @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
                   "warmup after a restart, reducing the mean time to performance. " +
@@ -970,12 +1108,21 @@ public class GraphDatabaseSettings implements LoadableConfig
     }
 
     @Internal
-    @Description( "[Experimental] Defines whether memory for transaction state should allocaten on- or off-heap." )
+    @Description( "[Experimental] Defines whether memory for transaction state should allocaten on- or off-heap. " +
+            "Off-heap transaction state keeps the values of changed properties, and the sets of added and removed " +
+            "nodes and relationships, in native memory." )
     public static final Setting<TransactionStateMemoryAllocation> tx_state_memory_allocation = buildSetting(
             "unsupported.dbms.tx_state.memory_allocation",
             options( TransactionStateMemoryAllocation.class, true ),
             TransactionStateMemoryAllocation.ON_HEAP.name() ).build();
 
+    @Internal
+    @Description( "[Experimental] Maximum amount of off-heap memory that the state of a single transaction can use, " +
+            "when transaction state is allocated off-heap. Transactions that need more memory than this will fail. " +
+            "Zero means unlimited." )
+    public static final Setting<Long> tx_state_max_off_heap_memory =
+            buildSetting( "unsupported.dbms.tx_state.max_off_heap_memory", BYTES, "0" ).constraint( min( 0L ) ).build();
+
     // Needed to validate config, accessed via reflection
     @SuppressWarnings( "unused" )
     public static final HttpConnectorValidator httpValidator = new HttpConnectorValidator();
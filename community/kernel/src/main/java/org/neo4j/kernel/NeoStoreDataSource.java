@@ -80,6 +80,7 @@ import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.newapi.DefaultCursors;
 import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageCommandReaderFactory;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.IdController;
 import org.neo4j.kernel.impl.store.MetaDataStore;
@@ -106,8 +107,11 @@ import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointScheduler;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerImpl;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.DefaultCheckPointWorkload;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.DirtyPageWriteBack;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.StoreCopyCheckPointMutex;
+import org.neo4j.kernel.impl.transaction.log.entry.InvalidLogEntryHandler;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
@@ -398,12 +402,15 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         life.add( Lifecycles.multiple( indexProviders.values() ) );
 
         // Check the tail of transaction logs and validate version
-        final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader = new VersionAwareLogEntryReader<>(
+                new RecordStorageCommandReaderFactory(), InvalidLogEntryHandler.STRICT,
+                config.get( GraphDatabaseSettings.preallocate_logical_logs ) );
 
         LogFiles logFiles = LogFilesBuilder.builder( storeDir, fs )
                 .withLogEntryReader( logEntryReader )
                 .withLogFileMonitor( physicalLogMonitor )
                 .withConfig( config )
+                .withJobScheduler( scheduler )
                 .withDependencies( dependencies ).build();
 
         LogTailScanner tailScanner = new LogTailScanner( logFiles, logEntryReader, monitors, failOnCorruptedLogFiles );
@@ -606,12 +613,16 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, scheduler, config.get( GraphDatabaseSettings.dedicated_transaction_log_writer ),
+                config.get( GraphDatabaseSettings.compress_transaction_log_commands ) ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFiles, transactionMetadataCache, logEntryReader, monitors,
                         failOnCorruptedLogFiles );
 
-        CheckPointThreshold threshold = CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider );
+        DefaultCheckPointWorkload checkPointWorkload = new DefaultCheckPointWorkload( fs, logFiles, pageCache, clock );
+        monitors.addMonitorListener( checkPointWorkload );
+        CheckPointThreshold threshold =
+                CheckPointThreshold.createThreshold( config, clock, logPruning, checkPointWorkload, logProvider );
 
         final CheckPointerImpl checkPointer = new CheckPointerImpl(
                 transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider,
@@ -623,6 +634,11 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         life.add( checkPointer );
         life.add( checkPointScheduler );
+        if ( config.get( GraphDatabaseSettings.check_point_incremental ) )
+        {
+            life.add( new DirtyPageWriteBack( pageCache, ioLimiter, transactionIdStore, databaseHealth, scheduler,
+                    config.get( GraphDatabaseSettings.check_point_incremental_interval ).toMillis(), logProvider ) );
+        }
 
         return new NeoStoreTransactionLogModule( logicalTransactionStore, logFiles,
                 logRotation, checkPointer, appender, explicitIndexTransactionOrdering );
@@ -641,7 +657,8 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             LogVersionRepository logVersionRepository )
     {
         RecoveryService recoveryService = new DefaultRecoveryService( storageEngine, tailScanner, transactionIdStore,
-                logicalTransactionStore, logVersionRepository, positionMonitor );
+                logicalTransactionStore, logVersionRepository, positionMonitor, recoveryMonitor,
+                config.get( GraphDatabaseSettings.recovery_parallelism ) );
         CorruptedLogsTruncator logsTruncator = new CorruptedLogsTruncator( storeDir, logFiles, fileSystemAbstraction );
         ProgressReporter progressReporter = new LogProgressReporter( logService.getInternalLog( Recovery.class ) );
         Recovery recovery = new Recovery( recoveryService, startupStatistics, logsTruncator, recoveryMonitor,
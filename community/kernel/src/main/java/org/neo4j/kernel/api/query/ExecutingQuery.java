@@ -63,6 +63,7 @@ public class ExecutingQuery
     @SuppressWarnings( {"unused", "FieldCanBeLocal"} )
     private final String threadExecutingTheQueryName;
     private final LongSupplier activeLockCount;
+    private final LongSupplier directAllocatedBytes;
     private final long initialActiveLocks;
     private final SystemNanoClock clock;
     private final CpuClock cpuClock;
@@ -91,6 +92,31 @@ public class ExecutingQuery
             SystemNanoClock clock,
             CpuClock cpuClock,
             HeapAllocation heapAllocation )
+    {
+        this( queryId, clientConnection, username, queryText, queryParameters, transactionAnnotationData,
+                activeLockCount, () -> -1, pageCursorCounters, threadExecutingTheQueryId, threadExecutingTheQueryName,
+                clock, cpuClock, heapAllocation );
+    }
+
+    /**
+     * @param directAllocatedBytes supplier of the number of bytes of native memory currently held by the state of
+     * the transaction that executes the query, or a negative value if that could not be measured.
+     */
+    public ExecutingQuery(
+            long queryId,
+            ClientConnectionInfo clientConnection,
+            String username,
+            String queryText,
+            MapValue queryParameters,
+            Map<String,Object> transactionAnnotationData,
+            LongSupplier activeLockCount,
+            LongSupplier directAllocatedBytes,
+            PageCursorCounters pageCursorCounters,
+            long threadExecutingTheQueryId,
+            String threadExecutingTheQueryName,
+            SystemNanoClock clock,
+            CpuClock cpuClock,
+            HeapAllocation heapAllocation )
     {
         // Capture timestamps first
         this.cpuTimeNanosWhenQueryStarted = cpuClock.cpuTimeNanos( threadExecutingTheQueryId );
@@ -106,6 +132,7 @@ public class ExecutingQuery
         this.transactionAnnotationData = transactionAnnotationData;
         this.activeLockCount = activeLockCount;
         this.initialActiveLocks = activeLockCount.getAsLong();
+        this.directAllocatedBytes = directAllocatedBytes;
         this.threadExecutingTheQueryId = threadExecutingTheQueryId;
         this.threadExecutingTheQueryName = threadExecutingTheQueryName;
         this.cpuClock = cpuClock;
@@ -167,6 +194,7 @@ public class ExecutingQuery
         long totalActiveLocks = this.activeLockCount.getAsLong();
         // just needs to be captured at some point...
         long heapAllocatedBytes = heapAllocation.allocatedBytes( threadExecutingTheQueryId );
+        long directAllocatedBytes = this.directAllocatedBytes.getAsLong();
         PageCounterValues pageCounters = new PageCounterValues( pageCursorCounters );
 
         // - at this point we are done capturing the "live" state, and can start computing the snapshot -
@@ -174,9 +202,6 @@ public class ExecutingQuery
         long elapsedTimeNanos = currentTimeNanos - startTimeNanos;
         cpuTimeNanos -= cpuTimeNanosWhenQueryStarted;
         waitTimeNanos += status.waitTimeNanos( currentTimeNanos );
-        // TODO: when we start allocating native memory as well during query execution,
-        // we should have a tracer that keeps track of how much memory we have allocated for the query,
-        // and get the value from that here.
         heapAllocatedBytes = heapAllocatedBytesWhenQueryStarted < 0 ? -1 : // mark that we were unable to measure
                 heapAllocatedBytes - heapAllocatedBytesWhenQueryStarted;
 
@@ -192,7 +217,8 @@ public class ExecutingQuery
                 status.toMap( currentTimeNanos ),
                 waitingOnLocks,
                 totalActiveLocks - initialActiveLocks,
-                heapAllocatedBytes
+                heapAllocatedBytes,
+                directAllocatedBytes
         );
     }
 
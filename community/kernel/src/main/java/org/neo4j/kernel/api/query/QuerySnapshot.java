@@ -41,11 +41,13 @@ public class QuerySnapshot
     private final List<ActiveLock> waitingLocks;
     private final long activeLockCount;
     private final long allocatedBytes;
+    private final long directAllocatedBytes;
     private final PageCounterValues page;
 
     QuerySnapshot( ExecutingQuery query, PlannerInfo plannerInfo, PageCounterValues page, long planningTimeMillis,
             long elapsedTimeMillis, long cpuTimeMillis, long waitTimeMillis, String status,
-            Map<String,Object> resourceInfo, List<ActiveLock> waitingLocks, long activeLockCount, long allocatedBytes )
+            Map<String,Object> resourceInfo, List<ActiveLock> waitingLocks, long activeLockCount, long allocatedBytes,
+            long directAllocatedBytes )
     {
         this.query = query;
         this.plannerInfo = plannerInfo;
@@ -59,6 +61,7 @@ public class QuerySnapshot
         this.waitingLocks = waitingLocks;
         this.activeLockCount = activeLockCount;
         this.allocatedBytes = allocatedBytes;
+        this.directAllocatedBytes = directAllocatedBytes;
     }
 
     public long internalQueryId()
@@ -202,6 +205,17 @@ public class QuerySnapshot
         return allocatedBytes < 0 ? null : allocatedBytes;
     }
 
+    /**
+     * The number of bytes of native memory currently held by the state of the transaction that executes the query.
+     *
+     * @return the number of bytes of native memory used by the transaction state, or {@code null} if the memory
+     * usage could not be measured.
+     */
+    public Long directAllocatedBytes()
+    {
+        return directAllocatedBytes < 0 ? null : directAllocatedBytes;
+    }
+
     public long pageHits()
     {
         return page.hits;
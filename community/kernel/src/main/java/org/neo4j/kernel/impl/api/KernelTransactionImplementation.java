@@ -229,7 +229,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                         this, new KernelToken( storeLayer, this ), cursors, autoIndexing, constraintIndexCreator,
                         constraintSemantics,
                         indexProviderMap );
-        this.collectionsFactory = collectionsFactorySupplier.create();
+        this.collectionsFactory = collectionsFactorySupplier.create( refusal -> failure() );
     }
 
     /**
@@ -1102,7 +1102,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
          *
          * @return amount of direct memory allocated by the thread in bytes.
          */
-        long directAllocatedBytes()
+        public long directAllocatedBytes()
         {
             return transaction.collectionsFactory.getMemoryTracker().usedDirectMemory();
         }
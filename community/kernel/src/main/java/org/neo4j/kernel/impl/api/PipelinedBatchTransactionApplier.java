@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * Applies a batch of transactions in two stages running on separate threads. The first stage is applied by the
+ * calling thread, as with {@link BatchTransactionApplierFacade}. Every transaction is handed over to the detached
+ * stage once the first stage has closed it, and the detached stage applies the transactions on its own thread,
+ * in the same order. {@link #close()} waits for the detached stage to catch up, so when it returns the whole batch
+ * has been applied by both stages, same as if all appliers had been applied sequentially.
+ * <p>
+ * Appliers in the detached stage must not read anything written by the first stage, since by the time they get to
+ * a transaction the first stage may already have applied later transactions in the batch.
+ */
+public class PipelinedBatchTransactionApplier implements BatchTransactionApplier
+{
+    private static final Object END_OF_BATCH = new Object();
+
+    private final BatchTransactionApplier applier;
+    private final BatchTransactionApplier detachedApplier;
+    private final BlockingQueue<Object> handedOver = new LinkedBlockingQueue<>();
+    private final JobScheduler.JobHandle detachedStage;
+    private volatile Throwable detachedFailure;
+
+    public PipelinedBatchTransactionApplier( BatchTransactionApplier applier,
+            BatchTransactionApplier detachedApplier, JobScheduler scheduler )
+    {
+        this.applier = applier;
+        this.detachedApplier = detachedApplier;
+        this.detachedStage = scheduler.schedule( JobScheduler.Groups.transactionApply, this::applyDetached );
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction ) throws IOException
+    {
+        return new TransactionApplierFacade( new HandOver( transaction ), applier.startTx( transaction ) );
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction, LockGroup lockGroup ) throws IOException
+    {
+        return new TransactionApplierFacade( new HandOver( transaction ), applier.startTx( transaction, lockGroup ) );
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        try
+        {
+            applier.close();
+        }
+        finally
+        {
+            handedOver.add( END_OF_BATCH );
+            detachedStage.waitTermination();
+        }
+        checkDetachedStage();
+    }
+
+    private void applyDetached()
+    {
+        try ( BatchTransactionApplier batchApplier = detachedApplier )
+        {
+            Object next;
+            while ( (next = handedOver.take()) != END_OF_BATCH )
+            {
+                CommandsToApply transaction = (CommandsToApply) next;
+                try ( TransactionApplier txApplier = batchApplier.startTx( transaction ) )
+                {
+                    transaction.accept( txApplier );
+                }
+            }
+        }
+        catch ( Throwable e )
+        {
+            detachedFailure = e;
+        }
+    }
+
+    private void checkDetachedStage() throws IOException
+    {
+        Throwable failure = detachedFailure;
+        if ( failure != null )
+        {
+            throw new IOException( "Failed to apply transactions in the detached stage", failure );
+        }
+    }
+
+    /**
+     * Closed after the first stage {@link TransactionApplier} of its transaction, i.e. once the first stage is
+     * done with the transaction, and hands it over to the detached stage.
+     */
+    private class HandOver extends TransactionApplier.Adapter
+    {
+        private final CommandsToApply transaction;
+
+        HandOver( CommandsToApply transaction )
+        {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            // No point in applying more of the batch if the detached stage has already failed
+            checkDetachedStage();
+            handedOver.add( transaction );
+        }
+    }
+}
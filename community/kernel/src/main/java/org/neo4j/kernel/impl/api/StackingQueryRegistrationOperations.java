@@ -75,6 +75,7 @@ public class StackingQueryRegistrationOperations implements QueryRegistrationOpe
         ExecutingQuery executingQuery =
                 new ExecutingQuery( queryId, clientConnection, statement.username(), queryText, queryParameters,
                         statement.getTransaction().getMetaData(), () -> statement.locks().activeLockCount(),
+                        () -> statement.getTransaction().getStatistics().directAllocatedBytes(),
                         statement.getPageCursorTracer(),
                         threadId, threadName, clock, cpuClockRef.get(), heapAllocationRef.get() );
         registerExecutingQuery( statement, executingQuery );
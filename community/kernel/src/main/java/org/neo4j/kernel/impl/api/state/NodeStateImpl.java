@@ -30,6 +30,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
 import org.neo4j.kernel.impl.api.state.RelationshipChangesForNode.DiffStrategy;
 import org.neo4j.kernel.impl.newapi.RelationshipDirection;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.storageengine.api.Direction;
@@ -188,11 +189,13 @@ class NodeStateImpl extends PropertyContainerStateImpl implements NodeState
 
     private Set<PrimitiveLongDiffSets> indexDiffs;
     private final TxState state;
+    private final CollectionsFactory collectionsFactory;
 
-    NodeStateImpl( long id, TxState state )
+    NodeStateImpl( long id, TxState state, CollectionsFactory collectionsFactory )
     {
-        super( id );
+        super( id, collectionsFactory );
         this.state = state;
+        this.collectionsFactory = collectionsFactory;
     }
 
     @Override
@@ -205,7 +208,7 @@ class NodeStateImpl extends PropertyContainerStateImpl implements NodeState
     {
         if ( labelDiffSets == null )
         {
-            labelDiffSets = new DiffSets<>();
+            labelDiffSets = new DiffSets<>( collectionsFactory::newBoxedIntSet );
         }
         return labelDiffSets;
     }
@@ -214,7 +217,7 @@ class NodeStateImpl extends PropertyContainerStateImpl implements NodeState
     {
         if ( !hasAddedRelationships() )
         {
-            relationshipsAdded = new RelationshipChangesForNode( DiffStrategy.ADD, state );
+            relationshipsAdded = new RelationshipChangesForNode( DiffStrategy.ADD, state, collectionsFactory );
         }
         relationshipsAdded.addRelationship( relId, typeId, direction );
     }
@@ -232,7 +235,7 @@ class NodeStateImpl extends PropertyContainerStateImpl implements NodeState
         }
         if ( !hasRemovedRelationships() )
         {
-            relationshipsRemoved = new RelationshipChangesForNode( DiffStrategy.REMOVE, state );
+            relationshipsRemoved = new RelationshipChangesForNode( DiffStrategy.REMOVE, state, collectionsFactory );
         }
         relationshipsRemoved.addRelationship( relId, typeId, direction );
     }
@@ -26,20 +26,21 @@ import java.util.function.Predicate;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.internal.kernel.api.exceptions.schema.ConstraintValidationException;
 import org.neo4j.kernel.api.properties.PropertyKeyValue;
-import org.neo4j.kernel.impl.util.VersionedHashMap;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.ValuesMap;
 import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.txstate.PropertyContainerState;
 import org.neo4j.values.storable.Value;
 
 import static java.util.Collections.emptyIterator;
-import static java.util.Collections.newSetFromMap;
 
 class PropertyContainerStateImpl implements PropertyContainerState
 {
     private final long id;
+    private final CollectionsFactory collectionsFactory;
 
-    private VersionedHashMap<Integer, Value> addedProperties;
-    private VersionedHashMap<Integer, Value> changedProperties;
+    private ValuesMap addedProperties;
+    private ValuesMap changedProperties;
     private Set<Integer> removedProperties;
 
     private final Predicate<StorageProperty> excludePropertiesWeKnowAbout = new Predicate<StorageProperty>()
@@ -53,9 +54,10 @@ class PropertyContainerStateImpl implements PropertyContainerState
         }
     };
 
-    PropertyContainerStateImpl( long id )
+    PropertyContainerStateImpl( long id, CollectionsFactory collectionsFactory )
     {
         this.id = id;
+        this.collectionsFactory = collectionsFactory;
     }
 
     public long getId()
@@ -89,7 +91,7 @@ class PropertyContainerStateImpl implements PropertyContainerState
 
         if ( changedProperties == null )
         {
-            changedProperties = new VersionedHashMap<>();
+            changedProperties = collectionsFactory.newValuesMap();
         }
         changedProperties.put( propertyKeyId, value );
 
@@ -110,20 +112,20 @@ class PropertyContainerStateImpl implements PropertyContainerState
         }
         if ( addedProperties == null )
         {
-            addedProperties = new VersionedHashMap<>();
+            addedProperties = collectionsFactory.newValuesMap();
         }
         addedProperties.put( propertyKeyId, value );
     }
 
     void removeProperty( int propertyKeyId )
     {
-        if ( addedProperties != null && addedProperties.remove( propertyKeyId ) != null )
+        if ( addedProperties != null && addedProperties.remove( propertyKeyId ) )
         {
             return;
         }
         if ( removedProperties == null )
         {
-            removedProperties = newSetFromMap( new VersionedHashMap<>() );
+            removedProperties = collectionsFactory.newBoxedIntSet();
         }
         removedProperties.add( propertyKeyId );
         if ( changedProperties != null )
@@ -224,16 +226,12 @@ class PropertyContainerStateImpl implements PropertyContainerState
         return removedProperties != null && removedProperties.contains( propertyKeyId );
     }
 
-    private Iterator<StorageProperty> toPropertyIterator( VersionedHashMap<Integer,Value> propertyMap )
+    private Iterator<StorageProperty> toPropertyIterator( ValuesMap propertyMap )
     {
-        return propertyMap == null ? emptyIterator() :
-               Iterators.map(
-                    entry -> new PropertyKeyValue( entry.getKey(), entry.getValue() ),
-                    propertyMap.entrySet().iterator()
-                );
+        return propertyMap == null ? emptyIterator() : propertyMap.properties();
     }
 
-    private PropertyKeyValue getPropertyOrNull( VersionedHashMap<Integer,Value> propertyMap, int propertyKeyId )
+    private PropertyKeyValue getPropertyOrNull( ValuesMap propertyMap, int propertyKeyId )
     {
         Value value = propertyMap.get( propertyKeyId );
         return value == null ? null : new PropertyKeyValue( propertyKeyId, value );
@@ -21,7 +21,6 @@ package org.neo4j.kernel.impl.api.state;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -39,6 +38,7 @@ import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.api.RelationshipVisitor.Home;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.newapi.RelationshipDirection;
+import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.VersionedHashMap;
 import org.neo4j.storageengine.api.Direction;
 
@@ -175,6 +175,7 @@ public class RelationshipChangesForNode
 
     private final DiffStrategy diffStrategy;
     private final Home relationshipHome;
+    private final CollectionsFactory collectionsFactory;
 
     private Map<Integer /* Type */, Set<Long /* Id */>> outgoing;
     private Map<Integer /* Type */, Set<Long /* Id */>> incoming;
@@ -184,17 +185,18 @@ public class RelationshipChangesForNode
     private int totalIncoming;
     private int totalLoops;
 
-    public RelationshipChangesForNode( DiffStrategy diffStrategy, RelationshipVisitor.Home relationshipHome )
+    public RelationshipChangesForNode( DiffStrategy diffStrategy, RelationshipVisitor.Home relationshipHome,
+            CollectionsFactory collectionsFactory )
     {
         this.diffStrategy = diffStrategy;
         this.relationshipHome = relationshipHome;
+        this.collectionsFactory = collectionsFactory;
     }
 
     public void addRelationship( long relId, int typeId, Direction direction )
     {
         Map<Integer, Set<Long>> relTypeToRelsMap = getTypeToRelMapForDirection( direction );
-        Set<Long> rels =
-                relTypeToRelsMap.computeIfAbsent( typeId, k -> Collections.newSetFromMap( new VersionedHashMap<>() ) );
+        Set<Long> rels = relTypeToRelsMap.computeIfAbsent( typeId, k -> collectionsFactory.newBoxedLongSet() );
 
         rels.add( relId );
 
@@ -376,7 +376,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             labelStatesMap = collectionsFactory.newIntObjectMap();
         }
-        return labelStatesMap.computeIfAbsent( labelId, unused -> new DiffSets<>() );
+        return labelStatesMap.computeIfAbsent( labelId, unused -> new DiffSets<>( collectionsFactory::newBoxedLongSet ) );
     }
 
     private ReadableDiffSets<Long> getLabelStateNodeDiffSets( int labelId )
@@ -905,7 +905,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             nodeStatesMap = collectionsFactory.newLongObjectMap();
         }
-        return nodeStatesMap.computeIfAbsent( nodeId, unused -> new NodeStateImpl( nodeId, this ) );
+        return nodeStatesMap.computeIfAbsent( nodeId, unused -> new NodeStateImpl( nodeId, this, collectionsFactory ) );
     }
 
     private RelationshipStateImpl getOrCreateRelationshipState( long relationshipId )
@@ -914,14 +914,14 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationshipStatesMap = collectionsFactory.newLongObjectMap();
         }
-        return relationshipStatesMap.computeIfAbsent( relationshipId, unused -> new RelationshipStateImpl( relationshipId ) );
+        return relationshipStatesMap.computeIfAbsent( relationshipId, unused -> new RelationshipStateImpl( relationshipId, collectionsFactory ) );
     }
 
     private GraphState getOrCreateGraphState()
     {
         if ( graphState == null )
         {
-            graphState = new GraphState();
+            graphState = new GraphState( collectionsFactory );
         }
         return graphState;
     }
@@ -1336,6 +1336,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
         {
             relationships.removedFromAdded.close();
         }
+        collectionsFactory.release();
     }
 
     private static class LabelTokenStateVisitor implements PrimitiveIntObjectVisitor<String,RuntimeException>
@@ -1419,6 +1420,11 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
     {
         private PrimitiveLongSet removedFromAdded;
 
+        private RemovalsCountingDiffSets()
+        {
+            super( collectionsFactory::newBoxedLongSet );
+        }
+
         @Override
         public boolean remove( Long elem )
         {
@@ -1450,7 +1456,7 @@ public class TxState implements TransactionState, RelationshipVisitor.Home
 
         private RemovalsCountingRelationshipsDiffSets( RelationshipVisitor.Home txStateRelationshipHome )
         {
-            super( txStateRelationshipHome );
+            super( txStateRelationshipHome, collectionsFactory::newBoxedLongSet );
         }
 
         @Override
@@ -57,6 +57,7 @@ import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.store.id.DefaultIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.id.GBPTreeIdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdReuseEligibility;
 import org.neo4j.kernel.impl.store.id.configuration.CommunityIdTypeConfigurationProvider;
@@ -69,6 +70,7 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.kernel.internal.KernelData;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.kernel.lifecycle.LifecycleStatus;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.udc.UsageData;
 
 /**
@@ -108,7 +110,9 @@ public class CommunityEditionModule extends EditionModule
         idTypeConfigurationProvider = createIdTypeConfigurationProvider( config );
         eligibleForIdReuse = IdReuseEligibility.ALWAYS;
 
-        createIdComponents( platformModule, dependencies, createIdGeneratorFactory( fileSystem, idTypeConfigurationProvider ) );
+        createIdComponents( platformModule, dependencies,
+                createIdGeneratorFactory( fileSystem, pageCache, config, idTypeConfigurationProvider,
+                        platformModule.jobScheduler ) );
         dependencies.satisfyDependency( idGeneratorFactory );
         dependencies.satisfyDependency( idController );
 
@@ -221,6 +225,16 @@ public class CommunityEditionModule extends EditionModule
         return life.add( new DefaultKernelData( fileSystem, pageCache, storeDir, config, graphAPI ) );
     }
 
+    private IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs, PageCache pageCache, Config config,
+            IdTypeConfigurationProvider idTypeConfigurationProvider, JobScheduler jobScheduler )
+    {
+        if ( config.get( GraphDatabaseSettings.id_generator_gbptree ) )
+        {
+            return new GBPTreeIdGeneratorFactory( fs, pageCache, idTypeConfigurationProvider, jobScheduler );
+        }
+        return createIdGeneratorFactory( fs, idTypeConfigurationProvider );
+    }
+
     protected IdGeneratorFactory createIdGeneratorFactory( FileSystemAbstraction fs,
             IdTypeConfigurationProvider idTypeConfigurationProvider )
     {
@@ -671,12 +671,24 @@ public class AllStoreHolder extends Read
         return nodes.openPageCursorForReading( reference );
     }
 
+    @Override
+    PageCursor nodeScanPage( long reference )
+    {
+        return nodes.openPageCursorForScanning( reference );
+    }
+
     @Override
     PageCursor relationshipPage( long reference )
     {
         return relationships.openPageCursorForReading( reference );
     }
 
+    @Override
+    PageCursor relationshipScanPage( long reference )
+    {
+        return relationships.openPageCursorForScanning( reference );
+    }
+
     @Override
     PageCursor groupPage( long reference )
     {
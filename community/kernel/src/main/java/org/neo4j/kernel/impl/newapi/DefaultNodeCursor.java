@@ -45,6 +45,8 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
     private Read read;
     private RecordCursor<DynamicRecord> labelCursor;
     private PageCursor pageCursor;
+    /** Whether {@link #pageCursor} was opened for scanning, i.e. with read-ahead and as transient. */
+    private boolean scanPageCursor;
     private long next;
     private long highMark;
     private HasChanges hasChanges = HasChanges.MAYBE;
@@ -65,9 +67,11 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         {
             reset();
         }
-        if ( pageCursor == null )
+        if ( pageCursor == null || !scanPageCursor )
         {
-            pageCursor = read.nodePage( 0 );
+            closePageCursor();
+            pageCursor = read.nodeScanPage( 0 );
+            scanPageCursor = true;
         }
         this.next = 0;
         this.highMark = read.nodeHighMark();
@@ -82,9 +86,11 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
         {
             reset();
         }
-        if ( pageCursor == null )
+        if ( pageCursor == null || scanPageCursor )
         {
+            closePageCursor();
             pageCursor = read.nodePage( reference );
+            scanPageCursor = false;
         }
         this.next = reference >= 0 ? reference : NO_ID;
         //This marks the cursor as a "single cursor"
@@ -357,6 +363,11 @@ class DefaultNodeCursor extends NodeRecord implements NodeCursor
             labelCursor = null;
         }
 
+        closePageCursor();
+    }
+
+    private void closePageCursor()
+    {
         if ( pageCursor != null )
         {
             pageCursor.close();
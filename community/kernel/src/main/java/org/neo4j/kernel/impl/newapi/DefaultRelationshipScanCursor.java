@@ -33,6 +33,8 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
     private long next;
     private long highMark;
     private PageCursor pageCursor;
+    /** Whether {@link #pageCursor} was opened for scanning, i.e. with read-ahead and as transient. */
+    private boolean scanPageCursor;
     private Set<Long> addedRelationships;
 
     DefaultRelationshipScanCursor( DefaultCursors pool )
@@ -46,9 +48,11 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         {
             reset();
         }
-        if ( pageCursor == null )
+        if ( pageCursor == null || !scanPageCursor )
         {
-            pageCursor = read.relationshipPage( 0 );
+            closePageCursor();
+            pageCursor = read.relationshipScanPage( 0 );
+            scanPageCursor = true;
         }
         next = 0;
         this.type = type;
@@ -63,9 +67,11 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
         {
             reset();
         }
-        if ( pageCursor == null )
+        if ( pageCursor == null || scanPageCursor )
         {
+            closePageCursor();
             pageCursor = read.relationshipPage( reference );
+            scanPageCursor = false;
         }
         next = reference >= 0 ? reference : NO_ID;
         type = -1;
@@ -189,6 +195,11 @@ class DefaultRelationshipScanCursor extends RelationshipCursor implements Relati
     }
 
     public void release()
+    {
+        closePageCursor();
+    }
+
+    private void closePageCursor()
     {
         if ( pageCursor != null )
         {
@@ -587,8 +587,12 @@ abstract class Read implements TxStateHolder,
 
     abstract PageCursor nodePage( long reference );
 
+    abstract PageCursor nodeScanPage( long reference );
+
     abstract PageCursor relationshipPage( long reference );
 
+    abstract PageCursor relationshipScanPage( long reference );
+
     abstract PageCursor groupPage( long reference );
 
     abstract PageCursor propertyPage( long reference );
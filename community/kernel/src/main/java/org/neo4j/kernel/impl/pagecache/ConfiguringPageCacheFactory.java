@@ -27,6 +27,7 @@ import org.neo4j.io.os.OsBeanUtil;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
@@ -36,6 +37,10 @@ import org.neo4j.logging.Log;
 import org.neo4j.memory.GlobalMemoryTracker;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_threads;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_pages;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_pages_directory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
@@ -88,7 +93,8 @@ public class ConfiguringPageCacheFactory
         checkPageSize( config );
         MemoryAllocator memoryAllocator = buildMemoryAllocator( config );
         return new MuninnPageCache( swapperFactory, memoryAllocator, pageCacheTracer, pageCursorTracerSupplier,
-                versionContextSupplier );
+                versionContextSupplier, config.get( pagecache_eviction_threads ),
+                EvictionPolicy.byName( config.get( pagecache_eviction_policy ) ) );
     }
 
     private MemoryAllocator buildMemoryAllocator( Config config )
@@ -104,7 +110,17 @@ public class ConfiguringPageCacheFactory
             pageCacheMemorySetting = "" + heuristic;
         }
 
-        return MemoryAllocator.createAllocator( pageCacheMemorySetting, GlobalMemoryTracker.INSTANCE );
+        switch ( config.get( pagecache_huge_pages ) )
+        {
+        case "transparent":
+            return MemoryAllocator.createTransparentHugePageAllocator(
+                    pageCacheMemorySetting, GlobalMemoryTracker.INSTANCE );
+        case "hugetlbfs":
+            return MemoryAllocator.createHugeTlbFsAllocator( pageCacheMemorySetting,
+                    config.get( pagecache_huge_pages_directory ), GlobalMemoryTracker.INSTANCE );
+        default:
+            return MemoryAllocator.createAllocator( pageCacheMemorySetting, GlobalMemoryTracker.INSTANCE );
+        }
     }
 
     public static long defaultHeuristicPageCacheMemory()
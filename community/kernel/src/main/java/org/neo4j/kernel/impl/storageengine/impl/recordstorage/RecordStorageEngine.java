@@ -52,6 +52,7 @@ import org.neo4j.kernel.impl.api.ExplicitBatchIndexApplier;
 import org.neo4j.kernel.impl.api.ExplicitIndexApplierLookup;
 import org.neo4j.kernel.impl.api.ExplicitIndexProviderLookup;
 import org.neo4j.kernel.impl.api.IndexReaderFactory;
+import org.neo4j.kernel.impl.api.PipelinedBatchTransactionApplier;
 import org.neo4j.kernel.impl.api.SchemaState;
 import org.neo4j.kernel.impl.api.TransactionApplier;
 import org.neo4j.kernel.impl.api.TransactionApplierFacade;
@@ -156,6 +157,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final IdController idController;
     private final int denseNodeThreshold;
     private final int recordIdBatchSize;
+    private final JobScheduler scheduler;
+    private final boolean pipelinedApplication;
 
     public RecordStorageEngine(
             File storeDir,
@@ -196,6 +199,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
 
         this.idController = idController;
+        this.scheduler = scheduler;
+        this.pipelinedApplication = config.get( GraphDatabaseSettings.pipelined_transaction_application );
         StoreFactory factory = new StoreFactory( storeDir, config, idGeneratorFactory, pageCache, fs, logProvider,
                 versionContextSupplier );
         neoStores = factory.openAllNeoStores( true );
@@ -321,7 +326,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         // point between closing this and the locks above
         try ( IndexActivator indexActivator = new IndexActivator( indexingService );
               LockGroup locks = new LockGroup();
-              BatchTransactionApplier batchApplier = applier( mode, indexActivator ) )
+              BatchTransactionApplier batchApplier = pipelined( batch, mode )
+                                                     ? pipelinedApplier( mode, indexActivator )
+                                                     : applier( mode, indexActivator ) )
         {
             while ( batch != null )
             {
@@ -349,6 +356,51 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
      * After all transactions have been applied the appliers are closed.
      */
     protected BatchTransactionApplierFacade applier( TransactionApplicationMode mode, IndexActivator indexActivator )
+    {
+        ArrayList<BatchTransactionApplier> appliers = storeAppliers( mode );
+        if ( mode.needsAuxiliaryStores() )
+        {
+            // Counts store application
+            appliers.add( new CountsStoreBatchTransactionApplier( neoStores.getCounts(), mode ) );
+
+            // Schema index application
+            appliers.add( indexApplier( indexActivator ) );
+
+            // Explicit index application
+            appliers.add( explicitIndexApplier( mode ) );
+        }
+
+        // Perform the application
+        return facade( appliers );
+    }
+
+    private boolean pipelined( CommandsToApply batch, TransactionApplicationMode mode )
+    {
+        // Single transactions have nothing to overlap with, so the hand over would only add latency
+        return pipelinedApplication && mode.needsAuxiliaryStores() && batch != null && batch.next() != null;
+    }
+
+    /**
+     * Creates a {@link PipelinedBatchTransactionApplier} with the same appliers as {@link
+     * #applier(TransactionApplicationMode, IndexActivator)}. The graph store and schema index appliers are applied by
+     * the calling thread, since the schema index updates are read partly from the store and so must be extracted right
+     * after the store changes of their transaction. The counts store and explicit index appliers only depend on their
+     * own commands and are applied behind them, on a separate thread. Schema index and label scan updates are applied
+     * when the batch is closed, at the same time as the separate thread finishes the batch.
+     */
+    private BatchTransactionApplier pipelinedApplier( TransactionApplicationMode mode, IndexActivator indexActivator )
+    {
+        ArrayList<BatchTransactionApplier> appliers = storeAppliers( mode );
+        appliers.add( indexApplier( indexActivator ) );
+
+        ArrayList<BatchTransactionApplier> detachedAppliers = new ArrayList<>();
+        detachedAppliers.add( new CountsStoreBatchTransactionApplier( neoStores.getCounts(), mode ) );
+        detachedAppliers.add( explicitIndexApplier( mode ) );
+
+        return new PipelinedBatchTransactionApplier( facade( appliers ), facade( detachedAppliers ), scheduler );
+    }
+
+    private ArrayList<BatchTransactionApplier> storeAppliers( TransactionApplicationMode mode )
     {
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
@@ -361,24 +413,25 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         {
             appliers.add( new CacheInvalidationBatchTransactionApplier( neoStores, cacheAccess ) );
         }
-        if ( mode.needsAuxiliaryStores() )
-        {
-            // Counts store application
-            appliers.add( new CountsStoreBatchTransactionApplier( neoStores.getCounts(), mode ) );
+        return appliers;
+    }
 
-            // Schema index application
-            appliers.add( new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, indexUpdatesSync,
-                    neoStores.getNodeStore(),
-                    indexUpdatesConverter, indexActivator ) );
+    private IndexBatchTransactionApplier indexApplier( IndexActivator indexActivator )
+    {
+        return new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, indexUpdatesSync,
+                neoStores.getNodeStore(),
+                indexUpdatesConverter, indexActivator );
+    }
 
-            // Explicit index application
-            appliers.add(
-                    new ExplicitBatchIndexApplier( indexConfigStore, explicitIndexApplierLookup,
-                            explicitIndexTransactionOrdering,
-                            mode ) );
-        }
+    private ExplicitBatchIndexApplier explicitIndexApplier( TransactionApplicationMode mode )
+    {
+        return new ExplicitBatchIndexApplier( indexConfigStore, explicitIndexApplierLookup,
+                explicitIndexTransactionOrdering,
+                mode );
+    }
 
-        // Perform the application
+    private static BatchTransactionApplierFacade facade( List<BatchTransactionApplier> appliers )
+    {
         return new BatchTransactionApplierFacade(
                 appliers.toArray( new BatchTransactionApplier[appliers.size()] ) );
     }
@@ -55,6 +55,7 @@ import static org.neo4j.io.pagecache.PageCacheOpenOptions.ANY_PAGE_SIZE;
 import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_TRANSIENT;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
 
@@ -425,6 +426,22 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         }
     }
 
+    /**
+     * DANGER: make sure to always close this cursor.
+     */
+    public PageCursor openPageCursorForScanning( long id )
+    {
+        try
+        {
+            long pageId = pageIdForRecord( id );
+            return storeFile.io( pageId, PF_SHARED_READ_LOCK | PF_READ_AHEAD | PF_TRANSIENT );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
     /**
      * Should rebuild the id generator from scratch.
      * <p>
@@ -443,7 +460,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
 
         log.info( "Rebuilding id generator for[" + getStorageFileName() + "] ..." );
         closeIdGenerator();
-        createIdGenerator( getIdFileName() );
+        idGeneratorFactory.prepareForRebuild( getIdFileName() );
         openIdGenerator();
 
         long defraggedCount = 0;
@@ -811,11 +828,6 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return false;
     }
 
-    private void createIdGenerator( File fileName )
-    {
-        idGeneratorFactory.create( fileName, 0, false );
-    }
-
     /** Closed the {@link IdGenerator} used by this store */
     void closeIdGenerator()
     {
@@ -1118,7 +1130,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public <EXCEPTION extends Exception> void scanAllRecords( Visitor<RECORD,EXCEPTION> visitor ) throws EXCEPTION
     {
-        try ( RecordCursor<RECORD> cursor = newRecordCursor( newRecord() ) )
+        try ( RecordCursor<RECORD> cursor = newScanningRecordCursor( newRecord() ) )
         {
             long highId = getHighId();
             cursor.acquire( getNumberOfReservedLowIds(), CHECK );
@@ -1148,6 +1160,12 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         return new StoreRecordCursor<>( record, this );
     }
 
+    @Override
+    public RecordCursor<RECORD> newScanningRecordCursor( final RECORD record )
+    {
+        return new StoreRecordCursor<>( record, this, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
+    }
+
     private void verifyAfterNotRead( RECORD record, RecordLoad mode )
     {
         record.clear();
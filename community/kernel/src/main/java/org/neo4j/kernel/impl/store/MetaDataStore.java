@@ -41,10 +41,10 @@ import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.kernel.impl.store.record.RecordLoad;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
-import org.neo4j.kernel.impl.util.ArrayQueueOutOfOrderSequence;
 import org.neo4j.kernel.impl.util.Bits;
 import org.neo4j.kernel.impl.util.CappedLogger;
 import org.neo4j.kernel.impl.util.OutOfOrderSequence;
+import org.neo4j.kernel.impl.util.RingBufferOutOfOrderSequence;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.logging.Logger;
 import org.neo4j.time.Clocks;
@@ -134,8 +134,10 @@ public class MetaDataStore extends CommonAbstractStore<MetaDataRecord,NoStoreHea
             new HighestTransactionId( FIELD_NOT_INITIALIZED, FIELD_NOT_INITIALIZED, FIELD_NOT_INITIALIZED );
 
     // This is not a field in the store, but something keeping track of which of the committed
-    // transactions have been closed. Useful in rotation and shutdown.
-    private final OutOfOrderSequence lastClosedTx = new ArrayQueueOutOfOrderSequence( -1, 200, new long[2] );
+    // transactions have been closed. Useful in rotation and shutdown. Every committer offers to it, and every
+    // transaction snapshot reads it, so it's lock-free. Closing a transaction waits if it's more than the
+    // capacity ahead of the oldest transaction not yet closed, which is far more than there are committers.
+    private final OutOfOrderSequence lastClosedTx = new RingBufferOutOfOrderSequence( -1, 4096, new long[2] );
 
     // We use these objects and their monitors as "entity" locks on the records, because page write locks are not
     // exclusive. Therefor, these locks are only used when *writing* records, not when reading them.
@@ -33,6 +33,7 @@ import org.neo4j.helpers.Exceptions;
 import org.neo4j.helpers.collection.FilteringIterator;
 import org.neo4j.helpers.collection.IteratorWrapper;
 import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
@@ -41,7 +42,9 @@ import org.neo4j.io.pagecache.tracing.cursor.context.VersionContextSupplier;
 import org.neo4j.kernel.NeoStoresDiagnostics;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.counts.ReadOnlyCountsTracker;
 import org.neo4j.kernel.impl.store.format.CapabilityType;
 import org.neo4j.kernel.impl.store.format.FormatFamily;
@@ -111,7 +114,7 @@ public class NeoStores implements AutoCloseable
     private final StoreType[] initializedStores;
     private final FileSystemAbstraction fileSystemAbstraction;
     private final RecordFormats recordFormats;
-    // All stores, as Object due to CountsTracker being different that all other stores.
+    // All stores, as Object due to CountsStore being different that all other stores.
     private final Object[] stores;
     private final OpenOption[] openOptions;
 
@@ -254,7 +257,7 @@ public class NeoStores implements AutoCloseable
     {
         try
         {
-            CountsTracker counts = (CountsTracker) stores[StoreType.COUNTS.ordinal()];
+            CountsStore counts = (CountsStore) stores[StoreType.COUNTS.ordinal()];
             if ( counts != null )
             {
                 counts.rotate( getMetaDataStore().getLastCommittedTransactionId() );
@@ -432,9 +435,9 @@ public class NeoStores implements AutoCloseable
         return (SchemaStore) getStore( StoreType.SCHEMA );
     }
 
-    public CountsTracker getCounts()
+    public CountsStore getCounts()
     {
-        return (CountsTracker) getStore( StoreType.COUNTS );
+        return (CountsStore) getStore( StoreType.COUNTS );
     }
 
     private CountsTracker createWritableCountsTracker( File fileName )
@@ -448,6 +451,69 @@ public class NeoStores implements AutoCloseable
         return new ReadOnlyCountsTracker( logProvider, fileSystemAbstraction, pageCache, config, fileName );
     }
 
+    private GBPTreeCountsStore createGBPTreeCountsStore( File fileName, boolean readOnly )
+    {
+        return new GBPTreeCountsStore( pageCache, fileName, RecoveryCleanupWorkCollector.immediate(), readOnly,
+                config.get( GraphDatabaseSettings.counts_store_rotation_timeout ).toMillis() );
+    }
+
+    /**
+     * Deletes the files of the selected counts store implementation if the other implementation has seen later
+     * transactions, i.e. if it has been used since, so that the selected one gets rebuilt instead of using its
+     * outdated counts. The files of the other implementation are left as they are.
+     */
+    private void deleteStaleCountsStoreFiles( File fileName, boolean gbpTree )
+    {
+        File[] treeFiles = {fileName};
+        File[] trackerFiles = {new File( fileName.getPath() + CountsTracker.LEFT ),
+                new File( fileName.getPath() + CountsTracker.RIGHT )};
+        File[] selectedFiles = gbpTree ? treeFiles : trackerFiles;
+        File[] otherFiles = gbpTree ? trackerFiles : treeFiles;
+        if ( anyExists( selectedFiles ) && anyExists( otherFiles ) &&
+             countsStoreTxId( fileName, gbpTree ) < countsStoreTxId( fileName, !gbpTree ) )
+        {
+            for ( File file : selectedFiles )
+            {
+                fileSystemAbstraction.deleteFile( file );
+            }
+        }
+    }
+
+    private boolean anyExists( File[] files )
+    {
+        for ( File file : files )
+        {
+            if ( fileSystemAbstraction.fileExists( file ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long countsStoreTxId( File fileName, boolean gbpTree )
+    {
+        CountsStore counts = gbpTree
+                             ? createGBPTreeCountsStore( fileName, true )
+                             : createReadOnlyCountsTracker( fileName );
+        try
+        {
+            counts.init();
+            try
+            {
+                return counts.txId();
+            }
+            finally
+            {
+                counts.shutdown();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Failed to read transaction id of counts store", e );
+        }
+    }
+
     private Iterable<CommonAbstractStore> instantiatedRecordStores()
     {
         Iterator<StoreType> storeTypes = new FilteringIterator<>( iterator( STORE_TYPES ), INSTANTIATED_RECORD_STORES );
@@ -631,11 +697,18 @@ public class NeoStores implements AutoCloseable
                 recordFormats, openOptions ) );
     }
 
-    CountsTracker createCountStore( String storeName )
+    CountsStore createCountStore( String storeName )
     {
         File storeFile = getStoreFile( storeName );
         boolean readOnly = config.get( GraphDatabaseSettings.read_only );
-        CountsTracker counts = readOnly
+        boolean gbpTree = config.get( GraphDatabaseSettings.counts_store_gbptree );
+        if ( !readOnly )
+        {
+            deleteStaleCountsStoreFiles( storeFile, gbpTree );
+        }
+        CountsStore counts = gbpTree
+                             ? createGBPTreeCountsStore( storeFile, readOnly )
+                             : readOnly
                                ? createReadOnlyCountsTracker( storeFile )
                                : createWritableCountsTracker( storeFile );
         NeoStores neoStores = this;
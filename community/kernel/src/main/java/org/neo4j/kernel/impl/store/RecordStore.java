@@ -158,6 +158,18 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
      */
     RecordCursor<RECORD> newRecordCursor( RECORD record );
 
+    /**
+     * Instantiates a new record cursor like {@link #newRecordCursor(AbstractBaseRecord)}, but meant for reading
+     * records sequentially by increasing id, which allows the store to read ahead of the cursor.
+     *
+     * @param record instance to use when reading record data.
+     * @return a new {@link RecordCursor} instance suited for scanning records in this store.
+     */
+    default RecordCursor<RECORD> newScanningRecordCursor( RECORD record )
+    {
+        return newRecordCursor( record );
+    }
+
     /**
      * Returns another record id which the given {@code record} references and which a {@link RecordCursor}
      * would follow and read next.
@@ -307,6 +319,12 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
             return actual.newRecordCursor( record );
         }
 
+        @Override
+        public RecordCursor<R> newScanningRecordCursor( R record )
+        {
+            return actual.newScanningRecordCursor( record );
+        }
+
         @Override
         public long getNextRecordReference( R record )
         {
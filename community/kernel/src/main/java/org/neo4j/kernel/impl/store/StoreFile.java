@@ -76,6 +76,14 @@ public enum StoreFile
                     return true;
                 }
             },
+    COUNTS_STORE_GBPTREE( StoreFactory.COUNTS_STORE, false )
+            {
+                @Override
+                public boolean isOptional()
+                {
+                    return true;
+                }
+            },
 
     NEO_STORE( "" );
 
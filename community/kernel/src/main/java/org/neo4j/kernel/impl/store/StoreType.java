@@ -25,6 +25,7 @@ import java.util.Optional;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.id.IdType;
 
@@ -151,7 +152,7 @@ public enum StoreType
     COUNTS( null, false, false )
             {
                 @Override
-                public CountsTracker open( final NeoStores neoStores )
+                public CountsStore open( final NeoStores neoStores )
                 {
                     return neoStores.createCountStore( StoreFactory.COUNTS_STORE );
                 }
@@ -161,7 +162,7 @@ public enum StoreType
                 {
                     try
                     {
-                        ((CountsTracker) object).shutdown();
+                        ((CountsStore) object).shutdown();
                     }
                     catch ( IOException e )
                     {
@@ -179,7 +180,8 @@ public enum StoreType
                 protected boolean isStoreFile( String fileName )
                 {
                     return matchStoreName( fileName, getStoreName() + CountsTracker.RIGHT ) ||
-                           matchStoreName( fileName, getStoreName() + CountsTracker.LEFT );
+                           matchStoreName( fileName, getStoreName() + CountsTracker.LEFT ) ||
+                           matchStoreName( fileName, getStoreName() );
                 }
             },
     META_DATA( StoreFile.NEO_STORE, true, true ) // Make sure this META store is last
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKey;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.register.Register.DoubleLongRegister;
+
+/**
+ * The counts store of a database, either a {@link CountsTracker} or a {@link GBPTreeCountsStore}, depending on
+ * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#counts_store_gbptree}.
+ * <p>
+ * A counts store opens its files on {@link #init()} and, if it had to create them, fills them using its
+ * {@link #setInitializer(DataInitializer) initializer} on {@link #start()}.
+ */
+public interface CountsStore extends CountsAccessor, Lifecycle
+{
+    CountsStore setInitializer( DataInitializer<Updater> initializer );
+
+    @Override
+    void init() throws IOException;
+
+    @Override
+    void start() throws IOException;
+
+    @Override
+    void shutdown() throws IOException;
+
+    /**
+     * @return the transaction id of the contents of this store.
+     */
+    long txId();
+
+    DoubleLongRegister get( CountsKey key, DoubleLongRegister target );
+
+    /**
+     * @return an updater for the changes of transaction {@code txId}, or {@link Optional#empty()} if this store
+     * already contains that transaction.
+     */
+    Optional<Updater> apply( long txId );
+
+    IndexStatsUpdater updateIndexCounts();
+
+    /**
+     * Removes all counts. The returned updater fills this store with new counts as of transaction {@code txId}.
+     */
+    Updater reset( long txId );
+
+    /**
+     * Makes all changes applied so far durable.
+     *
+     * @param txId the lowest transaction id that must be included in the stored counts.
+     * @return the highest transaction id that was included in the stored counts.
+     */
+    long rotate( long txId ) throws IOException;
+
+    Iterable<File> allFiles();
+}
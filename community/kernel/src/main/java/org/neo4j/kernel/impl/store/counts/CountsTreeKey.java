@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+/**
+ * Key of an entry in a {@link GBPTreeCountsStore}. The {@link #type} is the {@link
+ * org.neo4j.kernel.impl.store.counts.keys.CountsKeyType#code code} of the type of counts key, which makes entries of
+ * the same type end up next to each other in the tree. The meaning of {@link #first} and {@link #second} depends on
+ * the type, see {@link GBPTreeCountsStore}.
+ */
+class CountsTreeKey
+{
+    static final int SIZE = Byte.BYTES + Long.BYTES + Long.BYTES;
+
+    byte type;
+    long first;
+    long second;
+
+    CountsTreeKey initialize( byte type, long first, long second )
+    {
+        this.type = type;
+        this.first = first;
+        this.second = second;
+        return this;
+    }
+
+    int compareTo( CountsTreeKey other )
+    {
+        int comparison = Byte.compare( type, other.type );
+        if ( comparison == 0 )
+        {
+            comparison = Long.compare( first, other.first );
+            if ( comparison == 0 )
+            {
+                comparison = Long.compare( second, other.second );
+            }
+        }
+        return comparison;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[type:" + type + ",first:" + first + ",second:" + second + "]";
+    }
+}
@@ -0,0 +1,757 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKey;
+import org.neo4j.kernel.impl.store.counts.keys.CountsKeyType;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.impl.store.kvstore.RotationTimeoutException;
+import org.neo4j.register.Register.DoubleLongRegister;
+
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.indexSampleKey;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.indexStatisticsKey;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.nodeKey;
+import static org.neo4j.kernel.impl.store.counts.keys.CountsKeyFactory.relationshipKey;
+
+/**
+ * Counts store which keeps its counts in a {@link GBPTree}, as an alternative to the {@link CountsTracker}, which
+ * rewrites its whole store file on every rotation.
+ * <p>
+ * Changes are aggregated in memory, keyed by {@link CountsKey}, as absolute values loaded from the tree the first
+ * time a key is changed. A {@link #checkpoint(IOLimiter) checkpoint} swaps in a new map of changes, which is the only
+ * moment updaters are blocked, puts only the changed values into the tree and checkpoints the tree, which flushes
+ * only its dirty pages. Readers look in the current changes, then in the changes being checkpointed and lastly in
+ * the tree.
+ * <p>
+ * Changes made by a transaction are not written to the transaction log by this store, so the tree needs to know
+ * which transactions it contains to be able to skip them when they are applied again during recovery. The header
+ * of the tree contains the highest gap-free transaction id it contains, together with the ids of transactions above
+ * that, which were applied out of order.
+ * <p>
+ * Tree key format, where {@code t} is the {@link CountsKeyType#code} of the key:
+ * <pre>
+ * node count:         [t ; 0                ; label id                          ]
+ * relationship count: [t ; start label id   ; relationship type id, end label id]
+ * index statistics:   [t ; index id         ; 0                                 ]
+ * index sample:       [t ; index id         ; 0                                 ]
+ * </pre>
+ * The value is the same pair of longs as for the {@link CountsTracker}, see {@link CountsUpdater}.
+ * <p>
+ * A tree which is created gets {@link #NEEDS_REBUILD} as transaction id, which it keeps until it has been filled by
+ * the {@link DataInitializer} on {@link #start()}, so that a store which wasn't filled is filled on the next start.
+ */
+public class GBPTreeCountsStore implements CountsStore, Closeable
+{
+    private static final CountsTreeLayout LAYOUT = new CountsTreeLayout();
+    private static final long NEEDS_REBUILD = -1;
+
+    private final PageCache pageCache;
+    private final File file;
+    private final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
+    private final boolean readOnly;
+    private final long rotationTimeoutMillis;
+    private DataInitializer<Updater> initializer;
+    private GBPTree<CountsTreeKey,CountsTreeValue> tree;
+    /**
+     * Held by every updater for as long as it is open, and exclusively when swapping changes for a checkpoint and
+     * while resetting, so that a checkpoint contains either all or none of the changes of a transaction.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile ConcurrentMap<CountsKey,CountsTreeValue> changes = new ConcurrentHashMap<>();
+    private volatile Map<CountsKey,CountsTreeValue> checkpointing = Collections.emptyMap();
+    /**
+     * Ids of applied transactions above {@link #highestGapFreeTxId}. Guards both, and is notified when the latter
+     * changes.
+     */
+    private final PrimitiveLongSet strayTxIds = Primitive.longSet();
+    private long highestGapFreeTxId = NEEDS_REBUILD;
+
+    /**
+     * Creates the counts store in {@code file}, which is opened, and created if it doesn't exist, on {@link #init()}.
+     *
+     * @param readOnly whether changes are never written to the tree, in which case {@link #rotate(long)} does nothing.
+     * @param rotationTimeoutMillis how long {@link #rotate(long)} waits for the transactions it must contain.
+     */
+    public GBPTreeCountsStore( PageCache pageCache, File file,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean readOnly, long rotationTimeoutMillis )
+    {
+        this.pageCache = pageCache;
+        this.file = file;
+        this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
+        this.readOnly = readOnly;
+        this.rotationTimeoutMillis = rotationTimeoutMillis;
+    }
+
+    @Override
+    public GBPTreeCountsStore setInitializer( DataInitializer<Updater> initializer )
+    {
+        this.initializer = initializer;
+        return this;
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        tree = new GBPTree<>( pageCache, file, LAYOUT, 0, GBPTree.NO_MONITOR, this::readHeader,
+                header( NEEDS_REBUILD, PrimitiveLongCollections.EMPTY_LONG_ARRAY ), recoveryCleanupWorkCollector );
+    }
+
+    /**
+     * Fills this store using the initializer, if it hasn't been filled yet. The filled store contains all
+     * transactions up to and including the {@link DataInitializer#initialVersion() initial version}.
+     */
+    @Override
+    public synchronized void start() throws IOException
+    {
+        if ( txId() == NEEDS_REBUILD )
+        {
+            if ( initializer == null || readOnly )
+            {
+                throw new IllegalStateException( "Counts store " + file + " needs to be rebuilt" );
+            }
+            long initialTxId = initializer.initialVersion();
+            try ( Updater updater = reset( initialTxId ) )
+            {
+                initializer.initialize( updater );
+            }
+            checkpoint( IOLimiter.unlimited() );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        close();
+    }
+
+    /**
+     * @return the highest transaction id, such that all transactions up to and including it have been applied.
+     */
+    @Override
+    public long txId()
+    {
+        synchronized ( strayTxIds )
+        {
+            return highestGapFreeTxId;
+        }
+    }
+
+    @Override
+    public DoubleLongRegister get( CountsKey key, DoubleLongRegister target )
+    {
+        CountsTreeValue value = changes.get( key );
+        if ( value == null )
+        {
+            value = checkpointing.get( key );
+        }
+        if ( value == null )
+        {
+            value = readFromTree( key, new CountsTreeValue() );
+        }
+        synchronized ( value )
+        {
+            target.write( value.first, value.second );
+        }
+        return target;
+    }
+
+    @Override
+    public DoubleLongRegister nodeCount( int labelId, DoubleLongRegister target )
+    {
+        return get( nodeKey( labelId ), target );
+    }
+
+    @Override
+    public DoubleLongRegister relationshipCount( int startLabelId, int typeId, int endLabelId,
+            DoubleLongRegister target )
+    {
+        return get( relationshipKey( startLabelId, typeId, endLabelId ), target );
+    }
+
+    @Override
+    public DoubleLongRegister indexUpdatesAndSize( long indexId, DoubleLongRegister target )
+    {
+        return get( indexStatisticsKey( indexId ), target );
+    }
+
+    @Override
+    public DoubleLongRegister indexSample( long indexId, DoubleLongRegister target )
+    {
+        return get( indexSampleKey( indexId ), target );
+    }
+
+    /**
+     * @return an updater for the changes of transaction {@code txId}, or {@link Optional#empty()} if this store
+     * already contains that transaction, as is the case for some transactions applied during recovery.
+     */
+    @Override
+    public Optional<Updater> apply( long txId )
+    {
+        lock.readLock().lock();
+        boolean applied;
+        synchronized ( strayTxIds )
+        {
+            applied = txId <= highestGapFreeTxId || strayTxIds.contains( txId );
+        }
+        if ( applied )
+        {
+            lock.readLock().unlock();
+            return Optional.empty();
+        }
+        return Optional.of( new TransactionUpdater( txId ) );
+    }
+
+    @Override
+    public IndexStatsUpdater updateIndexCounts()
+    {
+        lock.readLock().lock();
+        return new IndexUpdater();
+    }
+
+    /**
+     * Removes all counts and marks all transactions up to and including {@code txId} as applied. The returned
+     * updater fills this store with new counts and blocks all other updaters, and checkpoints, until it is closed.
+     */
+    @Override
+    public Updater reset( long txId )
+    {
+        synchronized ( this )
+        {
+            lock.writeLock().lock();
+            try
+            {
+                changes = new ConcurrentHashMap<>();
+                checkpointing = Collections.emptyMap();
+                synchronized ( strayTxIds )
+                {
+                    highestGapFreeTxId = txId;
+                    strayTxIds.clear();
+                    strayTxIds.notifyAll();
+                }
+                removeAllFromTree();
+            }
+            catch ( IOException e )
+            {
+                lock.writeLock().unlock();
+                throw new UnderlyingStorageException( "Unable to reset counts store " + file, e );
+            }
+            catch ( RuntimeException e )
+            {
+                lock.writeLock().unlock();
+                throw e;
+            }
+        }
+        return new ResetUpdater();
+    }
+
+    /**
+     * Waits for all transactions up to and including {@code txId} to be applied and {@link #checkpoint(IOLimiter)
+     * checkpoints} this store, unless it is read only.
+     */
+    @Override
+    public long rotate( long txId ) throws IOException
+    {
+        if ( readOnly )
+        {
+            return -1;
+        }
+        long deadline = System.currentTimeMillis() + rotationTimeoutMillis;
+        synchronized ( strayTxIds )
+        {
+            while ( highestGapFreeTxId < txId )
+            {
+                long remaining = deadline - System.currentTimeMillis();
+                if ( remaining <= 0 )
+                {
+                    throw new RotationTimeoutException( txId, highestGapFreeTxId, rotationTimeoutMillis );
+                }
+                try
+                {
+                    strayTxIds.wait( remaining );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException( "Interrupted while waiting for transaction " + txId, e );
+                }
+            }
+        }
+        return checkpoint( IOLimiter.unlimited() );
+    }
+
+    @Override
+    public Iterable<File> allFiles()
+    {
+        return Collections.singletonList( file );
+    }
+
+    /**
+     * Writes all changes applied so far into the tree and checkpoints it. Updaters are only blocked while the
+     * changes are swapped for a new set of changes, not while the tree is written or checkpointed.
+     *
+     * @return the highest gap-free transaction id contained in the checkpoint.
+     */
+    public synchronized long checkpoint( IOLimiter ioLimiter ) throws IOException
+    {
+        Map<CountsKey,CountsTreeValue> changesToCheckpoint;
+        long txId;
+        long[] strays;
+        lock.writeLock().lock();
+        try
+        {
+            changesToCheckpoint = changes;
+            if ( !checkpointing.isEmpty() )
+            {
+                // The previous checkpoint failed to write these changes, try them again
+                Map<CountsKey,CountsTreeValue> merged = new HashMap<>( checkpointing );
+                merged.putAll( changesToCheckpoint );
+                changesToCheckpoint = merged;
+            }
+            checkpointing = changesToCheckpoint;
+            changes = new ConcurrentHashMap<>();
+            synchronized ( strayTxIds )
+            {
+                txId = highestGapFreeTxId;
+                strays = PrimitiveLongCollections.asArray( strayTxIds.iterator() );
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        if ( !changesToCheckpoint.isEmpty() )
+        {
+            CountsTreeKey treeKey = new CountsTreeKey();
+            try ( Writer<CountsTreeKey,CountsTreeValue> writer = tree.writer() )
+            {
+                for ( Map.Entry<CountsKey,CountsTreeValue> entry : changesToCheckpoint.entrySet() )
+                {
+                    treeKey( entry.getKey(), treeKey );
+                    CountsTreeValue value = entry.getValue();
+                    if ( value.isEmpty() )
+                    {
+                        writer.remove( treeKey );
+                    }
+                    else
+                    {
+                        writer.put( treeKey, value );
+                    }
+                }
+            }
+        }
+        tree.checkpoint( ioLimiter, header( txId, strays ) );
+        checkpointing = Collections.emptyMap();
+        return txId;
+    }
+
+    @Override
+    public synchronized void accept( CountsVisitor visitor )
+    {
+        Map<CountsKey,CountsTreeValue> counts = new TreeMap<>();
+        try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> cursor = seekAll() )
+        {
+            while ( cursor.next() )
+            {
+                CountsTreeValue value = cursor.get().value();
+                counts.put( countsKey( cursor.get().key() ),
+                        new CountsTreeValue().initialize( value.first, value.second ) );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        counts.putAll( checkpointing );
+        counts.putAll( changes );
+
+        for ( Map.Entry<CountsKey,CountsTreeValue> entry : counts.entrySet() )
+        {
+            CountsTreeValue value = entry.getValue();
+            long first;
+            long second;
+            synchronized ( value )
+            {
+                first = value.first;
+                second = value.second;
+            }
+            if ( first != 0 || second != 0 )
+            {
+                entry.getKey().accept( visitor, first, second );
+            }
+        }
+    }
+
+    /**
+     * Checkpoints, unless read only, and closes this store.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if ( tree == null )
+        {
+            return;
+        }
+        try
+        {
+            if ( !readOnly )
+            {
+                checkpoint( IOLimiter.unlimited() );
+            }
+        }
+        finally
+        {
+            tree.close();
+            tree = null;
+        }
+    }
+
+    private void markApplied( long txId )
+    {
+        synchronized ( strayTxIds )
+        {
+            if ( txId == highestGapFreeTxId + 1 )
+            {
+                highestGapFreeTxId = txId;
+                while ( strayTxIds.remove( highestGapFreeTxId + 1 ) )
+                {
+                    highestGapFreeTxId++;
+                }
+                strayTxIds.notifyAll();
+            }
+            else
+            {
+                strayTxIds.add( txId );
+            }
+        }
+    }
+
+    private CountsTreeValue changedValue( CountsKey key )
+    {
+        return changes.computeIfAbsent( key, this::loadValue );
+    }
+
+    private CountsTreeValue loadValue( CountsKey key )
+    {
+        CountsTreeValue value = new CountsTreeValue();
+        CountsTreeValue checkpointingValue = checkpointing.get( key );
+        if ( checkpointingValue != null )
+        {
+            synchronized ( checkpointingValue )
+            {
+                return value.initialize( checkpointingValue.first, checkpointingValue.second );
+            }
+        }
+        return readFromTree( key, value );
+    }
+
+    private CountsTreeValue readFromTree( CountsKey key, CountsTreeValue into )
+    {
+        CountsTreeKey treeKey = treeKey( key, new CountsTreeKey() );
+        try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> cursor = tree.seek( treeKey, treeKey ) )
+        {
+            if ( cursor.next() )
+            {
+                CountsTreeValue value = cursor.get().value();
+                return into.initialize( value.first, value.second );
+            }
+            return into.initialize( 0, 0 );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    private void removeAllFromTree() throws IOException
+    {
+        List<CountsTreeKey> keys = new ArrayList<>();
+        try ( RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> cursor = seekAll() )
+        {
+            while ( cursor.next() )
+            {
+                keys.add( LAYOUT.copyKey( cursor.get().key(), new CountsTreeKey() ) );
+            }
+        }
+        try ( Writer<CountsTreeKey,CountsTreeValue> writer = tree.writer() )
+        {
+            for ( CountsTreeKey key : keys )
+            {
+                writer.remove( key );
+            }
+        }
+    }
+
+    private RawCursor<Hit<CountsTreeKey,CountsTreeValue>,IOException> seekAll() throws IOException
+    {
+        return tree.seek( new CountsTreeKey().initialize( Byte.MIN_VALUE, Long.MIN_VALUE, Long.MIN_VALUE ),
+                new CountsTreeKey().initialize( Byte.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE ) );
+    }
+
+    private void incrementNodeCount( int labelId, long delta )
+    {
+        if ( delta != 0 )
+        {
+            CountsTreeValue value = changedValue( nodeKey( labelId ) );
+            synchronized ( value )
+            {
+                value.second += delta;
+            }
+        }
+    }
+
+    private void incrementRelationshipCount( int startLabelId, int typeId, int endLabelId, long delta )
+    {
+        if ( delta != 0 )
+        {
+            CountsTreeValue value = changedValue( relationshipKey( startLabelId, typeId, endLabelId ) );
+            synchronized ( value )
+            {
+                value.second += delta;
+            }
+        }
+    }
+
+    private static CountsTreeKey treeKey( CountsKey key, CountsTreeKey into )
+    {
+        key.accept( new TreeKeyFormat( into ), 0, 0 );
+        return into;
+    }
+
+    private static CountsKey countsKey( CountsTreeKey key )
+    {
+        switch ( CountsKeyType.value( key.type ) )
+        {
+        case ENTITY_NODE:
+            return nodeKey( (int) key.second );
+        case ENTITY_RELATIONSHIP:
+            return relationshipKey( (int) key.first, (int) (key.second >> Integer.SIZE), (int) key.second );
+        case INDEX_STATISTICS:
+            return indexStatisticsKey( key.first );
+        case INDEX_SAMPLE:
+            return indexSampleKey( key.first );
+        default:
+            throw new IllegalStateException( "Unknown counts key " + key );
+        }
+    }
+
+    private void readHeader( ByteBuffer headerData )
+    {
+        long txId = headerData.getLong();
+        int strayCount = headerData.getInt();
+        synchronized ( strayTxIds )
+        {
+            highestGapFreeTxId = txId;
+            for ( int i = 0; i < strayCount; i++ )
+            {
+                strayTxIds.add( headerData.getLong() );
+            }
+        }
+    }
+
+    private static Consumer<PageCursor> header( long txId, long[] strayTxIds )
+    {
+        return cursor ->
+        {
+            cursor.putLong( txId );
+            cursor.putInt( strayTxIds.length );
+            for ( long strayTxId : strayTxIds )
+            {
+                cursor.putLong( strayTxId );
+            }
+        };
+    }
+
+    private static class TreeKeyFormat implements CountsVisitor
+    {
+        private final CountsTreeKey key;
+
+        TreeKeyFormat( CountsTreeKey key )
+        {
+            this.key = key;
+        }
+
+        @Override
+        public void visitNodeCount( int labelId, long count )
+        {
+            key.initialize( CountsKeyType.ENTITY_NODE.code, 0, labelId );
+        }
+
+        @Override
+        public void visitRelationshipCount( int startLabelId, int typeId, int endLabelId, long count )
+        {
+            key.initialize( CountsKeyType.ENTITY_RELATIONSHIP.code, startLabelId,
+                    ((long) typeId << Integer.SIZE) | (endLabelId & 0xFFFFFFFFL) );
+        }
+
+        @Override
+        public void visitIndexStatistics( long indexId, long updates, long size )
+        {
+            key.initialize( CountsKeyType.INDEX_STATISTICS.code, indexId, 0 );
+        }
+
+        @Override
+        public void visitIndexSample( long indexId, long unique, long size )
+        {
+            key.initialize( CountsKeyType.INDEX_SAMPLE.code, indexId, 0 );
+        }
+    }
+
+    private class TransactionUpdater implements Updater
+    {
+        private final long txId;
+        private boolean closed;
+
+        TransactionUpdater( long txId )
+        {
+            this.txId = txId;
+        }
+
+        @Override
+        public void incrementNodeCount( int labelId, long delta )
+        {
+            GBPTreeCountsStore.this.incrementNodeCount( labelId, delta );
+        }
+
+        @Override
+        public void incrementRelationshipCount( int startLabelId, int typeId, int endLabelId, long delta )
+        {
+            GBPTreeCountsStore.this.incrementRelationshipCount( startLabelId, typeId, endLabelId, delta );
+        }
+
+        @Override
+        public void close()
+        {
+            if ( !closed )
+            {
+                closed = true;
+                markApplied( txId );
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private class ResetUpdater implements Updater
+    {
+        private boolean closed;
+
+        @Override
+        public void incrementNodeCount( int labelId, long delta )
+        {
+            GBPTreeCountsStore.this.incrementNodeCount( labelId, delta );
+        }
+
+        @Override
+        public void incrementRelationshipCount( int startLabelId, int typeId, int endLabelId, long delta )
+        {
+            GBPTreeCountsStore.this.incrementRelationshipCount( startLabelId, typeId, endLabelId, delta );
+        }
+
+        @Override
+        public void close()
+        {
+            if ( !closed )
+            {
+                closed = true;
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private class IndexUpdater implements IndexStatsUpdater
+    {
+        private boolean closed;
+
+        @Override
+        public void replaceIndexUpdateAndSize( long indexId, long updates, long size )
+        {
+            CountsTreeValue value = changedValue( indexStatisticsKey( indexId ) );
+            synchronized ( value )
+            {
+                value.initialize( updates, size );
+            }
+        }
+
+        @Override
+        public void replaceIndexSample( long indexId, long unique, long size )
+        {
+            CountsTreeValue value = changedValue( indexSampleKey( indexId ) );
+            synchronized ( value )
+            {
+                value.initialize( unique, size );
+            }
+        }
+
+        @Override
+        public void incrementIndexUpdates( long indexId, long delta )
+        {
+            CountsTreeValue value = changedValue( indexStatisticsKey( indexId ) );
+            synchronized ( value )
+            {
+                value.first += delta;
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if ( !closed )
+            {
+                closed = true;
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
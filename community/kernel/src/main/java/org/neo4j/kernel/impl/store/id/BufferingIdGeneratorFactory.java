@@ -85,6 +85,12 @@ public class BufferingIdGeneratorFactory implements IdGeneratorFactory
         delegate.create( filename, highId, throwIfFileExists );
     }
 
+    @Override
+    public void prepareForRebuild( File filename )
+    {
+        delegate.prepareForRebuild( filename );
+    }
+
     @Override
     public IdGenerator get( IdType idType )
     {
@@ -24,6 +24,7 @@ import java.util.EnumMap;
 import java.util.function.LongSupplier;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
 import org.neo4j.kernel.impl.store.id.configuration.CommunityIdTypeConfigurationProvider;
 import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfiguration;
 import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
@@ -56,6 +57,11 @@ public class DefaultIdGeneratorFactory implements IdGeneratorFactory
     @Override
     public IdGenerator open( File fileName, int grabSize, IdType idType, LongSupplier highId, long maxId )
     {
+        if ( fs.fileExists( GBPTreeIdGeneratorFactory.treeFile( fileName ) ) )
+        {
+            throw new InvalidIdGeneratorException( "Free id tree of id file [ " + fileName + " ] has been used " +
+                    "instead of it, the id generator needs to be rebuilt" );
+        }
         IdTypeConfiguration idTypeConfiguration = idTypeConfigurationProvider.getIdTypeConfiguration( idType );
         IdGenerator generator = instantiate( fs, fileName, grabSize, maxId, idTypeConfiguration.allowAggressiveReuse(),
                 idType, highId );
@@ -78,6 +84,7 @@ public class DefaultIdGeneratorFactory implements IdGeneratorFactory
     @Override
     public void create( File fileName, long highId, boolean throwIfFileExists )
     {
+        GBPTreeIdGeneratorFactory.deleteIdFile( fs, GBPTreeIdGeneratorFactory.treeFile( fileName ) );
         IdGeneratorImpl.createGenerator( fs, fileName, highId, throwIfFileExists );
     }
 }
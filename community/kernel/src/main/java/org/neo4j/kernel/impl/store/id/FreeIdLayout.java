@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for the {@link GBPTree} used by {@link GBPTreeIdGenerator} to keep track of free ids.
+ *
+ * <ul>
+ * <li>
+ * Each key is an id range ({@code id/64}), possibly with the {@link #PENDING_BIT} set for ids that have been freed
+ * but that must not be reused until the id generator has been opened again.
+ * </li>
+ * <li>
+ * Each value is a 64-bit bit set where each set bit represents a free id, such that
+ * {@code id = idRange*64+bitOffset}.
+ * </li>
+ * </ul>
+ * Keeping free ids as bit sets per range makes the tree compact and lets ids be reused in ascending order,
+ * so that records created close in time also end up close together in the store.
+ */
+class FreeIdLayout extends Layout.Adapter<MutableLong,MutableLong>
+{
+    static final int RANGE_SIZE = Long.SIZE;
+    static final int RANGE_SHIFT = Integer.numberOfTrailingZeros( RANGE_SIZE );
+    static final long PENDING_BIT = 1L << 62;
+
+    private static final String IDENTIFIER_NAME = "FID";
+
+    static long idRange( long id )
+    {
+        return id >>> RANGE_SHIFT;
+    }
+
+    static long bit( long id )
+    {
+        return 1L << (id & (RANGE_SIZE - 1));
+    }
+
+    @Override
+    public int compare( MutableLong o1, MutableLong o2 )
+    {
+        return Long.compare( o1.longValue(), o2.longValue() );
+    }
+
+    @Override
+    public MutableLong newKey()
+    {
+        return new MutableLong();
+    }
+
+    @Override
+    public MutableLong copyKey( MutableLong key, MutableLong into )
+    {
+        into.setValue( key.longValue() );
+        return into;
+    }
+
+    @Override
+    public MutableLong newValue()
+    {
+        return new MutableLong();
+    }
+
+    @Override
+    public int keySize( MutableLong key )
+    {
+        return Long.BYTES;
+    }
+
+    @Override
+    public int valueSize( MutableLong value )
+    {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, MutableLong key )
+    {
+        cursor.putLong( key.longValue() );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, MutableLong value )
+    {
+        cursor.putLong( value.longValue() );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, MutableLong into, int keySize )
+    {
+        into.setValue( cursor.getLong() );
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, MutableLong into, int valueSize )
+    {
+        into.setValue( cursor.getLong() );
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return true;
+    }
+
+    @Override
+    public long identifier()
+    {
+        return Layout.namedIdentifier( IDENTIFIER_NAME, RANGE_SIZE );
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 1;
+    }
+}
@@ -0,0 +1,844 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.apache.commons.lang3.mutable.MutableByte;
+import org.apache.commons.lang3.mutable.MutableLong;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.neo4j.collection.primitive.PrimitiveLongArrayQueue;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Header;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.MetadataMismatchException;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.ValueMerger;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.id.validation.IdValidator;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+import static org.neo4j.kernel.impl.store.id.FreeIdLayout.PENDING_BIT;
+import static org.neo4j.kernel.impl.store.id.FreeIdLayout.RANGE_SHIFT;
+import static org.neo4j.kernel.impl.store.id.FreeIdLayout.bit;
+import static org.neo4j.kernel.impl.store.id.FreeIdLayout.idRange;
+
+/**
+ * {@link IdGenerator} which keeps its free ids in a {@link GBPTree}, as bit sets per range of ids, instead of in the
+ * queue and stack of an {@link IdContainer}.
+ * <p>
+ * Free ids are handed out lowest first, from batches of up to {@code grabSize} ids grabbed from the tree. Those ids
+ * are removed from the tree and the tree is checkpointed before any of them is handed out. This means that the
+ * durable state of the tree never contains ids that may be in use, so the free ids it contains survive an unclean
+ * shutdown: after recovery the id generator is prepared for rebuild using
+ * {@link #keepFreeIdsForRebuild(FileSystemAbstraction, PageCache, File)} instead of being created from scratch. What may be lost in a crash are ids freed since the last checkpoint of
+ * the tree and ids grabbed but not yet handed out, both of which can be reclaimed by a full rebuild.
+ * <p>
+ * Writing to the tree and checkpointing it is left to a maintenance task run by the given {@link Executor}, never to
+ * threads allocating or freeing ids. Freed ids are buffered and written to the tree a batch at a time, and the next
+ * batch of free ids is grabbed when the current one runs low. Until it has been grabbed, ids are allocated from the
+ * high id. Under aggressive reuse buffered ids, which have never been written to the tree, may be handed out again
+ * right away.
+ * <p>
+ * Ids freed while not using aggressive reuse are kept in a separate key space of the tree and only become
+ * reusable the next time the id generator is opened.
+ * <p>
+ * Like {@link IdGeneratorImpl}, the high id is bumped without taking the monitor of this generator.
+ */
+public class GBPTreeIdGenerator implements IdGenerator
+{
+    private static final byte CLEAN_GENERATOR = (byte) 0;
+    private static final byte STICKY_GENERATOR = (byte) 1;
+    /** Clean, but kept for rebuild, so that the high id, and thereby which free ids are usable, isn't known yet. */
+    private static final byte REBUILT_GENERATOR = (byte) 2;
+    private static final int HEADER_SIZE = Byte.BYTES + Long.BYTES;
+    private static final long NO_ID = -1;
+    private static final FreeIdLayout LAYOUT = new FreeIdLayout();
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final int grabSize;
+    private final long max;
+    private final boolean aggressiveReuse;
+    private final IdType idType;
+    private final Executor maintenanceExecutor;
+    private final GBPTree<MutableLong,MutableLong> tree;
+    private final AtomicLong highId = new AtomicLong();
+    /** Free ids durably removed from the tree, ready to be handed out. */
+    private final PrimitiveLongArrayQueue grabbedIds = new PrimitiveLongArrayQueue();
+    /** Ids freed since the last time the buffer was written to the tree, or taken into {@link #grabbedIds}. */
+    private final PrimitiveLongArrayQueue freedIds = new PrimitiveLongArrayQueue();
+    // Only used by whoever has the writer of the tree, i.e. the constructor, maintenance and close
+    private final MutableLong key = new MutableLong();
+    private final MutableLong value = new MutableLong();
+    private final ValueMerger<MutableLong,MutableLong> freeIdsMerger = this::mergeFreeIds;
+    /** Number of ids added by the last merge into the tree, as some may already have been free. */
+    private int addedFreeIds;
+    /** Number of free ids in the tree and in {@link #grabbedIds}. */
+    private long freeIdCount;
+    private boolean treeMayHaveFreeIds;
+    /** Whether or not this generator was opened for a rebuild that has yet to {@link #setHighId(long) set} the high id. */
+    private volatile boolean awaitingHighId;
+    private boolean maintenanceScheduled;
+    private boolean maintenanceRunning;
+    private IOException maintenanceFailure;
+    private volatile boolean mayHaveReusableIds = true;
+    private volatile boolean closed;
+
+    /**
+     * Opens the id generator backed by the free id tree in {@code file}, creating it if it doesn't exist.
+     *
+     * @param highId A supplier for the high id to be used if the id file had to be created.
+     * @param maintenanceExecutor executor for writing freed ids to, and grabbing free ids from, the tree.
+     * @throws InvalidIdGeneratorException if the id file wasn't closed properly, or isn't a free id tree.
+     * In that case the id generator needs to be rebuilt.
+     */
+    public GBPTreeIdGenerator( FileSystemAbstraction fs, PageCache pageCache, File file, int grabSize, long max,
+            boolean aggressiveReuse, IdType idType, LongSupplier highId, Executor maintenanceExecutor )
+    {
+        if ( grabSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal grabSize: " + grabSize );
+        }
+        this.fs = fs;
+        this.file = file;
+        this.grabSize = grabSize;
+        this.max = max;
+        this.aggressiveReuse = aggressiveReuse;
+        this.idType = idType;
+        this.maintenanceExecutor = maintenanceExecutor;
+
+        boolean created = !fs.fileExists( file );
+        MutableByte headerState = new MutableByte( STICKY_GENERATOR );
+        MutableLong storedHighId = new MutableLong();
+        this.tree = openTree( pageCache, file, headerReader( headerState, storedHighId ), header( STICKY_GENERATOR, 0 ) );
+        try
+        {
+            if ( !created && (headerState.byteValue() == STICKY_GENERATOR || tree.wasDirtyOnStartup()) )
+            {
+                tree.checkpoint( IOLimiter.unlimited(), header( STICKY_GENERATOR, storedHighId.longValue() ) );
+                tree.close();
+                throw new InvalidIdGeneratorException( "Id file not properly shutdown [ " + file +
+                        " ], the id generator needs to be rebuilt" );
+            }
+            this.highId.set( created ? highId.getAsLong() : storedHighId.longValue() );
+            this.freeIdCount = makePendingIdsReusable();
+            if ( !created && headerState.byteValue() == REBUILT_GENERATOR )
+            {
+                // Grabbing has to wait for the rebuild to set the high id, or all free ids would look unusable
+                this.awaitingHighId = true;
+                this.treeMayHaveFreeIds = freeIdCount > 0;
+            }
+            else
+            {
+                // The first batch is grabbed right away, covered by the checkpoint that marks the file as sticky
+                int discarded = grabIds( grabSize, grabbedIds );
+                this.freeIdCount -= discarded;
+                this.treeMayHaveFreeIds = grabbedIds.size() + discarded == grabSize;
+            }
+            tree.checkpoint( IOLimiter.unlimited(), header( STICKY_GENERATOR, this.highId.get() ) );
+        }
+        catch ( IOException e )
+        {
+            closeTreeOnFailure( e );
+            throw new UnderlyingStorageException( "Unable to init id file " + file, e );
+        }
+        catch ( RuntimeException e )
+        {
+            closeTreeOnFailure( e );
+            throw e;
+        }
+    }
+
+    @Override
+    public long nextId()
+    {
+        assertStillOpen();
+        if ( mayHaveReusableIds )
+        {
+            long id = nextReusableId();
+            if ( id != NO_ID )
+            {
+                return id;
+            }
+        }
+
+        long current;
+        long id;
+        do
+        {
+            current = highId.get();
+            id = IdValidator.isReservedId( current ) ? current + 1 : current;
+            IdValidator.assertValidId( idType, id, max );
+        }
+        while ( !highId.compareAndSet( current, id + 1 ) );
+        return id;
+    }
+
+    private long nextReusableId()
+    {
+        long id = NO_ID;
+        boolean maintain;
+        synchronized ( this )
+        {
+            if ( grabbedIds.isEmpty() )
+            {
+                takeFreedIds();
+            }
+            if ( grabbedIds.isEmpty() )
+            {
+                mayHaveReusableIds = false;
+            }
+            else
+            {
+                freeIdCount--;
+                id = grabbedIds.dequeue();
+            }
+            maintain = scheduleMaintenanceIfNeeded();
+        }
+        if ( maintain )
+        {
+            maintenanceExecutor.execute( this::maintain );
+        }
+        return id;
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size )
+    {
+        assertStillOpen();
+        long[] reusableIds = mayHaveReusableIds ? nextReusableIds( size ) : EMPTY_LONG_ARRAY;
+        int sizeLeftForRange = size - reusableIds.length;
+        long start;
+        long end;
+        do
+        {
+            start = highId.get();
+            end = start + sizeLeftForRange;
+            IdValidator.assertIdWithinCapacity( idType, end, max );
+        }
+        while ( !highId.compareAndSet( start, end ) );
+        return new IdRange( reusableIds, start, sizeLeftForRange );
+    }
+
+    private long[] nextReusableIds( int size )
+    {
+        long[] ids = new long[size];
+        int count = 0;
+        boolean maintain;
+        synchronized ( this )
+        {
+            while ( count < size )
+            {
+                if ( grabbedIds.isEmpty() )
+                {
+                    takeFreedIds();
+                    if ( grabbedIds.isEmpty() )
+                    {
+                        mayHaveReusableIds = false;
+                        break;
+                    }
+                }
+                ids[count++] = grabbedIds.dequeue();
+                freeIdCount--;
+            }
+            maintain = scheduleMaintenanceIfNeeded();
+        }
+        if ( maintain )
+        {
+            maintenanceExecutor.execute( this::maintain );
+        }
+        return count == size ? ids : Arrays.copyOf( ids, count );
+    }
+
+    /**
+     * Under aggressive reuse, moves the buffered freed ids, lowest first, into {@link #grabbedIds}. They have never
+     * been written to the tree, so they can be handed out without removing them from it.
+     */
+    private void takeFreedIds()
+    {
+        if ( !aggressiveReuse || freedIds.isEmpty() )
+        {
+            return;
+        }
+        long[] ids = drain( freedIds );
+        Arrays.sort( ids );
+        for ( long id : ids )
+        {
+            grabbedIds.enqueue( id );
+        }
+        freeIdCount += ids.length;
+    }
+
+    /**
+     * @return whether or not the caller should run {@link #maintain()}, after releasing the monitor. Caller must hold
+     * the monitor of this generator.
+     */
+    private boolean scheduleMaintenanceIfNeeded()
+    {
+        if ( maintenanceScheduled || closed || !needsMaintenance() )
+        {
+            return false;
+        }
+        maintenanceScheduled = true;
+        return true;
+    }
+
+    private boolean needsMaintenance()
+    {
+        return freedIds.size() >= grabSize || shouldGrab();
+    }
+
+    private boolean shouldGrab()
+    {
+        return treeMayHaveFreeIds && !awaitingHighId && !closed && grabbedIds.size() * 2 <= grabSize;
+    }
+
+    /**
+     * Writes buffered freed ids to the tree, if there are enough of them, and grabs more free ids from the tree, if
+     * running low. The grabbed ids are removed from the tree, and the tree checkpointed, before they are handed to
+     * allocating threads. Only ever runs in one thread at a time, which also makes it the only writer of the tree
+     * while this generator is open.
+     */
+    private void maintain()
+    {
+        synchronized ( this )
+        {
+            if ( closed )
+            {
+                // Closed before this got to run, so leave the tree to close
+                maintenanceScheduled = false;
+                return;
+            }
+            maintenanceRunning = true;
+        }
+        try
+        {
+            long[] freed;
+            synchronized ( this )
+            {
+                freed = freedIds.size() >= grabSize ? drain( freedIds ) : EMPTY_LONG_ARRAY;
+            }
+
+            long added = writeFreeIds( freed, !aggressiveReuse );
+            int wanted;
+            synchronized ( this )
+            {
+                freeIdCount += added;
+                treeMayHaveFreeIds |= aggressiveReuse && added > 0;
+                wanted = shouldGrab() ? grabSize - grabbedIds.size() : 0;
+            }
+            if ( wanted == 0 )
+            {
+                return;
+            }
+
+            PrimitiveLongArrayQueue grabbed = new PrimitiveLongArrayQueue();
+            int discarded = grabIds( wanted, grabbed );
+            tree.checkpoint( IOLimiter.unlimited(), header( STICKY_GENERATOR, highId.get() ) );
+            synchronized ( this )
+            {
+                freeIdCount -= discarded;
+                treeMayHaveFreeIds = grabbed.size() + discarded == wanted;
+                if ( !grabbed.isEmpty() )
+                {
+                    grabbedIds.addAll( grabbed );
+                    mayHaveReusableIds = true;
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            synchronized ( this )
+            {
+                // Ids grabbed may or may not have been removed durably and ids freed may or may not have been
+                // written. Hand out no more reusable ids and leave the id file sticky, to be rebuilt.
+                maintenanceFailure = e;
+                freeIdCount -= grabbedIds.size();
+                grabbedIds.clear();
+                freedIds.clear();
+                treeMayHaveFreeIds = false;
+                mayHaveReusableIds = false;
+            }
+        }
+        finally
+        {
+            boolean again;
+            synchronized ( this )
+            {
+                maintenanceRunning = false;
+                maintenanceScheduled = false;
+                again = maintenanceFailure == null && scheduleMaintenanceIfNeeded();
+                notifyAll();
+            }
+            if ( again )
+            {
+                maintenanceExecutor.execute( this::maintain );
+            }
+        }
+    }
+
+    /**
+     * Grabs up to {@code wanted} of the lowest free ids from the tree into {@code grabbed} and removes them from the
+     * tree. The caller is responsible for checkpointing the tree before handing out any of them.
+     *
+     * @return the number of free ids removed from the tree without being grabbed, since they are at or above the
+     * high id.
+     */
+    private int grabIds( int wanted, PrimitiveLongArrayQueue grabbed ) throws IOException
+    {
+        long currentHighId = highId.get();
+        PrimitiveLongArrayQueue changedRanges = new PrimitiveLongArrayQueue();
+        int count = 0;
+        int discarded = 0;
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      tree.seek( new MutableLong( 0 ), new MutableLong( PENDING_BIT ) ) )
+        {
+            while ( count < wanted && cursor.next() )
+            {
+                long range = cursor.get().key().longValue();
+                long bits = cursor.get().value().longValue();
+                long remaining = bits;
+                while ( remaining != 0 && count < wanted )
+                {
+                    long lowestBit = Long.lowestOneBit( remaining );
+                    remaining &= ~lowestBit;
+                    long id = (range << RANGE_SHIFT) + Long.numberOfTrailingZeros( lowestBit );
+                    if ( id >= currentHighId || IdValidator.isReservedId( id ) )
+                    {
+                        // Left behind by an earlier high id, e.g. from before a rebuild. Not usable.
+                        discarded++;
+                        continue;
+                    }
+                    grabbed.enqueue( id );
+                    count++;
+                }
+                changedRanges.enqueue( range );
+                changedRanges.enqueue( remaining );
+            }
+        }
+
+        if ( !changedRanges.isEmpty() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+            {
+                while ( !changedRanges.isEmpty() )
+                {
+                    key.setValue( changedRanges.dequeue() );
+                    value.setValue( changedRanges.dequeue() );
+                    if ( value.longValue() == 0 )
+                    {
+                        writer.remove( key );
+                    }
+                    else
+                    {
+                        writer.put( key, value );
+                    }
+                }
+            }
+        }
+        return discarded;
+    }
+
+    @Override
+    public void setHighId( long id )
+    {
+        IdValidator.assertIdWithinCapacity( idType, id, max );
+        highId.accumulateAndGet( id, Math::max );
+        if ( awaitingHighId )
+        {
+            boolean maintain;
+            synchronized ( this )
+            {
+                awaitingHighId = false;
+                maintain = scheduleMaintenanceIfNeeded();
+            }
+            if ( maintain )
+            {
+                maintenanceExecutor.execute( this::maintain );
+            }
+        }
+    }
+
+    @Override
+    public long getHighId()
+    {
+        return highId.get();
+    }
+
+    @Override
+    public long getHighestPossibleIdInUse()
+    {
+        return highId.get() - 1;
+    }
+
+    @Override
+    public void freeId( long id )
+    {
+        assertStillOpen();
+        if ( IdValidator.isReservedId( id ) )
+        {
+            return;
+        }
+
+        long currentHighId = highId.get();
+        if ( id < 0 || id >= currentHighId )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + currentHighId );
+        }
+        boolean maintain;
+        synchronized ( this )
+        {
+            freedIds.enqueue( id );
+            maintain = scheduleMaintenanceIfNeeded();
+        }
+        if ( aggressiveReuse )
+        {
+            mayHaveReusableIds = true;
+        }
+        if ( maintain )
+        {
+            maintenanceExecutor.execute( this::maintain );
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+        closed = true;
+        awaitMaintenance();
+        try
+        {
+            if ( maintenanceFailure != null )
+            {
+                // Not checkpointed, so the header still marks the file as sticky
+                tree.close();
+                throw new UnderlyingStorageException( "Unable to maintain id file " + file, maintenanceFailure );
+            }
+            // Ids that were grabbed but never handed out are still free
+            writeFreeIds( drain( grabbedIds ), false );
+            writeFreeIds( drain( freedIds ), !aggressiveReuse );
+            tree.checkpoint( IOLimiter.unlimited(), header( CLEAN_GENERATOR, highId.get() ) );
+            tree.close();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to close id file " + file, e );
+        }
+    }
+
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        return highId.get() - getDefragCount();
+    }
+
+    @Override
+    public synchronized long getDefragCount()
+    {
+        return freeIdCount + freedIds.size();
+    }
+
+    @Override
+    public synchronized void delete()
+    {
+        if ( !closed )
+        {
+            closed = true;
+            awaitMaintenance();
+            try
+            {
+                // Not checkpointed, so the header still marks the file as sticky should the deletion fail
+                tree.close();
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to close id file " + file, e );
+            }
+        }
+
+        if ( !fs.deleteFile( file ) )
+        {
+            throw new UnderlyingStorageException( "Unable to delete id file " + file );
+        }
+    }
+
+    /**
+     * Creates a new, empty, id generator.
+     *
+     * @param throwIfFileExists if {@code true} will cause an {@link IllegalStateException} to be thrown if
+     * the file already exists. if {@code false} will replace the existing file.
+     */
+    public static void createGenerator( FileSystemAbstraction fs, PageCache pageCache, File file, long highId,
+            boolean throwIfFileExists )
+    {
+        if ( fs.fileExists( file ) )
+        {
+            if ( throwIfFileExists )
+            {
+                throw new IllegalStateException( "Can't create id file [" + file + "], file already exists" );
+            }
+            if ( !fs.deleteFile( file ) )
+            {
+                throw new UnderlyingStorageException( "Unable to delete id file " + file );
+            }
+        }
+        try
+        {
+            openTree( pageCache, file, GBPTree.NO_HEADER_READER, header( CLEAN_GENERATOR, highId ) ).close();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to create id file " + file, e );
+        }
+    }
+
+    /**
+     * Prepares an id file, which may not have been shut down properly, for having its id generator rebuilt after
+     * recovery. The free ids in the tree are kept, since the tree never durably contains ids that have been handed
+     * out. The high id is reset to zero, to be set by the rebuild before any free ids are grabbed, and any free ids
+     * found at or above the new high id are discarded as they are encountered. If the file is missing, or isn't a free id tree, a new empty one is
+     * created instead.
+     */
+    public static void keepFreeIdsForRebuild( FileSystemAbstraction fs, PageCache pageCache, File file )
+    {
+        if ( fs.fileExists( file ) )
+        {
+            try ( GBPTree<MutableLong,MutableLong> tree =
+                          openTree( pageCache, file, GBPTree.NO_HEADER_READER, header( REBUILT_GENERATOR, 0 ) ) )
+            {
+                tree.checkpoint( IOLimiter.unlimited(), header( REBUILT_GENERATOR, 0 ) );
+                return;
+            }
+            catch ( InvalidIdGeneratorException e )
+            {
+                // Not a free id tree, e.g. an id file written by IdGeneratorImpl. Start over below.
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to prepare id file " + file + " for rebuild", e );
+            }
+        }
+        createGenerator( fs, pageCache, file, 0, false );
+    }
+
+    /**
+     * Moves ids freed in previous sessions without aggressive reuse into the reusable key space.
+     *
+     * @return the number of free ids in the tree.
+     */
+    private long makePendingIdsReusable() throws IOException
+    {
+        long count = 0;
+        PrimitiveLongArrayQueue pendingRanges = new PrimitiveLongArrayQueue();
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      tree.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            while ( cursor.next() )
+            {
+                long range = cursor.get().key().longValue();
+                long bits = cursor.get().value().longValue();
+                count += Long.bitCount( bits );
+                if ( (range & PENDING_BIT) != 0 )
+                {
+                    pendingRanges.enqueue( range );
+                    pendingRanges.enqueue( bits );
+                }
+            }
+        }
+
+        if ( !pendingRanges.isEmpty() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+            {
+                while ( !pendingRanges.isEmpty() )
+                {
+                    long range = pendingRanges.dequeue();
+                    long bits = pendingRanges.dequeue();
+                    key.setValue( range );
+                    writer.remove( key );
+                    key.setValue( range & ~PENDING_BIT );
+                    value.setValue( bits );
+                    writer.merge( key, value, freeIdsMerger );
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the given free ids to the tree using a single writer, merging ids of the same range into one update.
+     *
+     * @return the number of ids that weren't already free in the tree.
+     */
+    private long writeFreeIds( long[] ids, boolean pending ) throws IOException
+    {
+        if ( ids.length == 0 )
+        {
+            return 0;
+        }
+        Arrays.sort( ids );
+        long added = 0;
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            int i = 0;
+            while ( i < ids.length )
+            {
+                long range = idRange( ids[i] );
+                long bits = 0;
+                for ( ; i < ids.length && idRange( ids[i] ) == range; i++ )
+                {
+                    bits |= bit( ids[i] );
+                }
+                key.setValue( range | (pending ? PENDING_BIT : 0) );
+                value.setValue( bits );
+                addedFreeIds = Long.bitCount( bits );
+                writer.merge( key, value, freeIdsMerger );
+                // An id can already be free here if it was kept over a rebuild that frees all unused ids again
+                added += addedFreeIds;
+            }
+        }
+        return added;
+    }
+
+    private MutableLong mergeFreeIds( MutableLong existingKey, MutableLong newKey, MutableLong existingValue,
+            MutableLong newValue )
+    {
+        addedFreeIds = Long.bitCount( newValue.longValue() & ~existingValue.longValue() );
+        newValue.setValue( existingValue.longValue() | newValue.longValue() );
+        return newValue;
+    }
+
+    /**
+     * Waits for a running {@link #maintain()} to complete. Caller must hold the monitor of this generator, and must
+     * have marked it as closed, so that scheduled maintenance that hasn't started yet won't touch the tree.
+     */
+    private void awaitMaintenance()
+    {
+        boolean interrupted = false;
+        while ( maintenanceRunning )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long[] drain( PrimitiveLongArrayQueue queue )
+    {
+        long[] ids = PrimitiveLongCollections.asArray( queue.iterator() );
+        queue.clear();
+        return ids;
+    }
+
+    private void assertStillOpen()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "Closed id file " + file );
+        }
+    }
+
+    private void closeTreeOnFailure( Exception cause )
+    {
+        try
+        {
+            tree.close();
+        }
+        catch ( IOException e )
+        {
+            cause.addSuppressed( e );
+        }
+    }
+
+    private static GBPTree<MutableLong,MutableLong> openTree( PageCache pageCache, File file,
+            Header.Reader headerReader, Consumer<PageCursor> headerWriter )
+    {
+        try
+        {
+            return new GBPTree<>( pageCache, file, LAYOUT, 0, GBPTree.NO_MONITOR, headerReader, headerWriter,
+                    RecoveryCleanupWorkCollector.immediate() );
+        }
+        catch ( MetadataMismatchException | IllegalArgumentException e )
+        {
+            // The meta data of e.g. an id file written by IdGeneratorImpl can be read as an illegal page size
+            throw new InvalidIdGeneratorException( "Id file [ " + file + " ] isn't a free id tree: " + e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to open id file " + file, e );
+        }
+    }
+
+    private static Header.Reader headerReader( MutableByte state, MutableLong highId )
+    {
+        return headerData ->
+        {
+            if ( headerData.remaining() >= HEADER_SIZE )
+            {
+                state.setValue( headerData.get() );
+                highId.setValue( headerData.getLong() );
+            }
+        };
+    }
+
+    private static Consumer<PageCursor> header( byte state, long highId )
+    {
+        return cursor ->
+        {
+            cursor.putByte( state );
+            cursor.putLong( highId );
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return "GBPTreeIdGenerator " + hashCode() + " [max=" + max + ", file=" + file + ", highId=" + highId.get() +
+                ", aggressiveReuse=" + aggressiveReuse + ", closed=" + closed + "]";
+    }
+}
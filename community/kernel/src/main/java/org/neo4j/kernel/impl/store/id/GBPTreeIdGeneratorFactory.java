@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.util.EnumMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfiguration;
+import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
+import org.neo4j.scheduler.JobScheduler;
+
+/**
+ * {@link IdGeneratorFactory} of {@link GBPTreeIdGenerator}s, which keep free ids in a crash-safe tree.
+ * <p>
+ * Generators maintain their trees in jobs of the {@link JobScheduler.Groups#idGeneratorMaintenance} group.
+ * <p>
+ * The tree of an id file is kept in a file of its own, named by {@link #treeFile(File)}, as an id file written by
+ * {@link IdGeneratorImpl} can't tell a tree apart from a clean id file. Both factories take the presence of the id
+ * file of the other kind as a sign that their own id file is stale, and require the id generator to be rebuilt.
+ */
+public class GBPTreeIdGeneratorFactory implements IdGeneratorFactory
+{
+    private static final String TREE_FILE_SUFFIX = ".gbptree";
+
+    private final EnumMap<IdType, IdGenerator> generators = new EnumMap<>( IdType.class );
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final IdTypeConfigurationProvider idTypeConfigurationProvider;
+    private final Executor maintenanceExecutor;
+
+    public GBPTreeIdGeneratorFactory( FileSystemAbstraction fs, PageCache pageCache,
+            IdTypeConfigurationProvider idTypeConfigurationProvider, JobScheduler jobScheduler )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.idTypeConfigurationProvider = idTypeConfigurationProvider;
+        this.maintenanceExecutor = jobScheduler.executor( JobScheduler.Groups.idGeneratorMaintenance );
+    }
+
+    @Override
+    public IdGenerator open( File filename, IdType idType, LongSupplier highId, long maxId )
+    {
+        IdTypeConfiguration idTypeConfiguration = idTypeConfigurationProvider.getIdTypeConfiguration( idType );
+        return open( filename, idTypeConfiguration.getGrabSize(), idType, highId, maxId );
+    }
+
+    @Override
+    public IdGenerator open( File filename, int grabSize, IdType idType, LongSupplier highId, long maxId )
+    {
+        if ( fs.fileExists( filename ) )
+        {
+            throw new InvalidIdGeneratorException( "Id file [ " + filename + " ] has been used instead of its free id " +
+                    "tree, the id generator needs to be rebuilt" );
+        }
+        IdTypeConfiguration idTypeConfiguration = idTypeConfigurationProvider.getIdTypeConfiguration( idType );
+        IdGenerator generator = new GBPTreeIdGenerator( fs, pageCache, treeFile( filename ), grabSize, maxId,
+                idTypeConfiguration.allowAggressiveReuse(), idType, highId, maintenanceExecutor );
+        generators.put( idType, generator );
+        return generator;
+    }
+
+    @Override
+    public void create( File filename, long highId, boolean throwIfFileExists )
+    {
+        deleteIdFile( fs, filename );
+        GBPTreeIdGenerator.createGenerator( fs, pageCache, treeFile( filename ), highId, throwIfFileExists );
+    }
+
+    @Override
+    public void prepareForRebuild( File filename )
+    {
+        if ( fs.fileExists( filename ) )
+        {
+            // Free ids kept in the tree may have been handed out by the other id generator since
+            deleteIdFile( fs, treeFile( filename ) );
+            deleteIdFile( fs, filename );
+        }
+        GBPTreeIdGenerator.keepFreeIdsForRebuild( fs, pageCache, treeFile( filename ) );
+    }
+
+    @Override
+    public IdGenerator get( IdType idType )
+    {
+        return generators.get( idType );
+    }
+
+    /**
+     * @param filename name of an id file, as given to {@link IdGeneratorFactory#open(File, IdType, LongSupplier, long)}.
+     * @return the file keeping the free id tree of that id file.
+     */
+    public static File treeFile( File filename )
+    {
+        return new File( filename.getPath() + TREE_FILE_SUFFIX );
+    }
+
+    static void deleteIdFile( FileSystemAbstraction fs, File file )
+    {
+        if ( fs.fileExists( file ) && !fs.deleteFile( file ) )
+        {
+            throw new UnderlyingStorageException( "Unable to delete id file " + file );
+        }
+    }
+}
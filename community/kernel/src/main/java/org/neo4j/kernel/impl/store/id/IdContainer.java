@@ -53,7 +53,7 @@ public class IdContainer
     private final File file;
     private final FileSystemAbstraction fs;
     private StoreChannel fileChannel;
-    private boolean closed = true;
+    private volatile boolean closed = true;
 
     private final int grabSize;
     private final boolean aggressiveReuse;
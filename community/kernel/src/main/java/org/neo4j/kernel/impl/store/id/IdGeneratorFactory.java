@@ -30,6 +30,18 @@ public interface IdGeneratorFactory
 
     void create( File filename, long highId, boolean throwIfFileExists );
 
+    /**
+     * Prepares the id file for having its id generator rebuilt after recovery, e.g. because it wasn't shut down
+     * properly. Implementations that keep free ids safely across an unclean shutdown may keep them here,
+     * by default a new empty id file is created.
+     *
+     * @param filename the id file to prepare.
+     */
+    default void prepareForRebuild( File filename )
+    {
+        create( filename, 0, false );
+    }
+
     IdGenerator get( IdType idType );
 
 }
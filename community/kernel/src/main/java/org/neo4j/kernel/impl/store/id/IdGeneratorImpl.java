@@ -21,8 +21,10 @@ package org.neo4j.kernel.impl.store.id;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
 
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.id.validation.IdValidator;
@@ -55,6 +57,10 @@ import org.neo4j.kernel.impl.store.id.validation.IdValidator;
  * "sticky" and unusable next time you try to initialize a generator using the
  * same file. There can only be one id generator instance per id generator file.
  * <p>
+ * The high id is kept in an {@link AtomicLong} and is bumped without taking the monitor of this generator.
+ * The monitor only guards the {@link IdContainer}, which is consulted for reusable ids as long as it may have
+ * any to give. Once it has run dry, new ids are handed out lock-free until an id is freed again.
+ * <p>
  * In case of disk/file I/O failure an <CODE>IOException</CODE> is thrown.
  */
 public class IdGeneratorImpl implements IdGenerator
@@ -67,8 +73,13 @@ public class IdGeneratorImpl implements IdGenerator
 
     private final long max;
     private final IdContainer idContainer;
-    private long highId;
+    private final AtomicLong highId = new AtomicLong();
     private final IdType idType;
+    /**
+     * Whether or not the {@link #idContainer} may have reusable ids to hand out. Only written while holding
+     * the monitor of this generator, but read without it by {@link #nextId()}.
+     */
+    private volatile boolean mayHaveReusableIds = true;
 
     /**
      * Opens the id generator represented by <CODE>fileName</CODE>. The
@@ -110,11 +121,11 @@ public class IdGeneratorImpl implements IdGenerator
          */
         if ( this.idContainer.init() )
         {
-            this.highId = idContainer.getInitialHighId();
+            this.highId.set( idContainer.getInitialHighId() );
         }
         else
         {
-            this.highId = highId.getAsLong();
+            this.highId.set( highId.getAsLong() );
         }
     }
 
@@ -130,45 +141,85 @@ public class IdGeneratorImpl implements IdGenerator
      * @throws IllegalStateException if this id generator has been closed
      */
     @Override
-    public synchronized long nextId()
+    public long nextId()
     {
         assertStillOpen();
+        if ( mayHaveReusableIds )
+        {
+            long nextDefragId = nextReusableId();
+            if ( nextDefragId != IdContainer.NO_RESULT )
+            {
+                return nextDefragId;
+            }
+        }
+        return nextHighId();
+    }
+
+    private synchronized long nextReusableId()
+    {
         long nextDefragId = idContainer.getReusableId();
-        if ( nextDefragId != IdContainer.NO_RESULT )
+        if ( nextDefragId == IdContainer.NO_RESULT )
         {
-            return nextDefragId;
+            mayHaveReusableIds = false;
         }
+        return nextDefragId;
+    }
 
-        if ( IdValidator.isReservedId( highId ) )
+    private long nextHighId()
+    {
+        long current;
+        long id;
+        do
         {
-            highId++;
+            current = highId.get();
+            id = IdValidator.isReservedId( current ) ? current + 1 : current;
+            IdValidator.assertValidId( idType, id, max );
         }
-        IdValidator.assertValidId( idType, highId, max );
-        return highId++;
+        while ( !highId.compareAndSet( current, id + 1 ) );
+        return id;
     }
 
     @Override
-    public synchronized IdRange nextIdBatch( int size )
+    public IdRange nextIdBatch( int size )
     {
         assertStillOpen();
-        long[] reusableIds = idContainer.getReusableIds( size );
+        long[] reusableIds = mayHaveReusableIds ? nextReusableIds( size ) : PrimitiveLongCollections.EMPTY_LONG_ARRAY;
         int sizeLeftForRange = size - reusableIds.length;
-        long start = highId;
-        setHighId( start + sizeLeftForRange );
+        long start;
+        long end;
+        do
+        {
+            start = highId.get();
+            end = start + sizeLeftForRange;
+            IdValidator.assertIdWithinCapacity( idType, end, max );
+        }
+        while ( !highId.compareAndSet( start, end ) );
         return new IdRange( reusableIds, start, sizeLeftForRange );
     }
 
+    private synchronized long[] nextReusableIds( int size )
+    {
+        long[] reusableIds = idContainer.getReusableIds( size );
+        if ( reusableIds.length < size )
+        {
+            mayHaveReusableIds = false;
+        }
+        return reusableIds;
+    }
+
     /**
      * Sets the next free "high" id. This method should be called when an id
      * generator has been rebuilt. {@code id} must not be higher than {@code max}.
+     * The high id is never lowered by this method, since ids below the current high id may already have been
+     * handed out by a concurrent {@link #nextId()} or {@link #nextIdBatch(int)}.
      *
      * @param id The next free id returned from {@link #nextId()} if there are no existing free ids.
      */
     @Override
-    public synchronized void setHighId( long id )
+    public void setHighId( long id )
     {
         IdValidator.assertIdWithinCapacity( idType, id, max );
-        highId = id;
+        highId.accumulateAndGet( id, Math::max );
     }
 
     /**
@@ -178,15 +229,15 @@ public class IdGeneratorImpl implements IdGenerator
      * @return The next free "high" id
      */
     @Override
-    public synchronized long getHighId()
+    public long getHighId()
     {
-        return highId;
+        return highId.get();
     }
 
     @Override
-    public synchronized long getHighestPossibleIdInUse()
+    public long getHighestPossibleIdInUse()
     {
-        return highId - 1;
+        return highId.get() - 1;
     }
 
     /**
@@ -212,11 +263,13 @@ public class IdGeneratorImpl implements IdGenerator
             return;
         }
 
-        if ( id < 0 || id >= highId )
+        long currentHighId = highId.get();
+        if ( id < 0 || id >= currentHighId )
         {
-            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + highId );
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + currentHighId );
         }
         idContainer.freeId( id );
+        mayHaveReusableIds = true;
     }
 
     /**
@@ -231,7 +284,7 @@ public class IdGeneratorImpl implements IdGenerator
     @Override
     public synchronized void close()
     {
-        idContainer.close( highId );
+        idContainer.close( highId.get() );
     }
 
     /**
@@ -282,7 +335,7 @@ public class IdGeneratorImpl implements IdGenerator
     @Override
     public synchronized long getNumberOfIdsInUse()
     {
-        return highId - getDefragCount();
+        return highId.get() - getDefragCount();
     }
 
     @Override
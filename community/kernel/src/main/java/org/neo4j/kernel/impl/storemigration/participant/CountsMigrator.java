@@ -22,7 +22,9 @@ package org.neo4j.kernel.impl.storemigration.participant;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
@@ -37,7 +39,9 @@ import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.StoreFailureException;
 import org.neo4j.kernel.impl.store.StoreFile;
 import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.GBPTreeCountsStore;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.format.StoreVersion;
 import org.neo4j.kernel.impl.store.format.standard.StandardV2_3;
@@ -72,7 +76,7 @@ import static org.neo4j.kernel.impl.storemigration.FileOperation.MOVE;
 public class CountsMigrator extends AbstractStoreMigrationParticipant
 {
     private static final Iterable<StoreFile> COUNTS_STORE_FILES = Iterables
-            .iterable( StoreFile.COUNTS_STORE_LEFT, StoreFile.COUNTS_STORE_RIGHT );
+            .iterable( StoreFile.COUNTS_STORE_LEFT, StoreFile.COUNTS_STORE_RIGHT, StoreFile.COUNTS_STORE_GBPTREE );
 
     private final Config config;
     private final FileSystemAbstraction fileSystem;
@@ -180,9 +184,19 @@ public class CountsMigrator extends AbstractStoreMigrationParticipant
                 CountsComputer initializer = new CountsComputer( lastTxId, nodeStore, relationshipStore, highLabelId,
                         highRelationshipTypeId, NumberArrayFactory.auto( pageCache, migrationDir, true, NumberArrayFactory.NO_MONITOR ),
                         progressMonitor );
-                life.add( new CountsTracker( logProvider, fileSystem, pageCache, config,
-                        storeFileBase, EmptyVersionContextSupplier.EMPTY ).setInitializer( initializer ) );
+                life.add( createCountsStore( storeFileBase, logProvider ).setInitializer( initializer ) );
             }
         }
     }
+
+    private CountsStore createCountsStore( File storeFileBase, LogProvider logProvider )
+    {
+        if ( config.get( GraphDatabaseSettings.counts_store_gbptree ) )
+        {
+            return new GBPTreeCountsStore( pageCache, storeFileBase, RecoveryCleanupWorkCollector.immediate(), false,
+                    config.get( GraphDatabaseSettings.counts_store_rotation_timeout ).toMillis() );
+        }
+        return new CountsTracker( logProvider, fileSystem, pageCache, config, storeFileBase,
+                EmptyVersionContextSupplier.EMPTY );
+    }
 }
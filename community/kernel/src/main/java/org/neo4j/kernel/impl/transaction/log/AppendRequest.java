@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+
+/**
+ * A batch of transactions, with their start entries and commands already serialized, that a committing thread has
+ * handed over to the dedicated log writer thread of the {@link BatchingTransactionAppender}. Requests are linked
+ * together into a stack, in the same way as {@link ThreadLink}s.
+ */
+class AppendRequest
+{
+    final TransactionToApply batch;
+    final ByteArrayFlushableChannel[] serializedTransactions;
+    final LogAppendEvent logAppendEvent;
+    final Thread committer;
+    volatile AppendRequest next;
+    volatile boolean done;
+    // Written by the log writer thread before done is set
+    long lastTransactionId;
+    Throwable failure;
+
+    AppendRequest( TransactionToApply batch, ByteArrayFlushableChannel[] serializedTransactions,
+            LogAppendEvent logAppendEvent, Thread committer )
+    {
+        this.batch = batch;
+        this.serializedTransactions = serializedTransactions;
+        this.logAppendEvent = logAppendEvent;
+        this.committer = committer;
+    }
+
+    void complete()
+    {
+        done = true;
+        LockSupport.unpark( committer );
+    }
+
+    static final AppendRequest END = new AppendRequest( null, null, null, null );
+
+    static
+    {
+        END.next = END;
+    }
+}
@@ -22,6 +22,9 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -43,6 +46,7 @@ import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.scheduler.JobScheduler;
 
 import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SPECIFIED;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum;
@@ -50,6 +54,11 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches for higher throughput in a concurrent scenario.
+ * <p>
+ * Optionally, a dedicated log writer, scheduled in the {@link JobScheduler.Groups#transactionLogWriter} group, does
+ * all appending. Committing threads then only serialize their transactions, outside of any lock, and hand them over
+ * to the log writer thread, which appends and forces whatever has been handed over since its last round in one go,
+ * and marks those transactions as committed.
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
@@ -67,14 +76,35 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final boolean dedicatedLogWriter;
+    private final boolean compressCommands;
+    private final AtomicReference<AppendRequest> appendRequestHead = new AtomicReference<>( AppendRequest.END );
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
     private IndexCommandDetector indexCommandDetector;
+    private final JobScheduler jobScheduler;
+    private JobScheduler.JobHandle logWriterJob;
+    private volatile Thread logWriterThread;
+    private volatile boolean logWriterRunning;
+    private volatile boolean stopped;
 
     public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth )
+    {
+        this( logFiles, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, null, false, false );
+    }
+
+    /**
+     * @param jobScheduler scheduler to run the dedicated log writer on, only needed if {@code dedicatedLogWriter}
+     * is set.
+     */
+    public BatchingTransactionAppender( LogFiles logFiles, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler jobScheduler,
+            boolean dedicatedLogWriter, boolean compressCommands )
     {
         this.logFile = logFiles.getLogFile();
         this.logRotation = logRotation;
@@ -82,6 +112,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.jobScheduler = jobScheduler;
+        this.dedicatedLogWriter = dedicatedLogWriter;
+        this.compressCommands = compressCommands;
     }
 
     @Override
@@ -90,13 +123,59 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.writer = logFile.getWriter();
         this.indexCommandDetector = new IndexCommandDetector();
         this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        if ( dedicatedLogWriter )
+        {
+            // Requests handed over while we were stopped were never appended, and their committers have given up
+            failPendingAppendRequests();
+            stopped = false;
+            logWriterRunning = true;
+            logWriterJob = jobScheduler.schedule( JobScheduler.Groups.transactionLogWriter, this::runLogWriter );
+        }
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        JobScheduler.JobHandle job = logWriterJob;
+        if ( job != null )
+        {
+            // The log writer will append anything that has already been handed over to it before it exits
+            stopped = true;
+            Thread thread = logWriterThread;
+            if ( thread != null )
+            {
+                LockSupport.unpark( thread );
+            }
+            job.waitTermination();
+            logWriterJob = null;
+            // Committers that handed over their requests after the last round of the log writer are still waiting
+            failPendingAppendRequests();
+        }
+    }
+
+    private void failPendingAppendRequests()
+    {
+        AppendRequest head = appendRequestHead.getAndSet( AppendRequest.END );
+        for ( AppendRequest request = head; request != AppendRequest.END; request = nextRequest( request ) )
+        {
+            request.failure = new IOException( "The transaction log writer is not running" );
+            request.complete();
+        }
     }
 
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
     {
-        // Assigned base tx id just to make compiler happy
-        long lastTransactionId = TransactionIdStore.BASE_TX_ID;
+        if ( dedicatedLogWriter )
+        {
+            return appendThroughLogWriter( batch, logAppendEvent );
+        }
+
+        // Compressing commands takes a while, so do that before taking the logFile monitor, rather than
+        // while holding it and keeping all other committers waiting
+        ByteArrayFlushableChannel[] serializedTransactions = compressCommands ? serialize( batch ) : null;
+
+        long lastTransactionId;
         // Synchronized with logFile to get absolute control over concurrent rotations happening
         synchronized ( logFile )
         {
@@ -104,24 +183,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             databaseHealth.assertHealthy( IOException.class );
             try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
             {
-                // Append all transactions in this batch to the log under the same logFile monitor
-                TransactionToApply tx = batch;
-                while ( tx != null )
-                {
-                    long transactionId = transactionIdStore.nextCommittingTransactionId();
-
-                    // If we're in a scenario where we're merely replicating transactions, i.e. transaction
-                    // id have already been generated by another entity we simply check that our id
-                    // that we generated match that id. If it doesn't we've run into a problem we can't ´
-                    // really recover from and would point to a bug somewhere.
-                    matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
-
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
-                    tx.commitment( commitment, transactionId );
-                    tx.logPosition( commitment.logPosition() );
-                    tx = tx.next();
-                    lastTransactionId = transactionId;
-                }
+                lastTransactionId = appendBatch( batch, serializedTransactions );
             }
         }
 
@@ -143,6 +205,223 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         return lastTransactionId;
     }
 
+    /**
+     * Appends all transactions in the given batch to the log. Must be called while synchronized on the logFile.
+     *
+     * @param serializedTransactions the start entries and commands of the transactions in the batch, already
+     * serialized, or {@code null} if they should be serialized here.
+     * @return the id of the last transaction in the batch.
+     */
+    private long appendBatch( TransactionToApply batch, ByteArrayFlushableChannel[] serializedTransactions )
+            throws IOException
+    {
+        // Assigned base tx id just to make compiler happy
+        long lastTransactionId = TransactionIdStore.BASE_TX_ID;
+        // Append all transactions in this batch to the log under the same logFile monitor
+        TransactionToApply tx = batch;
+        int index = 0;
+        while ( tx != null )
+        {
+            long transactionId = transactionIdStore.nextCommittingTransactionId();
+
+            // If we're in a scenario where we're merely replicating transactions, i.e. transaction
+            // id have already been generated by another entity we simply check that our id
+            // that we generated match that id. If it doesn't we've run into a problem we can't ´
+            // really recover from and would point to a bug somewhere.
+            matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
+
+            ByteArrayFlushableChannel serialized =
+                    serializedTransactions != null ? serializedTransactions[index++] : null;
+            TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), serialized, transactionId );
+            tx.commitment( commitment, transactionId );
+            tx.logPosition( commitment.logPosition() );
+            tx = tx.next();
+            lastTransactionId = transactionId;
+        }
+        return lastTransactionId;
+    }
+
+    private long appendThroughLogWriter( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
+    {
+        // Assert that kernel is healthy before doing any work
+        databaseHealth.assertHealthy( IOException.class );
+        AppendRequest request;
+        try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+        {
+            request = new AppendRequest( batch, serialize( batch ), logAppendEvent, Thread.currentThread() );
+        }
+
+        // Same benign race as with the ThreadLinks, the log writer spins when it sees a null next pointer.
+        AppendRequest previous = appendRequestHead.getAndSet( request );
+        request.next = previous;
+        Thread thread = logWriterThread;
+        if ( previous == AppendRequest.END && thread != null )
+        {
+            LockSupport.unpark( thread );
+        }
+
+        while ( !request.done )
+        {
+            if ( !logWriterRunning )
+            {
+                if ( request.done )
+                {
+                    break;
+                }
+                throw new IOException( "The transaction log writer is not running" );
+            }
+            LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( 100 ) );
+        }
+        Throwable failure = request.failure;
+        if ( failure != null )
+        {
+            if ( failure instanceof IOException )
+            {
+                throw (IOException) failure;
+            }
+            if ( failure instanceof RuntimeException )
+            {
+                throw (RuntimeException) failure;
+            }
+            if ( failure instanceof Error )
+            {
+                throw (Error) failure;
+            }
+            throw new IOException( failure );
+        }
+        return request.lastTransactionId;
+    }
+
+    private ByteArrayFlushableChannel[] serialize( TransactionToApply batch ) throws IOException
+    {
+        int count = 0;
+        for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+        {
+            count++;
+        }
+        ByteArrayFlushableChannel[] serializedTransactions = new ByteArrayFlushableChannel[count];
+        int index = 0;
+        for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+        {
+            ByteArrayFlushableChannel channel = new ByteArrayFlushableChannel();
+            TransactionLogWriter.serializeStartAndCommands( tx.transactionRepresentation(), channel, compressCommands );
+            serializedTransactions[index++] = channel;
+        }
+        return serializedTransactions;
+    }
+
+    private void runLogWriter()
+    {
+        logWriterThread = Thread.currentThread();
+        try
+        {
+            List<AppendRequest> requests = new ArrayList<>();
+            for ( ;; )
+            {
+                AppendRequest head = appendRequestHead.getAndSet( AppendRequest.END );
+                if ( head == AppendRequest.END )
+                {
+                    if ( stopped )
+                    {
+                        return;
+                    }
+                    LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( 10 ) );
+                    continue;
+                }
+
+                // The requests are stacked with the most recent first, so reverse them to append in arrival order
+                for ( AppendRequest request = head; request != AppendRequest.END; request = nextRequest( request ) )
+                {
+                    requests.add( request );
+                }
+                Collections.reverse( requests );
+                appendAndForce( requests );
+                requests.clear();
+            }
+        }
+        finally
+        {
+            logWriterThread = null;
+            logWriterRunning = false;
+        }
+    }
+
+    private static AppendRequest nextRequest( AppendRequest request )
+    {
+        AppendRequest next;
+        do
+        {
+            // Spin because of the race:y update when consing.
+            next = request.next;
+        }
+        while ( next == null );
+        return next;
+    }
+
+    private void appendAndForce( List<AppendRequest> requests )
+    {
+        List<AppendRequest> appended = new ArrayList<>( requests.size() );
+        // Synchronized with logFile to get absolute control over concurrent rotations happening
+        synchronized ( logFile )
+        {
+            for ( AppendRequest request : requests )
+            {
+                try
+                {
+                    databaseHealth.assertHealthy( IOException.class );
+                    request.lastTransactionId = appendBatch( request.batch, request.serializedTransactions );
+                    appended.add( request );
+                }
+                catch ( Throwable t )
+                {
+                    request.failure = t;
+                }
+            }
+        }
+
+        // One force makes all the appended transactions durable, after which they can be marked as committed
+        LogAppendEvent logAppendEvent = requests.get( requests.size() - 1 ).logAppendEvent;
+        boolean forced = false;
+        if ( !appended.isEmpty() )
+        {
+            try
+            {
+                forced = forceAfterAppend( logAppendEvent );
+                for ( AppendRequest request : appended )
+                {
+                    publishAsCommitted( request.batch );
+                }
+            }
+            catch ( Throwable t )
+            {
+                for ( AppendRequest request : appended )
+                {
+                    request.failure = t;
+                }
+            }
+        }
+        for ( AppendRequest request : requests )
+        {
+            request.complete();
+        }
+
+        // Rotate after the committers have been released, so they don't wait for it. Only this thread appends, so
+        // the committing transaction id that rotation writes into the header of the new log file is the id of the
+        // last transaction in the old log, whether or not the transactions have been marked as committed yet.
+        if ( forced )
+        {
+            try
+            {
+                boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
+                logAppendEvent.setLogRotated( logRotated );
+            }
+            catch ( Throwable t )
+            {
+                databaseHealth.panic( t );
+            }
+        }
+    }
+
     private void matchAgainstExpectedTransactionIdIfAny( long transactionId, TransactionToApply tx )
     {
         long expectedTransactionId = tx.transactionId();
@@ -193,8 +472,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any explicit index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction,
+            ByteArrayFlushableChannel serializedStartAndCommands, long transactionId ) throws IOException
     {
         // Reset command writer so that we, after we've written the transaction, can ask it whether or
         // not any explicit index command was written. If so then there's additional ordering to care about below.
@@ -209,7 +488,14 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         try
         {
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            if ( serializedStartAndCommands != null )
+            {
+                transactionLogWriter.append( transaction, serializedStartAndCommands, transactionId );
+            }
+            else
+            {
+                transactionLogWriter.append( transaction, transactionId );
+            }
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
 
             long transactionChecksum =
@@ -217,6 +503,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             transactionMetadataCache
                     .cacheTransactionMetadata( transactionId, logPositionBeforeCommit, transaction.getMasterId(),
                             transaction.getAuthorId(), transactionChecksum, transaction.getTimeCommitted() );
+            logFile.transactionAppended( transactionId, logPositionBeforeCommit );
 
             transaction.accept( indexCommandDetector );
             boolean hasExplicitIndexChanges = indexCommandDetector.hasWrittenAnyExplicitIndexCommand();
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.neo4j.storageengine.api.WritableChannel;
+
+/**
+ * A {@link FlushableChannel} that writes into a heap buffer which grows as needed, such that log entries can be
+ * serialized up front and later be {@link #writeTo(WritableChannel) copied} into the actual log channel in one go.
+ */
+public class ByteArrayFlushableChannel implements FlushableChannel, Flushable
+{
+    private static final int DEFAULT_INITIAL_CAPACITY = 256;
+
+    private ByteBuffer buffer;
+
+    public ByteArrayFlushableChannel()
+    {
+        this( DEFAULT_INITIAL_CAPACITY );
+    }
+
+    public ByteArrayFlushableChannel( int initialCapacity )
+    {
+        this.buffer = ByteBuffer.allocate( initialCapacity );
+    }
+
+    /**
+     * @return the number of bytes written to this channel.
+     */
+    public int size()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * @return the array backing this channel, where the first {@link #size()} bytes are the ones written so far.
+     * The returned array is only valid until the next write to this channel.
+     */
+    public byte[] array()
+    {
+        return buffer.array();
+    }
+
+    /**
+     * Forgets all bytes written so far, such that this channel can be reused.
+     */
+    public void clear()
+    {
+        buffer.clear();
+    }
+
+    /**
+     * Writes all bytes written to this channel so far into the given channel.
+     */
+    public void writeTo( WritableChannel channel ) throws IOException
+    {
+        channel.put( buffer.array(), buffer.position() );
+    }
+
+    @Override
+    public Flushable prepareForFlush()
+    {
+        return this;
+    }
+
+    @Override
+    public FlushableChannel put( byte value )
+    {
+        ensureCapacity( Byte.BYTES ).put( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putShort( short value )
+    {
+        ensureCapacity( Short.BYTES ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putInt( int value )
+    {
+        ensureCapacity( Integer.BYTES ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putLong( long value )
+    {
+        ensureCapacity( Long.BYTES ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putFloat( float value )
+    {
+        ensureCapacity( Float.BYTES ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putDouble( double value )
+    {
+        ensureCapacity( Double.BYTES ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel put( byte[] value, int length )
+    {
+        ensureCapacity( length ).put( value, 0, length );
+        return this;
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    private ByteBuffer ensureCapacity( int bytes )
+    {
+        if ( buffer.remaining() < bytes )
+        {
+            int newCapacity = Math.max( buffer.capacity() * 2, buffer.position() + bytes );
+            int position = buffer.position();
+            buffer = ByteBuffer.wrap( Arrays.copyOf( buffer.array(), newCapacity ) );
+            buffer.position( position );
+        }
+        return buffer;
+    }
+}
@@ -20,13 +20,18 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
 
 import org.neo4j.cursor.IOCursor;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 
 /**
- * {@link IOCursor} abstraction on top of a {@link LogEntryReader}
+ * {@link IOCursor} abstraction on top of a {@link LogEntryReader}. {@link LogEntryCompressedCommands Compressed
+ * commands} are expanded, such that users of this cursor see the individual {@link LogEntryCommand commands}.
  */
 public class LogEntryCursor implements IOCursor<LogEntry>
 {
@@ -34,6 +39,7 @@ public class LogEntryCursor implements IOCursor<LogEntry>
     private final ReadableClosablePositionAwareChannel channel;
     private final LogPositionMarker position = new LogPositionMarker();
     private LogEntry entry;
+    private Iterator<LogEntryCommand> compressedCommands = Collections.emptyIterator();
 
     public LogEntryCursor( LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
                            ReadableClosablePositionAwareChannel channel )
@@ -51,9 +57,17 @@ public class LogEntryCursor implements IOCursor<LogEntry>
     @Override
     public boolean next() throws IOException
     {
-        entry = logEntryReader.readLogEntry( channel );
-
-        return entry != null;
+        while ( !compressedCommands.hasNext() )
+        {
+            entry = logEntryReader.readLogEntry( channel );
+            if ( !(entry instanceof LogEntryCompressedCommands) )
+            {
+                return entry != null;
+            }
+            compressedCommands = ((LogEntryCompressedCommands) entry).getCommands().iterator();
+        }
+        entry = compressedCommands.next();
+        return true;
     }
 
     @Override
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.files.LogFileCreationMonitor;
@@ -36,6 +37,9 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
 {
     private long firstTransactionRecovered = -1;
     private long lastTransactionRecovered;
+    private long batchedTransactionsRecovered;
+    private long batchesRecovered;
+    private long batchApplyTimeNanos;
     private final Log log;
 
     public LoggingLogFileMonitor( Log log )
@@ -56,6 +60,13 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
         {
             log.info( format( "Recovery completed. %d transactions, first:%d, last:%d recovered",
                     numberOfRecoveredTransactions, firstTransactionRecovered, lastTransactionRecovered ) );
+            if ( batchesRecovered > 0 )
+            {
+                long applyTimeMillis = TimeUnit.NANOSECONDS.toMillis( batchApplyTimeNanos );
+                log.info( format( "Applied %d recovered transactions in %d batches in %dms (%d transactions/s)",
+                        batchedTransactionsRecovered, batchesRecovered, applyTimeMillis,
+                        batchedTransactionsRecovered * 1000 / Math.max( applyTimeMillis, 1 ) ) );
+            }
         }
         else
         {
@@ -98,6 +109,14 @@ public class LoggingLogFileMonitor implements LogFileCreationMonitor,
         lastTransactionRecovered = txId;
     }
 
+    @Override
+    public void batchRecovered( int numberOfTransactions, long applyTimeNanos )
+    {
+        batchedTransactionsRecovered += numberOfTransactions;
+        batchesRecovered++;
+        batchApplyTimeNanos += applyTimeNanos;
+    }
+
     @Override
     public void created( File logFile, long logVersion, long lastTransactionId )
     {
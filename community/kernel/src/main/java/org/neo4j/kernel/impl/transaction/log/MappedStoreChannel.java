@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.fs.StoreFileChannelUnwrapper;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Read only {@link StoreChannel} over a file that is no longer written to, such as a log file that has been rotated
+ * away from. Reads are served from memory mapped windows of the file, rather than with a system call per read.
+ * <p>
+ * The file must not be truncated while this channel is open, since reading a mapped region past the end of a file
+ * crashes the JVM. A window is unmapped as soon as reading moves past it, and when this channel is closed, rather than
+ * whenever it happens to be garbage collected, so that a reader of many log files does not hold on to more than one
+ * window at a time.
+ */
+public class MappedStoreChannel implements StoreChannel
+{
+    public static final int DEFAULT_WINDOW_SIZE = toIntExact( ByteUnit.mebiBytes( 8 ) );
+
+    private final StoreChannel channel;
+    private final FileChannel fileChannel;
+    private final int windowSize;
+    private final long size;
+    private long position;
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    public MappedStoreChannel( StoreChannel channel, int windowSize ) throws IOException
+    {
+        this.channel = channel;
+        this.fileChannel = StoreFileChannelUnwrapper.unwrap( channel );
+        this.windowSize = windowSize;
+        this.size = channel.size();
+        this.position = channel.position();
+    }
+
+    /**
+     * @param channel channel to check.
+     * @return whether or not the file of the given channel can be read through a {@link MappedStoreChannel}, which
+     * requires it to be a file in the default file system.
+     */
+    public static boolean canMap( StoreChannel channel )
+    {
+        return channel instanceof StoreFileChannel;
+    }
+
+    @Override
+    public int read( ByteBuffer dst ) throws IOException
+    {
+        int read = read( dst, position );
+        if ( read > 0 )
+        {
+            position += read;
+        }
+        return read;
+    }
+
+    @Override
+    public int read( ByteBuffer dst, long position ) throws IOException
+    {
+        if ( position >= size )
+        {
+            return -1;
+        }
+        int read = 0;
+        while ( dst.hasRemaining() && position < size )
+        {
+            ByteBuffer source = windowAt( position );
+            int offset = toIntExact( position - windowStart );
+            int length = min( dst.remaining(), source.capacity() - offset );
+            source.limit( offset + length );
+            source.position( offset );
+            dst.put( source );
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    private ByteBuffer windowAt( long position ) throws IOException
+    {
+        if ( window == null || position < windowStart || position >= windowStart + window.capacity() )
+        {
+            unmapWindow();
+            windowStart = position - position % windowSize;
+            window = fileChannel.map( FileChannel.MapMode.READ_ONLY, windowStart, min( windowSize, size - windowStart ) );
+        }
+        return window.duplicate();
+    }
+
+    private void unmapWindow()
+    {
+        if ( window != null )
+        {
+            MappedByteBuffer unmapped = window;
+            window = null;
+            UnsafeUtil.invokeCleaner( unmapped );
+        }
+    }
+
+    @Override
+    public void readAll( ByteBuffer dst ) throws IOException
+    {
+        while ( dst.hasRemaining() )
+        {
+            if ( read( dst ) < 0 )
+            {
+                throw new IllegalStateException( "Channel has reached end-of-stream." );
+            }
+        }
+    }
+
+    @Override
+    public long read( ByteBuffer[] dsts, int offset, int length ) throws IOException
+    {
+        long read = 0;
+        for ( int i = offset; i < offset + length; i++ )
+        {
+            int bytes = read( dsts[i] );
+            if ( bytes == -1 )
+            {
+                return read == 0 ? -1 : read;
+            }
+            read += bytes;
+        }
+        return read;
+    }
+
+    @Override
+    public long read( ByteBuffer[] dsts ) throws IOException
+    {
+        return read( dsts, 0, dsts.length );
+    }
+
+    @Override
+    public long position()
+    {
+        return position;
+    }
+
+    @Override
+    public StoreChannel position( long newPosition )
+    {
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size()
+    {
+        return size;
+    }
+
+    @Override
+    public FileLock tryLock() throws IOException
+    {
+        return channel.tryLock();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        unmapWindow();
+        channel.close();
+    }
+
+    @Override
+    public void force( boolean metaData )
+    {   // Nothing is written through this channel
+    }
+
+    @Override
+    public void flush()
+    {   // Nothing is written through this channel
+    }
+
+    @Override
+    public StoreChannel truncate( long size )
+    {
+        throw new UnsupportedOperationException( "Read only" );
+    }
+
+    @Override
+    public int write( ByteBuffer src )
+    {
+        throw new UnsupportedOperationException( "Read only" );
+    }
+
+    @Override
+    public void writeAll( ByteBuffer src, long position )
+    {
+        throw new UnsupportedOperationException( "Read only" );
+    }
+
+    @Override
+    public void writeAll( ByteBuffer src )
+    {
+        throw new UnsupportedOperationException( "Read only" );
+    }
+
+    @Override
+    public long write( ByteBuffer[] srcs, int offset, int length )
+    {
+        throw new UnsupportedOperationException( "Read only" );
+    }
+
+    @Override
+    public long write( ByteBuffer[] srcs )
+    {
+        throw new UnsupportedOperationException( "Read only" );
+    }
+}
@@ -29,7 +29,6 @@ import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
-import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.files.LogFile;
 import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
 import org.neo4j.kernel.impl.transaction.log.files.LogHeaderVisitor;
@@ -72,14 +71,14 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
     @Override
     public TransactionCursor getTransactions( LogPosition position ) throws IOException
     {
-        return new PhysicalTransactionCursor<>( logFile.getReader( position ), new VersionAwareLogEntryReader<>() );
+        return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
     }
 
     @Override
     public TransactionCursor getTransactionsInReverseOrder( LogPosition backToPosition )
     {
         return ReversedMultiFileTransactionCursor
-                .fromLogFile( logFiles, logFile, backToPosition, failOnCorruptedLogFiles,
+                .fromLogFile( logFiles, logFile, backToPosition, logEntryReader, failOnCorruptedLogFiles,
                         monitors.newMonitor( ReversedTransactionCursorMonitor.class ) );
     }
 
@@ -103,10 +102,19 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
             logFiles.accept( headerVisitor );
 
+            // skip ahead in that version, to the closest transaction before it that the log file has indexed
+            LogPosition startPosition = headerVisitor.getLogPosition();
+            LogPosition indexedPosition =
+                    logFile.indexedTransactionPosition( startPosition.getLogVersion(), transactionIdToStartFrom );
+            if ( indexedPosition != null )
+            {
+                startPosition = indexedPosition;
+            }
+
             // ask LogFile
             TransactionPositionLocator transactionPositionLocator =
                     new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+            logFile.accept( transactionPositionLocator, startPosition );
             LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
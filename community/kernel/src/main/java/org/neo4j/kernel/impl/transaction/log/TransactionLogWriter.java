@@ -46,6 +46,37 @@ public class TransactionLogWriter
         writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
     }
 
+    /**
+     * Serializes the start entry and the commands of the given transaction into the given channel. The commit entry
+     * is left out, since the id of the transaction may not be known yet. Such a pre-serialized transaction is
+     * appended to the log with {@link #append(TransactionRepresentation, ByteArrayFlushableChannel, long)}.
+     *
+     * @param compressCommands whether or not to compress the commands, see
+     * {@link LogEntryWriter#LogEntryWriter(FlushableChannel, boolean)}.
+     */
+    public static void serializeStartAndCommands( TransactionRepresentation transaction, FlushableChannel channel,
+            boolean compressCommands ) throws IOException
+    {
+        LogEntryWriter writer = new LogEntryWriter( channel, compressCommands );
+        writer.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                transaction.additionalHeader() );
+        writer.serialize( transaction );
+    }
+
+    /**
+     * Appends a transaction, whose start entry and commands have already been serialized with
+     * {@link #serializeStartAndCommands(TransactionRepresentation, FlushableChannel, boolean)}.
+     */
+    public void append( TransactionRepresentation transaction, ByteArrayFlushableChannel serializedStartAndCommands,
+            long transactionId ) throws IOException
+    {
+        writer.writeSerialized( serializedStartAndCommands );
+
+        // Write commit record
+        writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
+    }
+
     public void checkPoint( LogPosition logPosition ) throws IOException
     {
         writer.writeCheckPointEntry( logPosition );
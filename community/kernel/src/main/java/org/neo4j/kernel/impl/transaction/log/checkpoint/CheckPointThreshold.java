@@ -76,8 +76,8 @@ public interface CheckPointThreshold
     /**
      * Create and configure a {@link CheckPointThreshold} based on the given configurations.
      */
-    static CheckPointThreshold createThreshold(
-            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    static CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            CheckPointWorkload workload, LogProvider logProvider )
     {
         String policyName = config.get( check_point_policy );
         CheckPointThresholdPolicy policy;
@@ -92,7 +92,7 @@ public interface CheckPointThreshold
                     "Using default policy instead.", e );
             policy = new PeriodicThresholdPolicy();
         }
-        return policy.createThreshold( config, clock, logPruning, logProvider );
+        return policy.createThreshold( config, clock, logPruning, workload, logProvider );
     }
 
     /**
@@ -19,7 +19,6 @@
  */
 package org.neo4j.kernel.impl.transaction.log.checkpoint;
 
-import java.time.Clock;
 import java.util.NoSuchElementException;
 
 import org.neo4j.helpers.Service;
@@ -34,8 +33,8 @@ import org.neo4j.time.SystemNanoClock;
  *
  * The is determined by the {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#check_point_policy} setting, and
  * based on this, the concrete policies are loaded and used to
- * {@link CheckPointThreshold#createThreshold(Config, Clock, LogPruning, LogProvider) create} the final and fully
- * configured check point thresholds.
+ * {@link CheckPointThreshold#createThreshold(Config, SystemNanoClock, LogPruning, CheckPointWorkload, LogProvider)
+ * create} the final and fully configured check point thresholds.
  */
 public abstract class CheckPointThresholdPolicy extends Service
 {
@@ -64,6 +63,6 @@ public abstract class CheckPointThresholdPolicy extends Service
     /**
      * Create a {@link CheckPointThreshold} instance based on this policy and the given configurations.
      */
-    public abstract CheckPointThreshold createThreshold(
-            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider );
+    public abstract CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            CheckPointWorkload workload, LogProvider logProvider );
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+
+/**
+ * Measures the work that recovery would have to do if the database crashed now, and the work that the next check
+ * point would have to do to shorten that, for {@link CheckPointThreshold thresholds} that adapt to them.
+ */
+public interface CheckPointWorkload
+{
+    CheckPointWorkload NONE = new CheckPointWorkload()
+    {
+        @Override
+        public long dirtyPages()
+        {
+            return -1;
+        }
+
+        @Override
+        public long appendedLogBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public long replayBytesPerSecond()
+        {
+            return 0;
+        }
+    };
+
+    /**
+     * @return the number of dirty pages in the page cache, which a check point would have to write back, or
+     * {@code -1} if not known.
+     */
+    long dirtyPages();
+
+    /**
+     * @return the number of bytes appended to the transaction log, counted from an arbitrary starting point. Only the
+     * difference between two calls is meaningful, which is the number of bytes appended in between.
+     * @throws IOException if the current position of the transaction log could not be read.
+     */
+    long appendedLogBytes() throws IOException;
+
+    /**
+     * @return how many bytes of transaction log the last recovery replayed per second, or {@code 0} if recovery
+     * hasn't replayed enough transactions since the database was started to tell.
+     * @throws IOException if the current position of the transaction log could not be read.
+     */
+    long replayBytesPerSecond() throws IOException;
+}
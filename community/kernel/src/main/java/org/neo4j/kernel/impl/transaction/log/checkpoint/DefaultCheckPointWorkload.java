@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.files.LogFile;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.kernel.recovery.RecoveryMonitor;
+import org.neo4j.time.SystemNanoClock;
+
+import static java.lang.Math.max;
+
+/**
+ * {@link CheckPointWorkload} of a database, which counts the dirty pages of its page cache and follows the append
+ * position of its transaction log. As a {@link RecoveryMonitor} it also times the recovery done when the database
+ * starts, if any, which tells how fast transactions are replayed on this machine.
+ */
+public class DefaultCheckPointWorkload implements CheckPointWorkload, RecoveryMonitor
+{
+    /**
+     * Recoveries that replayed less than this are dominated by the fixed costs of recovery, and say little about
+     * how fast transactions are replayed.
+     */
+    static final long MIN_MEASURED_REPLAY_BYTES = ByteUnit.mebiBytes( 1 );
+
+    private final FileSystemAbstraction fileSystem;
+    private final LogFiles logFiles;
+    private final PageCache pageCache;
+    private final SystemNanoClock clock;
+    private final LogPositionMarker positionMarker = new LogPositionMarker();
+
+    private LogPosition lastAppendPosition;
+    private long appendedLogBytes;
+
+    private volatile LogPosition recoveryPosition;
+    private volatile long recoveryStartNanos;
+    private volatile long recoveryTimeNanos;
+    private long replayBytesPerSecond = -1;
+
+    public DefaultCheckPointWorkload( FileSystemAbstraction fileSystem, LogFiles logFiles, PageCache pageCache,
+            SystemNanoClock clock )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.pageCache = pageCache;
+        this.clock = clock;
+    }
+
+    @Override
+    public long dirtyPages()
+    {
+        return pageCache.countDirtyPages();
+    }
+
+    @Override
+    public synchronized long appendedLogBytes() throws IOException
+    {
+        LogPosition appendPosition = appendPosition();
+        if ( lastAppendPosition != null )
+        {
+            appendedLogBytes += bytesBetween( lastAppendPosition, appendPosition );
+        }
+        lastAppendPosition = appendPosition;
+        return appendedLogBytes;
+    }
+
+    @Override
+    public synchronized long replayBytesPerSecond() throws IOException
+    {
+        if ( replayBytesPerSecond == -1 )
+        {
+            // Recovery happens before the transaction log is opened for appending, so this is first called when
+            // the check pointer starts, before any new transactions have been appended after the recovered ones
+            replayBytesPerSecond = 0;
+            if ( recoveryPosition != null && recoveryTimeNanos > 0 )
+            {
+                long replayedBytes = bytesBetween( recoveryPosition, appendPosition() );
+                if ( replayedBytes >= MIN_MEASURED_REPLAY_BYTES )
+                {
+                    replayBytesPerSecond = replayedBytes * TimeUnit.SECONDS.toNanos( 1 ) / recoveryTimeNanos;
+                }
+            }
+        }
+        return replayBytesPerSecond;
+    }
+
+    @Override
+    public void recoveryRequired( LogPosition recoveryPosition )
+    {
+        this.recoveryPosition = recoveryPosition;
+        this.recoveryStartNanos = clock.nanos();
+    }
+
+    @Override
+    public void recoveryCompleted( int numberOfRecoveredTransactions )
+    {
+        recoveryTimeNanos = clock.nanos() - recoveryStartNanos;
+    }
+
+    private LogPosition appendPosition() throws IOException
+    {
+        LogFile logFile = logFiles.getLogFile();
+        // Appenders and log rotation move the position of the writer while holding the monitor of the log file
+        synchronized ( logFile )
+        {
+            logFile.getWriter().getCurrentPosition( positionMarker );
+        }
+        return positionMarker.newPosition();
+    }
+
+    /**
+     * Log files that have been rotated away from have been truncated after their last entry, so the bytes they
+     * contribute are the size of the file after the given position.
+     */
+    private long bytesBetween( LogPosition from, LogPosition to )
+    {
+        if ( from.getLogVersion() == to.getLogVersion() )
+        {
+            return max( 0, to.getByteOffset() - from.getByteOffset() );
+        }
+        long bytes = max( 0, logFileSize( from.getLogVersion() ) - from.getByteOffset() );
+        for ( long version = from.getLogVersion() + 1; version < to.getLogVersion(); version++ )
+        {
+            bytes += logFileSize( version );
+        }
+        return bytes + to.getByteOffset();
+    }
+
+    private long logFileSize( long version )
+    {
+        return fileSystem.getFileSize( logFiles.getLogFileForVersion( version ) );
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+import org.neo4j.function.Predicates;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.scheduler.JobScheduler.Groups.checkPoint;
+
+/**
+ * Writes dirty pages back to the store files in the background, between check points, such that check points only
+ * have to flush and force what was changed since the last write-back. The write-back is paced by the same
+ * {@link IOLimiter} as check points, does not force the files, and does not take the
+ * {@link StoreCopyCheckPointMutex}.
+ * <p>
+ * Writing back dirty pages does not move the position that recovery starts from. That is still only done by
+ * check points, which are made according to the configured {@link CheckPointThreshold}.
+ */
+public class DirtyPageWriteBack extends LifecycleAdapter
+{
+    private final PageCache pageCache;
+    private final IOLimiter ioLimiter;
+    private final TransactionIdStore transactionIdStore;
+    private final DatabaseHealth health;
+    private final JobScheduler scheduler;
+    private final long recurringPeriodMillis;
+    private final Log log;
+    private final Runnable job = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                writingBack = true;
+                if ( stopped )
+                {
+                    return;
+                }
+                writeBackIfNeeded();
+            }
+            catch ( Throwable t )
+            {
+                // Nothing is lost, the next write-back or check point will write these pages
+                log.warn( "Failed to write back dirty pages", t );
+            }
+            finally
+            {
+                writingBack = false;
+            }
+
+            // reschedule only if it is not stopped
+            if ( !stopped )
+            {
+                handle = scheduler.schedule( checkPoint, job, recurringPeriodMillis, MILLISECONDS );
+            }
+        }
+    };
+
+    private long lastWrittenBackTransactionId;
+    private volatile JobScheduler.JobHandle handle;
+    private volatile boolean stopped;
+    private volatile boolean writingBack;
+    private final BooleanSupplier writeBackCondition = () -> !writingBack;
+
+    public DirtyPageWriteBack( PageCache pageCache, IOLimiter ioLimiter, TransactionIdStore transactionIdStore,
+            DatabaseHealth health, JobScheduler scheduler, long recurringPeriodMillis, LogProvider logProvider )
+    {
+        this.pageCache = pageCache;
+        this.ioLimiter = ioLimiter;
+        this.transactionIdStore = transactionIdStore;
+        this.health = health;
+        this.scheduler = scheduler;
+        this.recurringPeriodMillis = recurringPeriodMillis;
+        this.log = logProvider.getLog( getClass() );
+    }
+
+    @Override
+    public void start()
+    {
+        lastWrittenBackTransactionId = transactionIdStore.getLastClosedTransactionId();
+        handle = scheduler.schedule( checkPoint, job, recurringPeriodMillis, MILLISECONDS );
+    }
+
+    @Override
+    public void stop()
+    {
+        stopped = true;
+        if ( handle != null )
+        {
+            handle.cancel( false );
+        }
+        ioLimiter.disableLimit();
+        try
+        {
+            Predicates.awaitForever( writeBackCondition, 100, MILLISECONDS );
+        }
+        finally
+        {
+            ioLimiter.enableLimit();
+        }
+    }
+
+    private void writeBackIfNeeded() throws IOException
+    {
+        // If no transactions have been closed since the last write-back, there is little to write
+        long lastClosedTransactionId = transactionIdStore.getLastClosedTransactionId();
+        if ( lastClosedTransactionId > lastWrittenBackTransactionId && health.isHealthy() )
+        {
+            pageCache.flush( ioLimiter );
+            lastWrittenBackTransactionId = lastClosedTransactionId;
+        }
+    }
+}
@@ -41,8 +41,8 @@ public class PeriodicThresholdPolicy extends CheckPointThresholdPolicy
     }
 
     @Override
-    public CheckPointThreshold createThreshold(
-            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    public CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            CheckPointWorkload workload, LogProvider logProvider )
     {
         int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
         final CountCommittedTransactionThreshold countCommittedTransactionThreshold =
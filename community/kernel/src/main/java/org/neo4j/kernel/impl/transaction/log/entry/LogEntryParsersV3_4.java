@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.unsafe.impl.batchimport.input.ByteBufferReadableChannel;
+
+/**
+ * The entries of {@link LogEntryParsersV2_3}, which are laid out the same in this version, plus
+ * {@link #COMPRESSED_COMMANDS}.
+ */
+public enum LogEntryParsersV3_4 implements LogEntryParser<LogEntry>
+{
+    TX_START( LogEntryParsersV2_3.TX_START ),
+    COMMAND( LogEntryParsersV2_3.COMMAND ),
+    TX_COMMIT( LogEntryParsersV2_3.TX_COMMIT ),
+    CHECK_POINT( LogEntryParsersV2_3.CHECK_POINT ),
+
+    COMPRESSED_COMMANDS( null )
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    int uncompressedLength = channel.getInt();
+                    int compressedLength = channel.getInt();
+                    if ( uncompressedLength < 0 || compressedLength < 0 )
+                    {
+                        throw new IOException( "Invalid compressed commands entry lengths " + uncompressedLength +
+                                               " and " + compressedLength );
+                    }
+                    byte[] compressed = new byte[compressedLength];
+                    channel.get( compressed, compressedLength );
+                    byte[] uncompressed = new byte[uncompressedLength];
+                    Lz4Codec.decompress( compressed, 0, compressedLength, uncompressed );
+
+                    // The uncompressed data is a sequence of ordinary command entries
+                    ByteBuffer buffer = ByteBuffer.wrap( uncompressed );
+                    ReadableClosableChannel commandChannel = new ByteBufferReadableChannel( buffer );
+                    List<LogEntryCommand> commands = new ArrayList<>();
+                    while ( buffer.hasRemaining() )
+                    {
+                        LogEntryVersion commandVersion = LogEntryVersion.byVersion( commandChannel.get() );
+                        byte type = commandChannel.get();
+                        if ( type != LogEntryByteCodes.COMMAND )
+                        {
+                            throw new IOException( "Unexpected entry type " + type + " among compressed commands" );
+                        }
+                        LogEntry command = commandVersion.entryParser( type )
+                                .parse( commandVersion, commandChannel, marker, commandReader );
+                        if ( command != null )
+                        {
+                            commands.add( command.as() );
+                        }
+                    }
+                    return new LogEntryCompressedCommands( version, commands );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMANDS;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            };
+
+    private final LogEntryParser<LogEntry> previous;
+
+    LogEntryParsersV3_4( LogEntryParser<LogEntry> previous )
+    {
+        this.previous = previous;
+    }
+
+    @Override
+    public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                           CommandReaderFactory commandReader ) throws IOException
+    {
+        return previous.parse( version, channel, marker, commandReader );
+    }
+
+    @Override
+    public byte byteCode()
+    {
+        return previous.byteCode();
+    }
+
+    @Override
+    public boolean skip()
+    {
+        return previous.skip();
+    }
+}
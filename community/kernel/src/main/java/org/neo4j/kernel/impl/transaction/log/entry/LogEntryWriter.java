@@ -25,34 +25,72 @@ import java.util.Collection;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.ByteArrayFlushableChannel;
 import org.neo4j.kernel.impl.transaction.log.FlushableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.storageengine.api.StorageCommand;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.CHECK_POINT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMMAND;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMANDS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_COMMIT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_START;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.COMPRESSED_COMMANDS_VERSION;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.CURRENT;
 
 public class LogEntryWriter
 {
+    /**
+     * Commands of a transaction that serialize into fewer bytes than this are never compressed,
+     * since there's too little data in them to gain anything.
+     */
+    static final int COMPRESSION_THRESHOLD = 256;
+
     private final FlushableChannel channel;
     private final Visitor<StorageCommand,IOException> serializer;
+    private final boolean compressCommands;
+    private ByteArrayFlushableChannel uncompressedCommands;
+    private Lz4Codec codec;
+    private byte[] compressedCommands;
 
     /**
      * Create a writer that uses {@link LogEntryVersion#CURRENT} for versioning.
      * @param channel underlying channel
      */
     public LogEntryWriter( FlushableChannel channel )
+    {
+        this( channel, false );
+    }
+
+    /**
+     * Create a writer that uses {@link LogEntryVersion#CURRENT} for versioning.
+     * @param channel underlying channel
+     * @param compressCommands whether or not to write the commands of a transaction as one compressed
+     * {@link LogEntryCompressedCommands} entry, if that makes them smaller. Such entries are written with
+     * {@link LogEntryVersion#COMPRESSED_COMMANDS_VERSION}, which only readers of that version or later can read,
+     * so this must not be used for channels that other instances, possibly of older versions, read from.
+     */
+    public LogEntryWriter( FlushableChannel channel, boolean compressCommands )
     {
         this.channel = channel;
         this.serializer = new StorageCommandSerializer( channel );
+        this.compressCommands = compressCommands;
     }
 
     protected void writeLogEntryHeader( byte type ) throws IOException
     {
-        channel.put( CURRENT.byteCode() ).put( type );
+        writeLogEntryHeader( type, channel );
+    }
+
+    private static void writeLogEntryHeader( byte type, FlushableChannel channel ) throws IOException
+    {
+        writeLogEntryHeader( CURRENT, type, channel );
+    }
+
+    private static void writeLogEntryHeader( LogEntryVersion version, byte type, FlushableChannel channel )
+            throws IOException
+    {
+        channel.put( version.byteCode() ).put( type );
     }
 
     public void writeStartEntry( LogEntryStart entry ) throws IOException
@@ -82,7 +120,14 @@ public class LogEntryWriter
 
     public void serialize( TransactionRepresentation tx ) throws IOException
     {
-        tx.accept( serializer );
+        if ( compressCommands )
+        {
+            serializeCompressed( tx );
+        }
+        else
+        {
+            tx.accept( serializer );
+        }
     }
 
     public void serialize( CommittedTransactionRepresentation tx ) throws IOException
@@ -100,6 +145,14 @@ public class LogEntryWriter
         }
     }
 
+    /**
+     * Writes log entries that have already been serialized into the given channel.
+     */
+    public void writeSerialized( ByteArrayFlushableChannel serializedEntries ) throws IOException
+    {
+        serializedEntries.writeTo( channel );
+    }
+
     public void writeCheckPointEntry( LogPosition logPosition ) throws IOException
     {
         writeLogEntryHeader( CHECK_POINT );
@@ -107,7 +160,39 @@ public class LogEntryWriter
                 putLong( logPosition.getByteOffset() );
     }
 
-    private class StorageCommandSerializer implements Visitor<StorageCommand,IOException>
+    private void serializeCompressed( TransactionRepresentation tx ) throws IOException
+    {
+        if ( uncompressedCommands == null )
+        {
+            uncompressedCommands = new ByteArrayFlushableChannel( COMPRESSION_THRESHOLD * 4 );
+            codec = new Lz4Codec();
+        }
+        uncompressedCommands.clear();
+        tx.accept( new StorageCommandSerializer( uncompressedCommands ) );
+
+        int uncompressedLength = uncompressedCommands.size();
+        if ( uncompressedLength >= COMPRESSION_THRESHOLD )
+        {
+            int maxCompressedLength = Lz4Codec.maxCompressedLength( uncompressedLength );
+            if ( compressedCommands == null || compressedCommands.length < maxCompressedLength )
+            {
+                compressedCommands = new byte[maxCompressedLength];
+            }
+            int compressedLength =
+                    codec.compress( uncompressedCommands.array(), uncompressedLength, compressedCommands );
+            // The two lengths take up 8 bytes and the entry header another 2, only compress if that still pays off
+            if ( compressedLength + Integer.BYTES * 2 + 2 < uncompressedLength )
+            {
+                writeLogEntryHeader( COMPRESSED_COMMANDS_VERSION, COMPRESSED_COMMANDS, channel );
+                channel.putInt( uncompressedLength ).putInt( compressedLength )
+                       .put( compressedCommands, compressedLength );
+                return;
+            }
+        }
+        uncompressedCommands.writeTo( channel );
+    }
+
+    private static class StorageCommandSerializer implements Visitor<StorageCommand,IOException>
     {
         private final FlushableChannel channel;
 
@@ -119,7 +204,7 @@ public class LogEntryWriter
         @Override
         public boolean visit( StorageCommand command ) throws IOException
         {
-            writeLogEntryHeader( COMMAND );
+            writeLogEntryHeader( COMMAND, channel );
             command.serialize( channel );
             return false;
         }
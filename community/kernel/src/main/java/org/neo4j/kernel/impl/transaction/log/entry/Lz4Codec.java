@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A small and fast block compressor producing data in the LZ4 block format. There are no frames or checksums,
+ * the caller is responsible for remembering the uncompressed length of every compressed block.
+ * <p>
+ * A block is a sequence of sequences, where every sequence consists of a token byte, literals and a back reference
+ * into already decompressed data. The high four bits of the token is the number of literals and the low four bits
+ * the length of the match minus {@link #MIN_MATCH}, where the value 15 means that more length bytes follow.
+ * The last sequence has literals only.
+ */
+class Lz4Codec
+{
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int RUN_MASK = 0xF;
+    private static final int HASH_LOG = 12;
+    private static final int SKIP_TRIGGER = 6;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * @param length number of bytes to compress.
+     * @return the maximum number of bytes {@link #compress(byte[], int, byte[])} may produce for that many bytes.
+     */
+    static int maxCompressedLength( int length )
+    {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses the first {@code length} bytes of {@code source} into {@code target}, which must be at least
+     * {@link #maxCompressedLength(int)} bytes long. This method is not thread safe.
+     *
+     * @return the number of bytes written to {@code target}.
+     */
+    int compress( byte[] source, int length, byte[] target )
+    {
+        Arrays.fill( hashTable, -1 );
+        int anchor = 0;
+        int position = 0;
+        int out = 0;
+        int misses = 0;
+        int matchFindLimit = length - MATCH_FIND_LIMIT;
+        int matchLimit = length - LAST_LITERALS;
+        while ( position < matchFindLimit )
+        {
+            int sequence = readInt( source, position );
+            int hash = hash( sequence );
+            int reference = hashTable[hash];
+            hashTable[hash] = position;
+            if ( reference < 0 || position - reference > MAX_OFFSET || readInt( source, reference ) != sequence )
+            {
+                // Take increasingly larger steps through data that doesn't seem to compress
+                position += 1 + (misses++ >>> SKIP_TRIGGER);
+                continue;
+            }
+            misses = 0;
+
+            int matchLength = MIN_MATCH;
+            while ( position + matchLength < matchLimit &&
+                    source[reference + matchLength] == source[position + matchLength] )
+            {
+                matchLength++;
+            }
+            out = writeSequence( source, anchor, position - anchor, position - reference, matchLength, target, out );
+            position += matchLength;
+            anchor = position;
+        }
+        return writeLastLiterals( source, anchor, length - anchor, target, out );
+    }
+
+    /**
+     * Decompresses {@code length} bytes of {@code source}, starting at {@code offset}, into {@code target}, which
+     * is expected to be filled up exactly.
+     *
+     * @throws IOException if the compressed data is malformed.
+     */
+    static void decompress( byte[] source, int offset, int length, byte[] target ) throws IOException
+    {
+        int in = offset;
+        int end = offset + length;
+        int out = 0;
+        while ( in < end )
+        {
+            int token = source[in++] & 0xFF;
+            int literals = token >>> 4;
+            if ( literals == RUN_MASK )
+            {
+                do
+                {
+                    checkBounds( in < end );
+                    literals += source[in] & 0xFF;
+                }
+                while ( (source[in++] & 0xFF) == 0xFF );
+            }
+            checkBounds( in + literals <= end && out + literals <= target.length );
+            System.arraycopy( source, in, target, out, literals );
+            in += literals;
+            out += literals;
+            if ( in == end )
+            {
+                break;
+            }
+
+            checkBounds( in + 2 <= end );
+            int matchOffset = (source[in] & 0xFF) | (source[in + 1] & 0xFF) << 8;
+            in += 2;
+            int matchLength = token & RUN_MASK;
+            if ( matchLength == RUN_MASK )
+            {
+                do
+                {
+                    checkBounds( in < end );
+                    matchLength += source[in] & 0xFF;
+                }
+                while ( (source[in++] & 0xFF) == 0xFF );
+            }
+            matchLength += MIN_MATCH;
+            checkBounds( matchOffset > 0 && matchOffset <= out && out + matchLength <= target.length );
+            if ( matchOffset >= matchLength )
+            {
+                System.arraycopy( target, out - matchOffset, target, out, matchLength );
+                out += matchLength;
+            }
+            else
+            {
+                // The match overlaps the bytes it produces, so copy byte by byte
+                for ( int from = out - matchOffset, i = 0; i < matchLength; i++ )
+                {
+                    target[out++] = target[from + i];
+                }
+            }
+        }
+        checkBounds( out == target.length );
+    }
+
+    private static int writeSequence( byte[] source, int literalOffset, int literals, int matchOffset,
+            int matchLength, byte[] target, int out )
+    {
+        int extraMatchLength = matchLength - MIN_MATCH;
+        int tokenPosition = out++;
+        target[tokenPosition] = (byte) (Math.min( literals, RUN_MASK ) << 4 | Math.min( extraMatchLength, RUN_MASK ));
+        out = writeLiterals( source, literalOffset, literals, target, out );
+        target[out++] = (byte) matchOffset;
+        target[out++] = (byte) (matchOffset >>> 8);
+        if ( extraMatchLength >= RUN_MASK )
+        {
+            out = writeLength( extraMatchLength - RUN_MASK, target, out );
+        }
+        return out;
+    }
+
+    private static int writeLastLiterals( byte[] source, int literalOffset, int literals, byte[] target, int out )
+    {
+        target[out++] = (byte) (Math.min( literals, RUN_MASK ) << 4);
+        return writeLiterals( source, literalOffset, literals, target, out );
+    }
+
+    private static int writeLiterals( byte[] source, int literalOffset, int literals, byte[] target, int out )
+    {
+        if ( literals >= RUN_MASK )
+        {
+            out = writeLength( literals - RUN_MASK, target, out );
+        }
+        System.arraycopy( source, literalOffset, target, out, literals );
+        return out + literals;
+    }
+
+    private static int writeLength( int length, byte[] target, int out )
+    {
+        while ( length >= 0xFF )
+        {
+            target[out++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        target[out++] = (byte) length;
+        return out;
+    }
+
+    private static int readInt( byte[] bytes, int offset )
+    {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8 |
+                (bytes[offset + 2] & 0xFF) << 16 | (bytes[offset + 3] & 0xFF) << 24;
+    }
+
+    private static int hash( int sequence )
+    {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    private static void checkBounds( boolean withinBounds ) throws IOException
+    {
+        if ( !withinBounds )
+        {
+            throw new IOException( "Malformed compressed log entry data" );
+        }
+    }
+}
@@ -45,6 +45,7 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
 {
     private final CommandReaderFactory commandReaderFactory;
     private final InvalidLogEntryHandler invalidLogEntryHandler;
+    private final boolean preallocatedLogs;
 
     public VersionAwareLogEntryReader()
     {
@@ -53,9 +54,20 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
 
     public VersionAwareLogEntryReader( CommandReaderFactory commandReaderFactory,
             InvalidLogEntryHandler invalidLogEntryHandler )
+    {
+        this( commandReaderFactory, invalidLogEntryHandler, false );
+    }
+
+    /**
+     * @param preallocatedLogs whether the logs read are pre-allocated, and so may end in a zero filled region that has
+     * not been written to yet. Such a region is read as the end of the log. In other logs, zeros are corruption.
+     */
+    public VersionAwareLogEntryReader( CommandReaderFactory commandReaderFactory,
+            InvalidLogEntryHandler invalidLogEntryHandler, boolean preallocatedLogs )
     {
         this.commandReaderFactory = commandReaderFactory;
         this.invalidLogEntryHandler = invalidLogEntryHandler;
+        this.preallocatedLogs = preallocatedLogs;
     }
 
     @Override
@@ -71,6 +83,12 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
 
                 byte versionCode = channel.get();
                 byte typeCode = channel.get();
+                if ( preallocatedLogs && versionCode == 0 && typeCode == 0 )
+                {
+                    // No entry has version zero. This is where the zero filled part of a pre-allocated log file,
+                    // that has not been written to yet, begins.
+                    return null;
+                }
 
                 LogEntryVersion version = null;
                 LogEntryParser<LogEntry> entryReader;
@@ -67,6 +67,27 @@ public interface LogFile
 
     void accept( LogFileVisitor visitor, LogPosition startingFromPosition ) throws IOException;
 
+    /**
+     * Notes where a transaction that was just appended starts, for {@link #indexedTransactionPosition(long, long)}.
+     * Must be called in the order transactions are appended.
+     *
+     * @param transactionId id of the appended transaction.
+     * @param startPosition {@link LogPosition} of the start entry of the appended transaction.
+     */
+    void transactionAppended( long transactionId, LogPosition startPosition );
+
+    /**
+     * Looks up where to start reading a log file from to find a transaction in it, if transaction positions are
+     * indexed.
+     *
+     * @param version version of the log file that contains the transaction.
+     * @param transactionId id of the transaction to find.
+     * @return {@link LogPosition} of the transaction, or of a transaction before it in the same log file, or
+     * {@code null} if the transaction has to be looked for from the start of the log file.
+     * @throws IOException on I/O error.
+     */
+    LogPosition indexedTransactionPosition( long version, long transactionId ) throws IOException;
+
     /**
      * @return {@code true} if a rotation is needed.
      * @throws IOException on I/O error.
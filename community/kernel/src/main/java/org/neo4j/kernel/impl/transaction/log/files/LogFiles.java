@@ -59,6 +59,15 @@ public interface LogFiles extends Lifecycle
 
     boolean hasAnyEntries( long version );
 
+    /**
+     * Hands over the log file of a version that is no longer needed, to be reused as a pre-allocated log file.
+     *
+     * @param version version of the log file to reuse.
+     * @return {@code true} if the log file was taken over for reuse, or {@code false} if the caller should
+     * delete it.
+     */
+    boolean recycleLogFile( long version );
+
     void accept( LogVersionVisitor visitor );
 
     void accept( LogHeaderVisitor visitor ) throws IOException;
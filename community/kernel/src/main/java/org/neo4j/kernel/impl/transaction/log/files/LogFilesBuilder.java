@@ -30,13 +30,16 @@ import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageCommandReaderFactory;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.ReadOnlyLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.ReadOnlyTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.InvalidLogEntryHandler;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.util.Dependencies;
+import org.neo4j.scheduler.JobScheduler;
 
 import static java.util.Objects.requireNonNull;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.database_path;
@@ -71,6 +74,7 @@ public class LogFilesBuilder
     private LongSupplier lastCommittedTransactionIdSupplier;
     private String logFileName = TransactionLogFiles.DEFAULT_NAME;
     private boolean fileBasedOperationsOnly;
+    private JobScheduler jobScheduler;
 
     /**
      * Builder for fully functional transactional log files.
@@ -166,6 +170,17 @@ public class LogFilesBuilder
         return this;
     }
 
+    /**
+     * @param jobScheduler scheduler for the background work of the log files, such as preparing pre-allocated log
+     * files and writing transaction position index files. Without one, log files are not pre-allocated, and
+     * position index files are written while rotating.
+     */
+    public LogFilesBuilder withJobScheduler( JobScheduler jobScheduler )
+    {
+        this.jobScheduler = jobScheduler;
+        return this;
+    }
+
     public LogFilesBuilder withDependencies( Dependencies dependencies )
     {
         this.dependencies = dependencies;
@@ -211,10 +226,6 @@ public class LogFilesBuilder
 
     TransactionLogFilesContext buildContext() throws IOException
     {
-        if ( logEntryReader == null )
-        {
-            logEntryReader = new VersionAwareLogEntryReader();
-        }
         if ( logFileCreationMonitor == null )
         {
             logFileCreationMonitor = LogFileCreationMonitor.NO_MONITOR;
@@ -227,8 +238,24 @@ public class LogFilesBuilder
         // Register listener for rotation threshold
         AtomicLong rotationThreshold = getRotationThresholdAndRegisterForUpdates();
 
-        return new TransactionLogFilesContext( rotationThreshold, logEntryReader,
-                lastCommittedIdSupplier, committingTransactionIdSupplier, logFileCreationMonitor, logVersionRepositorySupplier, fileSystem );
+        // Pre-allocation only makes sense for log files that are rotated, and spare files are prepared by scheduled jobs
+        boolean preallocate = !readOnly && !fileBasedOperationsOnly && config != null && jobScheduler != null &&
+                config.get( GraphDatabaseSettings.preallocate_logical_logs );
+        boolean recycle = preallocate && config.get( GraphDatabaseSettings.recycle_logical_logs );
+        if ( logEntryReader == null )
+        {
+            // Read-only users may still read logs that were pre-allocated by the database
+            boolean preallocatedLogs = config != null && config.get( GraphDatabaseSettings.preallocate_logical_logs );
+            logEntryReader = new VersionAwareLogEntryReader( new RecordStorageCommandReaderFactory(),
+                    InvalidLogEntryHandler.STRICT, preallocatedLogs );
+        }
+        boolean indexPositions = config != null && config.get( GraphDatabaseSettings.transaction_log_position_index );
+        // Recycled log files are overwritten and truncated in place, which readers mapping them can't cope with
+        boolean mapSealed = config != null && config.get( GraphDatabaseSettings.read_mapped_logical_logs ) && !recycle;
+
+        return new TransactionLogFilesContext( rotationThreshold, logEntryReader, lastCommittedIdSupplier,
+                committingTransactionIdSupplier, logFileCreationMonitor, logVersionRepositorySupplier, fileSystem,
+                preallocate, recycle, indexPositions, mapSealed, jobScheduler );
     }
 
     private AtomicLong getRotationThresholdAndRegisterForUpdates()
@@ -21,22 +21,28 @@ package org.neo4j.kernel.impl.transaction.log.files;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.OpenMode;
 import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PositionAwarePhysicalFlushableChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReaderLogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
 /**
  * {@link LogFile} backed by one or more files in a {@link FileSystemAbstraction}.
  */
@@ -77,10 +83,43 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = logFiles.createLogChannelForVersion( lastLogVersionUsed, OpenMode.READ_WRITE, context::getLastCommittedTransactionId );
         // Move to the end
-        channel.position( channel.size() );
+        channel.position( endOfEntries( channel ) );
         writer = new PositionAwarePhysicalFlushableChannel( channel );
     }
 
+    /**
+     * A log file that was pre-allocated is zero filled after its last entry, in which case the end of the entries
+     * is found by reading them, otherwise it's the end of the file. Only done when pre-allocation is enabled, since
+     * the last byte of a regular log file can be zero too.
+     */
+    private long endOfEntries( PhysicalLogVersionedStoreChannel channel ) throws IOException
+    {
+        long size = channel.size();
+        ByteBuffer lastByte = ByteBuffer.allocate( 1 );
+        if ( !context.isPreallocateLogFiles() || size <= LOG_HEADER_SIZE )
+        {
+            return size;
+        }
+        channel.position( size - 1 );
+        if ( channel.read( lastByte ) != 1 || lastByte.get( 0 ) != 0 )
+        {
+            return size;
+        }
+
+        LogEntryReader<ReadableClosablePositionAwareChannel> entryReader = context.getLogEntryReader();
+        LogPositionMarker positionMarker = new LogPositionMarker();
+        try ( ReadAheadLogChannel reader = new ReadAheadLogChannel( logFiles.openForVersion( channel.getVersion() ),
+                LogVersionBridge.NO_MORE_CHANNELS ) )
+        {
+            do
+            {
+                reader.getCurrentPosition( positionMarker );
+            }
+            while ( entryReader.readLogEntry( reader ) != null );
+        }
+        return positionMarker.getByteOffset();
+    }
+
     // In order to be able to write into a logfile after life.stop during shutdown sequence
     // we will close channel and writer only during shutdown phase when all pending changes (like last
     // checkpoint) are already in
@@ -89,6 +128,8 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
     {
         if ( writer != null )
         {
+            writer.prepareForFlush().flush();
+            truncateAfterLastEntry( channel );
             writer.close();
         }
         if ( channel != null )
@@ -170,6 +211,11 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
          * transaction complete in the log we're rotating away. Awesome.
          */
         writer.prepareForFlush().flush();
+        /*
+         * A pre-allocated log file may not have been filled up, if the rotation threshold was lowered, and
+         * readers must be able to continue into the next log file from the end of this one.
+         */
+        truncateAfterLastEntry( currentLog );
         /*
          * The log version is now in the store, flushed and persistent. If we crash
          * now, on recovery we'll attempt to open the version we're about to create
@@ -179,12 +225,26 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
          * we can have transactions that are not yet published as committed but were already stored
          * into transaction log that was just rotated.
          */
+        long rotatedLogSize = currentLog.size();
         PhysicalLogVersionedStoreChannel newLog = logFiles.createLogChannelForVersion( newLogVersion,
                 OpenMode.READ_WRITE, context::committingTransactionId );
         currentLog.close();
+        TransactionLogPositionIndex positionIndex = logFiles.getPositionIndex();
+        if ( positionIndex != null )
+        {
+            positionIndex.logRotated( currentLog.getVersion(), rotatedLogSize );
+        }
         return newLog;
     }
 
+    private static void truncateAfterLastEntry( LogVersionedStoreChannel log ) throws IOException
+    {
+        if ( log.isOpen() && log.size() > log.position() )
+        {
+            log.truncate( log.position() );
+        }
+    }
+
     @Override
     public FlushablePositionAwareChannel getWriter()
     {
@@ -205,6 +265,23 @@ class TransactionLogFile extends LifecycleAdapter implements LogFile
         return new ReadAheadLogChannel( logChannel, logVersionBridge );
     }
 
+    @Override
+    public void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        TransactionLogPositionIndex positionIndex = logFiles.getPositionIndex();
+        if ( positionIndex != null )
+        {
+            positionIndex.transactionAppended( transactionId, startPosition );
+        }
+    }
+
+    @Override
+    public LogPosition indexedTransactionPosition( long version, long transactionId ) throws IOException
+    {
+        TransactionLogPositionIndex positionIndex = logFiles.getPositionIndex();
+        return positionIndex != null ? positionIndex.lookup( version, transactionId ) : null;
+    }
+
     @Override
     public void accept( LogFileVisitor visitor, LogPosition startingFromPosition ) throws IOException
     {
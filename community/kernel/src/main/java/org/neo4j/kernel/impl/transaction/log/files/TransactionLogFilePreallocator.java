@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.lang.Math.min;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+
+/**
+ * Keeps pre-allocated spare log files around, so that rotating to a new log file doesn't have to create a file and
+ * grow it while transactions are waiting to commit. Spare files are zero filled up to the rotation threshold by jobs
+ * in the {@link JobScheduler.Groups#transactionLogPreallocation} group. At rotation the header of the new log file is written into a spare file, which is then renamed
+ * to the new log version. The zero filled part of a log file is read as the end of the log.
+ * <p>
+ * Log files that are pruned can be recycled into spare files instead of being deleted, so that the file system
+ * doesn't have to free their blocks only to allocate new ones for the next log file.
+ */
+class TransactionLogFilePreallocator
+{
+    private static final String SPARE_FILE_SUFFIX = "_preallocated.";
+    private static final int MAX_SPARE_FILES = 2;
+    private static final int ZERO_BUFFER_SIZE = (int) ByteUnit.mebiBytes( 1 );
+
+    private static final byte FREE = 0;
+    private static final byte PREPARING = 1;
+    private static final byte READY = 2;
+
+    private final FileSystemAbstraction fileSystem;
+    private final File[] spareFiles = new File[MAX_SPARE_FILES];
+    private final byte[] spareStates = new byte[MAX_SPARE_FILES];
+    private final AtomicLong rotationThreshold;
+    private final boolean recycle;
+    private final JobScheduler jobScheduler;
+    /** The job preparing each spare file, if one has been scheduled since start. */
+    private final JobScheduler.JobHandle[] preparations = new JobScheduler.JobHandle[MAX_SPARE_FILES];
+    private volatile boolean stopped = true;
+
+    TransactionLogFilePreallocator( File logBaseName, TransactionLogFilesContext context )
+    {
+        this.fileSystem = context.getFileSystem();
+        this.rotationThreshold = context.getRotationThreshold();
+        this.recycle = context.isRecycleLogFiles();
+        this.jobScheduler = context.getJobScheduler();
+        for ( int i = 0; i < MAX_SPARE_FILES; i++ )
+        {
+            spareFiles[i] = new File( logBaseName.getPath() + SPARE_FILE_SUFFIX + i );
+        }
+    }
+
+    synchronized void start()
+    {
+        stopped = false;
+        // Spare files left behind by a previous run may have been partially prepared, so prepare them again
+        for ( int i = 0; i < MAX_SPARE_FILES; i++ )
+        {
+            if ( fileSystem.fileExists( spareFiles[i] ) )
+            {
+                prepare( i );
+            }
+        }
+        prepareIfNoSpareFiles();
+    }
+
+    void stop() throws InterruptedException
+    {
+        JobScheduler.JobHandle[] jobsToAwait;
+        synchronized ( this )
+        {
+            stopped = true;
+            jobsToAwait = preparations.clone();
+            Arrays.fill( preparations, null );
+        }
+        // Preparing jobs see that we're stopping, and leave their spare files to be prepared again on next start
+        for ( JobScheduler.JobHandle job : jobsToAwait )
+        {
+            if ( job != null )
+            {
+                try
+                {
+                    job.waitTermination();
+                }
+                catch ( ExecutionException e )
+                {
+                    // Spare files that weren't prepared are prepared again on next start anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns a prepared spare file into the log file of a new log version, if there's one ready.
+     *
+     * @param logFile the log file to create, which must not exist.
+     * @param logVersion version of the log file to create.
+     * @param lastCommittedTxId id of the last transaction written into the previous log file.
+     * @return {@code true} if the log file was created from a spare file, otherwise {@code false}, in which case
+     * the caller needs to create the log file itself.
+     * @throws IOException if writing the header into, or renaming, the spare file failed.
+     */
+    synchronized boolean createFromSpare( File logFile, long logVersion, long lastCommittedTxId ) throws IOException
+    {
+        int spare = indexOf( READY );
+        if ( spare == -1 )
+        {
+            prepareIfNoSpareFiles();
+            return false;
+        }
+        spareStates[spare] = FREE;
+        try
+        {
+            // The header is written before the file is renamed, so that readers never see a log file without header
+            writeLogHeader( fileSystem, spareFiles[spare], logVersion, lastCommittedTxId );
+            fileSystem.renameFile( spareFiles[spare], logFile );
+        }
+        finally
+        {
+            prepareIfNoSpareFiles();
+        }
+        return true;
+    }
+
+    /**
+     * Takes over a pruned log file to be prepared as a spare file, if recycling is enabled and there's room for
+     * another spare file.
+     *
+     * @param logFile a log file that is no longer needed.
+     * @return {@code true} if the log file was taken over, otherwise {@code false}, in which case the caller needs
+     * to delete the log file itself.
+     */
+    synchronized boolean recycle( File logFile )
+    {
+        int spare = indexOf( FREE );
+        if ( !recycle || stopped || spare == -1 )
+        {
+            return false;
+        }
+        try
+        {
+            fileSystem.renameFile( logFile, spareFiles[spare], REPLACE_EXISTING );
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+        prepare( spare );
+        return true;
+    }
+
+    synchronized int numberOfSpareFiles()
+    {
+        int count = 0;
+        for ( byte state : spareStates )
+        {
+            count += state == READY ? 1 : 0;
+        }
+        return count;
+    }
+
+    private void prepareIfNoSpareFiles()
+    {
+        if ( indexOf( READY ) == -1 && indexOf( PREPARING ) == -1 )
+        {
+            prepare( indexOf( FREE ) );
+        }
+    }
+
+    private void prepare( int spare )
+    {
+        if ( stopped )
+        {
+            return;
+        }
+        spareStates[spare] = PREPARING;
+        preparations[spare] = jobScheduler.schedule( JobScheduler.Groups.transactionLogPreallocation,
+                () -> prepareSpareFile( spare ) );
+    }
+
+    private void prepareSpareFile( int spare )
+    {
+        File spareFile = spareFiles[spare];
+        boolean prepared = false;
+        boolean failed = false;
+        try ( StoreChannel channel = fileSystem.open( spareFile, OpenMode.READ_WRITE ) )
+        {
+            // Zeroes overwrite whatever a recycled log file contained, so that none of it can be read as log entries
+            long size = rotationThreshold.get();
+            ByteBuffer zeros = ByteBuffer.allocate( ZERO_BUFFER_SIZE );
+            for ( long position = 0; position < size && !stopped; position += zeros.limit() )
+            {
+                zeros.clear();
+                zeros.limit( (int) min( ZERO_BUFFER_SIZE, size - position ) );
+                channel.writeAll( zeros, position );
+            }
+            if ( channel.size() > size )
+            {
+                channel.truncate( size );
+            }
+            channel.force( true );
+            prepared = !stopped;
+        }
+        catch ( IOException e )
+        {
+            // Rotation will create log files the ordinary way, which is what it would have done without spare files
+            failed = true;
+        }
+        synchronized ( this )
+        {
+            if ( prepared )
+            {
+                spareStates[spare] = READY;
+            }
+            else
+            {
+                // A spare file that wasn't completely prepared because of stopping is prepared again on next start
+                spareStates[spare] = FREE;
+                if ( failed )
+                {
+                    fileSystem.deleteFile( spareFile );
+                }
+            }
+        }
+    }
+
+    private int indexOf( byte state )
+    {
+        for ( int i = 0; i < MAX_SPARE_FILES; i++ )
+        {
+            if ( spareStates[i] == state )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
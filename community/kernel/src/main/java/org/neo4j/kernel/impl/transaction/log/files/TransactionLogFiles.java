@@ -31,6 +31,7 @@ import org.neo4j.io.fs.OpenMode;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.LogHeaderCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.MappedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
@@ -61,6 +62,8 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     private final LogFileCreationMonitor monitor;
     private final TransactionLogFilesHelper fileHelper;
     private final TransactionLogFile logFile;
+    private final TransactionLogFilePreallocator preallocator;
+    private final TransactionLogPositionIndex positionIndex;
     private final File logsDirectory;
 
     TransactionLogFiles( File logsDirectory, String name, TransactionLogFilesContext context )
@@ -73,6 +76,11 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
         this.logHeaderCache = new LogHeaderCache( 1000 );
         this.logFileInformation = new TransactionLogFileInformation( this, logHeaderCache, context );
         this.logFile = new TransactionLogFile( this, context );
+        this.preallocator = context.isPreallocateLogFiles()
+                            ? new TransactionLogFilePreallocator( new File( logsDirectory, name ), context ) : null;
+        this.positionIndex = context.isIndexTransactionPositions()
+                             ? new TransactionLogPositionIndex( new File( logsDirectory, name ), this, fileSystem,
+                                     TransactionLogPositionIndex.DEFAULT_SPACING, context.getJobScheduler() ) : null;
     }
 
     @Override
@@ -85,6 +93,27 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     public void start() throws IOException
     {
         logFile.start();
+        if ( preallocator != null )
+        {
+            preallocator.start();
+        }
+        if ( positionIndex != null )
+        {
+            positionIndex.start();
+        }
+    }
+
+    @Override
+    public void stop() throws InterruptedException
+    {
+        if ( preallocator != null )
+        {
+            preallocator.stop();
+        }
+        if ( positionIndex != null )
+        {
+            positionIndex.stop();
+        }
     }
 
     @Override
@@ -155,7 +184,37 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
     @Override
     public boolean hasAnyEntries( long version )
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        File logFile = getLogFileForVersion( version );
+        if ( fileSystem.getFileSize( logFile ) <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+        // A pre-allocated log file is zero filled after the last entry
+        try ( StoreChannel channel = fileSystem.open( logFile, OpenMode.READ ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( 2 );
+            channel.read( buffer, LOG_HEADER_SIZE );
+            return buffer.get( 0 ) != 0 || buffer.get( 1 ) != 0;
+        }
+        catch ( IOException e )
+        {
+            return true;
+        }
+    }
+
+    @Override
+    public boolean recycleLogFile( long version )
+    {
+        return preallocator != null && preallocator.recycle( getLogFileForVersion( version ) );
+    }
+
+    /**
+     * @return the {@link TransactionLogPositionIndex} of the log files, or {@code null} if transaction positions
+     * aren't indexed.
+     */
+    TransactionLogPositionIndex getPositionIndex()
+    {
+        return positionIndex;
     }
 
     @Override
@@ -205,6 +264,13 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
                         format( "Unexpected log file header. Expected header version: %d, actual header: %s", version,
                                 header != null ? header.toString() : "null header." ) );
             }
+            if ( logFilesContext.isMapSealedLogFiles() && MappedStoreChannel.canMap( rawChannel ) &&
+                 versionExists( version + 1 ) )
+            {
+                // A log file is truncated after its last entry before the next log file is created, so once the
+                // next log file exists this one won't change anymore and can be mapped
+                rawChannel = new MappedStoreChannel( rawChannel, MappedStoreChannel.DEFAULT_WINDOW_SIZE );
+            }
             return new PhysicalLogVersionedStoreChannel( rawChannel, version, header.logFormatVersion );
         }
         catch ( FileNotFoundException cause )
@@ -232,6 +298,7 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
 
     /**
      * Creates a new channel for the specified version, creating the backing file if it doesn't already exist.
+     * The backing file is created from a pre-allocated spare file, if pre-allocation is enabled and one is ready.
      * If the file exists then the header is verified to be of correct version. Having an existing file there
      * could happen after a previous crash in the middle of rotation, where the new file was created,
      * but the incremented log version changed hadn't made it to persistent storage.
@@ -246,6 +313,18 @@ public class TransactionLogFiles extends LifecycleAdapter implements LogFiles
             LongSupplier lastTransactionIdSupplier ) throws IOException
     {
         File toOpen = getLogFileForVersion( forVersion );
+        if ( preallocator != null && !fileSystem.fileExists( toOpen ) )
+        {
+            long lastTxId = lastTransactionIdSupplier.getAsLong();
+            if ( preallocator.createFromSpare( toOpen, forVersion, lastTxId ) )
+            {
+                logHeaderCache.putHeader( forVersion, lastTxId );
+                monitor.created( toOpen, forVersion, lastTxId );
+                StoreChannel storeChannel = fileSystem.open( toOpen, mode );
+                storeChannel.position( LOG_HEADER_SIZE );
+                return new PhysicalLogVersionedStoreChannel( storeChannel, forVersion, CURRENT_LOG_VERSION );
+            }
+        }
         StoreChannel storeChannel = fileSystem.open( toOpen, mode );
         ByteBuffer headerBuffer = ByteBuffer.allocate( LOG_HEADER_SIZE );
         LogHeader header = readLogHeader( headerBuffer, storeChannel, false, toOpen );
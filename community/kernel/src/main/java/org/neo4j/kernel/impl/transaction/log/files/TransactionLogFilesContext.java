@@ -26,6 +26,7 @@ import java.util.function.Supplier;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+import org.neo4j.scheduler.JobScheduler;
 
 class TransactionLogFilesContext
 {
@@ -36,11 +37,26 @@ class TransactionLogFilesContext
     private final Supplier<LogVersionRepository> logVersionRepositorySupplier;
     private final LogFileCreationMonitor logFileCreationMonitor;
     private final FileSystemAbstraction fileSystem;
+    private final boolean preallocateLogFiles;
+    private final boolean recycleLogFiles;
+    private final boolean indexTransactionPositions;
+    private final boolean mapSealedLogFiles;
+    private final JobScheduler jobScheduler;
 
     TransactionLogFilesContext( AtomicLong rotationThreshold, LogEntryReader logEntryReader,
             LongSupplier lastCommittedTransactionIdSupplier, LongSupplier committingTransactionIdSupplier,
             LogFileCreationMonitor logFileCreationMonitor, Supplier<LogVersionRepository> logVersionRepositorySupplier,
             FileSystemAbstraction fileSystem )
+    {
+        this( rotationThreshold, logEntryReader, lastCommittedTransactionIdSupplier, committingTransactionIdSupplier,
+                logFileCreationMonitor, logVersionRepositorySupplier, fileSystem, false, false, false, false, null );
+    }
+
+    TransactionLogFilesContext( AtomicLong rotationThreshold, LogEntryReader logEntryReader,
+            LongSupplier lastCommittedTransactionIdSupplier, LongSupplier committingTransactionIdSupplier,
+            LogFileCreationMonitor logFileCreationMonitor, Supplier<LogVersionRepository> logVersionRepositorySupplier,
+            FileSystemAbstraction fileSystem, boolean preallocateLogFiles, boolean recycleLogFiles,
+            boolean indexTransactionPositions, boolean mapSealedLogFiles, JobScheduler jobScheduler )
     {
         this.rotationThreshold = rotationThreshold;
         this.logEntryReader = logEntryReader;
@@ -49,6 +65,11 @@ class TransactionLogFilesContext
         this.logVersionRepositorySupplier = logVersionRepositorySupplier;
         this.logFileCreationMonitor = logFileCreationMonitor;
         this.fileSystem = fileSystem;
+        this.preallocateLogFiles = preallocateLogFiles;
+        this.recycleLogFiles = recycleLogFiles;
+        this.indexTransactionPositions = indexTransactionPositions;
+        this.mapSealedLogFiles = mapSealedLogFiles;
+        this.jobScheduler = jobScheduler;
     }
 
     AtomicLong getRotationThreshold()
@@ -85,4 +106,29 @@ class TransactionLogFilesContext
     {
         return fileSystem;
     }
+
+    boolean isPreallocateLogFiles()
+    {
+        return preallocateLogFiles;
+    }
+
+    boolean isRecycleLogFiles()
+    {
+        return recycleLogFiles;
+    }
+
+    boolean isIndexTransactionPositions()
+    {
+        return indexTransactionPositions;
+    }
+
+    boolean isMapSealedLogFiles()
+    {
+        return mapSealedLogFiles;
+    }
+
+    JobScheduler getJobScheduler()
+    {
+        return jobScheduler;
+    }
 }
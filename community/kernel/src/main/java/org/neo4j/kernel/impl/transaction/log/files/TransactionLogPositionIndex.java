@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+
+/**
+ * Sparse index of the positions where transactions start in the transaction log files, so that a transaction can be
+ * found without reading its log file from the start. While a log file is written to, the position of a transaction
+ * is kept in memory about every {@link #DEFAULT_SPACING} bytes. When the log file is rotated they are written to an
+ * index file next to it, which looking up transactions in that log file uses from then on.
+ * <p>
+ * An index file is only used while it matches its log file, by version, header and size, since log files can be
+ * replaced, f.ex. by a store copy. Index files of log files that no longer exist are deleted at rotation. Transactions
+ * appended to a log file before it was opened by this instance aren't indexed, and are looked for from the start of
+ * their log file.
+ */
+class TransactionLogPositionIndex
+{
+    static final long DEFAULT_SPACING = ByteUnit.mebiBytes( 1 );
+    private static final String INDEX_FILE_SUFFIX = "_positions.";
+    // Log version, id of last transaction in previous log file, log file size and number of entries
+    private static final int INDEX_HEADER_SIZE = 3 * Long.BYTES + Integer.BYTES;
+    // Transaction id and byte offset
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+    private final FileSystemAbstraction fileSystem;
+    private final LogFiles logFiles;
+    private final File logBaseName;
+    private final Pattern indexFilePattern;
+    private final long spacing;
+
+    // Transaction ids and byte offsets, interleaved, of the log version currently written to
+    private long currentVersion = -1;
+    private long[] entries = new long[256];
+    private int length;
+    // Positions of rotated log files, until their index files have been written
+    private final Map<Long,long[]> pendingEntries = new HashMap<>();
+    // Index file writes and deletes, which a single job at a time performs in the order they were requested
+    private final Deque<Runnable> pendingTasks = new ArrayDeque<>();
+    private final JobScheduler jobScheduler;
+    private JobScheduler.JobHandle taskJob;
+    private boolean started;
+
+    /**
+     * @param jobScheduler scheduler to write index files in the background on while started, or {@code null} to
+     * always write them in the thread rotating the log file.
+     */
+    TransactionLogPositionIndex( File logBaseName, LogFiles logFiles, FileSystemAbstraction fileSystem, long spacing,
+            JobScheduler jobScheduler )
+    {
+        this.fileSystem = fileSystem;
+        this.jobScheduler = jobScheduler;
+        this.logFiles = logFiles;
+        this.logBaseName = logBaseName;
+        this.indexFilePattern = Pattern.compile( Pattern.quote( logBaseName.getName() + INDEX_FILE_SUFFIX ) + "\\d+" );
+        this.spacing = spacing;
+    }
+
+    synchronized void start()
+    {
+        started = jobScheduler != null;
+    }
+
+    void stop() throws InterruptedException
+    {
+        JobScheduler.JobHandle jobToAwait;
+        synchronized ( this )
+        {
+            started = false;
+            jobToAwait = taskJob;
+        }
+        if ( jobToAwait != null )
+        {
+            // The job performs all tasks requested before it completes
+            try
+            {
+                jobToAwait.waitTermination();
+            }
+            catch ( ExecutionException e )
+            {
+                // The index is only an optimization, transactions in log files without index files are still found
+            }
+        }
+    }
+
+    /**
+     * Notes the position of a transaction that has been appended to the log file currently written to. Must be
+     * called in the order the transactions were appended.
+     *
+     * @param transactionId id of the appended transaction.
+     * @param startPosition position of the start entry of the appended transaction.
+     */
+    synchronized void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        if ( startPosition.getLogVersion() != currentVersion )
+        {
+            currentVersion = startPosition.getLogVersion();
+            length = 0;
+        }
+        else if ( length > 0 && startPosition.getByteOffset() - entries[length - 1] < spacing )
+        {
+            return;
+        }
+
+        if ( length == entries.length )
+        {
+            entries = Arrays.copyOf( entries, length * 2 );
+        }
+        entries[length++] = transactionId;
+        entries[length++] = startPosition.getByteOffset();
+    }
+
+    /**
+     * Writes the positions noted for a log file to its index file, after the log file has been rotated away from.
+     * Also deletes index files of log files that have been pruned since the last rotation. While started, this is
+     * done in the background, and until then lookups use the positions kept in memory.
+     *
+     * @param version version of the log file that was rotated away from.
+     * @param logFileSize final size of the log file that was rotated away from.
+     */
+    synchronized void logRotated( long version, long logFileSize )
+    {
+        // This is called while rotating, i.e. while appending is blocked, so only hand the positions over here and
+        // leave the writing of the index file, and listing of the log directory, to the background
+        long[] rotatedEntries = version == currentVersion && length > 0 ? Arrays.copyOf( entries, length ) : null;
+        currentVersion = -1;
+        length = 0;
+        if ( rotatedEntries != null )
+        {
+            pendingEntries.put( version, rotatedEntries );
+        }
+        Runnable task = () ->
+        {
+            if ( rotatedEntries != null )
+            {
+                writeIndexFile( version, logFileSize, rotatedEntries );
+                synchronized ( this )
+                {
+                    pendingEntries.remove( version );
+                }
+            }
+            deleteIndexFilesOfMissingLogFiles();
+        };
+        if ( started )
+        {
+            pendingTasks.add( task );
+            if ( taskJob == null )
+            {
+                taskJob = jobScheduler.schedule( JobScheduler.Groups.transactionLogPositionIndex, this::runPendingTasks );
+            }
+        }
+        else
+        {
+            task.run();
+        }
+    }
+
+    private void runPendingTasks()
+    {
+        for ( ;; )
+        {
+            Runnable task;
+            synchronized ( this )
+            {
+                task = pendingTasks.poll();
+                if ( task == null )
+                {
+                    taskJob = null;
+                    return;
+                }
+            }
+            task.run();
+        }
+    }
+
+    private void writeIndexFile( long version, long logFileSize, long[] rotatedEntries )
+    {
+        File indexFile = indexFileForVersion( version );
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( INDEX_HEADER_SIZE + rotatedEntries.length * Long.BYTES );
+            buffer.putLong( version );
+            buffer.putLong( logFiles.extractHeader( version ).lastCommittedTxId );
+            buffer.putLong( logFileSize );
+            buffer.putInt( rotatedEntries.length / 2 );
+            for ( long entry : rotatedEntries )
+            {
+                buffer.putLong( entry );
+            }
+            buffer.flip();
+
+            fileSystem.deleteFile( indexFile );
+            try ( StoreChannel channel = fileSystem.create( indexFile ) )
+            {
+                channel.writeAll( buffer );
+            }
+        }
+        catch ( IOException e )
+        {
+            // The index is only an optimization, transactions in this log file will be looked for from its start
+            fileSystem.deleteFile( indexFile );
+        }
+    }
+
+    /**
+     * Finds the closest position to start looking for a transaction from, within the log file it's in.
+     *
+     * @param version version of the log file that contains the transaction.
+     * @param transactionId id of the transaction to look for.
+     * @return position of the transaction, or of the closest transaction before it that's indexed, or {@code null}
+     * if there's no indexed transaction at or before it in the log file, in which case it has to be looked for from
+     * the start of the log file.
+     * @throws IOException on I/O error reading the index file.
+     */
+    LogPosition lookup( long version, long transactionId ) throws IOException
+    {
+        synchronized ( this )
+        {
+            if ( version == currentVersion )
+            {
+                return floor( entries, length, version, transactionId );
+            }
+            long[] pending = pendingEntries.get( version );
+            if ( pending != null )
+            {
+                return floor( pending, pending.length, version, transactionId );
+            }
+        }
+        long[] indexed = read( version );
+        return indexed != null ? floor( indexed, indexed.length, version, transactionId ) : null;
+    }
+
+    File indexFileForVersion( long version )
+    {
+        return new File( logBaseName.getPath() + INDEX_FILE_SUFFIX + version );
+    }
+
+    private long[] read( long version ) throws IOException
+    {
+        File indexFile = indexFileForVersion( version );
+        File logFile = logFiles.getLogFileForVersion( version );
+        if ( !fileSystem.fileExists( indexFile ) || !fileSystem.fileExists( logFile ) )
+        {
+            return null;
+        }
+        long indexFileSize = fileSystem.getFileSize( indexFile );
+        if ( indexFileSize < INDEX_HEADER_SIZE || indexFileSize > Integer.MAX_VALUE ||
+             (indexFileSize - INDEX_HEADER_SIZE) % ENTRY_SIZE != 0 )
+        {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate( (int) indexFileSize );
+        try ( StoreChannel channel = fileSystem.open( indexFile, OpenMode.READ ) )
+        {
+            channel.readAll( buffer );
+        }
+        buffer.flip();
+        long indexedVersion = buffer.getLong();
+        long previousLastTxId = buffer.getLong();
+        long logFileSize = buffer.getLong();
+        int count = buffer.getInt();
+        if ( indexedVersion != version || (long) count * ENTRY_SIZE != indexFileSize - INDEX_HEADER_SIZE ||
+             logFileSize != fileSystem.getFileSize( logFile ) ||
+             previousLastTxId != logFiles.extractHeader( version ).lastCommittedTxId )
+        {
+            // Not the index of this log file, f.ex. because the log file was replaced after it was written
+            return null;
+        }
+
+        long[] indexed = new long[count * 2];
+        for ( int i = 0; i < indexed.length; i += 2 )
+        {
+            indexed[i] = buffer.getLong();
+            indexed[i + 1] = buffer.getLong();
+            boolean ordered = i == 0 || (indexed[i] > indexed[i - 2] && indexed[i + 1] > indexed[i - 1]);
+            if ( !ordered || indexed[i + 1] < LOG_HEADER_SIZE || indexed[i + 1] >= logFileSize )
+            {
+                return null;
+            }
+        }
+        return indexed;
+    }
+
+    private static LogPosition floor( long[] entries, int length, long version, long transactionId )
+    {
+        int low = 0;
+        int high = length / 2 - 1;
+        int found = -1;
+        while ( low <= high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( entries[mid * 2] <= transactionId )
+            {
+                found = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+        return found == -1 ? null : new LogPosition( version, entries[found * 2 + 1] );
+    }
+
+    private void deleteIndexFilesOfMissingLogFiles()
+    {
+        File[] indexFiles = fileSystem.listFiles( logBaseName.getParentFile(),
+                ( directory, name ) -> indexFilePattern.matcher( name ).matches() );
+        if ( indexFiles == null )
+        {
+            return;
+        }
+        for ( File indexFile : indexFiles )
+        {
+            String name = indexFile.getName();
+            long version = Long.parseLong( name.substring( name.lastIndexOf( '.' ) + 1 ) );
+            if ( !logFiles.versionExists( version ) )
+            {
+                fileSystem.deleteFile( indexFile );
+            }
+        }
+    }
+}
@@ -33,7 +33,7 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.PropertyStore;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -54,7 +54,7 @@ public class NeoStoreIndexStoreView implements IndexStoreView
     protected final PropertyStore propertyStore;
     protected final NodeStore nodeStore;
     protected final LockService locks;
-    private final CountsTracker counts;
+    private final CountsStore counts;
 
     public NeoStoreIndexStoreView( LockService locks, NeoStores neoStores )
     {
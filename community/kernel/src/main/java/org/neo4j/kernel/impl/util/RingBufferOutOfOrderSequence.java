@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.String.format;
+
+/**
+ * Lock-free implementation of {@link OutOfOrderSequence}, for sequences that many threads offer numbers to and
+ * read concurrently, like the ids of closed transactions.
+ * <p>
+ * Offered numbers, and their meta data, are put in a ring buffer at the slot of their number, and the highest
+ * gap-free number is then moved ahead as far as the numbers in the ring buffer allow. Only one thread at a time
+ * moves it, which it claims by making the version odd with a CAS. A thread that fails to claim it leaves its number
+ * to the thread that has it, which looks for more numbers to move ahead over after releasing it. Readers see the
+ * highest gap-free number and its meta data consistently by retrying if the version changed while they read them.
+ * <p>
+ * A number can only be offered once the highest gap-free number is less than the ring buffer capacity behind it,
+ * since its slot would otherwise still be in use. Offering such a number waits until there's room for it.
+ */
+public class RingBufferOutOfOrderSequence implements OutOfOrderSequence
+{
+    private static final AtomicIntegerFieldUpdater<RingBufferOutOfOrderSequence> versionUpdater =
+            AtomicIntegerFieldUpdater.newUpdater( RingBufferOutOfOrderSequence.class, "version" );
+    private static final AtomicLongFieldUpdater<RingBufferOutOfOrderSequence> highestEverSeenUpdater =
+            AtomicLongFieldUpdater.newUpdater( RingBufferOutOfOrderSequence.class, "highestEverSeen" );
+
+    private static final long EMPTY_SLOT = Long.MIN_VALUE;
+    private static final long FULL_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos( 10 );
+
+    private final AtomicLongArray numbers;
+    private final long[] metas;
+    private final int metaLength;
+    private final int mask;
+
+    // odd means someone is moving the highest gap-free number, even means no one is
+    @SuppressWarnings( "unused" ) // Updated via versionUpdater
+    private volatile int version;
+    private volatile long highestGapFreeNumber;
+    private volatile long[] highestGapFreeMeta;
+    @SuppressWarnings( "unused" ) // Updated via highestEverSeenUpdater
+    private volatile long highestEverSeen;
+    private volatile int waiters;
+
+    /**
+     * @param startingNumber the highest gap-free number to start from.
+     * @param capacity how far ahead of the highest gap-free number numbers can be offered without waiting, which is
+     * rounded up to a power of two.
+     * @param initialMeta meta data of the starting number, which also decides the length of the meta data.
+     */
+    public RingBufferOutOfOrderSequence( long startingNumber, int capacity, long[] initialMeta )
+    {
+        int size = Integer.highestOneBit( Math.max( capacity, 2 ) - 1 ) << 1;
+        this.numbers = new AtomicLongArray( size );
+        this.metaLength = initialMeta.length;
+        this.metas = new long[size * metaLength];
+        this.mask = size - 1;
+        this.highestGapFreeNumber = startingNumber;
+        this.highestGapFreeMeta = initialMeta.clone();
+        this.highestEverSeen = startingNumber;
+        clearSlots();
+    }
+
+    @Override
+    public boolean offer( long number, long[] meta )
+    {
+        updateHighestEverSeen( number );
+        if ( number <= highestGapFreeNumber )
+        {
+            return false;
+        }
+        while ( number - highestGapFreeNumber > numbers.length() )
+        {
+            LockSupport.parkNanos( this, FULL_BACKOFF_NANOS );
+        }
+
+        int slot = slot( number );
+        System.arraycopy( meta, 0, metas, slot * metaLength, metaLength );
+        numbers.set( slot, number );
+        return moveHighestGapFreeNumber();
+    }
+
+    private void updateHighestEverSeen( long number )
+    {
+        long seen;
+        do
+        {
+            seen = highestEverSeen;
+        }
+        while ( number > seen && !highestEverSeenUpdater.compareAndSet( this, seen, number ) );
+    }
+
+    private boolean moveHighestGapFreeNumber()
+    {
+        boolean moved = false;
+        while ( isOffered( highestGapFreeNumber + 1 ) )
+        {
+            int versionBefore = version;
+            if ( (versionBefore & 1) == 1 || !versionUpdater.compareAndSet( this, versionBefore, versionBefore + 1 ) )
+            {   // Someone else is moving it and will look at the number we offered after having done so
+                return moved;
+            }
+
+            long number = highestGapFreeNumber;
+            while ( isOffered( number + 1 ) )
+            {
+                number++;
+            }
+            if ( number != highestGapFreeNumber )
+            {
+                long[] meta = new long[metaLength];
+                System.arraycopy( metas, slot( number ) * metaLength, meta, 0, metaLength );
+                highestGapFreeMeta = meta;
+                // Slots up to this number can be reused by offers once this is visible
+                highestGapFreeNumber = number;
+                moved = true;
+            }
+            version = versionBefore + 2;
+        }
+
+        if ( moved && waiters > 0 )
+        {
+            synchronized ( this )
+            {
+                notifyAll();
+            }
+        }
+        return moved;
+    }
+
+    private boolean isOffered( long number )
+    {
+        return numbers.get( slot( number ) ) == number;
+    }
+
+    private int slot( long number )
+    {
+        return (int) (number & mask);
+    }
+
+    @Override
+    public long highestEverSeen()
+    {
+        return highestEverSeen;
+    }
+
+    @Override
+    public long[] get()
+    {
+        long number;
+        long[] meta;
+        while ( true )
+        {
+            int versionBefore = version;
+            if ( (versionBefore & 1) == 1 )
+            {   // Someone else is updating those values as we speak, go another round
+                continue;
+            }
+
+            number = highestGapFreeNumber;
+            meta = highestGapFreeMeta;
+            if ( version == versionBefore )
+            {   // We read a consistent version of these two values
+                break;
+            }
+        }
+
+        long[] result = new long[meta.length + 1];
+        result[0] = number;
+        System.arraycopy( meta, 0, result, 1, meta.length );
+        return result;
+    }
+
+    @Override
+    public void await( long awaitedNumber, long timeoutMillis ) throws TimeoutException, InterruptedException
+    {
+        if ( awaitedNumber <= highestGapFreeNumber )
+        {
+            return;
+        }
+
+        long endTime = System.currentTimeMillis() + timeoutMillis;
+        synchronized ( this )
+        {
+            // Offers only notify if there are waiters, so this must be visible before checking the number again
+            waiters++;
+            try
+            {
+                while ( awaitedNumber > highestGapFreeNumber )
+                {
+                    long timeLeft = endTime - System.currentTimeMillis();
+                    if ( timeLeft > 0 )
+                    {
+                        wait( timeLeft );
+                    }
+                    else
+                    {
+                        throw new TimeoutException( "Awaited number was not reached" );
+                    }
+                }
+            }
+            finally
+            {
+                waiters--;
+            }
+        }
+    }
+
+    @Override
+    public long getHighestGapFreeNumber()
+    {
+        return highestGapFreeNumber;
+    }
+
+    @Override
+    public void set( long number, long[] meta )
+    {
+        int versionBefore;
+        do
+        {
+            versionBefore = version;
+        }
+        while ( (versionBefore & 1) == 1 || !versionUpdater.compareAndSet( this, versionBefore, versionBefore + 1 ) );
+
+        clearSlots();
+        highestEverSeen = number;
+        highestGapFreeMeta = meta;
+        highestGapFreeNumber = number;
+        version = versionBefore + 2;
+    }
+
+    private void clearSlots()
+    {
+        for ( int i = 0; i < numbers.length(); i++ )
+        {
+            numbers.set( i, EMPTY_SLOT );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        long gapFree = highestGapFreeNumber;
+        long[] offered = new long[numbers.length()];
+        int count = 0;
+        for ( int i = 0; i < numbers.length(); i++ )
+        {
+            long number = numbers.get( i );
+            if ( number > gapFree )
+            {
+                offered[count++] = number;
+            }
+        }
+        offered = Arrays.copyOf( offered, count );
+        Arrays.sort( offered );
+        return format( "out-of-order-sequence:%d %d %s", highestEverSeen, gapFree, Arrays.toString( offered ) );
+    }
+}
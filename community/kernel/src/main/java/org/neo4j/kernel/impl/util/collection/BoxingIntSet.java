@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.collection.primitive.PrimitiveIntSet;
+
+/**
+ * {@link java.util.Set} of boxed ints, which keeps its elements in a {@link PrimitiveIntSet}, the int counterpart
+ * of {@link BoxingLongSet}. Iterators return the elements that the set held when the iterator was created, and
+ * only copy the elements they have yet to return when the set is about to be modified while they are still in use.
+ */
+class BoxingIntSet extends AbstractSet<Integer> implements AutoCloseable
+{
+    private static final int[] NO_ELEMENTS = new int[0];
+
+    private final PrimitiveIntSet set;
+    /** Iterators which iterate over {@link #set} directly and haven't been exhausted yet. */
+    private final List<BoxingIterator> openIterators = new ArrayList<>();
+
+    BoxingIntSet( PrimitiveIntSet set )
+    {
+        this.set = set;
+    }
+
+    @Override
+    public boolean add( Integer value )
+    {
+        detachIterators();
+        return set.add( value );
+    }
+
+    @Override
+    public boolean contains( Object value )
+    {
+        return value instanceof Integer && set.contains( (Integer) value );
+    }
+
+    @Override
+    public boolean remove( Object value )
+    {
+        if ( !(value instanceof Integer) )
+        {
+            return false;
+        }
+        detachIterators();
+        return set.remove( (Integer) value );
+    }
+
+    @Override
+    public Iterator<Integer> iterator()
+    {
+        BoxingIterator iterator = new BoxingIterator( set.iterator() );
+        openIterators.add( iterator );
+        return iterator;
+    }
+
+    @Override
+    public int size()
+    {
+        return set.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return set.isEmpty();
+    }
+
+    @Override
+    public void clear()
+    {
+        detachIterators();
+        set.clear();
+    }
+
+    @Override
+    public void close()
+    {
+        detachIterators();
+        set.close();
+    }
+
+    /**
+     * Makes the open iterators copy the elements they have yet to return, as modifying the primitive set may move
+     * its elements around, or even free the table they are iterating over.
+     */
+    private void detachIterators()
+    {
+        if ( !openIterators.isEmpty() )
+        {
+            for ( BoxingIterator iterator : openIterators )
+            {
+                iterator.detach();
+            }
+            openIterators.clear();
+        }
+    }
+
+    private class BoxingIterator implements Iterator<Integer>
+    {
+        private PrimitiveIntIterator source;
+        private int[] detached;
+        private int detachedCount;
+        private int next;
+        private int last;
+        private boolean canRemove;
+
+        BoxingIterator( PrimitiveIntIterator source )
+        {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if ( source == null )
+            {
+                return next < detachedCount;
+            }
+            if ( source.hasNext() )
+            {
+                return true;
+            }
+            // Exhausted, so there's nothing left to copy should the set be modified
+            source = null;
+            detached = NO_ELEMENTS;
+            detachedCount = 0;
+            openIterators.remove( this );
+            return false;
+        }
+
+        @Override
+        public Integer next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            last = source == null ? detached[next++] : source.next();
+            canRemove = true;
+            return last;
+        }
+
+        @Override
+        public void remove()
+        {
+            if ( !canRemove )
+            {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            BoxingIntSet.this.remove( last );
+        }
+
+        void detach()
+        {
+            // The set hasn't been modified yet, so it holds at least the elements this iterator has yet to return
+            detached = new int[set.size()];
+            detachedCount = 0;
+            while ( source.hasNext() )
+            {
+                detached[detachedCount++] = source.next();
+            }
+            next = 0;
+            source = null;
+        }
+    }
+}
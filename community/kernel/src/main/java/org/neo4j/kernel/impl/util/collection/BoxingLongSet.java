@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.EMPTY_LONG_ARRAY;
+
+/**
+ * {@link java.util.Set} of boxed longs, which keeps its elements in a {@link PrimitiveLongSet}. Elements are only
+ * boxed while they are passed in or out, so the set can be used where a {@code Set<Long>} is expected, but be backed
+ * by an off-heap set.
+ * <p>
+ * Like {@link org.neo4j.kernel.impl.util.VersionedHashMap}, which backs the diff sets of the on-heap transaction
+ * state, the set may be modified while it is iterated over. Iterators return the elements that the set held when
+ * the iterator was created. They iterate over the primitive set directly, and only copy the elements they have yet
+ * to return when the set is about to be modified while they are still in use.
+ */
+class BoxingLongSet extends AbstractSet<Long> implements AutoCloseable
+{
+    private final PrimitiveLongSet set;
+    /** Iterators which iterate over {@link #set} directly and haven't been exhausted yet. */
+    private final List<BoxingIterator> openIterators = new ArrayList<>();
+
+    BoxingLongSet( PrimitiveLongSet set )
+    {
+        this.set = set;
+    }
+
+    @Override
+    public boolean add( Long value )
+    {
+        detachIterators();
+        return set.add( value );
+    }
+
+    @Override
+    public boolean contains( Object value )
+    {
+        return value instanceof Long && set.contains( (Long) value );
+    }
+
+    @Override
+    public boolean remove( Object value )
+    {
+        if ( !(value instanceof Long) )
+        {
+            return false;
+        }
+        detachIterators();
+        return set.remove( (Long) value );
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        BoxingIterator iterator = new BoxingIterator( set.iterator() );
+        openIterators.add( iterator );
+        return iterator;
+    }
+
+    @Override
+    public int size()
+    {
+        return set.size();
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return set.isEmpty();
+    }
+
+    @Override
+    public void clear()
+    {
+        detachIterators();
+        set.clear();
+    }
+
+    @Override
+    public void close()
+    {
+        detachIterators();
+        set.close();
+    }
+
+    /**
+     * Makes the open iterators copy the elements they have yet to return, as modifying the primitive set may move
+     * its elements around, or even free the table they are iterating over.
+     */
+    private void detachIterators()
+    {
+        if ( !openIterators.isEmpty() )
+        {
+            for ( BoxingIterator iterator : openIterators )
+            {
+                iterator.detach();
+            }
+            openIterators.clear();
+        }
+    }
+
+    private class BoxingIterator implements Iterator<Long>
+    {
+        private PrimitiveLongIterator source;
+        private long[] detached;
+        private int next;
+        private long last;
+        private boolean canRemove;
+
+        BoxingIterator( PrimitiveLongIterator source )
+        {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if ( source == null )
+            {
+                return next < detached.length;
+            }
+            if ( source.hasNext() )
+            {
+                return true;
+            }
+            // Exhausted, so there's nothing left to copy should the set be modified
+            source = null;
+            detached = EMPTY_LONG_ARRAY;
+            openIterators.remove( this );
+            return false;
+        }
+
+        @Override
+        public Long next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            last = source == null ? detached[next++] : source.next();
+            canRemove = true;
+            return last;
+        }
+
+        @Override
+        public void remove()
+        {
+            if ( !canRemove )
+            {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            BoxingLongSet.this.remove( last );
+        }
+
+        void detach()
+        {
+            detached = PrimitiveLongCollections.asArray( source );
+            next = 0;
+            source = null;
+        }
+    }
+}
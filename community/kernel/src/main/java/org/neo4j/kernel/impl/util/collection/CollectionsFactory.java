@@ -19,6 +19,8 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.Set;
+
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
@@ -40,7 +42,31 @@ public interface CollectionsFactory
 
     PrimitiveLongDiffSets newLongDiffSets();
 
+    /**
+     * @return set of longs for the parts of {@link TxState} that expose them boxed, such as the diff sets of nodes
+     * and relationships. Sets from an off-heap factory keep their elements off-heap, and only box them on access.
+     */
+    Set<Long> newBoxedLongSet();
+
+    /**
+     * @return set of ints for the parts of {@link TxState} that expose them boxed, such as the label changes and
+     * removed property keys of entities. Sets from an off-heap factory keep their elements off-heap.
+     */
+    Set<Integer> newBoxedIntSet();
+
+    /**
+     * @return map of property values, for the properties of an entity that are changed in a transaction.
+     */
+    ValuesMap newValuesMap();
+
     MemoryTracker getMemoryTracker();
 
     boolean collectionsMustBeReleased();
+
+    /**
+     * Release the memory of the {@link #newBoxedLongSet() boxed long sets}, {@link #newBoxedIntSet() boxed int sets}
+     * and {@link #newValuesMap() values maps} created by this factory, which are released together rather than one by one. They must not be used afterwards.
+     * Collections created after this call are released by the next call.
+     */
+    void release();
 }
@@ -19,13 +19,33 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.function.Consumer;
+
 import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.memory.MemoryLimitExceededException;
 
 public interface CollectionsFactorySupplier
 {
-    CollectionsFactorySupplier ON_HEAP = () -> OnHeapCollectionsFactory.INSTANCE;
+    CollectionsFactorySupplier ON_HEAP = memoryLimitExceededListener -> OnHeapCollectionsFactory.INSTANCE;
+
+    CollectionsFactorySupplier OFF_HEAP = offHeap( LocalMemoryTracker.NO_LIMIT );
 
-    CollectionsFactorySupplier OFF_HEAP = () -> new OffHeapCollectionsFactory( new LocalMemoryTracker() );
+    /**
+     * @param maxMemoryBytes the maximum amount of off-heap memory that each created factory may have allocated at
+     * any point in time, or {@link LocalMemoryTracker#NO_LIMIT} for no limit.
+     * @return supplier of factories that allocate off-heap collections, and refuse allocations above the given limit
+     * with a {@link org.neo4j.memory.MemoryLimitExceededException}.
+     */
+    static CollectionsFactorySupplier offHeap( long maxMemoryBytes )
+    {
+        return memoryLimitExceededListener ->
+                new OffHeapCollectionsFactory( new LocalMemoryTracker( maxMemoryBytes, memoryLimitExceededListener ) );
+    }
 
-    CollectionsFactory create();
+    /**
+     * @param memoryLimitExceededListener notified of every allocation the created factory refuses, before the
+     * {@link MemoryLimitExceededException} is thrown to the caller.
+     * @return a new collections factory.
+     */
+    CollectionsFactory create( Consumer<MemoryLimitExceededException> memoryLimitExceededListener );
 }
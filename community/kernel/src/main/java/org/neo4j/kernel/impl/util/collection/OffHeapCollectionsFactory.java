@@ -19,6 +19,10 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
@@ -32,7 +36,22 @@ import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 
 class OffHeapCollectionsFactory implements CollectionsFactory
 {
+    /**
+     * Initial capacity of the sets behind {@link #newBoxedLongSet()}. A transaction has a couple of these per label
+     * that it adds or removes, and per relationship type and direction of every node whose relationships it
+     * changes, and most of them stay small, so they start out small and grow as needed.
+     */
+    static final int BOXED_LONG_SET_INITIAL_CAPACITY = 16;
+    /**
+     * Initial capacity of the sets behind {@link #newBoxedIntSet()}. They hold the label or property key changes of
+     * a single entity, which are few.
+     */
+    static final int BOXED_INT_SET_INITIAL_CAPACITY = 8;
+
     private final MemoryAllocationTracker memoryTracker;
+    private final List<BoxingLongSet> boxedLongSets = new ArrayList<>();
+    private final List<BoxingIntSet> boxedIntSets = new ArrayList<>();
+    private OffHeapValueArena valueArena;
 
     OffHeapCollectionsFactory( MemoryAllocationTracker memoryTracker )
     {
@@ -63,6 +82,32 @@ class OffHeapCollectionsFactory implements CollectionsFactory
         return new PrimitiveLongDiffSets( emptySet(), emptySet(), this );
     }
 
+    @Override
+    public Set<Long> newBoxedLongSet()
+    {
+        BoxingLongSet set = new BoxingLongSet( Primitive.offHeapLongSet( BOXED_LONG_SET_INITIAL_CAPACITY, memoryTracker ) );
+        boxedLongSets.add( set );
+        return set;
+    }
+
+    @Override
+    public Set<Integer> newBoxedIntSet()
+    {
+        BoxingIntSet set = new BoxingIntSet( Primitive.offHeapIntSet( BOXED_INT_SET_INITIAL_CAPACITY, memoryTracker ) );
+        boxedIntSets.add( set );
+        return set;
+    }
+
+    @Override
+    public ValuesMap newValuesMap()
+    {
+        if ( valueArena == null )
+        {
+            valueArena = new OffHeapValueArena( memoryTracker );
+        }
+        return new OffHeapValuesMap( valueArena );
+    }
+
     @Override
     public MemoryTracker getMemoryTracker()
     {
@@ -74,4 +119,24 @@ class OffHeapCollectionsFactory implements CollectionsFactory
     {
         return true;
     }
+
+    @Override
+    public void release()
+    {
+        for ( BoxingLongSet set : boxedLongSets )
+        {
+            set.close();
+        }
+        boxedLongSets.clear();
+        for ( BoxingIntSet set : boxedIntSets )
+        {
+            set.close();
+        }
+        boxedIntSets.clear();
+        if ( valueArena != null )
+        {
+            valueArena.close();
+            valueArena = null;
+        }
+    }
 }
@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueWriter;
+import org.neo4j.values.storable.Values;
+
+import static java.lang.Math.max;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Append only store of {@link Value values} in native memory, where the off-heap transaction state keeps the values
+ * of the properties it changes. A value is serialized when it is {@link #add(Value) added}, and deserialized each
+ * time it is {@link #get(long) read}, so the heap only holds a {@code long} reference per value.
+ * <p>
+ * Memory is allocated in chunks through the given {@link MemoryAllocationTracker}, so it counts towards the memory
+ * limit of the transaction, and is freed all at once when the arena is {@link #close() closed}. Values that are
+ * overwritten or removed keep their space until then.
+ * <p>
+ * This class is not thread safe.
+ */
+class OffHeapValueArena implements AutoCloseable
+{
+    static final int CHUNK_SIZE = toIntExact( ByteUnit.kibiBytes( 64 ) );
+
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte SHORT = 3;
+    private static final byte INT = 4;
+    private static final byte LONG = 5;
+    private static final byte FLOAT = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte STRING = 8;
+    private static final byte CHAR = 9;
+    private static final byte UTF8 = 10;
+    private static final byte ARRAY = 11;
+    private static final byte BYTE_ARRAY = 12;
+    private static final byte POINT = 13;
+    private static final byte DURATION = 14;
+    private static final byte DATE = 15;
+    private static final byte LOCAL_TIME = 16;
+    private static final byte TIME = 17;
+    private static final byte LOCAL_DATE_TIME = 18;
+    private static final byte DATE_TIME = 19;
+
+    private static final byte ZONE_OFFSET = 0;
+    private static final byte ZONE_REGION = 1;
+
+    private static final ValueWriter.ArrayType[] ARRAY_TYPES = ValueWriter.ArrayType.values();
+
+    private final MemoryAllocationTracker memoryTracker;
+    private final Serializer serializer = new Serializer();
+    private long[] chunkAddresses = new long[8];
+    private ByteBuffer[] chunks = new ByteBuffer[8];
+    private int chunkCount;
+
+    OffHeapValueArena( MemoryAllocationTracker memoryTracker )
+    {
+        this.memoryTracker = memoryTracker;
+    }
+
+    /**
+     * @param value the value to store.
+     * @return reference to the stored value, to {@link #get(long) read} it by.
+     */
+    long add( Value value )
+    {
+        ByteBuffer serialized = serializer.serialize( value );
+        int required = Integer.BYTES + serialized.remaining();
+        ByteBuffer chunk = chunkCount == 0 ? null : chunks[chunkCount - 1];
+        if ( chunk == null || chunk.remaining() < required )
+        {
+            chunk = newChunk( max( CHUNK_SIZE, required ) );
+        }
+        long reference = ((long) (chunkCount - 1) << 32) | chunk.position();
+        chunk.putInt( serialized.remaining() );
+        chunk.put( serialized );
+        return reference;
+    }
+
+    /**
+     * @param reference reference of a value, as returned from {@link #add(Value)}.
+     * @return a copy of the value that was stored.
+     */
+    Value get( long reference )
+    {
+        ByteBuffer source = chunks[(int) (reference >>> 32)].duplicate();
+        int offset = (int) reference;
+        int length = source.getInt( offset );
+        source.limit( offset + Integer.BYTES + length );
+        source.position( offset + Integer.BYTES );
+        return read( source );
+    }
+
+    /**
+     * Free all memory of this arena. Values stored in it can no longer be read.
+     */
+    @Override
+    public void close()
+    {
+        for ( int i = 0; i < chunkCount; i++ )
+        {
+            UnsafeUtil.free( chunkAddresses[i], chunks[i].capacity(), memoryTracker );
+            chunkAddresses[i] = 0;
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+    }
+
+    private ByteBuffer newChunk( int size )
+    {
+        long address = UnsafeUtil.allocateMemory( size, memoryTracker );
+        ByteBuffer chunk;
+        try
+        {
+            // same byte order as the heap buffer values are serialized into, and as duplicates of it
+            chunk = UnsafeUtil.newDirectByteBuffer( address, size ).order( ByteOrder.BIG_ENDIAN );
+        }
+        catch ( Exception e )
+        {
+            UnsafeUtil.free( address, size, memoryTracker );
+            throw new IllegalStateException( "Unable to wrap native memory of transaction state in a buffer", e );
+        }
+        if ( chunkCount == chunks.length )
+        {
+            chunks = Arrays.copyOf( chunks, chunkCount * 2 );
+            chunkAddresses = Arrays.copyOf( chunkAddresses, chunkCount * 2 );
+        }
+        chunks[chunkCount] = chunk;
+        chunkAddresses[chunkCount] = address;
+        chunkCount++;
+        return chunk;
+    }
+
+    private static Value read( ByteBuffer source )
+    {
+        byte type = source.get();
+        switch ( type )
+        {
+        case NULL:
+            return Values.NO_VALUE;
+        case BOOLEAN:
+            return Values.booleanValue( source.get() != 0 );
+        case BYTE:
+            return Values.byteValue( source.get() );
+        case SHORT:
+            return Values.shortValue( source.getShort() );
+        case INT:
+            return Values.intValue( source.getInt() );
+        case LONG:
+            return Values.longValue( source.getLong() );
+        case FLOAT:
+            return Values.floatValue( source.getFloat() );
+        case DOUBLE:
+            return Values.doubleValue( source.getDouble() );
+        case STRING:
+            return Values.stringValue( readString( source ) );
+        case CHAR:
+            return Values.charValue( source.getChar() );
+        case UTF8:
+            return Values.utf8Value( readBytes( source ) );
+        case ARRAY:
+            return readArray( source );
+        case BYTE_ARRAY:
+            return Values.byteArray( readBytes( source ) );
+        case POINT:
+            return readPoint( source );
+        case DURATION:
+            return DurationValue.duration( source.getLong(), source.getLong(), source.getLong(), source.getInt() );
+        case DATE:
+            return Values.temporalValue( LocalDate.ofEpochDay( source.getLong() ) );
+        case LOCAL_TIME:
+            return Values.temporalValue( LocalTime.ofNanoOfDay( source.getLong() ) );
+        case TIME:
+            return Values.temporalValue(
+                    OffsetTime.of( LocalTime.ofNanoOfDay( source.getLong() ), ZoneOffset.ofTotalSeconds( source.getInt() ) ) );
+        case LOCAL_DATE_TIME:
+            return Values.temporalValue( LocalDateTime.ofEpochSecond( source.getLong(), source.getInt(), ZoneOffset.UTC ) );
+        case DATE_TIME:
+            Instant instant = Instant.ofEpochSecond( source.getLong(), source.getInt() );
+            return Values.temporalValue( ZonedDateTime.ofInstant( instant, readZone( source ) ) );
+        default:
+            throw new IllegalStateException( "Unknown type " + type + " of value in transaction state" );
+        }
+    }
+
+    private static Value readArray( ByteBuffer source )
+    {
+        ValueWriter.ArrayType arrayType = ARRAY_TYPES[source.get()];
+        int length = source.getInt();
+        Object array = Array.newInstance( componentType( arrayType ), length );
+        for ( int i = 0; i < length; i++ )
+        {
+            Array.set( array, i, read( source ).asObjectCopy() );
+        }
+        return Values.of( array );
+    }
+
+    private static Class<?> componentType( ValueWriter.ArrayType arrayType )
+    {
+        switch ( arrayType )
+        {
+        case BYTE:
+            return byte.class;
+        case SHORT:
+            return short.class;
+        case INT:
+            return int.class;
+        case LONG:
+            return long.class;
+        case FLOAT:
+            return float.class;
+        case DOUBLE:
+            return double.class;
+        case BOOLEAN:
+            return boolean.class;
+        case STRING:
+            return String.class;
+        case CHAR:
+            return char.class;
+        case POINT:
+            return PointValue.class;
+        case ZONED_DATE_TIME:
+            return ZonedDateTime.class;
+        case LOCAL_DATE_TIME:
+            return LocalDateTime.class;
+        case DATE:
+            return LocalDate.class;
+        case ZONED_TIME:
+            return OffsetTime.class;
+        case LOCAL_TIME:
+            return LocalTime.class;
+        case DURATION:
+            return DurationValue.class;
+        default:
+            throw new IllegalStateException( "Unknown array type " + arrayType + " of value in transaction state" );
+        }
+    }
+
+    private static Value readPoint( ByteBuffer source )
+    {
+        CoordinateReferenceSystem crs = CoordinateReferenceSystem.get( source.getInt(), source.getInt() );
+        double[] coordinate = new double[source.getInt()];
+        for ( int i = 0; i < coordinate.length; i++ )
+        {
+            coordinate[i] = source.getDouble();
+        }
+        return Values.pointValue( crs, coordinate );
+    }
+
+    private static ZoneId readZone( ByteBuffer source )
+    {
+        return source.get() == ZONE_OFFSET ? ZoneOffset.ofTotalSeconds( source.getInt() ) : ZoneId.of( readString( source ) );
+    }
+
+    private static String readString( ByteBuffer source )
+    {
+        char[] chars = new char[source.getInt()];
+        for ( int i = 0; i < chars.length; i++ )
+        {
+            chars[i] = source.getChar();
+        }
+        return new String( chars );
+    }
+
+    private static byte[] readBytes( ByteBuffer source )
+    {
+        byte[] bytes = new byte[source.getInt()];
+        source.get( bytes );
+        return bytes;
+    }
+
+    /**
+     * Serializes values into a heap buffer that is reused between values, from where they are copied into a chunk.
+     */
+    private static class Serializer implements ValueWriter<RuntimeException>
+    {
+        private static final int INITIAL_CAPACITY = 256;
+
+        private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+
+        ByteBuffer serialize( Value value )
+        {
+            if ( buffer.capacity() > CHUNK_SIZE )
+            {
+                // Don't hold on to a large buffer because of a single large value
+                buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+            }
+            buffer.clear();
+            value.writeTo( this );
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void writeNull()
+        {
+            ensureCapacity( 1 ).put( NULL );
+        }
+
+        @Override
+        public void writeBoolean( boolean value )
+        {
+            ensureCapacity( 2 ).put( BOOLEAN ).put( (byte) (value ? 1 : 0) );
+        }
+
+        @Override
+        public void writeInteger( byte value )
+        {
+            ensureCapacity( 2 ).put( BYTE ).put( value );
+        }
+
+        @Override
+        public void writeInteger( short value )
+        {
+            ensureCapacity( 1 + Short.BYTES ).put( SHORT ).putShort( value );
+        }
+
+        @Override
+        public void writeInteger( int value )
+        {
+            ensureCapacity( 1 + Integer.BYTES ).put( INT ).putInt( value );
+        }
+
+        @Override
+        public void writeInteger( long value )
+        {
+            ensureCapacity( 1 + Long.BYTES ).put( LONG ).putLong( value );
+        }
+
+        @Override
+        public void writeFloatingPoint( float value )
+        {
+            ensureCapacity( 1 + Float.BYTES ).put( FLOAT ).putFloat( value );
+        }
+
+        @Override
+        public void writeFloatingPoint( double value )
+        {
+            ensureCapacity( 1 + Double.BYTES ).put( DOUBLE ).putDouble( value );
+        }
+
+        @Override
+        public void writeString( String value )
+        {
+            ensureCapacity( 1 ).put( STRING );
+            writeChars( value );
+        }
+
+        @Override
+        public void writeString( char value )
+        {
+            ensureCapacity( 1 + Character.BYTES ).put( CHAR ).putChar( value );
+        }
+
+        @Override
+        public void writeUTF8( byte[] bytes, int offset, int length )
+        {
+            ensureCapacity( 1 + Integer.BYTES + length ).put( UTF8 ).putInt( length ).put( bytes, offset, length );
+        }
+
+        @Override
+        public void beginArray( int size, ArrayType arrayType )
+        {
+            ensureCapacity( 2 + Integer.BYTES ).put( ARRAY ).put( (byte) arrayType.ordinal() ).putInt( size );
+        }
+
+        @Override
+        public void endArray()
+        {   // The number of elements was written when the array began
+        }
+
+        @Override
+        public void writeByteArray( byte[] value )
+        {
+            ensureCapacity( 1 + Integer.BYTES + value.length ).put( BYTE_ARRAY ).putInt( value.length ).put( value );
+        }
+
+        @Override
+        public void writePoint( CoordinateReferenceSystem crs, double[] coordinate )
+        {
+            ensureCapacity( 1 + 3 * Integer.BYTES + coordinate.length * Double.BYTES ).put( POINT )
+                    .putInt( crs.getTable().getTableId() ).putInt( crs.getCode() ).putInt( coordinate.length );
+            for ( double c : coordinate )
+            {
+                buffer.putDouble( c );
+            }
+        }
+
+        @Override
+        public void writeDuration( long months, long days, long seconds, int nanos )
+        {
+            ensureCapacity( 1 + 3 * Long.BYTES + Integer.BYTES ).put( DURATION )
+                    .putLong( months ).putLong( days ).putLong( seconds ).putInt( nanos );
+        }
+
+        @Override
+        public void writeDate( LocalDate localDate )
+        {
+            ensureCapacity( 1 + Long.BYTES ).put( DATE ).putLong( localDate.toEpochDay() );
+        }
+
+        @Override
+        public void writeLocalTime( LocalTime localTime )
+        {
+            ensureCapacity( 1 + Long.BYTES ).put( LOCAL_TIME ).putLong( localTime.toNanoOfDay() );
+        }
+
+        @Override
+        public void writeTime( OffsetTime offsetTime )
+        {
+            ensureCapacity( 1 + Long.BYTES + Integer.BYTES ).put( TIME )
+                    .putLong( offsetTime.toLocalTime().toNanoOfDay() ).putInt( offsetTime.getOffset().getTotalSeconds() );
+        }
+
+        @Override
+        public void writeLocalDateTime( LocalDateTime localDateTime )
+        {
+            ensureCapacity( 1 + Long.BYTES + Integer.BYTES ).put( LOCAL_DATE_TIME )
+                    .putLong( localDateTime.toEpochSecond( ZoneOffset.UTC ) ).putInt( localDateTime.getNano() );
+        }
+
+        @Override
+        public void writeDateTime( ZonedDateTime zonedDateTime )
+        {
+            ensureCapacity( 2 + Long.BYTES + 2 * Integer.BYTES ).put( DATE_TIME )
+                    .putLong( zonedDateTime.toEpochSecond() ).putInt( zonedDateTime.getNano() );
+            ZoneId zone = zonedDateTime.getZone();
+            if ( zone instanceof ZoneOffset )
+            {
+                buffer.put( ZONE_OFFSET ).putInt( ((ZoneOffset) zone).getTotalSeconds() );
+            }
+            else
+            {
+                buffer.put( ZONE_REGION );
+                writeChars( zone.getId() );
+            }
+        }
+
+        private void writeChars( String value )
+        {
+            ensureCapacity( Integer.BYTES + value.length() * Character.BYTES ).putInt( value.length() );
+            for ( int i = 0; i < value.length(); i++ )
+            {
+                buffer.putChar( value.charAt( i ) );
+            }
+        }
+
+        private ByteBuffer ensureCapacity( int bytes )
+        {
+            if ( buffer.remaining() < bytes )
+            {
+                ByteBuffer grown = ByteBuffer.allocate( max( buffer.capacity() * 2, buffer.position() + bytes ) );
+                buffer.flip();
+                grown.put( buffer );
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.neo4j.kernel.api.properties.PropertyKeyValue;
+import org.neo4j.storageengine.api.StorageProperty;
+import org.neo4j.values.storable.Value;
+
+import static java.util.Collections.emptyIterator;
+
+/**
+ * {@link ValuesMap} that keeps the values in an {@link OffHeapValueArena}. Only the property key ids and the
+ * references of their values are kept on the heap, in arrays that are searched linearly, since entities have few
+ * properties.
+ */
+class OffHeapValuesMap implements ValuesMap
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final OffHeapValueArena arena;
+    private int[] keys;
+    private long[] references;
+    private int size;
+
+    OffHeapValuesMap( OffHeapValueArena arena )
+    {
+        this.arena = arena;
+    }
+
+    @Override
+    public Value get( int propertyKeyId )
+    {
+        int index = indexOf( propertyKeyId );
+        return index == -1 ? null : arena.get( references[index] );
+    }
+
+    @Override
+    public boolean containsKey( int propertyKeyId )
+    {
+        return indexOf( propertyKeyId ) != -1;
+    }
+
+    @Override
+    public void put( int propertyKeyId, Value value )
+    {
+        long reference = arena.add( value );
+        int index = indexOf( propertyKeyId );
+        if ( index == -1 )
+        {
+            if ( keys == null )
+            {
+                keys = new int[INITIAL_CAPACITY];
+                references = new long[INITIAL_CAPACITY];
+            }
+            else if ( size == keys.length )
+            {
+                keys = Arrays.copyOf( keys, size * 2 );
+                references = Arrays.copyOf( references, size * 2 );
+            }
+            index = size++;
+            keys[index] = propertyKeyId;
+        }
+        references[index] = reference;
+    }
+
+    @Override
+    public boolean remove( int propertyKeyId )
+    {
+        int index = indexOf( propertyKeyId );
+        if ( index == -1 )
+        {
+            return false;
+        }
+        size--;
+        keys[index] = keys[size];
+        references[index] = references[size];
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public void clear()
+    {
+        size = 0;
+    }
+
+    @Override
+    public Iterator<StorageProperty> properties()
+    {
+        if ( size == 0 )
+        {
+            return emptyIterator();
+        }
+        int[] keysSnapshot = Arrays.copyOf( keys, size );
+        long[] referencesSnapshot = Arrays.copyOf( references, size );
+        return new Iterator<StorageProperty>()
+        {
+            private int next;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < keysSnapshot.length;
+            }
+
+            @Override
+            public StorageProperty next()
+            {
+                if ( !hasNext() )
+                {
+                    throw new NoSuchElementException();
+                }
+                StorageProperty property = new PropertyKeyValue( keysSnapshot[next], arena.get( referencesSnapshot[next] ) );
+                next++;
+                return property;
+            }
+        };
+    }
+
+    private int indexOf( int propertyKeyId )
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( keys[i] == propertyKeyId )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -19,13 +19,17 @@
  */
 package org.neo4j.kernel.impl.util.collection;
 
+import java.util.Set;
+
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.MemoryTracker;
 
+import static java.util.Collections.newSetFromMap;
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptySet;
 
 public class OnHeapCollectionsFactory implements CollectionsFactory
@@ -61,6 +65,24 @@ public class OnHeapCollectionsFactory implements CollectionsFactory
         return new PrimitiveLongDiffSets( emptySet(), emptySet(), this );
     }
 
+    @Override
+    public Set<Long> newBoxedLongSet()
+    {
+        return newSetFromMap( new VersionedHashMap<>() );
+    }
+
+    @Override
+    public Set<Integer> newBoxedIntSet()
+    {
+        return newSetFromMap( new VersionedHashMap<>() );
+    }
+
+    @Override
+    public ValuesMap newValuesMap()
+    {
+        return new OnHeapValuesMap();
+    }
+
     @Override
     public MemoryTracker getMemoryTracker()
     {
@@ -72,4 +94,9 @@ public class OnHeapCollectionsFactory implements CollectionsFactory
     {
         return false;
     }
+
+    @Override
+    public void release()
+    {   // Nothing to release, the garbage collector takes care of it
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.util.Iterator;
+
+import org.neo4j.helpers.collection.Iterators;
+import org.neo4j.kernel.api.properties.PropertyKeyValue;
+import org.neo4j.kernel.impl.util.VersionedHashMap;
+import org.neo4j.storageengine.api.StorageProperty;
+import org.neo4j.values.storable.Value;
+
+/**
+ * {@link ValuesMap} that keeps the values on the heap, in a {@link VersionedHashMap}.
+ */
+class OnHeapValuesMap implements ValuesMap
+{
+    private final VersionedHashMap<Integer,Value> values = new VersionedHashMap<>();
+
+    @Override
+    public Value get( int propertyKeyId )
+    {
+        return values.get( propertyKeyId );
+    }
+
+    @Override
+    public boolean containsKey( int propertyKeyId )
+    {
+        return values.containsKey( propertyKeyId );
+    }
+
+    @Override
+    public void put( int propertyKeyId, Value value )
+    {
+        values.put( propertyKeyId, value );
+    }
+
+    @Override
+    public boolean remove( int propertyKeyId )
+    {
+        return values.remove( propertyKeyId ) != null;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return values.isEmpty();
+    }
+
+    @Override
+    public void clear()
+    {
+        values.clear();
+    }
+
+    @Override
+    public Iterator<StorageProperty> properties()
+    {
+        return Iterators.map( entry -> new PropertyKeyValue( entry.getKey(), entry.getValue() ),
+                values.entrySet().iterator() );
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import java.util.Iterator;
+
+import org.neo4j.storageengine.api.StorageProperty;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Map from property key ids to property values, as kept by the transaction state for each entity whose properties
+ * it changes. The map may be modified while it is iterated over; entries put after an iterator was created are not
+ * returned by that iterator.
+ */
+public interface ValuesMap
+{
+    /**
+     * @return the value of the given property key, or {@code null} if there is none.
+     */
+    Value get( int propertyKeyId );
+
+    boolean containsKey( int propertyKeyId );
+
+    void put( int propertyKeyId, Value value );
+
+    /**
+     * @return whether or not there was a value to remove.
+     */
+    boolean remove( int propertyKeyId );
+
+    boolean isEmpty();
+
+    void clear();
+
+    /**
+     * @return the entries of this map, as properties.
+     */
+    Iterator<StorageProperty> properties();
+}
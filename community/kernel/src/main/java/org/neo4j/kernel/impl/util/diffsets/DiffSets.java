@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.util.diffsets;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
@@ -48,6 +49,14 @@ public class DiffSets<T> extends SuperDiffSets<T> implements ReadableDiffSets<T>
         super( addedElements, removedElements );
     }
 
+    /**
+     * @param setFactory creates the sets of added and removed elements, when they are first needed.
+     */
+    public DiffSets( Supplier<Set<T>> setFactory )
+    {
+        super( setFactory );
+    }
+
     @Override
     public PrimitiveLongIterator augment( final PrimitiveLongIterator source )
     {
@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.util.diffsets;
 
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
@@ -45,6 +46,15 @@ public class RelationshipDiffSets<T> extends SuperDiffSets<T> implements Readabl
         this( txStateRelationshipHome, null, null );
     }
 
+    /**
+     * @param setFactory creates the sets of added and removed elements, when they are first needed.
+     */
+    public RelationshipDiffSets( RelationshipVisitor.Home txStateRelationshipHome, Supplier<Set<T>> setFactory )
+    {
+        super( setFactory );
+        this.txStateRelationshipHome = txStateRelationshipHome;
+    }
+
     private RelationshipDiffSets( RelationshipVisitor.Home txStateRelationshipHome, Set<T> addedElements, Set<T> removedElements )
     {
         super( addedElements, removedElements );
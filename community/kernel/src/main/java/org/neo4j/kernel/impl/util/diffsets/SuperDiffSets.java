@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.helpers.collection.Iterators;
@@ -42,6 +43,7 @@ import static java.util.Collections.newSetFromMap;
  */
 abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
 {
+    private final Supplier<Set<T>> setFactory;
     private Set<T> addedElements;
     private Set<T> removedElements;
     private Predicate<T> filter;
@@ -52,9 +54,23 @@ abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
     }
 
     SuperDiffSets( Set<T> addedElements, Set<T> removedElements )
+    {
+        this( addedElements, removedElements, SuperDiffSets::newVersionedSet );
+    }
+
+    /**
+     * @param setFactory creates the sets of added and removed elements, when they are first needed.
+     */
+    SuperDiffSets( Supplier<Set<T>> setFactory )
+    {
+        this( null, null, setFactory );
+    }
+
+    private SuperDiffSets( Set<T> addedElements, Set<T> removedElements, Supplier<Set<T>> setFactory )
     {
         this.addedElements = addedElements;
         this.removedElements = removedElements;
+        this.setFactory = setFactory;
     }
 
     @Override
@@ -180,7 +196,7 @@ abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
             {
                 return Collections.emptySet();
             }
-            addedElements = newSet();
+            addedElements = setFactory.get();
         }
         return addedElements;
     }
@@ -193,7 +209,7 @@ abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
             {
                 return Collections.emptySet();
             }
-            removedElements = newSet();
+            removedElements = setFactory.get();
         }
         return removedElements;
     }
@@ -212,7 +228,7 @@ abstract class SuperDiffSets<T> implements SuperReadableDiffSets<T>
         return added( false ).size() - removed( false ).size();
     }
 
-    private Set<T> newSet()
+    private static <T> Set<T> newVersionedSet()
     {
         return newSetFromMap( new VersionedHashMap<>() );
     }
@@ -163,7 +163,35 @@ public class CorruptedLogsTruncator
     }
 
     private boolean isRecoveredLogCorrupted( long recoveredTransactionLogVersion, long recoveredTransactionOffset )
+            throws IOException
+    {
+        File logFile = logFiles.getLogFileForVersion( recoveredTransactionLogVersion );
+        return logFile.length() > recoveredTransactionOffset &&
+                !isZeroFilled( logFile, recoveredTransactionOffset );
+    }
+
+    /**
+     * A pre-allocated log file is zero filled after its last entry, which is not corrupted content.
+     */
+    private boolean isZeroFilled( File logFile, long offset ) throws IOException
     {
-        return logFiles.getLogFileForVersion( recoveredTransactionLogVersion ).length() > recoveredTransactionOffset;
+        try ( StoreChannel channel = fs.open( logFile, OpenMode.READ ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( (int) ByteUnit.mebiBytes( 1 ) );
+            channel.position( offset );
+            while ( channel.read( buffer ) >= 0 )
+            {
+                buffer.flip();
+                while ( buffer.hasRemaining() )
+                {
+                    if ( buffer.get() != 0 )
+                    {
+                        return false;
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        return true;
     }
 }
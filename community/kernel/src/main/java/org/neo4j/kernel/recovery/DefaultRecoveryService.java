@@ -43,12 +43,27 @@ public class DefaultRecoveryService implements RecoveryService
     private final TransactionIdStore transactionIdStore;
     private final LogicalTransactionStore logicalTransactionStore;
     private final LogVersionRepository logVersionRepository;
+    private final RecoveryMonitor recoveryMonitor;
+    private final int recoveryParallelism;
 
     public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
             TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
             LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor )
+    {
+        this( storageEngine, logTailScanner, transactionIdStore, logicalTransactionStore, logVersionRepository,
+                monitor, new RecoveryMonitor()
+                {
+                }, 1 );
+    }
+
+    public DefaultRecoveryService( StorageEngine storageEngine, LogTailScanner logTailScanner,
+            TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
+            LogVersionRepository logVersionRepository, RecoveryStartInformationProvider.Monitor monitor,
+            RecoveryMonitor recoveryMonitor, int recoveryParallelism )
     {
         this.storageEngine = storageEngine;
+        this.recoveryMonitor = recoveryMonitor;
+        this.recoveryParallelism = recoveryParallelism;
         this.transactionIdStore = transactionIdStore;
         this.logicalTransactionStore = logicalTransactionStore;
         this.logVersionRepository = logVersionRepository;
@@ -75,7 +90,11 @@ public class DefaultRecoveryService implements RecoveryService
     @Override
     public RecoveryApplier getRecoveryApplier( TransactionApplicationMode mode ) throws Exception
     {
-        return new RecoveryVisitor( storageEngine, mode );
+        if ( mode == TransactionApplicationMode.RECOVERY && recoveryParallelism > 1 )
+        {
+            return new ParallelRecoveryApplier( storageEngine, recoveryMonitor, recoveryParallelism );
+        }
+        return new RecoveryVisitor( storageEngine, mode, recoveryMonitor );
     }
 
     @Override
@@ -113,11 +132,13 @@ public class DefaultRecoveryService implements RecoveryService
     {
         private final StorageEngine storageEngine;
         private final TransactionApplicationMode mode;
+        private final RecoveryMonitor monitor;
 
-        RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode )
+        RecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, RecoveryMonitor monitor )
         {
             this.storageEngine = storageEngine;
             this.mode = mode;
+            this.monitor = monitor;
         }
 
         @Override
@@ -129,6 +150,10 @@ public class DefaultRecoveryService implements RecoveryService
             tx.commitment( NO_COMMITMENT, txId );
             tx.logPosition( transaction.getStartEntry().getStartPosition() );
             storageEngine.apply( tx, mode );
+            if ( mode == TransactionApplicationMode.RECOVERY )
+            {
+                monitor.transactionRecovered( txId );
+            }
             return false;
         }
 
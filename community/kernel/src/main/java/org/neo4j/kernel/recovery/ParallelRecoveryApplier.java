@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.NamedThreadFactory;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StorageEngine;
+
+import static org.neo4j.kernel.impl.transaction.log.Commitment.NO_COMMITMENT;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
+import static org.neo4j.util.FeatureToggles.getInteger;
+
+/**
+ * A {@link RecoveryApplier} that reads ahead a batch of recovered transactions and applies the transactions in that
+ * batch that do not touch the same records in parallel.
+ * <p>
+ * The transactions of a batch are divided into waves. A transaction is placed in the wave after the last wave that
+ * holds an earlier transaction that touches any of the same records, and the waves are then applied one after the
+ * other, with the transactions within a wave applied in parallel. Records are identified by their store and id.
+ * Property changes are also tied to the node or relationship that owns them, so that index and label scan store
+ * updates for any one entity are applied in commit order. Counts changes commute, so they don't tie transactions
+ * together. Transactions with any other kind of command, e.g. schema, token or explicit index changes, are applied
+ * on their own, after all transactions before them and before all transactions after them.
+ * <p>
+ * The {@link RecoveryMonitor} is told about each recovered transaction when it has been applied, in commit order.
+ */
+class ParallelRecoveryApplier implements RecoveryApplier
+{
+    private static final int BATCH_SIZE = getInteger( ParallelRecoveryApplier.class, "batchSize", 1000 );
+
+    // Record kinds, stored in the low bits of the record keys
+    private static final int KIND_BITS = 3;
+    private static final long NODE = 0;
+    private static final long RELATIONSHIP = 1;
+    private static final long RELATIONSHIP_GROUP = 2;
+    private static final long PROPERTY = 3;
+    private static final long PROPERTY_VALUE = 4;
+    private static final long NODE_LABELS = 5;
+
+    private final StorageEngine storageEngine;
+    private final RecoveryMonitor monitor;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final List<TransactionToApply> batch = new ArrayList<>();
+    private final List<long[]> batchRecords = new ArrayList<>();
+
+    ParallelRecoveryApplier( StorageEngine storageEngine, RecoveryMonitor monitor, int parallelism )
+    {
+        this.storageEngine = storageEngine;
+        this.monitor = monitor;
+        this.parallelism = parallelism;
+        this.executor = Executors.newFixedThreadPool( parallelism, new NamedThreadFactory( "recovery" ) );
+    }
+
+    @Override
+    public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
+    {
+        TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
+        long txId = transaction.getCommitEntry().getTxId();
+        TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
+        tx.commitment( NO_COMMITMENT, txId );
+        tx.logPosition( transaction.getStartEntry().getStartPosition() );
+
+        long[] records = touchedRecords( txRepresentation );
+        if ( records == null )
+        {
+            // This transaction must be applied on its own
+            applyBatch();
+            long startTime = System.nanoTime();
+            apply( tx );
+            monitor.batchRecovered( 1, System.nanoTime() - startTime );
+            monitor.transactionRecovered( txId );
+            return false;
+        }
+        batch.add( tx );
+        batchRecords.add( records );
+        if ( batch.size() >= BATCH_SIZE )
+        {
+            applyBatch();
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        try
+        {
+            applyBatch();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void applyBatch() throws Exception
+    {
+        if ( batch.isEmpty() )
+        {
+            return;
+        }
+
+        try
+        {
+            long startTime = System.nanoTime();
+            List<List<TransactionToApply>> waves = waves( batchRecords, batch );
+            for ( List<TransactionToApply> wave : waves )
+            {
+                applyWave( wave );
+            }
+            monitor.batchRecovered( batch.size(), System.nanoTime() - startTime );
+            for ( TransactionToApply tx : batch )
+            {
+                monitor.transactionRecovered( tx.transactionId() );
+            }
+        }
+        finally
+        {
+            // A batch that failed must not be applied again when the applier is closed.
+            batch.clear();
+            batchRecords.clear();
+        }
+    }
+
+    private void applyWave( List<TransactionToApply> wave ) throws Exception
+    {
+        if ( wave.size() == 1 || parallelism == 1 )
+        {
+            apply( chain( wave, 0, wave.size() ) );
+            return;
+        }
+
+        // Split the wave into one chain of transactions per thread, and apply each chain as one batch
+        int chains = Math.min( parallelism, wave.size() );
+        List<Future<?>> futures = new ArrayList<>( chains );
+        for ( int i = 0; i < chains; i++ )
+        {
+            TransactionToApply first = chain( wave, i * wave.size() / chains, (i + 1) * wave.size() / chains );
+            futures.add( executor.submit( () ->
+            {
+                apply( first );
+                return null;
+            } ) );
+        }
+        Exception failure = null;
+        for ( Future<?> future : futures )
+        {
+            try
+            {
+                future.get();
+            }
+            catch ( ExecutionException e )
+            {
+                Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                if ( failure == null )
+                {
+                    failure = cause;
+                }
+                else
+                {
+                    failure.addSuppressed( cause );
+                }
+            }
+        }
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+
+    private void apply( TransactionToApply transactions ) throws Exception
+    {
+        storageEngine.apply( transactions, RECOVERY );
+    }
+
+    private static TransactionToApply chain( List<TransactionToApply> transactions, int from, int to )
+    {
+        for ( int i = from; i < to; i++ )
+        {
+            transactions.get( i ).next( i + 1 < to ? transactions.get( i + 1 ) : null );
+        }
+        return transactions.get( from );
+    }
+
+    /**
+     * Divides the given transactions into waves, such that no two transactions in the same wave touch the same
+     * record, and any two transactions that touch the same record are in waves in the same order as in the batch.
+     *
+     * @param records the keys of the records touched by each of the transactions.
+     * @param transactions the transactions, in commit order.
+     * @return the waves of transactions, each in commit order.
+     */
+    static <T> List<List<T>> waves( List<long[]> records, List<T> transactions )
+    {
+        List<List<T>> waves = new ArrayList<>();
+        PrimitiveLongIntMap lastWaveOfRecord = Primitive.longIntMap();
+        for ( int i = 0; i < transactions.size(); i++ )
+        {
+            long[] txRecords = records.get( i );
+            int wave = 0;
+            for ( long record : txRecords )
+            {
+                if ( lastWaveOfRecord.containsKey( record ) )
+                {
+                    wave = Math.max( wave, lastWaveOfRecord.get( record ) + 1 );
+                }
+            }
+            for ( long record : txRecords )
+            {
+                lastWaveOfRecord.put( record, wave );
+            }
+            if ( wave == waves.size() )
+            {
+                waves.add( new ArrayList<>() );
+            }
+            waves.get( wave ).add( transactions.get( i ) );
+        }
+        return waves;
+    }
+
+    /**
+     * @return the keys of all records touched by the given transaction, or {@code null} if the transaction contains
+     * commands that don't touch any particular records, and so must be applied on its own.
+     */
+    static long[] touchedRecords( TransactionRepresentation transaction ) throws IOException
+    {
+        PrimitiveLongSet records = Primitive.longSet();
+        boolean applyAlone = transaction.accept( command -> !addTouchedRecords( command, records ) );
+        return applyAlone ? null : PrimitiveLongCollections.asArray( records.iterator() );
+    }
+
+    private static boolean addTouchedRecords( StorageCommand command, PrimitiveLongSet records )
+    {
+        if ( command instanceof NodeCommand )
+        {
+            NodeCommand nodeCommand = (NodeCommand) command;
+            addRecord( records, NODE, nodeCommand.getBefore() );
+            addRecord( records, NODE, nodeCommand.getAfter() );
+            addDynamicRecords( records, NODE_LABELS, nodeCommand.getBefore().getDynamicLabelRecords() );
+            addDynamicRecords( records, NODE_LABELS, nodeCommand.getAfter().getDynamicLabelRecords() );
+            return true;
+        }
+        if ( command instanceof RelationshipCommand )
+        {
+            RelationshipCommand relationshipCommand = (RelationshipCommand) command;
+            addRecord( records, RELATIONSHIP, relationshipCommand.getBefore() );
+            addRecord( records, RELATIONSHIP, relationshipCommand.getAfter() );
+            return true;
+        }
+        if ( command instanceof RelationshipGroupCommand )
+        {
+            RelationshipGroupCommand groupCommand = (RelationshipGroupCommand) command;
+            addRecord( records, RELATIONSHIP_GROUP, groupCommand.getBefore() );
+            addRecord( records, RELATIONSHIP_GROUP, groupCommand.getAfter() );
+            return true;
+        }
+        if ( command instanceof PropertyCommand )
+        {
+            PropertyCommand propertyCommand = (PropertyCommand) command;
+            addPropertyRecord( records, propertyCommand.getBefore() );
+            addPropertyRecord( records, propertyCommand.getAfter() );
+            return true;
+        }
+        return command instanceof NodeCountsCommand || command instanceof RelationshipCountsCommand;
+    }
+
+    private static void addPropertyRecord( PrimitiveLongSet records, PropertyRecord record )
+    {
+        addRecord( records, PROPERTY, record );
+        // Tie the property changes to the owning entity, so index updates for that entity are applied in order
+        if ( record.getNodeId() != -1 )
+        {
+            records.add( key( NODE, record.getNodeId() ) );
+        }
+        else if ( record.getRelId() != -1 )
+        {
+            records.add( key( RELATIONSHIP, record.getRelId() ) );
+        }
+        for ( PropertyBlock block : record )
+        {
+            addDynamicRecords( records, PROPERTY_VALUE, block.getValueRecords() );
+        }
+        addDynamicRecords( records, PROPERTY_VALUE, record.getDeletedRecords() );
+    }
+
+    private static void addDynamicRecords(
+            PrimitiveLongSet records, long kind, Collection<DynamicRecord> dynamicRecords )
+    {
+        for ( DynamicRecord record : dynamicRecords )
+        {
+            records.add( key( kind, record.getId() ) );
+        }
+    }
+
+    private static void addRecord( PrimitiveLongSet records, long kind, AbstractBaseRecord record )
+    {
+        records.add( key( kind, record.getId() ) );
+        if ( record.hasSecondaryUnitId() )
+        {
+            records.add( key( kind, record.getSecondaryUnitId() ) );
+        }
+    }
+
+    private static long key( long kind, long id )
+    {
+        return (id << KIND_BITS) | kind;
+    }
+}
@@ -107,9 +107,8 @@ public class Recovery extends LifecycleAdapter
                 while ( transactionsToRecover.next() )
                 {
                     lastTransaction = transactionsToRecover.get();
-                    long txId = lastTransaction.getCommitEntry().getTxId();
+                    // The applier tells the monitor about the transaction once it has actually been applied
                     recoveryVisitor.visit( lastTransaction );
-                    monitor.transactionRecovered( txId );
                     numberOfRecoveredTransactions++;
                     recoveryToPosition = transactionsToRecover.position();
                     reportProgress();
@@ -34,6 +34,18 @@ public interface RecoveryMonitor
         //noop
     }
 
+    /**
+     * A batch of recovered transactions has been applied to the store. Only reported when recovered transactions
+     * are applied in batches, i.e. when applying them in parallel.
+     *
+     * @param numberOfTransactions the number of transactions in the batch.
+     * @param applyTimeNanos the time it took to apply the batch, in nanoseconds.
+     */
+    default void batchRecovered( int numberOfTransactions, long applyTimeNanos )
+    {
+        //noop
+    }
+
     default void recoveryCompleted( int numberOfRecoveredTransactions )
     {
         //noop
@@ -210,6 +210,18 @@ public interface StorageStatement extends AutoCloseable
          */
         PageCursor openPageCursorForReading( long reference );
 
+        /**
+         * Open a new PageCursor for scanning through the records, in order, starting at the given reference.
+         * The cursor will read ahead once it notices that it is moving sequentially through the store, and it will not
+         * update page access statistics, so that the scan does not push frequently used pages out of the page cache.
+         * <p>
+         * DANGER: make sure to always close this cursor.
+         *
+         * @param reference the initial record reference to access.
+         * @return the opened PageCursor
+         */
+        PageCursor openPageCursorForScanning( long reference );
+
         /**
          * Load a node {@code record} with the node corresponding to the given node {@code reference}.
          * <p>
@@ -79,7 +79,7 @@ public class ReadRecordsStep<RECORD extends AbstractBaseRecord> extends Processo
         int i = 0;
         // Just use the first record in the batch here to satisfy the record cursor.
         // The truth is that we'll be using the read method which accepts an external record anyway so it doesn't matter.
-        try ( RecordCursor<RECORD> cursor = store.newRecordCursor( batch[0] ).acquire( id, RecordLoad.CHECK ) )
+        try ( RecordCursor<RECORD> cursor = store.newScanningRecordCursor( batch[0] ).acquire( id, RecordLoad.CHECK ) )
         {
             boolean hasNext = true;
             while ( hasNext )
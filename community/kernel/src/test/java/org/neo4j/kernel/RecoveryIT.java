@@ -50,6 +50,7 @@ import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.TransactionFailureException;
 import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
 import org.neo4j.graphdb.factory.GraphDatabaseBuilder.DatabaseCreator;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.helpers.collection.Iterators;
@@ -465,6 +466,47 @@ public class RecoveryIT
         }
     }
 
+    @Test
+    public void parallelRecoveryMustProduceTheSameStoreAsSerialRecovery() throws Exception
+    {
+        // given
+        File storeDir = directory.absolutePath();
+        EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+        GraphDatabaseService db = new TestGraphDatabaseFactory().setFileSystem( fs ).newImpermanentDatabase( storeDir );
+        produceRandomGraphUpdates( db, 100 );
+        checkPoint( db );
+        produceRandomGraphUpdates( db, 500 );
+        EphemeralFileSystemAbstraction serialFs = fs.snapshot();
+        EphemeralFileSystemAbstraction parallelFs = fs.snapshot();
+        db.shutdown();
+        fs.close();
+
+        try
+        {
+            // when
+            recover( serialFs, storeDir, 1 );
+            recover( parallelFs, storeDir, 4 );
+
+            // then
+            assertSameStoreContents( serialFs, parallelFs, storeDir );
+        }
+        finally
+        {
+            serialFs.close();
+            parallelFs.close();
+        }
+    }
+
+    private static void recover( EphemeralFileSystemAbstraction fs, File storeDir, int parallelism )
+    {
+        new TestGraphDatabaseFactory()
+                .setFileSystem( fs )
+                .newImpermanentDatabaseBuilder( storeDir )
+                .setConfig( GraphDatabaseSettings.recovery_parallelism, String.valueOf( parallelism ) )
+                .newGraphDatabase()
+                .shutdown();
+    }
+
     private long lastCommittedTxId( GraphDatabaseService db )
     {
         return ((GraphDatabaseAPI)db).getDependencyResolver().resolveDependency( TransactionIdStore.class ).getLastClosedTransactionId();
@@ -64,6 +64,7 @@ public class ExecutingQueryTest
     public final FakeHeapAllocation heapAllocation = new FakeHeapAllocation().add( randomLong( 0x1_0000_0000L ) );
     private final PageCursorCountersStub page = new PageCursorCountersStub();
     private long lockCount;
+    private long directAllocatedBytes;
     private ExecutingQuery query = createExecutingquery( 1, "hello world", page, clock, cpuClock, heapAllocation );
     private ExecutingQuery subQuery = createExecutingquery( 2, "goodbye world", page, clock, cpuClock, heapAllocation );
 
@@ -297,6 +298,44 @@ public class ExecutingQueryTest
         assertNull( snapshot.allocatedBytes() );
     }
 
+    @Test
+    public void shouldReportDirectMemoryOfTransactionState()
+    {
+        // given
+        directAllocatedBytes = 1024;
+
+        // then
+        assertEquals( Long.valueOf( 1024 ), query.snapshot().directAllocatedBytes() );
+
+        // when
+        directAllocatedBytes = 0;
+
+        // then
+        assertEquals( Long.valueOf( 0 ), query.snapshot().directAllocatedBytes() );
+    }
+
+    @Test
+    public void shouldNotReportDirectMemoryIfUnavailable()
+    {
+        // given
+        ExecutingQuery query = new ExecutingQuery( 17,
+                ClientConnectionInfo.EMBEDDED_CONNECTION,
+                "neo4j",
+                "hello world",
+                EMPTY_MAP,
+                Collections.emptyMap(),
+                () -> lockCount,
+                PageCursorTracer.NULL,
+                Thread.currentThread().getId(),
+                Thread.currentThread().getName(),
+                clock,
+                FakeCpuClock.NOT_AVAILABLE,
+                HeapAllocation.NOT_AVAILABLE );
+
+        // then
+        assertNull( query.snapshot().directAllocatedBytes() );
+    }
+
     @Test
     public void shouldReportLockCount()
     {
@@ -407,7 +446,8 @@ public class ExecutingQueryTest
             FakeClock clock, FakeCpuClock cpuClock, FakeHeapAllocation heapAllocation )
     {
         return new ExecutingQuery( queryId, ClientConnectionInfo.EMBEDDED_CONNECTION, "neo4j", hello_world,
-                EMPTY_MAP, Collections.emptyMap(), () -> lockCount, page, Thread.currentThread().getId(),
+                EMPTY_MAP, Collections.emptyMap(), () -> lockCount, () -> directAllocatedBytes, page,
+                Thread.currentThread().getId(),
                 Thread.currentThread().getName(), clock, cpuClock, heapAllocation );
     }
 
@@ -48,6 +48,7 @@ import org.neo4j.kernel.impl.locking.NoOpClient;
 import org.neo4j.kernel.impl.locking.SimpleStatementLocks;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.memory.MemoryLimitExceededException;
 import org.neo4j.resources.CpuClock;
 import org.neo4j.resources.HeapAllocation;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -184,6 +185,30 @@ public class KernelTransactionImplementationTest extends KernelTransactionTestBa
         verifyExtraInteractionWithTheMonitor( transactionMonitor, isWriteTx );
     }
 
+    @Test
+    public void shouldRollbackAndThrowOnSuccessAfterRefusedTransactionStateAllocation()
+    {
+        // GIVEN
+        boolean exceptionReceived = false;
+        try ( KernelTransaction transaction = newTransaction( loginContext() ) )
+        {
+            // WHEN
+            transactionInitializer.accept( transaction );
+            memoryLimitExceededListener.accept( new MemoryLimitExceededException( 10, 95, 100 ) );
+            transaction.success();
+        }
+        catch ( TransactionFailureException e )
+        {
+            // Expected.
+            exceptionReceived = true;
+        }
+
+        // THEN
+        assertTrue( exceptionReceived );
+        verify( transactionMonitor, times( 1 ) ).transactionFinished( false, isWriteTx );
+        verifyExtraInteractionWithTheMonitor( transactionMonitor, isWriteTx );
+    }
+
     @Test
     public void shouldRollbackOnClosingTerminatedTransaction()
     {
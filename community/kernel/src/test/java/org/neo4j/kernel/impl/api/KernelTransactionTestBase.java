@@ -23,7 +23,9 @@ import org.junit.Before;
 import org.mockito.Mockito;
 
 import java.util.Collection;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.neo4j.collection.pool.Pool;
@@ -62,7 +64,9 @@ import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
+import org.neo4j.kernel.impl.util.collection.ValuesMap;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
+import org.neo4j.memory.MemoryLimitExceededException;
 import org.neo4j.memory.MemoryTracker;
 import org.neo4j.resources.CpuClock;
 import org.neo4j.resources.HeapAllocation;
@@ -103,6 +107,7 @@ public class KernelTransactionTestBase
     protected final Pool<KernelTransactionImplementation> txPool = mock( Pool.class );
     protected final StatementOperationParts statementOperations = mock( StatementOperationParts.class );
     protected CollectionsFactory collectionsFactory;
+    protected Consumer<MemoryLimitExceededException> memoryLimitExceededListener;
 
     private final long defaultTransactionTimeoutMillis = Config.defaults().get( GraphDatabaseSettings.transaction_timeout ).toMillis();
 
@@ -168,7 +173,11 @@ public class KernelTransactionTestBase
                 transactionMonitor, explicitIndexStateSupplier, txPool, clock, new AtomicReference<>( CpuClock.NOT_AVAILABLE ),
                 new AtomicReference<>( HeapAllocation.NOT_AVAILABLE ), TransactionTracer.NULL, LockTracer.NONE, PageCursorTracerSupplier.NULL, storageEngine,
                 new CanWrite(), new DefaultCursors(), AutoIndexing.UNSUPPORTED,
-                mock( ExplicitIndexStore.class ), EmptyVersionContextSupplier.EMPTY, () -> collectionsFactory,
+                mock( ExplicitIndexStore.class ), EmptyVersionContextSupplier.EMPTY, listener ->
+                {
+                    memoryLimitExceededListener = listener;
+                    return collectionsFactory;
+                },
                 new StandardConstraintSemantics(), mock( SchemaState.class),
                 mock( IndexingService.class ), mock( IndexProviderMap.class ) );
     }
@@ -216,6 +225,24 @@ public class KernelTransactionTestBase
             return OnHeapCollectionsFactory.INSTANCE.newLongDiffSets();
         }
 
+        @Override
+        public Set<Long> newBoxedLongSet()
+        {
+            return OnHeapCollectionsFactory.INSTANCE.newBoxedLongSet();
+        }
+
+        @Override
+        public Set<Integer> newBoxedIntSet()
+        {
+            return OnHeapCollectionsFactory.INSTANCE.newBoxedIntSet();
+        }
+
+        @Override
+        public ValuesMap newValuesMap()
+        {
+            return OnHeapCollectionsFactory.INSTANCE.newValuesMap();
+        }
+
         @Override
         public MemoryTracker getMemoryTracker()
         {
@@ -227,5 +254,11 @@ public class KernelTransactionTestBase
         {
             return false;
         }
+
+        @Override
+        public void release()
+        {
+            OnHeapCollectionsFactory.INSTANCE.release();
+        }
     }
 }
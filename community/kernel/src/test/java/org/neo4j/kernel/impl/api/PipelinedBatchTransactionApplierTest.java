@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PipelinedBatchTransactionApplierTest
+{
+    private final CentralJobScheduler scheduler = new CentralJobScheduler();
+
+    @Before
+    public void setUp()
+    {
+        scheduler.init();
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldApplyAllTransactionsInBothStagesInOrder() throws Exception
+    {
+        // given
+        RecordingApplier first = new RecordingApplier( null );
+        RecordingApplier detached = new RecordingApplier( first );
+        List<CommandsToApply> batch = batch( 100 );
+
+        // when
+        try ( BatchTransactionApplier applier = new PipelinedBatchTransactionApplier( first, detached, scheduler ) )
+        {
+            for ( CommandsToApply transaction : batch )
+            {
+                try ( TransactionApplier txApplier = applier.startTx( transaction, new LockGroup() ) )
+                {
+                    transaction.accept( txApplier );
+                }
+            }
+        }
+
+        // then
+        assertEquals( batch, first.closed );
+        assertEquals( batch, detached.closed );
+        assertTrue( first.batchClosed.get() );
+        assertTrue( detached.batchClosed.get() );
+        assertNotSame( Thread.currentThread(), detached.thread );
+        assertSame( Thread.currentThread(), first.thread );
+    }
+
+    @Test
+    public void shouldRethrowFailureOfDetachedStageOnClose() throws Exception
+    {
+        // given
+        RuntimeException failure = new RuntimeException( "Counts store failure" );
+        RecordingApplier first = new RecordingApplier( null );
+        RecordingApplier detached = new RecordingApplier( null )
+        {
+            @Override
+            public TransactionApplier startTx( CommandsToApply transaction )
+            {
+                throw failure;
+            }
+        };
+        BatchTransactionApplier applier = new PipelinedBatchTransactionApplier( first, detached, scheduler );
+        CommandsToApply transaction = batch( 1 ).get( 0 );
+        try ( TransactionApplier txApplier = applier.startTx( transaction ) )
+        {
+            transaction.accept( txApplier );
+        }
+
+        try
+        {
+            // when
+            applier.close();
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // then
+            assertSame( failure, e.getCause() );
+        }
+        assertTrue( first.batchClosed.get() );
+        assertTrue( detached.batchClosed.get() );
+    }
+
+    @Test
+    public void shouldCompleteDetachedStageEvenIfFirstStageFailsToClose() throws Exception
+    {
+        // given
+        RecordingApplier first = new RecordingApplier( null )
+        {
+            @Override
+            public void close() throws Exception
+            {
+                throw new IllegalStateException( "Index failure" );
+            }
+        };
+        RecordingApplier detached = new RecordingApplier( null );
+        BatchTransactionApplier applier = new PipelinedBatchTransactionApplier( first, detached, scheduler );
+        List<CommandsToApply> batch = batch( 3 );
+        for ( CommandsToApply transaction : batch )
+        {
+            try ( TransactionApplier txApplier = applier.startTx( transaction ) )
+            {
+                transaction.accept( txApplier );
+            }
+        }
+
+        try
+        {
+            // when
+            applier.close();
+            fail( "Should have failed" );
+        }
+        catch ( Exception e )
+        {
+            // then
+            assertThat( e, instanceOf( IllegalStateException.class ) );
+        }
+        assertEquals( batch, detached.closed );
+        assertTrue( detached.batchClosed.get() );
+    }
+
+    private static List<CommandsToApply> batch( int size )
+    {
+        CommandsToApply[] transactions = new CommandsToApply[size];
+        for ( int i = size - 1; i >= 0; i-- )
+        {
+            transactions[i] = mock( CommandsToApply.class );
+            when( transactions[i].transactionId() ).thenReturn( i + 2L );
+            when( transactions[i].next() ).thenReturn( i + 1 < size ? transactions[i + 1] : null );
+        }
+        return asList( transactions );
+    }
+
+    private static class RecordingApplier extends BatchTransactionApplier.Adapter
+    {
+        private final RecordingApplier before;
+        private final List<CommandsToApply> closed = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean batchClosed = new AtomicBoolean();
+        private volatile Thread thread;
+
+        RecordingApplier( RecordingApplier before )
+        {
+            this.before = before;
+        }
+
+        @Override
+        public TransactionApplier startTx( CommandsToApply transaction )
+        {
+            thread = Thread.currentThread();
+            if ( before != null && !before.closed.contains( transaction ) )
+            {
+                throw new IllegalStateException( "Transaction " + transaction.transactionId() +
+                        " handed over before it was applied by the first stage" );
+            }
+            return new TransactionApplier.Adapter()
+            {
+                @Override
+                public void close()
+                {
+                    closed.add( transaction );
+                }
+            };
+        }
+
+        @Override
+        public void close() throws Exception
+        {
+            batchClosed.set( true );
+        }
+    }
+}
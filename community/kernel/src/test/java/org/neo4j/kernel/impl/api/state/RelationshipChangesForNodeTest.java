@@ -27,6 +27,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.newapi.RelationshipDirection;
+import org.neo4j.kernel.impl.util.collection.OnHeapCollectionsFactory;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -48,7 +49,8 @@ public class RelationshipChangesForNodeTest
     public void testOutgoingRelsWithTypeAndLoop()
     {
         RelationshipChangesForNode changes = new RelationshipChangesForNode(
-                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ) );
+                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ),
+                OnHeapCollectionsFactory.INSTANCE );
         changes.addRelationship( REL_0, TYPE_SELF, BOTH );
         changes.addRelationship( REL_1, TYPE_DIR, OUTGOING );
 
@@ -62,7 +64,8 @@ public class RelationshipChangesForNodeTest
     public void testIncomingRelsWithTypeAndLoop()
     {
         RelationshipChangesForNode changes = new RelationshipChangesForNode(
-                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ) );
+                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ),
+                OnHeapCollectionsFactory.INSTANCE );
         changes.addRelationship( REL_0, TYPE_SELF, BOTH );
         changes.addRelationship( REL_1, TYPE_DIR, INCOMING );
 
@@ -76,7 +79,8 @@ public class RelationshipChangesForNodeTest
     public void shouldGetRelationships()
     {
         RelationshipChangesForNode changes = new RelationshipChangesForNode(
-                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ) );
+                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ),
+                OnHeapCollectionsFactory.INSTANCE );
 
         final int TYPE = 2;
 
@@ -95,7 +99,8 @@ public class RelationshipChangesForNodeTest
     public void shouldGetRelationshipsByTypeAndDirection()
     {
         RelationshipChangesForNode changes = new RelationshipChangesForNode(
-                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ) );
+                RelationshipChangesForNode.DiffStrategy.ADD, mock( RelationshipVisitor.Home.class ),
+                OnHeapCollectionsFactory.INSTANCE );
 
         final int TYPE = 2;
         final int DECOY_TYPE = 666;
@@ -41,6 +41,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.neo4j.cursor.Cursor;
 import org.neo4j.helpers.collection.Iterables;
@@ -56,6 +57,7 @@ import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptor;
 import org.neo4j.kernel.api.schema.index.SchemaIndexDescriptorFactory;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactory;
 import org.neo4j.kernel.impl.util.collection.CollectionsFactorySupplier;
+import org.neo4j.memory.MemoryLimitExceededException;
 import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.txstate.PrimitiveLongReadableDiffSets;
@@ -125,9 +127,9 @@ public class TxStateTest
                 new CollectionsFactorySupplier()
                 {
                     @Override
-                    public CollectionsFactory create()
+                    public CollectionsFactory create( Consumer<MemoryLimitExceededException> memoryLimitExceededListener )
                     {
-                        return CollectionsFactorySupplier.ON_HEAP.create();
+                        return CollectionsFactorySupplier.ON_HEAP.create( memoryLimitExceededListener );
                     }
 
                     @Override
@@ -139,9 +141,9 @@ public class TxStateTest
                 new CollectionsFactorySupplier()
                 {
                     @Override
-                    public CollectionsFactory create()
+                    public CollectionsFactory create( Consumer<MemoryLimitExceededException> memoryLimitExceededListener )
                     {
-                        return CollectionsFactorySupplier.OFF_HEAP.create();
+                        return CollectionsFactorySupplier.OFF_HEAP.create( memoryLimitExceededListener );
                     }
 
                     @Override
@@ -156,7 +158,9 @@ public class TxStateTest
     @Before
     public void before()
     {
-        collectionsFactory = collectionsFactorySupplier.create();
+        collectionsFactory = collectionsFactorySupplier.create( refusal ->
+        {
+        } );
         state = new TxState( collectionsFactory );
     }
 
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.newapi;
+
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DefaultRelationshipScanCursorTest
+{
+    private final Read read = mock( Read.class );
+    private final PageCursor scanPageCursor = mock( PageCursor.class );
+    private final PageCursor pointPageCursor = mock( PageCursor.class );
+
+    @Test
+    public void shouldSwitchToPointPageCursorForSingleAfterScan()
+    {
+        // given a pooled cursor that was used for scanning, i.e. with read-ahead and transient page access
+        when( read.relationshipScanPage( 0 ) ).thenReturn( scanPageCursor );
+        when( read.relationshipPage( 10 ) ).thenReturn( pointPageCursor );
+        DefaultRelationshipScanCursor cursor = new DefaultRelationshipScanCursor( mock( DefaultCursors.class ) );
+        cursor.scan( -1, read );
+
+        // when
+        cursor.single( 10, read );
+
+        // then
+        verify( scanPageCursor ).close();
+        verify( read ).relationshipPage( 10 );
+        cursor.release();
+        verify( pointPageCursor ).close();
+    }
+
+    @Test
+    public void shouldSwitchToScanPageCursorForScanAfterSingle()
+    {
+        // given a pooled cursor that was used for a point lookup
+        when( read.relationshipPage( 10 ) ).thenReturn( pointPageCursor );
+        when( read.relationshipScanPage( 0 ) ).thenReturn( scanPageCursor );
+        DefaultRelationshipScanCursor cursor = new DefaultRelationshipScanCursor( mock( DefaultCursors.class ) );
+        cursor.single( 10, read );
+
+        // when
+        cursor.scan( -1, read );
+
+        // then
+        verify( pointPageCursor ).close();
+        verify( read ).relationshipScanPage( 0 );
+        cursor.release();
+        verify( scanPageCursor ).close();
+    }
+
+    @Test
+    public void shouldKeepPageCursorWhenAccessModeIsUnchanged()
+    {
+        when( read.relationshipPage( 10 ) ).thenReturn( pointPageCursor );
+        DefaultRelationshipScanCursor cursor = new DefaultRelationshipScanCursor( mock( DefaultCursors.class ) );
+
+        cursor.single( 10, read );
+        cursor.single( 11, read );
+
+        verify( read, times( 1 ) ).relationshipPage( 10 );
+        verify( read, never() ).relationshipPage( 11 );
+        verify( pointPageCursor, never() ).close();
+        cursor.release();
+    }
+}
@@ -130,12 +130,24 @@ public class MockStore extends Read implements TestRule
         return null;
     }
 
+    @Override
+    PageCursor nodeScanPage( long reference )
+    {
+        return null;
+    }
+
     @Override
     PageCursor relationshipPage( long reference )
     {
         return null;
     }
 
+    @Override
+    PageCursor relationshipScanPage( long reference )
+    {
+        return null;
+    }
+
     @Override
     PageCursor groupPage( long reference )
     {
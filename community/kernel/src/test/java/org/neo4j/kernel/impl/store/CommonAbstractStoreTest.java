@@ -86,6 +86,7 @@ import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Pin;
 import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
@@ -165,6 +166,20 @@ public class CommonAbstractStoreTest
         order.verify( pageCursor ).shouldRetry();
     }
 
+    @Test
+    public void onlyScanningRecordCursorsReadAhead() throws IOException
+    {
+        TheStore store = newStore();
+        long recordId = 4;
+        long pageIdForRecord = store.pageIdForRecord( recordId );
+
+        store.newRecordCursor( newRecord( -1 ) ).acquire( recordId, RecordLoad.FORCE ).close();
+        verify( pageFile ).io( pageIdForRecord, PagedFile.PF_SHARED_READ_LOCK );
+
+        store.newScanningRecordCursor( newRecord( -1 ) ).acquire( recordId, RecordLoad.FORCE ).close();
+        verify( pageFile ).io( pageIdForRecord, PagedFile.PF_SHARED_READ_LOCK | PagedFile.PF_READ_AHEAD );
+    }
+
     @Test
     public void failStoreInitializationWhenHeaderRecordCantBeRead() throws IOException
     {
@@ -58,12 +58,14 @@ import org.neo4j.internal.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.api.properties.PropertyKeyValue;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.api.KernelStatement;
 import org.neo4j.kernel.impl.api.KernelTransactionImplementation;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.core.RelationshipTypeToken;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.store.MetaDataStore.Position;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.format.RecordFormatSelector;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
@@ -107,6 +109,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.function.Predicates.ALWAYS_TRUE_INT;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.counts_store_gbptree;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.counts_store_rotation_timeout;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
 import static org.neo4j.internal.kernel.api.security.LoginContext.AUTH_DISABLED;
@@ -116,6 +119,7 @@ import static org.neo4j.kernel.impl.store.RecordStore.getRecord;
 import static org.neo4j.kernel.impl.store.format.standard.MetaDataRecordFormat.FIELD_NOT_PRESENT;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
 import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_COMMIT_TIMESTAMP;
+import static org.neo4j.register.Registers.newDoubleLongRegister;
 import static org.neo4j.storageengine.api.Direction.BOTH;
 
 public class NeoStoresTest
@@ -781,7 +785,7 @@ public class NeoStoresTest
         NeoStores neoStore = factory.openAllNeoStores( true );
 
         // let's hack the counts store so it fails to rotate and hence it fails to close as well...
-        final CountsTracker counts = neoStore.getCounts();
+        final CountsStore counts = neoStore.getCounts();
         counts.start();
         long nextTxId = neoStore.getMetaDataStore().getLastCommittedTransactionId() + 1;
         AtomicReference<Throwable> exRef = new AtomicReference<>();
@@ -828,6 +832,25 @@ public class NeoStoresTest
         assertNull( exRef.get() );
     }
 
+    @Test
+    public void shouldOnlyRebuildCountsStoreIfTheOtherImplementationHasSeenLaterTransactions() throws Exception
+    {
+        // given both counts stores at the same transaction
+        long txId = TransactionIdStore.BASE_TX_ID + 1;
+        incrementNodeCount( false, txId, 5 );
+        incrementNodeCount( true, txId, 7 );
+        File storeFile = new File( storeDir, MetaDataStore.DEFAULT_NAME + StoreFactory.COUNTS_STORE );
+        assertTrue( fs.get().fileExists( new File( storeFile.getPath() + CountsTracker.LEFT ) ) );
+        assertEquals( 5, nodeCount( false ) );
+
+        // when the tree sees a later transaction
+        incrementNodeCount( true, txId + 1, 1 );
+
+        // then
+        assertEquals( 0, nodeCount( false ) );
+        assertEquals( 8, nodeCount( true ) );
+    }
+
     @Test
     public void isPresentAfterCreatingAllStores() throws Exception
     {
@@ -897,6 +920,36 @@ public class NeoStoresTest
         }
     }
 
+    private void incrementNodeCount( boolean gbpTree, long txId, long delta ) throws IOException
+    {
+        try ( NeoStores neoStores = countsStoreFactory( gbpTree ).openAllNeoStores() )
+        {
+            neoStores.startCountStore();
+            CountsStore counts = neoStores.getCounts();
+            try ( CountsAccessor.Updater updater = counts.apply( txId ).get() )
+            {
+                updater.incrementNodeCount( 0, delta );
+            }
+            counts.rotate( txId );
+        }
+    }
+
+    private long nodeCount( boolean gbpTree ) throws IOException
+    {
+        try ( NeoStores neoStores = countsStoreFactory( gbpTree ).openAllNeoStores() )
+        {
+            neoStores.startCountStore();
+            return neoStores.getCounts().nodeCount( 0, newDoubleLongRegister() ).readSecond();
+        }
+    }
+
+    private StoreFactory countsStoreFactory( boolean gbpTree )
+    {
+        Config config = Config.defaults( counts_store_gbptree, String.valueOf( gbpTree ) );
+        return new StoreFactory( storeDir, config, new DefaultIdGeneratorFactory( fs.get() ), pageCache, fs.get(),
+                LOG_PROVIDER, EmptyVersionContextSupplier.EMPTY );
+    }
+
     private static long defaultStoreVersion()
     {
         return MetaDataStore.versionStringToLong( RecordFormatSelector.defaultFormat().storeVersion() );
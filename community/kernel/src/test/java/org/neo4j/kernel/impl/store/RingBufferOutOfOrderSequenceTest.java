@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import org.junit.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.neo4j.kernel.impl.util.OutOfOrderSequence;
+import org.neo4j.kernel.impl.util.RingBufferOutOfOrderSequence;
+import org.neo4j.test.Race;
+
+import static java.lang.Integer.max;
+import static java.util.Arrays.copyOfRange;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RingBufferOutOfOrderSequenceTest
+{
+    private final long[] EMPTY_META = new long[]{42L};
+
+    @Test
+    public void shouldExposeGapFreeSequenceSingleThreaded()
+    {
+        // GIVEN
+        OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 0L, 16, new long[1] );
+
+        // WHEN/THEN
+        sequence.offer( 1, new long[]{1} );
+        assertGet( sequence, 1, new long[]{1} );
+
+        sequence.offer( 2, new long[]{2} );
+        assertGet( sequence, 2, new long[]{2} );
+
+        sequence.offer( 4, new long[]{3} );
+        assertGet( sequence, 2, new long[]{2} );
+
+        sequence.offer( 3, new long[]{4} );
+        assertGet( sequence, 4, new long[]{3} );
+
+        sequence.offer( 5, new long[]{5} );
+        assertGet( sequence, 5, new long[]{5} );
+
+        // AND WHEN/THEN
+        sequence.offer( 10, new long[]{6} );
+        sequence.offer( 11, new long[]{7} );
+        sequence.offer( 8, new long[]{8} );
+        sequence.offer( 9, new long[]{9} );
+        sequence.offer( 7, new long[]{10} );
+        assertGet( sequence, 5, new long[]{5} );
+        sequence.offer( 6, new long[]{11} );
+        assertGet( sequence, 11L, new long[]{7} );
+    }
+
+    @Test
+    public void shouldTellWhetherOfferMovedHighestGapFreeNumber()
+    {
+        // GIVEN
+        OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 0, 16, new long[1] );
+        assertTrue( sequence.offer( 1, new long[]{0} ) );
+        assertFalse( sequence.offer( 3, new long[]{0} ) );
+        assertFalse( sequence.offer( 4, new long[]{0} ) );
+        assertTrue( sequence.offer( 2, new long[]{0} ) );
+        assertFalse( sequence.offer( 6, new long[]{0} ) );
+        assertTrue( sequence.offer( 5, new long[]{0} ) );
+        // leave out 7
+        assertFalse( sequence.offer( 8, new long[]{0} ) );
+        assertFalse( sequence.offer( 9, new long[]{0} ) );
+        assertFalse( sequence.offer( 10, new long[]{0} ) );
+
+        // WHEN finally offering nr 7
+        assertTrue( sequence.offer( 7, new long[]{0} ) );
+
+        // THEN the number should jump to 10
+        assertGet( sequence, 10, new long[]{0} );
+    }
+
+    @Test
+    public void shouldReuseSlotsOfNumbersBehindHighestGapFreeNumber()
+    {
+        // GIVEN a sequence that has wrapped around its ring buffer a couple of times
+        OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 0, 4, new long[1] );
+        for ( long number = 1; number <= 10; number++ )
+        {
+            assertTrue( sequence.offer( number, new long[]{number} ) );
+        }
+
+        // WHEN offering numbers out of order, as far ahead as the ring buffer allows
+        assertFalse( sequence.offer( 14, new long[]{14} ) );
+        assertFalse( sequence.offer( 12, new long[]{12} ) );
+        assertFalse( sequence.offer( 13, new long[]{13} ) );
+        assertTrue( sequence.offer( 11, new long[]{11} ) );
+
+        // THEN
+        assertGet( sequence, 14, new long[]{14} );
+    }
+
+    @Test
+    public void shouldWaitForRoomWhenOfferingTooFarAhead() throws Exception
+    {
+        // GIVEN
+        OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 0, 4, EMPTY_META );
+        Semaphore offered = new Semaphore( 0 );
+        Thread offerer = new Thread( () ->
+        {
+            sequence.offer( 5, EMPTY_META );
+            offered.release();
+        } );
+
+        // WHEN
+        offerer.start();
+
+        // THEN
+        assertFalse( offered.tryAcquire( 10, TimeUnit.MILLISECONDS ) );
+        sequence.offer( 1, EMPTY_META );
+        assertTrue( offered.tryAcquire( 10_000, TimeUnit.MILLISECONDS ) );
+        offerer.join();
+        for ( long number = 2; number <= 4; number++ )
+        {
+            sequence.offer( number, EMPTY_META );
+        }
+        assertEquals( 5, sequence.getHighestGapFreeNumber() );
+    }
+
+    @Test
+    public void shouldForgetOfferedNumbersWhenSet()
+    {
+        // GIVEN
+        OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 0, 16, new long[1] );
+        sequence.offer( 3, new long[]{3} );
+        sequence.offer( 7, new long[]{7} );
+
+        // WHEN
+        sequence.set( 5, new long[]{5} );
+
+        // THEN
+        assertGet( sequence, 5, new long[]{5} );
+        assertEquals( 5, sequence.highestEverSeen() );
+        sequence.offer( 6, new long[]{6} );
+        assertGet( sequence, 6, new long[]{6} );
+    }
+
+    @Test
+    public void shouldKeepItsCoolWhenMultipleThreadsAreHammeringIt() throws Throwable
+    {
+        // GIVEN a sequence with intentionally small ring buffer
+        LongFunction<long[]> metaFunction = number -> new long[]{number + 2, number * 2};
+        final AtomicLong numberSource = new AtomicLong();
+        final OutOfOrderSequence sequence =
+                new RingBufferOutOfOrderSequence( numberSource.get(), 8, metaFunction.apply( numberSource.get() ) );
+        final Race race = new Race().withEndCondition( () -> numberSource.get() > 10_000_000 );
+        int offerThreads = max( 2, Runtime.getRuntime().availableProcessors() - 1 );
+        race.addContestants( offerThreads, () ->
+        {
+            long number = numberSource.incrementAndGet();
+            sequence.offer( number, metaFunction.apply( number ) );
+        } );
+        Runnable verifier = () ->
+        {
+            long[] highest = sequence.get();
+            long[] expectedMeta = metaFunction.apply( highest[0] );
+            assertArrayEquals( expectedMeta, copyOfRange( highest, 1, highest.length ) );
+        };
+        race.addContestant( verifier );
+        race.go();
+
+        // THEN
+        verifier.run();
+        assertEquals( numberSource.get(), sequence.getHighestGapFreeNumber() );
+    }
+
+    @Test
+    public void highestEverSeenTest()
+    {
+        final OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 0, 64, EMPTY_META );
+        assertEquals( 0L, sequence.highestEverSeen() );
+
+        sequence.offer( 1L, EMPTY_META );
+        assertEquals( 1L, sequence.highestEverSeen() );
+
+        sequence.offer( 42L, EMPTY_META );
+        assertEquals( 42L, sequence.highestEverSeen() );
+    }
+
+    @Test
+    public void shouldBeAbleToTimeoutWaitingForNumber() throws Exception
+    {
+        // given
+        final OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 3, 16, EMPTY_META );
+
+        try
+        {
+            // when
+            sequence.await( 4, 10 );
+            fail();
+        }
+        catch ( TimeoutException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldBeNotifiedWhenNumberAvailable() throws Exception
+    {
+        // given
+        final Semaphore done = new Semaphore( 0 );
+        final OutOfOrderSequence sequence = new RingBufferOutOfOrderSequence( 3, 16, EMPTY_META );
+
+        Thread numberWaiter = new Thread( () ->
+        {
+            try
+            {
+                sequence.await( 5, 60_000 );
+            }
+            catch ( TimeoutException | InterruptedException e )
+            {
+                fail( "Should not have thrown" );
+            }
+
+            done.release();
+        } );
+
+        numberWaiter.start();
+
+        assertFalse( done.tryAcquire( 10, TimeUnit.MILLISECONDS ) );
+        sequence.offer( 4, EMPTY_META );
+        assertFalse( done.tryAcquire( 10, TimeUnit.MILLISECONDS ) );
+        sequence.offer( 5, EMPTY_META );
+        assertTrue( done.tryAcquire( 10_000, TimeUnit.MILLISECONDS ) );
+
+        numberWaiter.join();
+    }
+
+    private void assertGet( OutOfOrderSequence sequence, long number, long[] meta )
+    {
+        long[] data = sequence.get();
+        long[] expected = new long[meta.length + 1];
+        expected[0] = number;
+        System.arraycopy( meta, 0, expected, 1, meta.length );
+        assertArrayEquals( expected, data );
+    }
+}
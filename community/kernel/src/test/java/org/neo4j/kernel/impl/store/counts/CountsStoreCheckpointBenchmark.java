@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.StandalonePageCacheFactory;
+import org.neo4j.io.pagecache.tracing.cursor.context.EmptyVersionContextSupplier;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.logging.NullLogProvider;
+
+/**
+ * Compares the checkpoint time of the {@link CountsTracker}, which rewrites its whole store file on every rotation,
+ * with the {@link GBPTreeCountsStore}, which only writes the changed counts. Both stores are filled with a number of
+ * relationship counts, after which every round applies a number of transactions, each changing a few random counts,
+ * and times the {@link CountsStore#rotate(long) rotation} that follows, as done by a database checkpoint.
+ * <p>
+ * Run with the directory to put the store files in as the first argument. The number of counts in the store, and the
+ * number of transactions to apply between checkpoints, can optionally be given as the following arguments.
+ */
+public class CountsStoreCheckpointBenchmark
+{
+    private static final int ROUNDS = 10;
+    private static final int CHANGES_PER_TRANSACTION = 4;
+    private static final int TYPES = 16;
+
+    public static void main( String[] args ) throws Exception
+    {
+        File directory = new File( args[0] );
+        int counts = args.length > 1 ? Integer.parseInt( args[1] ) : 1_000_000;
+        int transactionsPerCheckpoint = args.length > 2 ? Integer.parseInt( args[2] ) : 10_000;
+
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+              PageCache pageCache = StandalonePageCacheFactory.createPageCache( fs ) )
+        {
+            File trackerFile = new File( directory, "tracker-benchmark.counts.db" );
+            run( "tracker", fs, new CountsTracker( NullLogProvider.getInstance(), fs, pageCache, Config.defaults(),
+                    trackerFile, EmptyVersionContextSupplier.EMPTY ), counts, transactionsPerCheckpoint );
+            File treeFile = new File( directory, "gbptree-benchmark.counts.db" );
+            run( "gbptree", fs, new GBPTreeCountsStore( pageCache, treeFile, RecoveryCleanupWorkCollector.immediate(),
+                    false, TimeUnit.MINUTES.toMillis( 10 ) ), counts, transactionsPerCheckpoint );
+        }
+    }
+
+    private static void run( String name, FileSystemAbstraction fs, CountsStore store, int counts,
+            int transactionsPerCheckpoint ) throws IOException
+    {
+        long txId = 1;
+        store.setInitializer( initializer( counts, txId ) );
+        store.init();
+        store.start();
+        try
+        {
+            long totalNanos = 0;
+            for ( int round = 0; round < ROUNDS; round++ )
+            {
+                for ( int i = 0; i < transactionsPerCheckpoint; i++ )
+                {
+                    applyTransaction( store, ++txId, counts );
+                }
+                long startTime = System.nanoTime();
+                store.rotate( txId );
+                long elapsedNanos = System.nanoTime() - startTime;
+                // The first round is warmup
+                if ( round > 0 )
+                {
+                    totalNanos += elapsedNanos;
+                }
+            }
+            long size = 0;
+            for ( File file : store.allFiles() )
+            {
+                size += fs.getFileSize( file );
+            }
+            System.out.printf( "%-8s %10d counts %8d tx/checkpoint %10.2f ms/checkpoint %10d KiB store%n",
+                    name, counts, transactionsPerCheckpoint,
+                    totalNanos / (double) (ROUNDS - 1) / TimeUnit.MILLISECONDS.toNanos( 1 ), size / 1024 );
+        }
+        finally
+        {
+            store.shutdown();
+            for ( File file : store.allFiles() )
+            {
+                fs.deleteFile( file );
+            }
+        }
+    }
+
+    private static void applyTransaction( CountsStore store, long txId, int counts )
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try ( CountsAccessor.Updater updater = store.apply( txId ).get() )
+        {
+            for ( int i = 0; i < CHANGES_PER_TRANSACTION; i++ )
+            {
+                int count = random.nextInt( counts );
+                updater.incrementRelationshipCount( count / TYPES, count % TYPES, -1, random.nextBoolean() ? 1 : -1 );
+            }
+        }
+    }
+
+    private static DataInitializer<CountsAccessor.Updater> initializer( int counts, long txId )
+    {
+        return new DataInitializer<CountsAccessor.Updater>()
+        {
+            @Override
+            public void initialize( CountsAccessor.Updater updater )
+            {
+                for ( int count = 0; count < counts; count++ )
+                {
+                    updater.incrementRelationshipCount( count / TYPES, count % TYPES, -1, 1_000 );
+                }
+            }
+
+            @Override
+            public long initialVersion()
+            {
+                return txId;
+            }
+        };
+    }
+}
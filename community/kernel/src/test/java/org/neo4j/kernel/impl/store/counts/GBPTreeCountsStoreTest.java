@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.api.CountsAccessor;
+import org.neo4j.kernel.impl.api.CountsVisitor;
+import org.neo4j.kernel.impl.store.kvstore.DataInitializer;
+import org.neo4j.kernel.impl.store.kvstore.RotationTimeoutException;
+import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.register.Registers.newDoubleLongRegister;
+
+public class GBPTreeCountsStoreTest
+{
+    private static final int LABEL = 1;
+    private static final int OTHER_LABEL = 2;
+    private static final int TYPE = 3;
+    private static final long ROTATION_TIMEOUT_MILLIS = 100;
+
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File file = new File( "counts" );
+    private PageCache pageCache;
+    private GBPTreeCountsStore countsStore;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        pageCache = pageCacheRule.getPageCache( fsRule.get() );
+        countsStore = open( initializer( 1 ) );
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        countsStore.close();
+    }
+
+    @Test
+    public void shouldSeeAppliedChangesBeforeCheckpoint()
+    {
+        applyTransaction( 2, LABEL, 5 );
+        applyTransaction( 3, LABEL, -2 );
+
+        assertEquals( 3, nodeCount( LABEL ) );
+        assertEquals( 0, nodeCount( OTHER_LABEL ) );
+        assertEquals( 3, countsStore.txId() );
+    }
+
+    @Test
+    public void shouldKeepCountsOverCheckpointAndReopen() throws IOException
+    {
+        applyTransaction( 2, LABEL, 5 );
+        try ( CountsAccessor.Updater updater = countsStore.apply( 3 ).get() )
+        {
+            updater.incrementRelationshipCount( LABEL, TYPE, -1, 7 );
+            updater.incrementRelationshipCount( -1, -1, -1, 7 );
+        }
+        assertEquals( 3, countsStore.checkpoint( IOLimiter.unlimited() ) );
+        applyTransaction( 4, LABEL, 1 );
+
+        reopen();
+
+        assertEquals( 4, countsStore.txId() );
+        assertEquals( 6, nodeCount( LABEL ) );
+        assertEquals( 7, countsStore.relationshipCount( LABEL, TYPE, -1, newDoubleLongRegister() ).readSecond() );
+        assertEquals( 7, countsStore.relationshipCount( -1, -1, -1, newDoubleLongRegister() ).readSecond() );
+        assertEquals( 0, countsStore.relationshipCount( -1, TYPE, LABEL, newDoubleLongRegister() ).readSecond() );
+    }
+
+    @Test
+    public void shouldSkipTransactionsContainedInCheckpointWhenRecovering() throws IOException
+    {
+        EphemeralFileSystemAbstraction crashedFs;
+        applyTransaction( 2, LABEL, 1 );
+        // applied out of order
+        applyTransaction( 4, LABEL, 10 );
+        countsStore.checkpoint( IOLimiter.unlimited() );
+        applyTransaction( 3, LABEL, 100 );
+        applyTransaction( 5, LABEL, 1000 );
+        crashedFs = fsRule.get().snapshot();
+        countsStore.close();
+
+        pageCache = pageCacheRule.getPageCache( crashedFs );
+        countsStore = open( initializer( 0 ) );
+
+        assertEquals( 2, countsStore.txId() );
+        assertEquals( 11, nodeCount( LABEL ) );
+        // recovery of transactions 3 to 5
+        applyTransaction( 3, LABEL, 100 );
+        assertFalse( countsStore.apply( 4 ).isPresent() );
+        applyTransaction( 5, LABEL, 1000 );
+        assertEquals( 5, countsStore.txId() );
+        assertEquals( 1111, nodeCount( LABEL ) );
+    }
+
+    @Test
+    public void shouldRotateOnlyWhenAllTransactionsUpToTheRequestedOneAreApplied() throws IOException
+    {
+        applyTransaction( 2, LABEL, 1 );
+        applyTransaction( 4, LABEL, 10 );
+
+        try
+        {
+            countsStore.rotate( 4 );
+            fail( "Should have timed out waiting for transaction 3" );
+        }
+        catch ( RotationTimeoutException e )
+        {
+            // expected
+        }
+        applyTransaction( 3, LABEL, 100 );
+
+        assertEquals( 4, countsStore.rotate( 4 ) );
+    }
+
+    @Test
+    public void shouldRebuildCreatedStoreWhichWasNeverStarted() throws IOException
+    {
+        countsStore.close();
+        fsRule.get().deleteFile( file );
+        GBPTreeCountsStore notStarted = new GBPTreeCountsStore( pageCache, file,
+                RecoveryCleanupWorkCollector.immediate(), false, ROTATION_TIMEOUT_MILLIS );
+        notStarted.init();
+        notStarted.shutdown();
+
+        countsStore = open( initializer( 5 ) );
+
+        assertEquals( 5, countsStore.txId() );
+    }
+
+    @Test
+    public void shouldNotApplyTransactionTwice()
+    {
+        applyTransaction( 2, LABEL, 1 );
+
+        assertFalse( countsStore.apply( 1 ).isPresent() );
+        assertFalse( countsStore.apply( 2 ).isPresent() );
+        Optional<CountsAccessor.Updater> updater = countsStore.apply( 3 );
+        assertTrue( updater.isPresent() );
+        updater.get().close();
+    }
+
+    @Test
+    public void shouldFillCreatedStoreUsingInitializer() throws IOException
+    {
+        countsStore.close();
+        fsRule.get().deleteFile( file );
+
+        countsStore = open( new DataInitializer<CountsAccessor.Updater>()
+        {
+            @Override
+            public void initialize( CountsAccessor.Updater updater )
+            {
+                updater.incrementNodeCount( LABEL, 42 );
+            }
+
+            @Override
+            public long initialVersion()
+            {
+                return 10;
+            }
+        } );
+
+        assertEquals( 10, countsStore.txId() );
+        assertEquals( 42, nodeCount( LABEL ) );
+        assertFalse( countsStore.apply( 10 ).isPresent() );
+    }
+
+    @Test
+    public void shouldReplaceAllCountsOnReset() throws IOException
+    {
+        applyTransaction( 2, LABEL, 5 );
+        applyTransaction( 3, OTHER_LABEL, 5 );
+        countsStore.checkpoint( IOLimiter.unlimited() );
+        applyTransaction( 4, LABEL, 5 );
+
+        try ( CountsAccessor.Updater updater = countsStore.reset( 20 ) )
+        {
+            updater.incrementNodeCount( OTHER_LABEL, 1 );
+        }
+
+        assertEquals( 20, countsStore.txId() );
+        assertEquals( 0, nodeCount( LABEL ) );
+        assertEquals( 1, nodeCount( OTHER_LABEL ) );
+        reopen();
+        assertEquals( 20, countsStore.txId() );
+        assertEquals( 0, nodeCount( LABEL ) );
+        assertEquals( 1, nodeCount( OTHER_LABEL ) );
+    }
+
+    @Test
+    public void shouldKeepIndexStatistics() throws IOException
+    {
+        try ( CountsAccessor.IndexStatsUpdater updater = countsStore.updateIndexCounts() )
+        {
+            updater.replaceIndexUpdateAndSize( 7, 1, 100 );
+            updater.replaceIndexSample( 7, 50, 100 );
+        }
+        countsStore.checkpoint( IOLimiter.unlimited() );
+        try ( CountsAccessor.IndexStatsUpdater updater = countsStore.updateIndexCounts() )
+        {
+            updater.incrementIndexUpdates( 7, 3 );
+        }
+
+        reopen();
+
+        DoubleLongRegister register = countsStore.indexUpdatesAndSize( 7, newDoubleLongRegister() );
+        assertEquals( 4, register.readFirst() );
+        assertEquals( 100, register.readSecond() );
+        register = countsStore.indexSample( 7, newDoubleLongRegister() );
+        assertEquals( 50, register.readFirst() );
+        assertEquals( 100, register.readSecond() );
+    }
+
+    @Test
+    public void shouldVisitCheckpointedAndChangedCountsButNotZeroCounts() throws IOException
+    {
+        applyTransaction( 2, LABEL, 5 );
+        applyTransaction( 3, OTHER_LABEL, 3 );
+        countsStore.checkpoint( IOLimiter.unlimited() );
+        applyTransaction( 4, LABEL, 1 );
+        applyTransaction( 5, OTHER_LABEL, -3 );
+
+        List<String> visited = new ArrayList<>();
+        countsStore.accept( new CountsVisitor.Adapter()
+        {
+            @Override
+            public void visitNodeCount( int labelId, long count )
+            {
+                visited.add( labelId + ":" + count );
+            }
+        } );
+
+        assertEquals( 1, visited.size() );
+        assertEquals( LABEL + ":6", visited.get( 0 ) );
+    }
+
+    @Test
+    public void shouldNotLoseChangesAppliedConcurrentlyWithCheckpoints() throws Throwable
+    {
+        int transactionsPerThread = 1_000;
+        int threads = 4;
+        AtomicLong nextTxId = new AtomicLong( 2 );
+        Race race = new Race();
+        race.addContestants( threads, () ->
+        {
+            for ( int i = 0; i < transactionsPerThread; i++ )
+            {
+                applyTransaction( nextTxId.getAndIncrement(), LABEL, 1 );
+            }
+        } );
+        race.addContestant( Race.throwing( () ->
+        {
+            for ( int i = 0; i < 20; i++ )
+            {
+                countsStore.checkpoint( IOLimiter.unlimited() );
+            }
+        } ) );
+        race.go();
+
+        long lastTxId = nextTxId.get() - 1;
+        assertEquals( lastTxId, countsStore.checkpoint( IOLimiter.unlimited() ) );
+        reopen();
+        assertEquals( lastTxId, countsStore.txId() );
+        assertEquals( threads * transactionsPerThread, nodeCount( LABEL ) );
+    }
+
+    private void applyTransaction( long txId, int labelId, long delta )
+    {
+        Optional<CountsAccessor.Updater> updater = countsStore.apply( txId );
+        assertTrue( "Transaction " + txId + " already applied", updater.isPresent() );
+        try ( CountsAccessor.Updater transactionUpdater = updater.get() )
+        {
+            transactionUpdater.incrementNodeCount( labelId, delta );
+        }
+    }
+
+    private long nodeCount( int labelId )
+    {
+        return countsStore.nodeCount( labelId, newDoubleLongRegister() ).readSecond();
+    }
+
+    private void reopen() throws IOException
+    {
+        countsStore.close();
+        countsStore = open( initializer( 0 ) );
+    }
+
+    private GBPTreeCountsStore open( DataInitializer<CountsAccessor.Updater> initializer ) throws IOException
+    {
+        GBPTreeCountsStore store = new GBPTreeCountsStore( pageCache, file, RecoveryCleanupWorkCollector.immediate(),
+                false, ROTATION_TIMEOUT_MILLIS ).setInitializer( initializer );
+        store.init();
+        store.start();
+        return store;
+    }
+
+    private static DataInitializer<CountsAccessor.Updater> initializer( long initialTxId )
+    {
+        return new DataInitializer<CountsAccessor.Updater>()
+        {
+            @Override
+            public void initialize( CountsAccessor.Updater updater )
+            {
+            }
+
+            @Override
+            public long initialVersion()
+            {
+                return initialTxId;
+            }
+        };
+    }
+}
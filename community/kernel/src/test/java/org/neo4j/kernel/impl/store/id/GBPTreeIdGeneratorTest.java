@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.id.configuration.CommunityIdTypeConfigurationProvider;
+import org.neo4j.kernel.impl.store.id.validation.IdCapacityExceededException;
+import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GBPTreeIdGeneratorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+    @Rule
+    public final LifeRule life = new LifeRule( true );
+
+    private final File file = new File( "ids" );
+    private final Queue<Runnable> maintenance = new ArrayDeque<>();
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private JobScheduler jobScheduler;
+    private Executor executor = Runnable::run;
+
+    @Before
+    public void setUp()
+    {
+        fs = fsRule.get();
+        pageCache = pageCacheRule.getPageCache( fs );
+        jobScheduler = life.add( new CentralJobScheduler() );
+    }
+
+    @Test
+    public void shouldHandOutNewIdsFromSuppliedHighIdWhenCreated()
+    {
+        try ( IdGenerator idGenerator = open( true, () -> 10L ) )
+        {
+            assertEquals( 10, idGenerator.getHighId() );
+            assertEquals( 10, idGenerator.nextId() );
+            assertEquals( 11, idGenerator.nextId() );
+            assertEquals( 12, idGenerator.getHighId() );
+        }
+    }
+
+    @Test
+    public void shouldReuseFreedIdsLowestFirst()
+    {
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 7 );
+            idGenerator.freeId( 3 );
+            idGenerator.freeId( 5 );
+            assertEquals( 3, idGenerator.getDefragCount() );
+
+            assertEquals( 3, idGenerator.nextId() );
+            assertEquals( 5, idGenerator.nextId() );
+            assertEquals( 7, idGenerator.nextId() );
+            assertEquals( 10, idGenerator.nextId() );
+            assertEquals( 0, idGenerator.getDefragCount() );
+        }
+    }
+
+    @Test
+    public void shouldIncludeFreedIdsInBatch()
+    {
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 2 );
+            idGenerator.freeId( 8 );
+
+            IdRange range = idGenerator.nextIdBatch( 5 );
+
+            assertArrayEquals( new long[]{2, 8}, range.getDefragIds() );
+            assertEquals( 10, range.getRangeStart() );
+            assertEquals( 3, range.getRangeLength() );
+            assertEquals( 13, idGenerator.getHighId() );
+        }
+    }
+
+    @Test
+    public void shouldOnlyReuseIdsFreedWithoutAggressiveReuseAfterReopen()
+    {
+        try ( IdGenerator idGenerator = open( false ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 4 );
+            assertEquals( 10, idGenerator.nextId() );
+        }
+
+        try ( IdGenerator idGenerator = open( false ) )
+        {
+            assertEquals( 1, idGenerator.getDefragCount() );
+            assertEquals( 4, idGenerator.nextId() );
+            assertEquals( 11, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldRememberHighIdAndFreeIdsAfterClose()
+    {
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            allocate( idGenerator, 100 );
+            idGenerator.freeId( 42 );
+            idGenerator.freeId( 17 );
+            assertEquals( 17, idGenerator.nextId() );
+            idGenerator.freeId( 17 );
+        }
+
+        try ( IdGenerator idGenerator = open( true, () ->
+        {
+            throw new AssertionError( "High id supplier should not be called for an existing id file" );
+        } ) )
+        {
+            assertEquals( 100, idGenerator.getHighId() );
+            assertEquals( 2, idGenerator.getDefragCount() );
+            assertEquals( 98, idGenerator.getNumberOfIdsInUse() );
+            assertEquals( 17, idGenerator.nextId() );
+            assertEquals( 42, idGenerator.nextId() );
+            assertEquals( 100, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldRequireRebuildAndKeepDurableFreeIdsAfterCrash()
+    {
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            allocate( idGenerator, 6 );
+            idGenerator.freeId( 1 );
+            idGenerator.freeId( 2 );
+            idGenerator.freeId( 4 );
+        }
+
+        EphemeralFileSystemAbstraction crashedFs;
+        executor = maintenance::add;
+        try ( IdGenerator idGenerator = open( 2, true, () -> 0L ) )
+        {
+            // grabbed 1 and 2 when opened, durably removing them from the tree before handing out 1
+            assertEquals( 1, idGenerator.nextId() );
+            crashedFs = fsRule.get().snapshot();
+            runMaintenance();
+        }
+        fs = crashedFs;
+        pageCache = pageCacheRule.getPageCache( fs );
+
+        try
+        {
+            open( true );
+            fail( "Should have required a rebuild" );
+        }
+        catch ( InvalidIdGeneratorException e )
+        {
+            // expected
+        }
+
+        GBPTreeIdGenerator.keepFreeIdsForRebuild( fs, pageCache, file );
+        executor = Runnable::run;
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            idGenerator.setHighId( 6 );
+            assertEquals( 4, idGenerator.nextId() );
+            assertEquals( 6, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldDiscardFreeIdsAboveHighIdAfterRebuild()
+    {
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 3 );
+            idGenerator.freeId( 8 );
+        }
+
+        GBPTreeIdGenerator.keepFreeIdsForRebuild( fs, pageCache, file );
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            idGenerator.setHighId( 5 );
+            assertEquals( 3, idGenerator.nextId() );
+            assertEquals( 5, idGenerator.nextId() );
+            assertEquals( 6, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldReplaceIdFileOfOtherFormatOnRebuild()
+    {
+        IdGeneratorImpl.createGenerator( fs, file, 42, false );
+
+        try
+        {
+            open( true );
+            fail( "Should have required a rebuild" );
+        }
+        catch ( InvalidIdGeneratorException e )
+        {
+            // expected
+        }
+
+        GBPTreeIdGenerator.keepFreeIdsForRebuild( fs, pageCache, file );
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            assertEquals( 0, idGenerator.getHighId() );
+            assertEquals( 0, idGenerator.getDefragCount() );
+        }
+    }
+
+    @Test
+    public void shouldRequireRebuildWhenOpeningIdFileWithIdGeneratorImplAfterFreeIdTree()
+    {
+        GBPTreeIdGeneratorFactory treeFactory =
+                new GBPTreeIdGeneratorFactory( fs, pageCache, new CommunityIdTypeConfigurationProvider(), jobScheduler );
+        treeFactory.create( file, 0, false );
+        try ( IdGenerator idGenerator = treeFactory.open( file, IdType.NODE, () -> 0L, Long.MAX_VALUE ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 5 );
+        }
+        assertFalse( fs.fileExists( file ) );
+
+        DefaultIdGeneratorFactory factory = new DefaultIdGeneratorFactory( fs );
+        try
+        {
+            factory.open( file, IdType.NODE, () -> 10L, Long.MAX_VALUE );
+            fail( "Should have required a rebuild" );
+        }
+        catch ( InvalidIdGeneratorException e )
+        {
+            // expected
+        }
+
+        factory.prepareForRebuild( file );
+        assertFalse( fs.fileExists( GBPTreeIdGeneratorFactory.treeFile( file ) ) );
+        try ( IdGenerator idGenerator = factory.open( file, IdType.NODE, () -> 10L, Long.MAX_VALUE ) )
+        {
+            assertEquals( 0, idGenerator.getDefragCount() );
+        }
+    }
+
+    @Test
+    public void shouldRequireRebuildAndDiscardFreeIdTreeWhenIdFileOfIdGeneratorImplHasBeenUsedSince()
+    {
+        GBPTreeIdGeneratorFactory factory =
+                new GBPTreeIdGeneratorFactory( fs, pageCache, new CommunityIdTypeConfigurationProvider(), jobScheduler );
+        factory.create( file, 0, false );
+        try ( IdGenerator idGenerator = factory.open( file, IdType.NODE, () -> 0L, Long.MAX_VALUE ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 5 );
+        }
+        IdGeneratorImpl.createGenerator( fs, file, 10, false );
+
+        try
+        {
+            factory.open( file, IdType.NODE, () -> 10L, Long.MAX_VALUE );
+            fail( "Should have required a rebuild" );
+        }
+        catch ( InvalidIdGeneratorException e )
+        {
+            // expected
+        }
+
+        factory.prepareForRebuild( file );
+        assertFalse( fs.fileExists( file ) );
+        try ( IdGenerator idGenerator = factory.open( file, IdType.NODE, () -> 10L, Long.MAX_VALUE ) )
+        {
+            idGenerator.setHighId( 10 );
+            assertEquals( 0, idGenerator.getDefragCount() );
+            assertEquals( 10, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldNotHandOutIdsAboveMax()
+    {
+        GBPTreeIdGenerator.createGenerator( fs, pageCache, file, 0, false );
+        try ( IdGenerator idGenerator =
+                      new GBPTreeIdGenerator( fs, pageCache, file, 10, 3, true, IdType.NODE, () -> 0L, executor ) )
+        {
+            allocate( idGenerator, 4 );
+            try
+            {
+                idGenerator.nextId();
+                fail( "Should have exceeded capacity" );
+            }
+            catch ( IdCapacityExceededException e )
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldDeleteIdFile()
+    {
+        IdGenerator idGenerator = open( true );
+        idGenerator.delete();
+
+        assertFalse( fs.fileExists( file ) );
+    }
+
+    @Test
+    public void shouldGrabFreeIdsInTheBackgroundAndAllocateHighIdsMeanwhile()
+    {
+        try ( IdGenerator idGenerator = open( true ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 3 );
+            idGenerator.freeId( 5 );
+            idGenerator.freeId( 7 );
+        }
+
+        executor = maintenance::add;
+        try ( IdGenerator idGenerator = open( 2, true, () -> 0L ) )
+        {
+            // 3 and 5 were grabbed when opened
+            assertEquals( 3, idGenerator.nextId() );
+            assertEquals( 1, maintenance.size() );
+            assertEquals( 5, idGenerator.nextId() );
+            // 7 is still in the tree, waiting for maintenance to grab it
+            assertEquals( 10, idGenerator.nextId() );
+
+            runMaintenance();
+            assertEquals( 7, idGenerator.nextId() );
+            assertEquals( 11, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldWriteFreedIdsToTheTreeInBatches()
+    {
+        executor = maintenance::add;
+        try ( IdGenerator idGenerator = open( 3, false, () -> 0L ) )
+        {
+            allocate( idGenerator, 10 );
+            idGenerator.freeId( 1 );
+            idGenerator.freeId( 2 );
+            assertEquals( 0, maintenance.size() );
+            assertEquals( 2, idGenerator.getDefragCount() );
+
+            idGenerator.freeId( 3 );
+            assertEquals( 1, maintenance.size() );
+            runMaintenance();
+            assertEquals( 3, idGenerator.getDefragCount() );
+        }
+
+        try ( IdGenerator idGenerator = open( false ) )
+        {
+            assertEquals( 3, idGenerator.getDefragCount() );
+            assertEquals( 1, idGenerator.nextId() );
+            assertEquals( 2, idGenerator.nextId() );
+            assertEquals( 3, idGenerator.nextId() );
+            assertEquals( 10, idGenerator.nextId() );
+        }
+    }
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreadsWhileMaintainingInTheBackground() throws Throwable
+    {
+        ExecutorService maintenanceExecutor = Executors.newSingleThreadExecutor();
+        executor = maintenanceExecutor;
+        int threads = 4;
+        int idsPerThread = 10_000;
+        ConcurrentHashMap<Long,Boolean> seenIds = new ConcurrentHashMap<>();
+        try ( IdGenerator idGenerator = open( 16, true, () -> 0L ) )
+        {
+            Race race = new Race();
+            race.addContestants( threads, () ->
+            {
+                for ( int i = 0; i < idsPerThread; i++ )
+                {
+                    long id = idGenerator.nextId();
+                    assertTrue( "Id " + id + " handed out twice", seenIds.putIfAbsent( id, Boolean.TRUE ) == null );
+                    if ( i % 3 == 0 )
+                    {
+                        seenIds.remove( id );
+                        idGenerator.freeId( id );
+                    }
+                }
+            } );
+            race.go();
+        }
+        finally
+        {
+            maintenanceExecutor.shutdown();
+            maintenanceExecutor.awaitTermination( 1, TimeUnit.MINUTES );
+        }
+    }
+
+    private void runMaintenance()
+    {
+        while ( !maintenance.isEmpty() )
+        {
+            maintenance.poll().run();
+        }
+    }
+
+    private IdGenerator open( boolean aggressiveReuse )
+    {
+        return open( aggressiveReuse, () -> 0L );
+    }
+
+    private IdGenerator open( boolean aggressiveReuse, LongSupplier highId )
+    {
+        return open( 100, aggressiveReuse, highId );
+    }
+
+    private IdGenerator open( int grabSize, boolean aggressiveReuse, LongSupplier highId )
+    {
+        return new GBPTreeIdGenerator( fs, pageCache, file, grabSize, Long.MAX_VALUE, aggressiveReuse, IdType.NODE,
+                highId, executor );
+    }
+
+    private static void allocate( IdGenerator idGenerator, int count )
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            idGenerator.nextId();
+        }
+    }
+}
@@ -24,16 +24,19 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.LongSupplier;
 
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.kernel.impl.store.id.validation.IdCapacityExceededException;
 import org.neo4j.kernel.impl.store.id.validation.NegativeIdException;
+import org.neo4j.test.Race;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -210,4 +213,101 @@ public class IdGeneratorImplTest
         // The supplier must have remained untouched
         verifyZeroInteractions( highId );
     }
+
+    @Test
+    public void shouldReuseIdsFreedAfterRunningOutOfReusableIds()
+    {
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, 1000, true, IdType.NODE, () -> 0L );
+
+        assertEquals( 0, idGenerator.nextId() );
+        assertEquals( 1, idGenerator.nextId() );
+        idGenerator.freeId( 0 );
+        assertEquals( 0, idGenerator.nextId() );
+        assertEquals( 2, idGenerator.nextId() );
+
+        idGenerator.freeId( 1 );
+        IdRange range = idGenerator.nextIdBatch( 3 );
+        assertEquals( 1, range.getDefragIds().length );
+        assertEquals( 1, range.getDefragIds()[0] );
+        assertEquals( 3, range.getRangeStart() );
+        assertEquals( 2, range.getRangeLength() );
+        assertEquals( 5, idGenerator.nextId() );
+
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreads() throws Throwable
+    {
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, true, IdType.NODE, () -> 0L );
+        int threads = 4;
+        int idsPerThread = 10_000;
+        ConcurrentHashMap<Long,Boolean> seenIds = new ConcurrentHashMap<>();
+
+        Race race = new Race();
+        race.addContestants( threads, () ->
+        {
+            for ( int i = 0; i < idsPerThread; i++ )
+            {
+                if ( i % 10 == 0 )
+                {
+                    IdRange range = idGenerator.nextIdBatch( 10 );
+                    for ( long id : range.getDefragIds() )
+                    {
+                        assertTrue( "Id " + id + " handed out twice", seenIds.putIfAbsent( id, Boolean.TRUE ) == null );
+                    }
+                    for ( long id = range.getRangeStart(); id < range.getRangeStart() + range.getRangeLength(); id++ )
+                    {
+                        assertTrue( "Id " + id + " handed out twice", seenIds.putIfAbsent( id, Boolean.TRUE ) == null );
+                    }
+                    continue;
+                }
+                long id = idGenerator.nextId();
+                assertTrue( "Id " + id + " handed out twice", seenIds.putIfAbsent( id, Boolean.TRUE ) == null );
+                if ( i % 3 == 0 )
+                {
+                    seenIds.remove( id );
+                    idGenerator.freeId( id );
+                }
+            }
+        } );
+        race.go();
+
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldNotHandOutIdsTwiceWhenHighIdIsSetConcurrently() throws Throwable
+    {
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator idGenerator = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, false, IdType.NODE, () -> 0L );
+        int threads = 4;
+        int idsPerThread = 10_000;
+        ConcurrentHashMap<Long,Boolean> seenIds = new ConcurrentHashMap<>();
+
+        Race race = new Race();
+        race.addContestants( threads, () ->
+        {
+            for ( int i = 0; i < idsPerThread; i++ )
+            {
+                long id = idGenerator.nextId();
+                assertTrue( "Id " + id + " handed out twice", seenIds.putIfAbsent( id, Boolean.TRUE ) == null );
+            }
+        } );
+        race.addContestant( () ->
+        {
+            for ( int i = 0; i < idsPerThread; i++ )
+            {
+                // a high id read a moment ago, which concurrent nextId calls may have moved past already
+                idGenerator.setHighId( idGenerator.getHighId() );
+            }
+        } );
+        race.go();
+
+        assertEquals( threads * idsPerThread, seenIds.size() );
+        assertTrue( idGenerator.getHighId() >= threads * idsPerThread );
+        idGenerator.close();
+    }
 }
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.command.Command;
@@ -34,8 +35,10 @@ import org.neo4j.kernel.impl.transaction.log.entry.CheckPoint;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommand;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion;
 
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
@@ -122,6 +125,28 @@ public class PhysicalTransactionCursorTest
         );
     }
 
+    @Test
+    public void shouldExpandCompressedCommands() throws IOException
+    {
+        // given
+        LogEntryCommand anotherCommandEntry = new LogEntryCommand(
+                new Command.NodeCommand( new NodeRecord( 43 ), new NodeRecord( 43 ) ) );
+        LogEntryCompressedCommands compressedCommands = new LogEntryCompressedCommands( LogEntryVersion.CURRENT,
+                Arrays.asList( A_COMMAND_ENTRY, anotherCommandEntry ) );
+        when( entryReader.readLogEntry( channel ) ).thenReturn( A_START_ENTRY, compressedCommands, A_COMMIT_ENTRY );
+
+        // when
+        cursor.next();
+
+        // then
+        PhysicalTransactionRepresentation txRepresentation = new PhysicalTransactionRepresentation(
+                Arrays.asList( A_COMMAND_ENTRY.getCommand(), anotherCommandEntry.getCommand() ) );
+        assertEquals(
+                new CommittedTransactionRepresentation( A_START_ENTRY, txRepresentation, A_COMMIT_ENTRY ),
+                cursor.get()
+        );
+    }
+
     @Test
     public void shouldSkipCheckPoints() throws IOException
     {
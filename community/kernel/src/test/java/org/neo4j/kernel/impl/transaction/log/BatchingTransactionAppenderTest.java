@@ -28,8 +28,14 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
@@ -45,15 +51,19 @@ import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.Race;
 import org.neo4j.test.rule.CleanupRule;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyByte;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -71,6 +81,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
 import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+import static org.neo4j.test.Race.throwing;
 
 public class BatchingTransactionAppenderTest
 {
@@ -87,11 +98,13 @@ public class BatchingTransactionAppenderTest
     private final LogFiles logFiles = mock( TransactionLogFiles.class );
     private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
     private final TransactionMetadataCache positionCache = new TransactionMetadataCache( 10 );
+    private JobScheduler jobScheduler;
 
     @Before
     public void setUp()
     {
         when( logFiles.getLogFile() ).thenReturn( logFile );
+        jobScheduler = life.add( new CentralJobScheduler() );
     }
 
     @Test
@@ -150,6 +163,180 @@ public class BatchingTransactionAppenderTest
         assertNull( tx.next() );
     }
 
+    @Test
+    public void shouldAppendBatchOfTransactionsThroughDedicatedLogWriter() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, jobScheduler, true, false ) );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L, 4L );
+        TransactionRepresentation first = transaction( singleCreateNodeCommand( 0 ), new byte[]{1, 2}, 0, 0, 0, 1, 0 );
+        TransactionRepresentation second = transaction( singleCreateNodeCommand( 1 ), new byte[]{3}, 0, 0, 0, 1, 0 );
+        TransactionRepresentation third = transaction( singleCreateNodeCommand( 2 ), new byte[0], 0, 0, 0, 1, 0 );
+        TransactionToApply batch = batchOf( first, second, third );
+
+        // WHEN
+        long lastTransactionId = appender.append( batch, logAppendEvent );
+
+        // THEN
+        assertEquals( 4L, lastTransactionId );
+        assertEquals( 2L, batch.transactionId() );
+        assertEquals( 3L, batch.next().transactionId() );
+        assertEquals( 4L, batch.next().next().transactionId() );
+        verify( transactionIdStore ).transactionCommitted( eq( 2L ), anyLong(), anyLong() );
+        verify( transactionIdStore ).transactionCommitted( eq( 3L ), anyLong(), anyLong() );
+        verify( transactionIdStore ).transactionCommitted( eq( 4L ), anyLong(), anyLong() );
+
+        final LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            for ( TransactionRepresentation expected : new TransactionRepresentation[]{first, second, third} )
+            {
+                reader.next();
+                TransactionRepresentation tx = reader.get().getTransactionRepresentation();
+                assertArrayEquals( expected.additionalHeader(), tx.additionalHeader() );
+                assertEquals( expected, tx );
+            }
+        }
+    }
+
+    @Test
+    public void shouldCompressCommandsBeforeTakingTheLogFileMonitor() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, jobScheduler, false, true ) );
+        Collection<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            commands.addAll( singleCreateNodeCommand( i ) );
+        }
+        AtomicBoolean serializedUnderMonitor = new AtomicBoolean();
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands )
+        {
+            @Override
+            public boolean accept( Visitor<StorageCommand,IOException> visitor ) throws IOException
+            {
+                if ( !(visitor instanceof IndexCommandDetector) && Thread.holdsLock( logFile ) )
+                {
+                    serializedUnderMonitor.set( true );
+                }
+                return super.accept( visitor );
+            }
+        };
+        transaction.setHeader( new byte[0], 0, 0, 0, 1, 0, -1 );
+
+        // WHEN
+        appender.append( new TransactionToApply( transaction ), logAppendEvent );
+
+        // THEN
+        assertFalse( serializedUnderMonitor.get() );
+        TransactionRepresentation expected = transaction( commands, new byte[0], 0, 0, 0, 1, 0 );
+        ByteArrayFlushableChannel uncompressed = new ByteArrayFlushableChannel();
+        TransactionLogWriter.serializeStartAndCommands( expected, uncompressed, false );
+        assertTrue( channel.writerPosition() < uncompressed.size() );
+        final LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( expected, reader.get().getTransactionRepresentation() );
+        }
+    }
+
+    @Test
+    public void shouldGroupCommitConcurrentAppendsThroughDedicatedLogWriter() throws Throwable
+    {
+        // GIVEN
+        InMemoryVersionableReadableClosablePositionAwareChannel channel =
+                new InMemoryVersionableReadableClosablePositionAwareChannel( 1 << 20 );
+        when( logFile.getWriter() ).thenReturn( channel );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, jobScheduler, true, false ) );
+        AtomicLong committingTransactionId = new AtomicLong( 1 );
+        when( transactionIdStore.nextCommittingTransactionId() )
+                .thenAnswer( invocation -> committingTransactionId.incrementAndGet() );
+        int threads = 8;
+        int transactionsPerThread = 100;
+        Set<Long> transactionIds = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        Race race = new Race();
+        race.addContestants( threads, throwing( () ->
+        {
+            for ( int i = 0; i < transactionsPerThread; i++ )
+            {
+                TransactionToApply batch = batchOf(
+                        transaction( singleCreateNodeCommand( i ), new byte[0], 0, 0, 0, 1, 0 ) );
+                long transactionId = appender.append( batch, logAppendEvent );
+                assertEquals( transactionId, batch.transactionId() );
+                assertTrue( transactionIds.add( transactionId ) );
+            }
+        } ) );
+        race.go();
+
+        // THEN every transaction got its own id, was committed, and is in the log in transaction id order
+        int total = threads * transactionsPerThread;
+        assertEquals( total, transactionIds.size() );
+        for ( long txId = 2; txId < 2 + total; txId++ )
+        {
+            assertTrue( transactionIds.contains( txId ) );
+            verify( transactionIdStore ).transactionCommitted( eq( txId ), anyLong(), anyLong() );
+        }
+        final LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            for ( long txId = 2; txId < 2 + total; txId++ )
+            {
+                assertTrue( reader.next() );
+                assertEquals( txId, reader.get().getCommitEntry().getTxId() );
+            }
+            assertFalse( reader.next() );
+        }
+    }
+
+    @Test
+    public void shouldNotAppendRequestsHandedOverWhileLogWriterWasStopped() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFiles, NO_ROTATION,
+                positionCache, transactionIdStore, BYPASS, databaseHealth, jobScheduler, true, false ) );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L );
+        appender.stop();
+        try
+        {
+            appender.append( batchOf( transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ) ),
+                    logAppendEvent );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            assertThat( e.getMessage(), containsString( "not running" ) );
+        }
+
+        // WHEN
+        appender.start();
+        long transactionId = appender.append(
+                batchOf( transaction( singleCreateNodeCommand( 1 ), new byte[0], 0, 0, 0, 1, 0 ) ), logAppendEvent );
+
+        // THEN
+        assertEquals( 2L, transactionId );
+        final LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            assertTrue( reader.next() );
+            assertEquals( 2L, reader.get().getCommitEntry().getTxId() );
+            assertFalse( reader.next() );
+        }
+    }
+
     @Test
     public void shouldAppendCommittedTransactions() throws Exception
     {
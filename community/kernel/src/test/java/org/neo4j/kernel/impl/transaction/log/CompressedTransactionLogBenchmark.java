@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Compares the append throughput and resulting log size of writing transactions with uncompressed commands,
+ * and with compressed commands. Every transaction creates a number of connected nodes and relationships, which is
+ * what typical write transactions of an import or a batch update look like.
+ * <p>
+ * Run with the directory to put the log file in as the first argument. The number of nodes created per transaction,
+ * and the number of transactions to write per round, can optionally be given as the following arguments.
+ */
+public class CompressedTransactionLogBenchmark
+{
+    private static final int ROUNDS = 5;
+
+    public static void main( String[] args ) throws Exception
+    {
+        File directory = new File( args[0] );
+        int nodesPerTransaction = args.length > 1 ? Integer.parseInt( args[1] ) : 50;
+        int transactions = args.length > 2 ? Integer.parseInt( args[2] ) : 50_000;
+
+        List<TransactionRepresentation> transactionsToAppend = new ArrayList<>( transactions );
+        for ( int i = 0; i < transactions; i++ )
+        {
+            transactionsToAppend.add( transaction( i * (long) nodesPerTransaction, nodesPerTransaction ) );
+        }
+
+        File file = new File( directory, "compressed-log-benchmark.log" );
+        try ( FileSystemAbstraction fs = new DefaultFileSystemAbstraction() )
+        {
+            for ( int round = 0; round < ROUNDS; round++ )
+            {
+                // The first round of each is warmup
+                boolean print = round > 0;
+                run( fs, file, transactionsToAppend, false, print );
+                run( fs, file, transactionsToAppend, true, print );
+            }
+        }
+        finally
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static void run( FileSystemAbstraction fs, File file, List<TransactionRepresentation> transactions,
+            boolean compressCommands, boolean print ) throws IOException
+    {
+        fs.deleteFile( file );
+        long startTime = System.nanoTime();
+        try ( PhysicalLogVersionedStoreChannel storeChannel = new PhysicalLogVersionedStoreChannel(
+                      fs.open( file, OpenMode.READ_WRITE ), 0, LogEntryVersion.CURRENT.byteCode() );
+              PositionAwarePhysicalFlushableChannel channel =
+                      new PositionAwarePhysicalFlushableChannel( storeChannel ) )
+        {
+            TransactionLogWriter writer = new TransactionLogWriter( new LogEntryWriter( channel, compressCommands ) );
+            long transactionId = TransactionIdStore.BASE_TX_ID;
+            for ( TransactionRepresentation transaction : transactions )
+            {
+                writer.append( transaction, ++transactionId );
+            }
+            channel.prepareForFlush().flush();
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        if ( print )
+        {
+            double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos( 1 );
+            System.out.printf( "%-12s %12.1f tx/s %12.1f MiB/s %10d KiB log%n",
+                    compressCommands ? "compressed" : "plain",
+                    transactions.size() / seconds,
+                    fs.getFileSize( file ) / seconds / 1024 / 1024,
+                    fs.getFileSize( file ) / 1024 );
+        }
+    }
+
+    private static TransactionRepresentation transaction( long firstNodeId, int nodes )
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < nodes; i++ )
+        {
+            long nodeId = firstNodeId + i;
+            long relationshipId = nodeId;
+            long otherNodeId = firstNodeId + random.nextInt( nodes );
+            NodeRecord node = new NodeRecord( nodeId ).initialize( true, random.nextInt( 1_000_000 ), false,
+                    relationshipId, random.nextInt( 10 ) );
+            node.setCreated();
+            commands.add( new Command.NodeCommand( new NodeRecord( nodeId ), node ) );
+            RelationshipRecord relationship = new RelationshipRecord( relationshipId ).initialize( true,
+                    random.nextInt( 1_000_000 ), nodeId, otherNodeId, random.nextInt( 5 ), 1, -1, 1, -1, true, true );
+            relationship.setCreated();
+            commands.add( new Command.RelationshipCommand( new RelationshipRecord( relationshipId ), relationship ) );
+        }
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], -1, -1, System.currentTimeMillis(), TransactionIdStore.BASE_TX_ID,
+                System.currentTimeMillis(), -1 );
+        return transaction;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.storageengine.api.ReadPastEndException;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedStoreChannelTest
+{
+    private static final int WINDOW_SIZE = 1024;
+
+    @Rule
+    public final TestDirectory testDirectory = TestDirectory.testDirectory();
+    @Rule
+    public final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    @Test
+    public void shouldReadSameContentAsFileAcrossWindows() throws IOException
+    {
+        // given
+        byte[] content = randomBytes( WINDOW_SIZE * 10 + 17 );
+        File file = write( content );
+
+        // when
+        byte[] read = new byte[content.length];
+        try ( StoreChannel channel = new MappedStoreChannel( open( file ), WINDOW_SIZE ) )
+        {
+            int offset = 0;
+            while ( offset < read.length )
+            {
+                int length = Math.min( random.nextInt( 1, WINDOW_SIZE * 3 ), read.length - offset );
+                ByteBuffer buffer = ByteBuffer.wrap( read, offset, length );
+                assertEquals( length, channel.read( buffer ) );
+                offset += length;
+                assertEquals( offset, channel.position() );
+            }
+
+            // then
+            assertEquals( -1, channel.read( ByteBuffer.allocate( 1 ) ) );
+        }
+        assertArrayEquals( content, read );
+    }
+
+    @Test
+    public void shouldReadFromArbitraryPositions() throws IOException
+    {
+        // given
+        byte[] content = randomBytes( WINDOW_SIZE * 4 );
+        File file = write( content );
+
+        try ( StoreChannel channel = new MappedStoreChannel( open( file ), WINDOW_SIZE ) )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                // when
+                int position = random.nextInt( content.length - 10 );
+                channel.position( position );
+                ByteBuffer buffer = ByteBuffer.allocate( 10 );
+                channel.readAll( buffer );
+
+                // then
+                for ( int j = 0; j < 10; j++ )
+                {
+                    assertEquals( content[position + j], buffer.get( j ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldStartReadingFromPositionOfGivenChannel() throws IOException
+    {
+        // given
+        byte[] content = randomBytes( 100 );
+        File file = write( content );
+        StoreChannel fileChannel = open( file );
+        fileChannel.position( 42 );
+
+        // when
+        try ( ReadAheadChannel<StoreChannel> channel =
+                      new ReadAheadChannel<>( new MappedStoreChannel( fileChannel, WINDOW_SIZE ) ) )
+        {
+            // then
+            for ( int i = 42; i < content.length; i++ )
+            {
+                assertEquals( content[i], channel.get() );
+            }
+            try
+            {
+                channel.get();
+                fail( "Should have reached end of file" );
+            }
+            catch ( ReadPastEndException e )
+            {
+                // good
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotSupportWriting() throws IOException
+    {
+        // given
+        File file = write( new byte[10] );
+
+        try ( StoreChannel channel = new MappedStoreChannel( open( file ), WINDOW_SIZE ) )
+        {
+            // when
+            channel.write( ByteBuffer.allocate( 1 ) );
+            fail( "Should not support writing" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // then good
+        }
+        assertEquals( 10, fileSystemRule.get().getFileSize( file ) );
+    }
+
+    @Test
+    public void shouldCloseUnderlyingChannel() throws IOException
+    {
+        // given
+        StoreChannel fileChannel = open( write( new byte[10] ) );
+        StoreChannel channel = new MappedStoreChannel( fileChannel, WINDOW_SIZE );
+        assertTrue( channel.isOpen() );
+
+        // when
+        channel.close();
+
+        // then
+        assertFalse( fileChannel.isOpen() );
+    }
+
+    private byte[] randomBytes( int length )
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes( bytes );
+        return bytes;
+    }
+
+    private File write( byte[] content ) throws IOException
+    {
+        FileSystemAbstraction fileSystem = fileSystemRule.get();
+        File file = testDirectory.file( "file" );
+        try ( StoreChannel channel = fileSystem.create( file ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( content ) );
+        }
+        return file;
+    }
+
+    private StoreChannel open( File file ) throws IOException
+    {
+        StoreChannel channel = fileSystemRule.get().open( file, OpenMode.READ );
+        assertTrue( MappedStoreChannel.canMap( channel ) );
+        return channel;
+    }
+}
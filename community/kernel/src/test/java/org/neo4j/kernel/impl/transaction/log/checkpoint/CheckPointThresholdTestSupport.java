@@ -45,6 +45,7 @@ public class CheckPointThresholdTestSupport
     protected Config config;
     protected FakeClock clock;
     protected LogPruning logPruning;
+    protected CheckPointWorkload workload;
     protected LogProvider logProvider;
     protected Integer intervalTx;
     protected Duration intervalTime;
@@ -58,6 +59,7 @@ public class CheckPointThresholdTestSupport
         config = Config.defaults();
         clock = Clocks.fakeClock();
         logPruning = LogPruning.NO_PRUNING;
+        workload = CheckPointWorkload.NONE;
         logProvider = NullLogProvider.getInstance();
         intervalTx = config.get( GraphDatabaseSettings.check_point_interval_tx );
         intervalTime = config.get( GraphDatabaseSettings.check_point_interval_time );
@@ -83,7 +85,7 @@ public class CheckPointThresholdTestSupport
 
     protected CheckPointThreshold createThreshold()
     {
-        return CheckPointThreshold.createThreshold( config, clock, logPruning, logProvider );
+        return CheckPointThreshold.createThreshold( config, clock, logPruning, workload, logProvider );
     }
 
     protected void verifyTriggered( String reason )
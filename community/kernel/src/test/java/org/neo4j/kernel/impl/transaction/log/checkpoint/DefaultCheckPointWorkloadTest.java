@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.FlushablePositionAwareChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.files.LogFile;
+import org.neo4j.kernel.impl.transaction.log.files.LogFiles;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+import org.neo4j.time.Clocks;
+import org.neo4j.time.FakeClock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.transaction.log.checkpoint.DefaultCheckPointWorkload.MIN_MEASURED_REPLAY_BYTES;
+
+public class DefaultCheckPointWorkloadTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
+
+    private final File directory = new File( "logs" ).getAbsoluteFile();
+    private final FakeClock clock = Clocks.fakeClock();
+    private final PageCache pageCache = mock( PageCache.class );
+    private final LogFiles logFiles = mock( LogFiles.class );
+    private final LogFile logFile = mock( LogFile.class );
+    private LogPosition appendPosition = new LogPosition( 0, 0 );
+    private boolean positionReadUnderLogFileMonitor = true;
+    private DefaultCheckPointWorkload workload;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        FlushablePositionAwareChannel writer = mock( FlushablePositionAwareChannel.class );
+        when( writer.getCurrentPosition( any() ) ).thenAnswer( invocation ->
+        {
+            positionReadUnderLogFileMonitor &= Thread.holdsLock( logFile );
+            LogPositionMarker marker = invocation.getArgument( 0 );
+            marker.mark( appendPosition.getLogVersion(), appendPosition.getByteOffset() );
+            return marker;
+        } );
+        when( logFile.getWriter() ).thenReturn( writer );
+        when( logFiles.getLogFile() ).thenReturn( logFile );
+        when( logFiles.getLogFileForVersion( anyLong() ) ).thenAnswer(
+                invocation -> new File( directory, "log." + invocation.getArgument( 0 ) ) );
+        fs.get().mkdirs( directory );
+        workload = new DefaultCheckPointWorkload( fs.get(), logFiles, pageCache, clock );
+    }
+
+    @Test
+    public void shouldCountLogBytesAppendedWithinLogFile() throws IOException
+    {
+        appendPosition = new LogPosition( 3, 100 );
+        long start = workload.appendedLogBytes();
+
+        appendPosition = new LogPosition( 3, 1_100 );
+        assertEquals( 1_000, workload.appendedLogBytes() - start );
+    }
+
+    @Test
+    public void shouldReadAppendPositionUnderLogFileMonitor() throws IOException
+    {
+        workload.appendedLogBytes();
+
+        assertTrue( positionReadUnderLogFileMonitor );
+    }
+
+    @Test
+    public void shouldCountLogBytesAppendedAcrossRotatedLogFiles() throws IOException
+    {
+        appendPosition = new LogPosition( 3, 100 );
+        long start = workload.appendedLogBytes();
+        createLogFile( 3, 1_000 );
+        createLogFile( 4, 2_000 );
+
+        appendPosition = new LogPosition( 5, 300 );
+        assertEquals( 900 + 2_000 + 300, workload.appendedLogBytes() - start );
+    }
+
+    @Test
+    public void shouldMeasureReplayRateOfRecovery() throws IOException
+    {
+        workload.recoveryRequired( new LogPosition( 0, 0 ) );
+        clock.forward( 2, TimeUnit.SECONDS );
+        workload.recoveryCompleted( 10 );
+
+        appendPosition = new LogPosition( 0, MIN_MEASURED_REPLAY_BYTES * 4 );
+        assertEquals( MIN_MEASURED_REPLAY_BYTES * 2, workload.replayBytesPerSecond() );
+
+        // Transactions appended after recovery must not change the measurement
+        appendPosition = new LogPosition( 0, MIN_MEASURED_REPLAY_BYTES * 8 );
+        assertEquals( MIN_MEASURED_REPLAY_BYTES * 2, workload.replayBytesPerSecond() );
+    }
+
+    @Test
+    public void shouldNotMeasureReplayRateOfShortRecovery() throws IOException
+    {
+        workload.recoveryRequired( new LogPosition( 0, 0 ) );
+        clock.forward( 1, TimeUnit.SECONDS );
+        workload.recoveryCompleted( 1 );
+
+        appendPosition = new LogPosition( 0, MIN_MEASURED_REPLAY_BYTES / 2 );
+        assertEquals( 0, workload.replayBytesPerSecond() );
+    }
+
+    @Test
+    public void shouldNotMeasureReplayRateWithoutRecovery() throws IOException
+    {
+        appendPosition = new LogPosition( 0, MIN_MEASURED_REPLAY_BYTES * 4 );
+        assertEquals( 0, workload.replayBytesPerSecond() );
+    }
+
+    @Test
+    public void shouldCountDirtyPagesOfPageCache()
+    {
+        when( pageCache.countDirtyPages() ).thenReturn( 42L );
+        assertEquals( 42, workload.dirtyPages() );
+    }
+
+    private void createLogFile( long version, int size ) throws IOException
+    {
+        try ( StoreChannel channel = fs.get().create( logFiles.getLogFileForVersion( version ) ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( size ) );
+        }
+    }
+}
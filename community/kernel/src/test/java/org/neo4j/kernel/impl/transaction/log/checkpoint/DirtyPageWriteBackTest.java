@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.OnDemandJobScheduler;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DirtyPageWriteBackTest
+{
+    private final PageCache pageCache = mock( PageCache.class );
+    private final IOLimiter ioLimiter = mock( IOLimiter.class );
+    private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+    private final DatabaseHealth health = mock( DatabaseHealth.class );
+    private final OnDemandJobScheduler jobScheduler = new OnDemandJobScheduler();
+    private final DirtyPageWriteBack writeBack = new DirtyPageWriteBack( pageCache, ioLimiter, transactionIdStore,
+            health, jobScheduler, 20L, NullLogProvider.getInstance() );
+
+    @Test
+    public void shouldWriteBackDirtyPagesWhenTransactionsHaveBeenClosed() throws Exception
+    {
+        // given
+        when( health.isHealthy() ).thenReturn( true );
+        when( transactionIdStore.getLastClosedTransactionId() ).thenReturn( 2L, 3L, 3L, 4L );
+        writeBack.start();
+
+        // when
+        jobScheduler.runJob();
+        jobScheduler.runJob();
+        jobScheduler.runJob();
+
+        // then the second run had no new transactions to write back after
+        verify( pageCache, times( 2 ) ).flush( ioLimiter );
+        verify( pageCache, never() ).flushAndForce( any( IOLimiter.class ) );
+        assertNotNull( jobScheduler.getJob() );
+    }
+
+    @Test
+    public void shouldNotWriteBackDirtyPagesWhenDatabaseIsUnhealthy() throws Exception
+    {
+        // given
+        when( health.isHealthy() ).thenReturn( false );
+        when( transactionIdStore.getLastClosedTransactionId() ).thenReturn( 2L, 3L );
+        writeBack.start();
+
+        // when
+        jobScheduler.runJob();
+
+        // then
+        verify( pageCache, never() ).flush( any( IOLimiter.class ) );
+    }
+
+    @Test
+    public void shouldKeepWritingBackAfterFailure() throws Exception
+    {
+        // given
+        when( health.isHealthy() ).thenReturn( true );
+        when( transactionIdStore.getLastClosedTransactionId() ).thenReturn( 2L, 3L, 4L );
+        doThrow( new IOException( "boom" ) ).doNothing().when( pageCache ).flush( ioLimiter );
+        writeBack.start();
+
+        // when
+        jobScheduler.runJob();
+        jobScheduler.runJob();
+
+        // then
+        verify( pageCache, times( 2 ) ).flush( ioLimiter );
+    }
+
+    @Test
+    public void shouldNotRescheduleWhenStopped()
+    {
+        // given
+        writeBack.start();
+        assertNotNull( jobScheduler.getJob() );
+
+        // when
+        writeBack.stop();
+
+        // then
+        assertNull( jobScheduler.getJob() );
+    }
+}
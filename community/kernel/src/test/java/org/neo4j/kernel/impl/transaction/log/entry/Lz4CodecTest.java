@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.neo4j.test.rule.RandomRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Lz4CodecTest
+{
+    @Rule
+    public final RandomRule random = new RandomRule();
+
+    private final Lz4Codec codec = new Lz4Codec();
+
+    @Test
+    public void shouldRoundTripEmptyData() throws IOException
+    {
+        assertRoundTrip( new byte[0] );
+    }
+
+    @Test
+    public void shouldRoundTripRandomData() throws IOException
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] data = new byte[random.nextInt( 10_000 )];
+            random.nextBytes( data );
+            assertRoundTrip( data );
+        }
+    }
+
+    @Test
+    public void shouldRoundTripAndCompressRepetitiveData() throws IOException
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            byte[] data = new byte[random.nextInt( 100, 100_000 )];
+            for ( int j = 0; j < data.length; j++ )
+            {
+                // Mostly runs of the same byte, with some back references of varying distance in between
+                data[j] = j > 100 && random.nextInt( 10 ) == 0 ? data[j - 1 - random.nextInt( 100 )] : (byte) (j / 300);
+            }
+            int compressedLength = assertRoundTrip( data );
+            assertTrue( compressedLength < data.length / 2 );
+        }
+    }
+
+    @Test
+    public void shouldRoundTripLongRunsOfTheSameByte() throws IOException
+    {
+        byte[] data = new byte[1_000_000];
+        Arrays.fill( data, (byte) 7 );
+        int compressedLength = assertRoundTrip( data );
+        assertTrue( compressedLength < 10_000 );
+    }
+
+    @Test
+    public void shouldFailOnMalformedData() throws IOException
+    {
+        byte[] data = new byte[1_000];
+        for ( int i = 0; i < data.length; i++ )
+        {
+            data[i] = (byte) (i % 17);
+        }
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength( data.length )];
+        int compressedLength = codec.compress( data, data.length, compressed );
+
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            byte[] corrupted = Arrays.copyOf( compressed, compressedLength );
+            corrupted[random.nextInt( compressedLength )] = (byte) random.nextInt();
+            try
+            {
+                // Corruption can only show up as an IOException, or as wrong data if the block is still well formed
+                Lz4Codec.decompress( corrupted, 0, random.nextInt( compressedLength + 1 ), new byte[data.length] );
+            }
+            catch ( IOException e )
+            {
+                // expected
+            }
+        }
+
+        try
+        {
+            Lz4Codec.decompress( compressed, 0, compressedLength, new byte[data.length - 1] );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    private int assertRoundTrip( byte[] data ) throws IOException
+    {
+        byte[] compressed = new byte[Lz4Codec.maxCompressedLength( data.length )];
+        int compressedLength = codec.compress( data, data.length, compressed );
+        byte[] decompressed = new byte[data.length];
+        Lz4Codec.decompress( compressed, 0, compressedLength, decompressed );
+        assertArrayEquals( data, decompressed );
+        return compressedLength;
+    }
+}
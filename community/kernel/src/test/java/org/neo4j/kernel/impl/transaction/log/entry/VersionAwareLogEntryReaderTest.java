@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.log.entry;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageCommandReaderFactory;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -29,12 +31,16 @@ import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.transaction.command.NeoCommandType;
 import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
+import org.neo4j.storageengine.api.StorageCommand;
 
 import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 public class VersionAwareLogEntryReaderTest
 {
@@ -156,6 +162,41 @@ public class VersionAwareLogEntryReaderTest
         assertNull( logEntry );
     }
 
+    @Test
+    public void shouldReturnNullWhenReachingZerosOfPreallocatedLog() throws IOException
+    {
+        // given
+        LogEntryReader<ReadableClosablePositionAwareChannel> reader = new VersionAwareLogEntryReader<>(
+                new RecordStorageCommandReaderFactory(), InvalidLogEntryHandler.STRICT, true );
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.put( new byte[64], 64 );
+
+        // when
+        final LogEntry logEntry = reader.readLogEntry( channel );
+
+        // then
+        assertNull( logEntry );
+    }
+
+    @Test
+    public void shouldReportZerosAsCorruptionWhenLogIsNotPreallocated() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        channel.put( new byte[64], 64 );
+
+        // when
+        try
+        {
+            logEntryReader.readLogEntry( channel );
+            fail( "Should have failed on zeros in a log that is not pre-allocated" );
+        }
+        catch ( UnsupportedLogVersionException e )
+        {
+            // then good
+        }
+    }
+
     @Test
     public void shouldBeAbleToSkipBadVersionAndTypeBytesInBetweenLogEntries() throws Exception
     {
@@ -246,6 +287,87 @@ public class VersionAwareLogEntryReaderTest
         assertEquals( secondStartTime, readSecondStartEntry.getTimeWritten() );
     }
 
+    @Test
+    public void shouldReadCompressedCommandsLogEntry() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = nodeCommands( 100 );
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 10_000 );
+        new LogEntryWriter( channel, true ).serialize( new PhysicalTransactionRepresentation( commands ) );
+
+        // when
+        LogEntry logEntry = logEntryReader.readLogEntry( channel );
+
+        // then
+        assertTrue( logEntry instanceof LogEntryCompressedCommands );
+        assertEquals( LogEntryVersion.COMPRESSED_COMMANDS_VERSION, logEntry.getVersion() );
+        List<StorageCommand> readCommands = new ArrayList<>();
+        for ( LogEntryCommand command : logEntry.<LogEntryCompressedCommands>as().getCommands() )
+        {
+            readCommands.add( command.getCommand() );
+        }
+        assertEquals( commands, readCommands );
+        assertTrue( channel.writerPosition() < uncompressedSize( commands ) );
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    @Test
+    public void shouldNotReadCompressedCommandsLogEntryOfVersionWithoutThem() throws IOException
+    {
+        // given
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 10_000 );
+        new LogEntryWriter( channel, true ).serialize( new PhysicalTransactionRepresentation( nodeCommands( 100 ) ) );
+        int end = channel.positionWriter( 0 );
+        channel.put( LogEntryVersion.V3_0_10.byteCode() );
+        channel.positionWriter( end );
+
+        // when
+        try
+        {
+            logEntryReader.readLogEntry( channel );
+            fail( "Should not have read a compressed commands entry of a version that doesn't have them" );
+        }
+        catch ( IOException e )
+        {
+            // then good
+            assertTrue( e.getMessage().contains( "Unknown entry type" ) );
+        }
+    }
+
+    @Test
+    public void shouldNotCompressCommandsOfSmallTransactions() throws IOException
+    {
+        // given
+        List<StorageCommand> commands = nodeCommands( 1 );
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        new LogEntryWriter( channel, true ).serialize( new PhysicalTransactionRepresentation( commands ) );
+
+        // when
+        LogEntry logEntry = logEntryReader.readLogEntry( channel );
+
+        // then
+        assertEquals( new LogEntryCommand( commands.get( 0 ) ), logEntry );
+        assertNull( logEntryReader.readLogEntry( channel ) );
+    }
+
+    private static List<StorageCommand> nodeCommands( int count )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            NodeRecord after = new NodeRecord( i ).initialize( true, 1, false, 2, 0 );
+            commands.add( new Command.NodeCommand( new NodeRecord( i ), after ) );
+        }
+        return commands;
+    }
+
+    private static int uncompressedSize( List<StorageCommand> commands ) throws IOException
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel( 10_000 );
+        new LogEntryWriter( channel ).serialize( commands );
+        return channel.writerPosition();
+    }
+
     static class AcceptingInvalidLogEntryHandler extends InvalidLogEntryHandler
     {
         long bytesSkipped;
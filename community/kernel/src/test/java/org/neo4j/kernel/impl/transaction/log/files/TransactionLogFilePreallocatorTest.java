@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageCommandReaderFactory;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.InvalidLogEntryHandler;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
+
+public class TransactionLogFilePreallocatorTest
+{
+    private static final long ROTATION_THRESHOLD = 8 * 1024;
+
+    @Rule
+    public final TestDirectory testDirectory = TestDirectory.testDirectory();
+    @Rule
+    public final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    private FileSystemAbstraction fileSystem;
+    private File directory;
+    private TransactionLogFilePreallocator preallocator;
+    private CentralJobScheduler jobScheduler;
+
+    @Before
+    public void setUp()
+    {
+        fileSystem = fileSystemRule.get();
+        directory = testDirectory.directory();
+        jobScheduler = new CentralJobScheduler();
+        jobScheduler.init();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException
+    {
+        if ( preallocator != null )
+        {
+            preallocator.stop();
+        }
+        jobScheduler.shutdown();
+    }
+
+    @Test
+    public void shouldCreateLogFileFromPreAllocatedSpareFile() throws IOException
+    {
+        // given
+        preallocator = createPreallocator( false );
+        preallocator.start();
+        awaitSpareFiles( 1 );
+        File logFile = new File( directory, "log.5" );
+
+        // when
+        boolean created = preallocator.createFromSpare( logFile, 5, 42 );
+
+        // then
+        assertTrue( created );
+        assertEquals( ROTATION_THRESHOLD, fileSystem.getFileSize( logFile ) );
+        LogHeader header = readLogHeader( fileSystem, logFile );
+        assertEquals( 5, header.logVersion );
+        assertEquals( 42, header.lastCommittedTxId );
+        awaitSpareFiles( 1 );
+    }
+
+    @Test
+    public void shouldNotCreateLogFileWhenNoSpareFileIsReady() throws IOException
+    {
+        // given
+        preallocator = createPreallocator( false );
+
+        // when
+        boolean created = preallocator.createFromSpare( new File( directory, "log.1" ), 1, 0 );
+
+        // then
+        assertFalse( created );
+    }
+
+    @Test
+    public void shouldOverwriteRecycledLogFileWithZeros() throws Exception
+    {
+        // given
+        preallocator = createPreallocator( true );
+        preallocator.start();
+        awaitSpareFiles( 1 );
+        File prunedLogFile = new File( directory, "log.0" );
+        try ( StoreChannel channel = fileSystem.open( prunedLogFile, OpenMode.READ_WRITE ) )
+        {
+            ByteBuffer content = ByteBuffer.allocate( (int) ROTATION_THRESHOLD * 2 );
+            while ( content.hasRemaining() )
+            {
+                content.put( (byte) 1 );
+            }
+            content.flip();
+            channel.writeAll( content );
+        }
+
+        // when
+        boolean recycled = preallocator.recycle( prunedLogFile );
+        awaitSpareFiles( 2 );
+
+        // then
+        assertTrue( recycled );
+        assertFalse( fileSystem.fileExists( prunedLogFile ) );
+        File spareFile = new File( directory, "log_preallocated.1" );
+        assertEquals( ROTATION_THRESHOLD, fileSystem.getFileSize( spareFile ) );
+        try ( StoreChannel channel = fileSystem.open( spareFile, OpenMode.READ ) )
+        {
+            ByteBuffer content = ByteBuffer.allocate( (int) ROTATION_THRESHOLD );
+            channel.readAll( content );
+            content.flip();
+            while ( content.hasRemaining() )
+            {
+                assertEquals( 0, content.get() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotRecycleLogFilesWhenRecyclingIsDisabled() throws IOException
+    {
+        // given
+        preallocator = createPreallocator( false );
+        preallocator.start();
+        File prunedLogFile = new File( directory, "log.0" );
+        fileSystem.create( prunedLogFile ).close();
+
+        // when
+        boolean recycled = preallocator.recycle( prunedLogFile );
+
+        // then
+        assertFalse( recycled );
+        assertTrue( fileSystem.fileExists( prunedLogFile ) );
+    }
+
+    @Test
+    public void shouldAppendAfterLastEntryOfPreAllocatedLogFileOnRestart() throws Throwable
+    {
+        // given a log file that is zero filled after its last entry, like a pre-allocated one after a crash
+        SimpleLogVersionRepository logVersionRepository = new SimpleLogVersionRepository();
+        SimpleTransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( createLogFiles( logVersionRepository, transactionIdStore, true ) );
+        life.start();
+        appendTransactions( logFiles, transactionIdStore, 10 );
+        life.shutdown();
+        File logFile = logFiles.getLogFileForVersion( 0 );
+        try ( StoreChannel channel = fileSystem.open( logFile, OpenMode.READ_WRITE ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( (int) ROTATION_THRESHOLD ), channel.size() );
+        }
+
+        // when
+        life = new LifeSupport();
+        logFiles = life.add( createLogFiles( logVersionRepository, transactionIdStore, true ) );
+        life.start();
+        appendTransactions( logFiles, transactionIdStore, 10 );
+
+        // then
+        assertEquals( 20, countTransactions( logFiles ) );
+        life.shutdown();
+        assertTrue( fileSystem.getFileSize( logFile ) < ROTATION_THRESHOLD );
+    }
+
+    @Test
+    public void shouldNotReadEntriesToFindEndOfLogFileWhenPreAllocationIsDisabled() throws Throwable
+    {
+        // given a log file ending with a zero byte
+        SimpleLogVersionRepository logVersionRepository = new SimpleLogVersionRepository();
+        SimpleTransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+        LifeSupport life = new LifeSupport();
+        LogFiles logFiles = life.add( createLogFiles( logVersionRepository, transactionIdStore, false ) );
+        life.start();
+        appendTransactions( logFiles, transactionIdStore, 10 );
+        life.shutdown();
+        File logFile = logFiles.getLogFileForVersion( 0 );
+        try ( StoreChannel channel = fileSystem.open( logFile, OpenMode.READ_WRITE ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( 16 ), channel.size() );
+        }
+        long size = fileSystem.getFileSize( logFile );
+
+        // when
+        life = new LifeSupport();
+        logFiles = life.add( createLogFiles( logVersionRepository, transactionIdStore, false ) );
+        life.start();
+
+        // then
+        LogPositionMarker position = new LogPositionMarker();
+        logFiles.getLogFile().getWriter().getCurrentPosition( position );
+        assertEquals( size, position.getByteOffset() );
+        life.shutdown();
+    }
+
+    private TransactionLogFilePreallocator createPreallocator( boolean recycle )
+    {
+        TransactionLogFilesContext context = new TransactionLogFilesContext( new AtomicLong( ROTATION_THRESHOLD ),
+                null, null, null, null, null, fileSystem, true, recycle, false, false, jobScheduler );
+        return new TransactionLogFilePreallocator( new File( directory, "log" ), context );
+    }
+
+    private void awaitSpareFiles( int count )
+    {
+        while ( preallocator.numberOfSpareFiles() < count )
+        {
+            parkNanos( MILLISECONDS.toNanos( 10 ) );
+        }
+    }
+
+    private LogFiles createLogFiles( SimpleLogVersionRepository logVersionRepository,
+            SimpleTransactionIdStore transactionIdStore, boolean preallocate ) throws IOException
+    {
+        return LogFilesBuilder.builder( directory, fileSystem )
+                .withLogVersionRepository( logVersionRepository )
+                .withTransactionIdStore( transactionIdStore )
+                .withConfig( Config.defaults( GraphDatabaseSettings.preallocate_logical_logs,
+                        String.valueOf( preallocate ) ) )
+                .withRotationThreshold( ROTATION_THRESHOLD * 100 )
+                .withJobScheduler( jobScheduler )
+                .build();
+    }
+
+    private static void appendTransactions( LogFiles logFiles, SimpleTransactionIdStore transactionIdStore,
+            int count ) throws IOException
+    {
+        LogFile logFile = logFiles.getLogFile();
+        TransactionLogWriter writer = new TransactionLogWriter( new LogEntryWriter( logFile.getWriter() ) );
+        for ( int i = 0; i < count; i++ )
+        {
+            long transactionId = transactionIdStore.nextCommittingTransactionId();
+            writer.append( transaction( transactionId ), transactionId );
+            logFile.getWriter().prepareForFlush().flush();
+            transactionIdStore.transactionCommitted( transactionId, 0, 0 );
+        }
+    }
+
+    private static PhysicalTransactionRepresentation transaction( long transactionId )
+    {
+        Collection<StorageCommand> commands = new ArrayList<>();
+        NodeRecord after = new NodeRecord( transactionId );
+        after.setInUse( true );
+        commands.add( new NodeCommand( new NodeRecord( transactionId ), after ) );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 0, 0, 0, transactionId - 1, 0, -1 );
+        return transaction;
+    }
+
+    private static int countTransactions( LogFiles logFiles ) throws IOException
+    {
+        int count = 0;
+        ReadableLogChannel channel = logFiles.getLogFile().getReader( LogPosition.start( 0 ) );
+        try ( PhysicalTransactionCursor<ReadableLogChannel> cursor =
+                      new PhysicalTransactionCursor<>( channel, new VersionAwareLogEntryReader<>(
+                              new RecordStorageCommandReaderFactory(), InvalidLogEntryHandler.STRICT, true ) ) )
+        {
+            while ( cursor.next() )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+}
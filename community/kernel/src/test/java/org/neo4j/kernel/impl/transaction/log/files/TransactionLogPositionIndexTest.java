@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.OpenMode;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.SimpleLogVersionRepository;
+import org.neo4j.kernel.impl.transaction.SimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogicalTransactionStore;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionLogPositionIndexTest
+{
+    private static final long SPACING = 512;
+
+    @Rule
+    public final TestDirectory testDirectory = TestDirectory.testDirectory();
+    @Rule
+    public final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    private final SimpleLogVersionRepository logVersionRepository = new SimpleLogVersionRepository();
+    private final SimpleTransactionIdStore transactionIdStore = new SimpleTransactionIdStore();
+    private final Map<Long,LogPosition> positions = new HashMap<>();
+    private final LifeSupport life = new LifeSupport();
+    private FileSystemAbstraction fileSystem;
+    private LogFiles logFiles;
+    private TransactionLogPositionIndex index;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        fileSystem = fileSystemRule.get();
+        File directory = testDirectory.directory();
+        CentralJobScheduler jobScheduler = life.add( new CentralJobScheduler() );
+        logFiles = life.add( LogFilesBuilder.builder( directory, fileSystem )
+                .withLogVersionRepository( logVersionRepository )
+                .withTransactionIdStore( transactionIdStore )
+                .withRotationThreshold( Long.MAX_VALUE )
+                .build() );
+        index = new TransactionLogPositionIndex( new File( directory, TransactionLogFiles.DEFAULT_NAME ), logFiles,
+                fileSystem, SPACING, jobScheduler );
+        life.start();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException
+    {
+        if ( index != null )
+        {
+            index.stop();
+        }
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldLookUpTransactionsOfLogFileCurrentlyWrittenTo() throws IOException
+    {
+        // given
+        appendTransactions( 100 );
+
+        // then
+        assertLookups( 0, 2, 101 );
+    }
+
+    @Test
+    public void shouldLookUpTransactionsOfRotatedLogFileFromIndexFile() throws IOException
+    {
+        // given
+        appendTransactions( 100 );
+
+        // when
+        rotate();
+        appendTransactions( 10 );
+
+        // then
+        assertTrue( fileSystem.fileExists( index.indexFileForVersion( 0 ) ) );
+        assertLookups( 0, 2, 101 );
+        assertLookups( 1, 102, 111 );
+    }
+
+    @Test
+    public void shouldWriteIndexFileInBackgroundAndLookUpRotatedTransactionsMeanwhile() throws Exception
+    {
+        // given
+        index.start();
+        appendTransactions( 100 );
+
+        // when
+        rotate();
+
+        // then
+        assertLookups( 0, 2, 101 );
+        index.stop();
+        assertTrue( fileSystem.fileExists( index.indexFileForVersion( 0 ) ) );
+        assertLookups( 0, 2, 101 );
+    }
+
+    @Test
+    public void shouldNotUseIndexFileOfLogFileThatHasChanged() throws IOException
+    {
+        // given
+        appendTransactions( 100 );
+        rotate();
+        assertNotNull( index.lookup( 0, 50 ) );
+
+        // when
+        try ( StoreChannel channel = fileSystem.open( logFiles.getLogFileForVersion( 0 ), OpenMode.READ_WRITE ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( 10 ), channel.size() );
+        }
+
+        // then
+        assertNull( index.lookup( 0, 50 ) );
+    }
+
+    @Test
+    public void shouldNotUseIncompleteIndexFile() throws IOException
+    {
+        // given
+        appendTransactions( 100 );
+        rotate();
+        File indexFile = index.indexFileForVersion( 0 );
+
+        // when
+        try ( StoreChannel channel = fileSystem.open( indexFile, OpenMode.READ_WRITE ) )
+        {
+            channel.truncate( channel.size() - 8 );
+        }
+
+        // then
+        assertNull( index.lookup( 0, 50 ) );
+    }
+
+    @Test
+    public void shouldDeleteIndexFilesOfMissingLogFilesOnRotation() throws IOException
+    {
+        // given
+        appendTransactions( 10 );
+        rotate();
+        appendTransactions( 10 );
+        File indexFile = index.indexFileForVersion( 0 );
+        assertTrue( fileSystem.fileExists( indexFile ) );
+
+        // when
+        fileSystem.deleteFile( logFiles.getLogFileForVersion( 0 ) );
+        rotate();
+
+        // then
+        assertFalse( fileSystem.fileExists( indexFile ) );
+        assertTrue( fileSystem.fileExists( index.indexFileForVersion( 1 ) ) );
+    }
+
+    @Test
+    public void shouldFindTransactionsInTransactionStoreWithPositionsIndexed() throws Throwable
+    {
+        // given
+        life.shutdown();
+        LifeSupport indexedLife = new LifeSupport();
+        LogFiles indexedLogFiles = indexedLife.add( LogFilesBuilder.builder( testDirectory.directory(), fileSystem )
+                .withLogVersionRepository( logVersionRepository )
+                .withTransactionIdStore( transactionIdStore )
+                .withRotationThreshold( Long.MAX_VALUE )
+                .withConfig( Config.defaults( GraphDatabaseSettings.transaction_log_position_index, "true" ) )
+                .build() );
+        indexedLife.start();
+        try
+        {
+            logFiles = indexedLogFiles;
+            // the log files index their transactions themselves
+            index.stop();
+            index = null;
+            appendTransactions( 50 );
+            indexedLogFiles.getLogFile().rotate();
+            appendTransactions( 50 );
+            PhysicalLogicalTransactionStore transactionStore = new PhysicalLogicalTransactionStore( indexedLogFiles,
+                    new TransactionMetadataCache( 10 ), new VersionAwareLogEntryReader<>(), new Monitors(), true );
+
+            // when/then
+            for ( long transactionId = 2; transactionId <= 101; transactionId++ )
+            {
+                try ( TransactionCursor cursor = transactionStore.getTransactions( transactionId ) )
+                {
+                    assertTrue( cursor.next() );
+                    assertEquals( transactionId, cursor.get().getCommitEntry().getTxId() );
+                }
+            }
+        }
+        finally
+        {
+            indexedLife.shutdown();
+        }
+    }
+
+    private void assertLookups( long version, long fromTransactionId, long toTransactionId ) throws IOException
+    {
+        for ( long transactionId = fromTransactionId; transactionId <= toTransactionId; transactionId++ )
+        {
+            LogPosition actual = positions.get( transactionId );
+            LogPosition indexed = index.lookup( version, transactionId );
+            assertNotNull( indexed );
+            assertEquals( version, indexed.getLogVersion() );
+            assertTrue( indexed.getByteOffset() <= actual.getByteOffset() );
+            assertTrue( actual.getByteOffset() - indexed.getByteOffset() < 2 * SPACING );
+            assertEquals( transactionId, firstTransactionAtOrAfter( indexed, transactionId ) );
+        }
+    }
+
+    private long firstTransactionAtOrAfter( LogPosition position, long transactionId ) throws IOException
+    {
+        try ( PhysicalTransactionCursor<?> cursor = new PhysicalTransactionCursor<>(
+                logFiles.getLogFile().getReader( position ), new VersionAwareLogEntryReader<>() ) )
+        {
+            while ( cursor.next() )
+            {
+                long committed = cursor.get().getCommitEntry().getTxId();
+                if ( committed >= transactionId )
+                {
+                    return committed;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void rotate() throws IOException
+    {
+        long version = logVersionRepository.getCurrentLogVersion();
+        logFiles.getLogFile().rotate();
+        index.logRotated( version, fileSystem.getFileSize( logFiles.getLogFileForVersion( version ) ) );
+    }
+
+    private void appendTransactions( int count ) throws IOException
+    {
+        LogFile logFile = logFiles.getLogFile();
+        TransactionLogWriter writer = new TransactionLogWriter( new LogEntryWriter( logFile.getWriter() ) );
+        LogPositionMarker marker = new LogPositionMarker();
+        for ( int i = 0; i < count; i++ )
+        {
+            long transactionId = transactionIdStore.nextCommittingTransactionId();
+            LogPosition position = logFile.getWriter().getCurrentPosition( marker ).newPosition();
+            writer.append( transaction( transactionId ), transactionId );
+            logFile.getWriter().prepareForFlush().flush();
+            transactionIdStore.transactionCommitted( transactionId, 0, 0 );
+            positions.put( transactionId, position );
+            if ( index != null )
+            {
+                index.transactionAppended( transactionId, position );
+            }
+            logFile.transactionAppended( transactionId, position );
+        }
+    }
+
+    private static PhysicalTransactionRepresentation transaction( long transactionId )
+    {
+        Collection<StorageCommand> commands = new ArrayList<>();
+        NodeRecord after = new NodeRecord( transactionId );
+        after.setInUse( true );
+        commands.add( new NodeCommand( new NodeRecord( transactionId ), after ) );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 0, 0, 0, transactionId - 1, 0, -1 );
+        return transaction;
+    }
+}
@@ -22,15 +22,25 @@ package org.neo4j.kernel.impl.util.collection;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Iterator;
+import java.util.Set;
+
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.kernel.impl.util.diffsets.PrimitiveLongDiffSets;
 import org.neo4j.memory.LocalMemoryTracker;
 import org.neo4j.memory.MemoryAllocationTracker;
+import org.neo4j.memory.MemoryLimitExceededException;
+import org.neo4j.storageengine.api.StorageProperty;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -67,6 +77,25 @@ public class OffHeapCollectionsFactoryTest
         verify( memoryTracker ).deallocated( anyLong() );
     }
 
+    @Test
+    public void refuseAllocationsAboveMemoryLimit()
+    {
+        final LocalMemoryTracker limitedTracker = new LocalMemoryTracker( 1 );
+        final OffHeapCollectionsFactory limitedFactory = new OffHeapCollectionsFactory( limitedTracker );
+
+        try
+        {
+            limitedFactory.newLongSet();
+            fail( "Allocation above the memory limit should have been refused" );
+        }
+        catch ( MemoryLimitExceededException e )
+        {
+            assertEquals( 1, e.getLimit() );
+        }
+
+        assertEquals( 0, limitedTracker.usedDirectMemory() );
+    }
+
     @Test
     public void longDiffSetsAllocationAndRelease()
     {
@@ -88,6 +117,169 @@ public class OffHeapCollectionsFactoryTest
         verify( memoryTracker, times( 2 ) ).deallocated( anyLong() );
     }
 
+    @Test
+    public void boxedLongSetAllocationAndRelease()
+    {
+        final Set<Long> set = factory.newBoxedLongSet();
+        set.add( 1L );
+        set.add( 2L );
+
+        assertNotEquals( 0, memoryTracker.usedDirectMemory() );
+        assertTrue( set.contains( 1L ) );
+        assertEquals( 2, set.size() );
+
+        factory.release();
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void boxedLongSetGrowsBeyondItsInitialCapacity()
+    {
+        final Set<Long> set = factory.newBoxedLongSet();
+        final long mem0 = memoryTracker.usedDirectMemory();
+        for ( long i = 0; i < OffHeapCollectionsFactory.BOXED_LONG_SET_INITIAL_CAPACITY * 10; i++ )
+        {
+            set.add( i );
+        }
+
+        assertTrue( memoryTracker.usedDirectMemory() > mem0 );
+        assertEquals( OffHeapCollectionsFactory.BOXED_LONG_SET_INITIAL_CAPACITY * 10, set.size() );
+        for ( long i = 0; i < OffHeapCollectionsFactory.BOXED_LONG_SET_INITIAL_CAPACITY * 10; i++ )
+        {
+            assertTrue( set.contains( i ) );
+        }
+
+        factory.release();
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void boxedLongSetIteratorReturnsElementsHeldWhenItWasCreated()
+    {
+        final Set<Long> set = factory.newBoxedLongSet();
+        set.add( 1L );
+        set.add( 2L );
+
+        final Iterator<Long> iterator = set.iterator();
+        final long first = iterator.next();
+        // grow the set well beyond its initial capacity, replacing the table the iterator started out with
+        for ( long i = 3; i < OffHeapCollectionsFactory.BOXED_LONG_SET_INITIAL_CAPACITY * 10; i++ )
+        {
+            set.add( i );
+        }
+        set.remove( 3 - first );
+
+        assertTrue( iterator.hasNext() );
+        assertEquals( 3 - first, (long) iterator.next() );
+        assertFalse( iterator.hasNext() );
+        factory.release();
+    }
+
+    @Test
+    public void boxedLongSetIteratorRemovesElements()
+    {
+        final Set<Long> set = factory.newBoxedLongSet();
+        for ( long i = 0; i < 100; i++ )
+        {
+            set.add( i );
+        }
+
+        final Iterator<Long> iterator = set.iterator();
+        int count = 0;
+        while ( iterator.hasNext() )
+        {
+            long element = iterator.next();
+            if ( element % 2 == 0 )
+            {
+                iterator.remove();
+            }
+            count++;
+        }
+
+        assertEquals( 100, count );
+        assertEquals( 50, set.size() );
+        for ( long i = 0; i < 100; i++ )
+        {
+            assertEquals( i % 2 != 0, set.contains( i ) );
+        }
+        factory.release();
+    }
+
+    @Test
+    public void boxedIntSetGrowsAndIsReleased()
+    {
+        final Set<Integer> set = factory.newBoxedIntSet();
+        final long mem0 = memoryTracker.usedDirectMemory();
+        assertNotEquals( 0, mem0 );
+        for ( int i = 0; i < OffHeapCollectionsFactory.BOXED_INT_SET_INITIAL_CAPACITY * 10; i++ )
+        {
+            set.add( i );
+        }
+
+        assertTrue( memoryTracker.usedDirectMemory() > mem0 );
+        assertEquals( OffHeapCollectionsFactory.BOXED_INT_SET_INITIAL_CAPACITY * 10, set.size() );
+        assertTrue( set.contains( 3 ) );
+        assertFalse( set.contains( 3L ) );
+
+        factory.release();
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void boxedIntSetIteratorReturnsElementsHeldWhenItWasCreated()
+    {
+        final Set<Integer> set = factory.newBoxedIntSet();
+        set.add( 1 );
+        set.add( 2 );
+
+        final Iterator<Integer> iterator = set.iterator();
+        final int first = iterator.next();
+        // grow the set well beyond its initial capacity, replacing the table the iterator started out with
+        for ( int i = 3; i < OffHeapCollectionsFactory.BOXED_INT_SET_INITIAL_CAPACITY * 10; i++ )
+        {
+            set.add( i );
+        }
+        set.remove( 3 - first );
+
+        assertTrue( iterator.hasNext() );
+        assertEquals( 3 - first, (int) iterator.next() );
+        assertFalse( iterator.hasNext() );
+        factory.release();
+    }
+
+    @Test
+    public void valuesMapKeepsValuesOffHeapUntilRelease()
+    {
+        final ValuesMap map = factory.newValuesMap();
+        final Value value = Values.stringValue( "a property value" );
+        map.put( 1, value );
+
+        assertNotEquals( 0, memoryTracker.usedDirectMemory() );
+        assertEquals( value, map.get( 1 ) );
+
+        factory.release();
+
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void valuesMapIteratorDoesNotSeeValuesPutAfterItWasCreated()
+    {
+        final ValuesMap map = factory.newValuesMap();
+        map.put( 1, Values.intValue( 1 ) );
+
+        final Iterator<StorageProperty> properties = map.properties();
+        map.put( 2, Values.intValue( 2 ) );
+
+        assertTrue( properties.hasNext() );
+        assertEquals( 1, properties.next().propertyKeyId() );
+        assertFalse( properties.hasNext() );
+        factory.release();
+    }
+
     @Test
     public void longObjectMapAllocationAndRelease()
     {
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util.collection;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.memory.LocalMemoryTracker;
+import org.neo4j.values.storable.CoordinateReferenceSystem;
+import org.neo4j.values.storable.DurationValue;
+import org.neo4j.values.storable.PointValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.values.storable.Values.utf8Value;
+
+public class OffHeapValueArenaTest
+{
+    private final LocalMemoryTracker memoryTracker = new LocalMemoryTracker();
+    private final OffHeapValueArena arena = new OffHeapValueArena( memoryTracker );
+
+    @After
+    public void tearDown()
+    {
+        arena.close();
+        assertEquals( "Seems like native memory is leaking", 0, memoryTracker.usedDirectMemory() );
+    }
+
+    @Test
+    public void shouldReadBackValuesOfAllTypes()
+    {
+        // given
+        List<Value> values = asList(
+                Values.booleanValue( true ),
+                Values.byteValue( (byte) -3 ),
+                Values.shortValue( (short) 1234 ),
+                Values.intValue( 123_456 ),
+                Values.longValue( Long.MIN_VALUE ),
+                Values.floatValue( 1.5f ),
+                Values.doubleValue( Math.PI ),
+                Values.stringValue( "a string \u00e5\u00e4\u00f6" ),
+                utf8Value( "utf-8 string".getBytes() ),
+                Values.charValue( 'c' ),
+                Values.pointValue( CoordinateReferenceSystem.WGS84, 12.3, 45.6 ),
+                Values.pointValue( CoordinateReferenceSystem.Cartesian_3D, 1, 2, 3 ),
+                DurationValue.duration( 1, 2, 3, 4 ),
+                Values.temporalValue( LocalDate.of( 2018, 3, 14 ) ),
+                Values.temporalValue( LocalTime.of( 12, 34, 56, 789 ) ),
+                Values.temporalValue( OffsetTime.of( 12, 34, 56, 789, ZoneOffset.ofHours( 2 ) ) ),
+                Values.temporalValue( LocalDateTime.of( 2018, 3, 14, 12, 34, 56, 789 ) ),
+                Values.temporalValue( ZonedDateTime.of( 2018, 3, 14, 12, 34, 56, 789, ZoneOffset.ofHours( -5 ) ) ),
+                Values.temporalValue( ZonedDateTime.of( 2018, 3, 14, 12, 34, 56, 789, ZoneId.of( "Europe/Stockholm" ) ) ),
+                Values.byteArray( new byte[]{1, 2, 3} ),
+                Values.shortArray( new short[]{1, 2, 3} ),
+                Values.intArray( new int[]{1, 2, 3} ),
+                Values.longArray( new long[]{1, 2, 3} ),
+                Values.floatArray( new float[]{1, 2, 3} ),
+                Values.doubleArray( new double[]{1, 2, 3} ),
+                Values.booleanArray( new boolean[]{true, false} ),
+                Values.charArray( new char[]{'a', 'b'} ),
+                Values.stringArray( "a", "b", "c" ),
+                Values.pointArray( new PointValue[]{
+                        Values.pointValue( CoordinateReferenceSystem.Cartesian, 1, 2 ),
+                        Values.pointValue( CoordinateReferenceSystem.Cartesian, 3, 4 )} ),
+                Values.dateArray( new LocalDate[]{LocalDate.of( 2018, 3, 14 )} ),
+                Values.localTimeArray( new LocalTime[]{LocalTime.of( 12, 34 )} ),
+                Values.timeArray( new OffsetTime[]{OffsetTime.of( 12, 34, 0, 0, ZoneOffset.UTC )} ),
+                Values.localDateTimeArray( new LocalDateTime[]{LocalDateTime.of( 2018, 3, 14, 12, 34 )} ),
+                Values.dateTimeArray( new ZonedDateTime[]{ZonedDateTime.of( 2018, 3, 14, 12, 34, 0, 0, ZoneOffset.UTC )} ),
+                Values.durationArray( new DurationValue[]{DurationValue.duration( 1, 2, 3, 4 )} ),
+                Values.stringArray() );
+
+        // when
+        List<Long> references = new ArrayList<>();
+        for ( Value value : values )
+        {
+            references.add( arena.add( value ) );
+        }
+
+        // then
+        for ( int i = 0; i < values.size(); i++ )
+        {
+            assertEquals( values.get( i ), arena.get( references.get( i ) ) );
+        }
+    }
+
+    @Test
+    public void shouldStoreValuesLargerThanChunks()
+    {
+        // given
+        char[] chars = new char[OffHeapValueArena.CHUNK_SIZE * 3];
+        Arrays.fill( chars, 'x' );
+        Value small = Values.intValue( 42 );
+        Value large = Values.stringValue( new String( chars ) );
+
+        // when
+        long smallReference = arena.add( small );
+        long largeReference = arena.add( large );
+        long smallAfterLargeReference = arena.add( small );
+
+        // then
+        assertEquals( small, arena.get( smallReference ) );
+        assertEquals( large, arena.get( largeReference ) );
+        assertEquals( small, arena.get( smallAfterLargeReference ) );
+        assertTrue( memoryTracker.usedDirectMemory() >= chars.length * Character.BYTES );
+    }
+
+    @Test
+    public void shouldFreeAllChunksOnClose()
+    {
+        // given
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            arena.add( Values.stringValue( "value " + i ) );
+        }
+        assertTrue( memoryTracker.usedDirectMemory() > OffHeapValueArena.CHUNK_SIZE );
+
+        // when
+        arena.close();
+
+        // then
+        assertEquals( 0, memoryTracker.usedDirectMemory() );
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.LabelTokenCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StorageEngine;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
+
+public class ParallelRecoveryApplierTest
+{
+    @Test
+    public void transactionsTouchingTheSameRecordsMustEndUpInLaterWaves()
+    {
+        List<long[]> records = Arrays.asList(
+                new long[]{1, 2},
+                new long[]{3},
+                new long[]{2},
+                new long[]{3, 4},
+                new long[]{5},
+                new long[]{4, 2} );
+        List<Integer> transactions = Arrays.asList( 0, 1, 2, 3, 4, 5 );
+
+        List<List<Integer>> waves = ParallelRecoveryApplier.waves( records, transactions );
+
+        assertEquals( Arrays.asList(
+                Arrays.asList( 0, 1, 4 ),
+                Arrays.asList( 2, 3 ),
+                Collections.singletonList( 5 ) ), waves );
+    }
+
+    @Test
+    public void propertyChangesMustTouchTheOwningNode() throws Exception
+    {
+        long[] nodeRecords = ParallelRecoveryApplier.touchedRecords( transaction( nodeCommand( 5 ) ) );
+        long[] propertyRecords = ParallelRecoveryApplier.touchedRecords( transaction( propertyCommand( 7, 5 ) ) );
+        long[] otherPropertyRecords =
+                ParallelRecoveryApplier.touchedRecords( transaction( propertyCommand( 8, 6 ) ) );
+
+        assertTrue( intersects( nodeRecords, propertyRecords ) );
+        assertFalse( intersects( nodeRecords, otherPropertyRecords ) );
+        assertFalse( intersects( propertyRecords, otherPropertyRecords ) );
+    }
+
+    @Test
+    public void countsChangesMustNotTouchAnyRecords() throws Exception
+    {
+        long[] records = ParallelRecoveryApplier.touchedRecords( transaction( new NodeCountsCommand( 1, 10 ) ) );
+
+        assertArrayEquals( new long[0], records );
+    }
+
+    @Test
+    public void tokenChangesMustBeAppliedOnTheirOwn() throws Exception
+    {
+        LabelTokenRecord before = new LabelTokenRecord( 1 );
+        LabelTokenRecord after = new LabelTokenRecord( 1 );
+        after.setInUse( true );
+
+        assertNull( ParallelRecoveryApplier.touchedRecords(
+                transaction( nodeCommand( 1 ), new LabelTokenCommand( before, after ) ) ) );
+    }
+
+    @Test
+    public void mustApplyConflictingTransactionsInCommitOrder() throws Exception
+    {
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        List<Long> applied = Collections.synchronizedList( new ArrayList<>() );
+        doAnswer( invocation ->
+        {
+            TransactionToApply tx = invocation.getArgument( 0 );
+            while ( tx != null )
+            {
+                applied.add( tx.transactionId() );
+                tx = tx.next();
+            }
+            return null;
+        } ).when( storageEngine ).apply( any(), eq( RECOVERY ) );
+        RecoveryMonitor monitor = mock( RecoveryMonitor.class );
+
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, monitor, 4 ) )
+        {
+            applier.visit( committed( 1, transaction( nodeCommand( 1 ) ) ) );
+            applier.visit( committed( 2, transaction( nodeCommand( 2 ) ) ) );
+            applier.visit( committed( 3, transaction( propertyCommand( 10, 1 ) ) ) );
+            applier.visit( committed( 4, transaction( nodeCommand( 3 ) ) ) );
+            LabelTokenRecord token = new LabelTokenRecord( 1 );
+            applier.visit( committed( 5, transaction( new LabelTokenCommand( token, token ) ) ) );
+            applier.visit( committed( 6, transaction( nodeCommand( 2 ) ) ) );
+        }
+
+        assertEquals( 6, applied.size() );
+        assertTrue( applied.indexOf( 1L ) < applied.indexOf( 3L ) );
+        assertEquals( Arrays.asList( 5L, 6L ), applied.subList( 4, 6 ) );
+        verify( monitor ).batchRecovered( eq( 4 ), anyLong() );
+        verify( monitor, times( 2 ) ).batchRecovered( eq( 1 ), anyLong() );
+        InOrder inOrder = inOrder( monitor );
+        for ( long txId = 1; txId <= 6; txId++ )
+        {
+            inOrder.verify( monitor ).transactionRecovered( txId );
+        }
+    }
+
+    @Test
+    public void mustNotReportTransactionsAsRecoveredBeforeTheyAreApplied() throws Exception
+    {
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        RecoveryMonitor monitor = mock( RecoveryMonitor.class );
+
+        try ( ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, monitor, 4 ) )
+        {
+            applier.visit( committed( 1, transaction( nodeCommand( 1 ) ) ) );
+            applier.visit( committed( 2, transaction( nodeCommand( 2 ) ) ) );
+            verify( monitor, never() ).transactionRecovered( anyLong() );
+        }
+
+        verify( monitor ).transactionRecovered( 1 );
+        verify( monitor ).transactionRecovered( 2 );
+    }
+
+    @Test
+    public void mustNotApplyFailedBatchAgainOnClose() throws Exception
+    {
+        StorageEngine storageEngine = mock( StorageEngine.class );
+        RuntimeException failure = new RuntimeException( "apply failed" );
+        doThrow( failure ).when( storageEngine ).apply( any(), eq( RECOVERY ) );
+        RecoveryMonitor monitor = mock( RecoveryMonitor.class );
+
+        ParallelRecoveryApplier applier = new ParallelRecoveryApplier( storageEngine, monitor, 4 );
+        applier.visit( committed( 1, transaction( nodeCommand( 1 ) ) ) );
+        try
+        {
+            LabelTokenRecord token = new LabelTokenRecord( 1 );
+            applier.visit( committed( 2, transaction( new LabelTokenCommand( token, token ) ) ) );
+            fail( "Should have failed" );
+        }
+        catch ( RuntimeException e )
+        {
+            assertSame( failure, e );
+        }
+        applier.close();
+
+        verify( storageEngine, times( 1 ) ).apply( any(), eq( RECOVERY ) );
+        verify( monitor, never() ).transactionRecovered( anyLong() );
+    }
+
+    private static boolean intersects( long[] a, long[] b )
+    {
+        return Arrays.stream( a ).anyMatch( x -> Arrays.stream( b ).anyMatch( y -> x == y ) );
+    }
+
+    private static NodeCommand nodeCommand( long nodeId )
+    {
+        NodeRecord after = new NodeRecord( nodeId );
+        after.setInUse( true );
+        return new NodeCommand( new NodeRecord( nodeId ), after );
+    }
+
+    private static PropertyCommand propertyCommand( long propertyId, long nodeId )
+    {
+        PropertyRecord after = new PropertyRecord( propertyId );
+        after.setInUse( true );
+        after.setNodeId( nodeId );
+        return new PropertyCommand( new PropertyRecord( propertyId ), after );
+    }
+
+    private static TransactionRepresentation transaction( Command... commands )
+    {
+        List<StorageCommand> storageCommands = new ArrayList<>( Arrays.asList( commands ) );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( storageCommands );
+        transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, 0 );
+        return transaction;
+    }
+
+    private static CommittedTransactionRepresentation committed( long txId, TransactionRepresentation transaction )
+    {
+        LogEntryStart start = new LogEntryStart( 0, 0, 0, txId - 1, new byte[0], LogPosition.start( 0 ) );
+        return new CommittedTransactionRepresentation( start, transaction, new LogEntryCommit( txId, 0 ) );
+    }
+}
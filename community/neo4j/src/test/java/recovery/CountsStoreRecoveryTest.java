@@ -36,7 +36,7 @@ import org.neo4j.kernel.impl.api.index.inmemory.InMemoryIndexProviderFactory;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.store.MetaDataStore;
 import org.neo4j.kernel.impl.store.NeoStores;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointer;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.SimpleTriggerInfo;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -90,7 +90,7 @@ public class CountsStoreRecoveryTest
         metaDataStore.flush();
     }
 
-    private CountsTracker counts()
+    private CountsStore counts()
     {
         return ((GraphDatabaseAPI) db).getDependencyResolver()
                                       .resolveDependency( RecordStorageEngine.class ).testAccessNeoStores()
@@ -23,8 +23,10 @@ import sun.misc.Unsafe;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -68,6 +70,7 @@ public final class UnsafeUtil
 
     private static final Unsafe unsafe;
     private static final MethodHandle sharedStringConstructor;
+    private static final MethodHandle directByteBufferCleaner;
     private static final String allowUnalignedMemoryAccessProperty =
             "org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil.allowUnalignedMemoryAccess";
 
@@ -90,6 +93,7 @@ public final class UnsafeUtil
 
         MethodHandles.Lookup lookup = MethodHandles.lookup();
         sharedStringConstructor = getSharedStringConstructorMethodHandle( lookup );
+        directByteBufferCleaner = getDirectByteBufferCleanerMethodHandle( lookup );
 
         Class<?> dbbClass = null;
         Constructor<?> ctor = null;
@@ -233,6 +237,31 @@ public final class UnsafeUtil
         }
     }
 
+    private static MethodHandle getDirectByteBufferCleanerMethodHandle( MethodHandles.Lookup lookup )
+    {
+        try
+        {
+            // Java 9 and later
+            return lookup.findVirtual( Unsafe.class, "invokeCleaner", MethodType.methodType( void.class,
+                    ByteBuffer.class ) ).bindTo( unsafe );
+        }
+        catch ( Exception e )
+        {
+            try
+            {
+                // Java 8
+                Method cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" );
+                Method clean = Class.forName( "sun.misc.Cleaner" ).getMethod( "clean" );
+                return MethodHandles.filterReturnValue( lookup.unreflect( cleaner ), lookup.unreflect( clean ) )
+                        .asType( MethodType.methodType( void.class, ByteBuffer.class ) );
+            }
+            catch ( Exception e1 )
+            {
+                return null;
+            }
+        }
+    }
+
     /**
      * Get the object-relative field offset.
      */
@@ -384,9 +413,13 @@ public final class UnsafeUtil
      * <p>
      * The memory is aligned such that it can be used for any data type.
      * The memory is uninitialised, so it may contain random garbage, or it may not.
+     * <p>
+     * The allocation is reported to the given tracker before any memory is allocated, so that a tracker that
+     * refuses the allocation, by throwing, does not leave unaccounted memory behind.
      */
     public static long allocateMemory( long sizeInBytes, MemoryAllocationTracker allocationTracker ) throws NativeMemoryAllocationRefusedError
     {
+        allocationTracker.allocated( sizeInBytes );
         final long pointer;
         try
         {
@@ -394,6 +427,7 @@ public final class UnsafeUtil
         }
         catch ( Throwable e )
         {
+            allocationTracker.deallocated( sizeInBytes );
             throw new NativeMemoryAllocationRefusedError( sizeInBytes, allocationTracker.usedDirectMemory(), e );
         }
         if ( DIRTY_MEMORY )
@@ -401,7 +435,6 @@ public final class UnsafeUtil
             setMemory( pointer, sizeInBytes, (byte) 0xA5 );
         }
         addAllocatedPointer( pointer, sizeInBytes );
-        allocationTracker.allocated( sizeInBytes );
         return pointer;
     }
 
@@ -970,6 +1003,32 @@ public final class UnsafeUtil
         return (ByteBuffer) directByteBufferCtor.newInstance( addr, cap );
     }
 
+    /**
+     * Release the memory of the given direct, or memory mapped, {@link ByteBuffer} right away, rather than when it is
+     * garbage collected. This does nothing if the running JVM offers no way to do so, in which case the memory is
+     * released by the garbage collector as usual.
+     * <p>
+     * <strong>NOTE:</strong> the buffer, and any buffer derived from it, such as duplicates and slices, must not be
+     * accessed after this call, since that would access memory that is no longer there and crash the JVM.
+     *
+     * @param buffer a direct {@link ByteBuffer} that has not been derived from another buffer.
+     */
+    public static void invokeCleaner( ByteBuffer buffer )
+    {
+        if ( directByteBufferCleaner == null || !buffer.isDirect() )
+        {
+            return;
+        }
+        try
+        {
+            directByteBufferCleaner.invokeExact( buffer );
+        }
+        catch ( Throwable throwable )
+        {
+            throw new LinkageError( "Cannot release the memory of a direct byte buffer", throwable );
+        }
+    }
+
     /**
      * Initialize (simulate calling the constructor of) the given DirectByteBuffer.
      */
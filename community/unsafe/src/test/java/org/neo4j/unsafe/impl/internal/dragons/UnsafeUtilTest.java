@@ -578,6 +578,27 @@ public class UnsafeUtilTest
         }
     }
 
+    @Test
+    public void invokingCleanerOfHeapByteBufferDoesNothing()
+    {
+        ByteBuffer buf = ByteBuffer.allocate( 8 );
+        buf.putLong( 0, 42 );
+
+        UnsafeUtil.invokeCleaner( buf );
+
+        assertEquals( 42, buf.getLong( 0 ) );
+    }
+
+    @Test
+    public void shouldInvokeCleanerOfDirectByteBuffer()
+    {
+        ByteBuffer buf = ByteBuffer.allocateDirect( 8 );
+        buf.putLong( 0, 42 );
+
+        // Must not throw; the buffer can not be accessed afterwards
+        UnsafeUtil.invokeCleaner( buf );
+    }
+
     @Test
     public void shouldAlignMemoryTo4ByteBoundary()
     {
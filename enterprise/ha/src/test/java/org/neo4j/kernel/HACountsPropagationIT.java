@@ -33,7 +33,7 @@ import org.neo4j.kernel.ha.HaSettings;
 import org.neo4j.kernel.ha.HighlyAvailableGraphDatabase;
 import org.neo4j.kernel.impl.ha.ClusterManager.ManagedCluster;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
-import org.neo4j.kernel.impl.store.counts.CountsTracker;
+import org.neo4j.kernel.impl.store.counts.CountsStore;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.test.ha.ClusterRule;
 
@@ -64,13 +64,13 @@ public class HACountsPropagationIT
 
         for ( HighlyAvailableGraphDatabase db : cluster.getAllMembers() )
         {
-            CountsTracker counts = counts( db );
+            CountsStore counts = counts( db );
             assertEquals( 2, counts.nodeCount( -1, newDoubleLongRegister() ).readSecond() );
             assertEquals( 1, counts.nodeCount( 0 /* A */, newDoubleLongRegister() ).readSecond() );
         }
     }
 
-    private CountsTracker counts( GraphDatabaseAPI db )
+    private CountsStore counts( GraphDatabaseAPI db )
     {
         return db.getDependencyResolver().resolveDependency( RecordStorageEngine.class )
                 .testAccessNeoStores().getCounts();
@@ -93,7 +93,7 @@ public class HACountsPropagationIT
 
         for ( HighlyAvailableGraphDatabase db : cluster.getAllMembers() )
         {
-            CountsTracker counts = counts( db );
+            CountsStore counts = counts( db );
             assertEquals( 1, counts.relationshipCount( -1, -1, -1, newDoubleLongRegister() ).readSecond() );
             assertEquals( 1, counts.relationshipCount( -1, -1, 0, newDoubleLongRegister() ).readSecond() );
             assertEquals( 1, counts.relationshipCount( -1, 0, -1, newDoubleLongRegister() ).readSecond() );
@@ -38,6 +38,7 @@ import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.security.AuthorizationViolationException;
 import org.neo4j.helpers.collection.Pair;
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
 import org.neo4j.internal.kernel.api.procs.ProcedureSignature;
 import org.neo4j.internal.kernel.api.procs.UserFunctionSignature;
 import org.neo4j.internal.kernel.api.security.SecurityContext;
@@ -263,7 +264,8 @@ public class EnterpriseBuiltInDbmsProcedures
             return name.startsWith( "dbms.security." ) && ADMIN_PROCEDURES.contains( procedureName ) ||
                     name.equals( "dbms.listConfig" ) ||
                     name.equals( "dbms.setConfigValue" ) ||
-                    name.equals( "dbms.clearQueryCaches" );
+                    name.equals( "dbms.clearQueryCaches" ) ||
+                    name.equals( "dbms.pagecache.stats" );
         }
     }
 
@@ -344,6 +346,18 @@ public class EnterpriseBuiltInDbmsProcedures
                                               .collect( toList() );
     }
 
+    @Description( "List the page cache hits, faults, evictions and flushes of each file currently mapped by the page " +
+            "cache. Numbers are counted since the file was mapped." )
+    @Procedure( name = "dbms.pagecache.stats", mode = DBMS )
+    public Stream<PagedFileStatsResult> pageCacheStats()
+    {
+        securityContext.assertCredentialsNotExpired();
+        assertAdmin();
+
+        PageCacheCounters pageCacheCounters = resolver.resolveDependency( PageCacheCounters.class );
+        return pageCacheCounters.pagedFileCounters().stream().map( PagedFileStatsResult::new );
+    }
+
     @Description( "List the active lock requests granted for the transaction executing the query with the given query id." )
     @Procedure( name = "dbms.listActiveLocks", mode = DBMS )
     public Stream<ActiveLocksResult> listActiveLocks( @Name( "queryId" ) String queryId )
@@ -20,32 +20,30 @@
  * More information is also available at:
  * https://neo4j.com/licensing/
  */
-package org.neo4j.kernel.impl.pagecache;
+package org.neo4j.kernel.enterprise.builtinprocs;
 
-import java.io.IOException;
-import java.util.concurrent.ExecutorService;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
-import org.neo4j.io.fs.FileUtils;
-import org.neo4j.io.pagecache.PageCache;
-import org.neo4j.io.pagecache.PagedFile;
-
-class PageLoaderFactory
+public class PagedFileStatsResult
 {
-    private final ExecutorService executor;
-    private final PageCache pageCache;
-
-    PageLoaderFactory( ExecutorService executor, PageCache pageCache )
-    {
-        this.executor = executor;
-        this.pageCache = pageCache;
-    }
+    public final String file;
+    public final long hits;
+    public final long faults;
+    public final long evictions;
+    public final long flushes;
+    public final long bytesRead;
+    public final long bytesWritten;
+    public final double hitRatio;
 
-    PageLoader getLoader( PagedFile file ) throws IOException
+    public PagedFileStatsResult( PagedFileCounters counters )
     {
-        if ( FileUtils.highIODevice( file.file().toPath(), false ) )
-        {
-            return new ParallelPageLoader( file, executor, pageCache );
-        }
-        return new SingleCursorPageLoader( file );
+        this.file = counters.file().getPath();
+        this.hits = counters.hits();
+        this.faults = counters.faults();
+        this.evictions = counters.evictions();
+        this.flushes = counters.flushes();
+        this.bytesRead = counters.bytesRead();
+        this.bytesWritten = counters.bytesWritten();
+        this.hitRatio = counters.hitRatio();
     }
 }
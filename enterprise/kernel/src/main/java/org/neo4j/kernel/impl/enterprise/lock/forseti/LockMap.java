@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The global map from resource id to {@link ForsetiLockManager.Lock} for one resource type.
+ * <p/>
+ * This used to be a {@code ConcurrentHashMap<Long,Lock>}, which boxes every resource id and allocates an entry
+ * for every lock put into it. This map is instead split into stripes, where each stripe is an open addressing hash
+ * table, using linear probing, guarded by a {@link StampedLock}. Modifications take the write lock of their stripe.
+ * Lookups are optimistic reads, which only fall back to taking the read lock if a modification of the same stripe
+ * interfered with them. {@link #putIfAbsent(long, ForsetiLockManager.Lock)} first looks for an existing lock the
+ * same way, since clients waiting for a lock call it over and over while the lock is held, and would otherwise
+ * contend for the write lock of the stripe with every other client of it. The tables of a stripe only ever grow, so once warmed up, getting, putting and removing
+ * locks doesn't allocate anything.
+ */
+class LockMap
+{
+    private static final int STRIPES = 128;
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros( STRIPES );
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    LockMap()
+    {
+        for ( int i = 0; i < stripes.length; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @return the lock for the given resource, or {@code null} if there is none.
+     */
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        long hash = hash( resourceId );
+        return stripe( hash ).get( resourceId, hash );
+    }
+
+    /**
+     * Puts the given lock for the given resource, unless there's already a lock for it.
+     *
+     * @return the existing lock for the given resource, or {@code null} if the given lock was put.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        return stripe( hash ).putIfAbsent( resourceId, hash, lock );
+    }
+
+    /**
+     * Puts the given lock for the given resource, replacing any existing lock for it.
+     *
+     * @return the replaced lock, or {@code null} if there was none.
+     */
+    ForsetiLockManager.Lock put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        return stripe( hash ).put( resourceId, hash, lock, false );
+    }
+
+    /**
+     * @return the removed lock, or {@code null} if there was no lock for the given resource.
+     */
+    ForsetiLockManager.Lock remove( long resourceId )
+    {
+        long hash = hash( resourceId );
+        return stripe( hash ).remove( resourceId, hash );
+    }
+
+    /**
+     * Visits all locks in this map, one stripe at a time. Only meant for introspection, as each stripe is read
+     * locked while being visited.
+     */
+    void visit( Visitor visitor )
+    {
+        for ( Stripe stripe : stripes )
+        {
+            stripe.visit( visitor );
+        }
+    }
+
+    interface Visitor
+    {
+        void visit( long resourceId, ForsetiLockManager.Lock lock );
+    }
+
+    private Stripe stripe( long hash )
+    {
+        return stripes[(int) (hash >>> STRIPE_SHIFT)];
+    }
+
+    /**
+     * The stripe is selected by the highest bits of the hash and the slot within the stripe by the lowest bits.
+     */
+    private static long hash( long resourceId )
+    {
+        long hash = resourceId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+
+    private static class Table
+    {
+        final long[] resourceIds;
+        final ForsetiLockManager.Lock[] locks;
+        final int mask;
+
+        Table( int capacity )
+        {
+            resourceIds = new long[capacity];
+            locks = new ForsetiLockManager.Lock[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * @return the slot of the given resource, or, if absent, {@code -freeSlot - 1} for the slot it would go into.
+         */
+        int slot( long resourceId, long hash )
+        {
+            int slot = (int) hash & mask;
+            // Bounded, since a lookup racing with a modification may see a table which is momentarily inconsistent
+            for ( int probes = 0; probes <= mask; probes++ )
+            {
+                if ( locks[slot] == null )
+                {
+                    return -slot - 1;
+                }
+                if ( resourceIds[slot] == resourceId )
+                {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    private static class Stripe
+    {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table( INITIAL_STRIPE_CAPACITY );
+        private int size;
+
+        ForsetiLockManager.Lock get( long resourceId, long hash )
+        {
+            long stamp = lock.tryOptimisticRead();
+            ForsetiLockManager.Lock result = find( resourceId, hash );
+            if ( !lock.validate( stamp ) )
+            {
+                stamp = lock.readLock();
+                try
+                {
+                    result = find( resourceId, hash );
+                }
+                finally
+                {
+                    lock.unlockRead( stamp );
+                }
+            }
+            return result;
+        }
+
+        private ForsetiLockManager.Lock find( long resourceId, long hash )
+        {
+            Table current = table;
+            int slot = current.slot( resourceId, hash );
+            return slot >= 0 ? current.locks[slot] : null;
+        }
+
+        ForsetiLockManager.Lock putIfAbsent( long resourceId, long hash, ForsetiLockManager.Lock value )
+        {
+            long stamp = lock.tryOptimisticRead();
+            ForsetiLockManager.Lock existing = find( resourceId, hash );
+            if ( existing != null && lock.validate( stamp ) )
+            {
+                return existing;
+            }
+            return put( resourceId, hash, value, true );
+        }
+
+        ForsetiLockManager.Lock put( long resourceId, long hash, ForsetiLockManager.Lock value, boolean onlyIfAbsent )
+        {
+            long stamp = lock.writeLock();
+            try
+            {
+                Table current = table;
+                int slot = current.slot( resourceId, hash );
+                if ( slot >= 0 )
+                {
+                    ForsetiLockManager.Lock existing = current.locks[slot];
+                    if ( !onlyIfAbsent )
+                    {
+                        current.locks[slot] = value;
+                    }
+                    return existing;
+                }
+
+                slot = -slot - 1;
+                current.resourceIds[slot] = resourceId;
+                current.locks[slot] = value;
+                if ( ++size > current.locks.length >>> 1 )
+                {
+                    grow( current );
+                }
+                return null;
+            }
+            finally
+            {
+                lock.unlockWrite( stamp );
+            }
+        }
+
+        ForsetiLockManager.Lock remove( long resourceId, long hash )
+        {
+            long stamp = lock.writeLock();
+            try
+            {
+                Table current = table;
+                int slot = current.slot( resourceId, hash );
+                if ( slot < 0 )
+                {
+                    return null;
+                }
+                ForsetiLockManager.Lock removed = current.locks[slot];
+                deleteSlot( current, slot );
+                size--;
+                return removed;
+            }
+            finally
+            {
+                lock.unlockWrite( stamp );
+            }
+        }
+
+        void visit( Visitor visitor )
+        {
+            long stamp = lock.readLock();
+            try
+            {
+                Table current = table;
+                for ( int slot = 0; slot < current.locks.length; slot++ )
+                {
+                    if ( current.locks[slot] != null )
+                    {
+                        visitor.visit( current.resourceIds[slot], current.locks[slot] );
+                    }
+                }
+            }
+            finally
+            {
+                lock.unlockRead( stamp );
+            }
+        }
+
+        /**
+         * Empties the given slot and shifts later entries of the same probe sequence back, so that no tombstones
+         * are needed to keep lookups of those entries working.
+         */
+        private static void deleteSlot( Table table, int slot )
+        {
+            int mask = table.mask;
+            int emptySlot = slot;
+            table.locks[emptySlot] = null;
+            int candidate = emptySlot;
+            while ( true )
+            {
+                candidate = (candidate + 1) & mask;
+                if ( table.locks[candidate] == null )
+                {
+                    return;
+                }
+                int home = (int) hash( table.resourceIds[candidate] ) & mask;
+                // The candidate may move to the empty slot unless its home slot lies cyclically in (empty, candidate]
+                boolean homeBetween = emptySlot <= candidate
+                                      ? emptySlot < home && home <= candidate
+                                      : emptySlot < home || home <= candidate;
+                if ( !homeBetween )
+                {
+                    table.resourceIds[emptySlot] = table.resourceIds[candidate];
+                    table.locks[emptySlot] = table.locks[candidate];
+                    table.locks[candidate] = null;
+                    emptySlot = candidate;
+                }
+            }
+        }
+
+        private void grow( Table current )
+        {
+            Table grown = new Table( current.locks.length << 1 );
+            for ( int slot = 0; slot < current.locks.length; slot++ )
+            {
+                ForsetiLockManager.Lock value = current.locks[slot];
+                if ( value != null )
+                {
+                    long resourceId = current.resourceIds[slot];
+                    int newSlot = -grown.slot( resourceId, hash( resourceId ) ) - 1;
+                    grown.resourceIds[newSlot] = resourceId;
+                    grown.locks[newSlot] = value;
+                }
+            }
+            table = grown;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.neo4j.helpers.Service;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThresholdPolicy;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointWorkload;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.time.SystemNanoClock;
@@ -39,8 +40,8 @@ public class ContinuousThresholdPolicy extends CheckPointThresholdPolicy
     }
 
     @Override
-    public CheckPointThreshold createThreshold(
-            Config config, SystemNanoClock clock, LogPruning logPruning, LogProvider logProvider )
+    public CheckPointThreshold createThreshold( Config config, SystemNanoClock clock, LogPruning logPruning,
+            CheckPointWorkload workload, LogProvider logProvider )
     {
         return new ContinuousCheckPointThreshold();
     }
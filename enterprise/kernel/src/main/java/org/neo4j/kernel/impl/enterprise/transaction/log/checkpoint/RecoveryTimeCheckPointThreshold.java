@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.AbstractCheckPointThreshold;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointWorkload;
+import org.neo4j.time.SystemNanoClock;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Check points when recovery would otherwise risk taking longer than
+ * {@link GraphDatabaseSettings#check_point_recovery_time}.
+ * <p>
+ * Recovery replays the transaction log from the last check point, so the time it would take is estimated as the
+ * number of log bytes appended since the last check point, divided by how many log bytes recovery replays per
+ * second. That rate is measured when the database was recovered at startup, and otherwise taken from
+ * {@link GraphDatabaseSettings#check_point_recovery_replay_rate}.
+ * <p>
+ * Transactions keep being appended while a check point writes back the dirty pages, so a check point is needed
+ * already when the log appended so far, plus what will be appended while the dirty pages are being written back,
+ * would take too long to replay. How long the write back takes is estimated from the number of dirty pages and the
+ * rate at which the last check point wrote them back, or from {@link GraphDatabaseSettings#check_point_iops_limit}
+ * until a check point has been timed. Check points started this way thus have the time they need to complete at a
+ * pace the IO limiter allows, instead of having to catch up in a burst.
+ */
+class RecoveryTimeCheckPointThreshold extends AbstractCheckPointThreshold
+{
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos( 1 );
+
+    private final Config config;
+    private final SystemNanoClock clock;
+    private final CheckPointWorkload workload;
+    private final long recoveryTimeNanos;
+    private final long checkFrequencyMillis;
+
+    private long lastCheckPointedTransactionId;
+    private long lastCheckPointLogBytes;
+    private long lastCheckLogBytes;
+    private long lastCheckNanos;
+    private double logBytesPerSecond;
+    private double flushedPagesPerSecond;
+    private long measuredReplayBytesPerSecond;
+
+    // Set when this threshold triggers a check point, until the check point has happened
+    private long triggerLogBytes = -1;
+    private long triggerNanos;
+    private long triggerDirtyPages;
+
+    RecoveryTimeCheckPointThreshold( Config config, SystemNanoClock clock, CheckPointWorkload workload )
+    {
+        super( "recovery time threshold" );
+        this.config = config;
+        this.clock = clock;
+        this.workload = workload;
+        this.recoveryTimeNanos = config.get( GraphDatabaseSettings.check_point_recovery_time ).toNanos();
+        // Check often enough to notice the log growing by a small part of what can be replayed within the time
+        long millis = TimeUnit.NANOSECONDS.toMillis( recoveryTimeNanos ) / 20;
+        this.checkFrequencyMillis = max( 100, min( DEFAULT_CHECKING_FREQUENCY_MILLIS, millis ) );
+    }
+
+    @Override
+    public synchronized void initialize( long transactionId )
+    {
+        lastCheckPointedTransactionId = transactionId;
+        lastCheckPointLogBytes = appendedLogBytes( 0 );
+        lastCheckLogBytes = lastCheckPointLogBytes;
+        lastCheckNanos = clock.nanos();
+        try
+        {
+            // Must be asked before any transactions are appended after those that were recovered
+            measuredReplayBytesPerSecond = workload.replayBytesPerSecond();
+        }
+        catch ( IOException e )
+        {
+            // Use the configured rate instead
+        }
+    }
+
+    @Override
+    protected synchronized boolean thresholdReached( long lastCommittedTransactionId )
+    {
+        long logBytes = appendedLogBytes( lastCheckLogBytes );
+        long now = clock.nanos();
+        updateLogBytesPerSecond( logBytes, now );
+        if ( lastCommittedTransactionId <= lastCheckPointedTransactionId )
+        {
+            return false;
+        }
+
+        long dirtyPages = workload.dirtyPages();
+        double checkPointSeconds = estimateCheckPointSeconds( dirtyPages );
+        double logBytesToReplay = (logBytes - lastCheckPointLogBytes) + logBytesPerSecond * checkPointSeconds;
+        double recoverySeconds = logBytesToReplay / replayBytesPerSecond();
+        if ( recoverySeconds * NANOS_PER_SECOND < recoveryTimeNanos )
+        {
+            return false;
+        }
+
+        // The check point will start from a transaction appended at or after this, so recovery is estimated on
+        // the safe side until the next check point
+        triggerLogBytes = logBytes;
+        triggerNanos = now;
+        triggerDirtyPages = dirtyPages;
+        return true;
+    }
+
+    @Override
+    public synchronized void checkPointHappened( long transactionId )
+    {
+        long now = clock.nanos();
+        lastCheckPointedTransactionId = transactionId;
+        if ( triggerLogBytes != -1 )
+        {
+            lastCheckPointLogBytes = triggerLogBytes;
+            long elapsedNanos = now - triggerNanos;
+            if ( triggerDirtyPages > 0 && elapsedNanos > 0 )
+            {
+                flushedPagesPerSecond = (double) triggerDirtyPages * NANOS_PER_SECOND / elapsedNanos;
+            }
+            triggerLogBytes = -1;
+        }
+        else
+        {
+            // Not triggered by this threshold, e.g. forced, so the transaction it started from is not known
+            lastCheckPointLogBytes = appendedLogBytes( lastCheckLogBytes );
+        }
+    }
+
+    @Override
+    public long checkFrequencyMillis()
+    {
+        return checkFrequencyMillis;
+    }
+
+    private void updateLogBytesPerSecond( long logBytes, long now )
+    {
+        long elapsedNanos = now - lastCheckNanos;
+        if ( elapsedNanos > 0 )
+        {
+            double recentLogBytesPerSecond = (double) (logBytes - lastCheckLogBytes) * NANOS_PER_SECOND / elapsedNanos;
+            // Smooth out short bursts and pauses between checks
+            logBytesPerSecond = logBytesPerSecond == 0 ? recentLogBytesPerSecond
+                                                       : (logBytesPerSecond + recentLogBytesPerSecond) / 2;
+            lastCheckLogBytes = logBytes;
+            lastCheckNanos = now;
+        }
+    }
+
+    private double estimateCheckPointSeconds( long dirtyPages )
+    {
+        if ( dirtyPages <= 0 )
+        {
+            return 0;
+        }
+        if ( flushedPagesPerSecond > 0 )
+        {
+            return dirtyPages / flushedPagesPerSecond;
+        }
+        Integer iops = config.get( GraphDatabaseSettings.check_point_iops_limit );
+        // Without an IO limit, nor a timed check point, writing back is assumed to be quick compared to recovery
+        return iops == null || iops < 1 ? 0 : (double) dirtyPages / iops;
+    }
+
+    private long replayBytesPerSecond()
+    {
+        return measuredReplayBytesPerSecond > 0 ? measuredReplayBytesPerSecond
+                                                : config.get( GraphDatabaseSettings.check_point_recovery_replay_rate );
+    }
+
+    private long appendedLogBytes( long fallback )
+    {
+        try
+        {
+            return workload.appendedLogBytes();
+        }
+        catch ( IOException e )
+        {
+            // The log may be rotating, try again on the next check
+            return fallback;
+        }
+    }
+}
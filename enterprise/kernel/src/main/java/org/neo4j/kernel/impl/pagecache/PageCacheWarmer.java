@@ -22,16 +22,23 @@
  */
 package org.neo4j.kernel.impl.pagecache;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
@@ -41,16 +48,20 @@ import java.util.stream.Stream;
 
 import org.neo4j.graphdb.Resource;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.FileIsNotMappedException;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.impl.store.StoreFile;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreFileListing;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StoreFileMetadata;
 
 import static java.util.Comparator.naturalOrder;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 
 /**
@@ -72,20 +83,33 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
     public static final String SUFFIX_CACHEPROF = ".cacheprof";
 
     private static final int IO_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    // Runs of at least this many consecutive profiled pages are loaded through a read-ahead cursor, so they are
+    // faulted in with vectored reads. Shorter runs are not worth the risk of reading past the end of the run.
+    private static final int SEQUENTIAL_RUN_PAGES = 32;
+    // The number of page ids covered by a single load task, so large files can also be loaded in parallel.
+    static final int PAGES_PER_LOAD_TASK = 1 << 16;
+    private static final int PROGRESS_REPORT_PAGES = 4096;
 
     private final FileSystemAbstraction fs;
     private final PageCache pageCache;
     private final JobScheduler scheduler;
     private final ProfileRefCounts refCounts;
+    private final PageCacheWarmerMonitor monitor;
     private volatile boolean stopped;
     private ExecutorService executor;
-    private PageLoaderFactory pageLoaderFactory;
 
     PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler )
+    {
+        this( fs, pageCache, scheduler, new PageCacheWarmerMonitor.Adapter() );
+    }
+
+    PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler,
+            PageCacheWarmerMonitor monitor )
     {
         this.fs = fs;
         this.pageCache = pageCache;
         this.scheduler = scheduler;
+        this.monitor = monitor;
         this.refCounts = new ProfileRefCounts();
     }
 
@@ -110,7 +134,6 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
     {
         stopped = false;
         executor = buildExecutorService( scheduler );
-        pageLoaderFactory = new PageLoaderFactory( executor, pageCache );
     }
 
     public void stop()
@@ -132,6 +155,11 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
 
     /**
      * Reheat the page cache based on existing profiling data, or do nothing if no profiling data is available.
+     * <p>
+     * The profiled pages are loaded in file offset order, so runs of consecutive pages can be faulted in with
+     * vectored reads. Files on high-IO devices are loaded in parallel, in chunks of {@link #PAGES_PER_LOAD_TASK}
+     * pages. The native index files and the relationship group store are loaded before everything else, because
+     * those are the files that most queries will need to touch first.
      *
      * @return An {@link OptionalLong} of the number of pages loaded in, or {@link OptionalLong#empty()} if the
      * reheating was stopped early via {@link #stop()}.
@@ -143,20 +171,51 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
         {
             return OptionalLong.empty();
         }
-        long pagesLoaded = 0;
-        List<PagedFile> files = pageCache.listExistingMappings();
+        List<PagedFile> files = new ArrayList<>( pageCache.listExistingMappings() );
         Profile[] existingProfiles = findExistingProfiles( files );
+        files.sort( Comparator.comparingInt( ( PagedFile pf ) -> loadPriority( pf.file() ) ) );
+
+        List<PageLoadTask> tasks = new ArrayList<>();
+        long pagesToLoad = 0;
         for ( PagedFile file : files )
         {
-            try
+            Optional<BitSet> savedProfile = readProfile( file, existingProfiles );
+            if ( savedProfile.isPresent() )
             {
-                pagesLoaded += reheat( file, existingProfiles );
+                BitSet pageIds = savedProfile.get();
+                boolean parallel = executor != null && FileUtils.highIODevice( file.file().toPath(), false );
+                long pageIdLimit = pageIds.length();
+                for ( long start = 0; start < pageIdLimit; start += PAGES_PER_LOAD_TASK )
+                {
+                    int from = (int) start;
+                    int to = (int) Math.min( start + PAGES_PER_LOAD_TASK, pageIdLimit );
+                    tasks.add( new PageLoadTask( file, pageIds, from, to, parallel ) );
+                }
+                pagesToLoad += pageIds.cardinality();
             }
-            catch ( FileIsNotMappedException ignore )
+        }
+        monitor.warmupStarted( pagesToLoad );
+
+        // The tasks are already in priority order, and the executor queue is first-in-first-out, so the high priority
+        // files will be loaded first, also when loading in parallel.
+        List<Future<Long>> futures = new ArrayList<>();
+        long pagesLoaded = 0;
+        for ( PageLoadTask task : tasks )
+        {
+            if ( task.parallel )
             {
-                // The database is allowed to map and unmap files while we are trying to heat it up.
+                futures.add( executor.submit( task ) );
+            }
+            else
+            {
+                pagesLoaded += task.call();
             }
         }
+        for ( Future<Long> future : futures )
+        {
+            pagesLoaded += awaitPagesLoaded( future );
+        }
+        pageCache.reportEvents();
         return OptionalLong.of( pagesLoaded );
     }
 
@@ -199,65 +258,90 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
         return OptionalLong.of( pagesInMemory );
     }
 
-    private long reheat( PagedFile file, Profile[] existingProfiles ) throws IOException
+    private Optional<BitSet> readProfile( PagedFile file, Profile[] existingProfiles )
     {
-        Optional<Profile> savedProfile = filterRelevant( existingProfiles, file )
-                .sorted( Comparator.reverseOrder() ) // Try most recent profile first.
-                .filter( this::verifyChecksum )
+        // Try the most recent profile first. Successfully reading through and closing the compressed file implies
+        // verifying the gzip checksum.
+        return filterRelevant( existingProfiles, file )
+                .sorted( Comparator.reverseOrder() )
+                .map( this::readPageIds )
+                .filter( Optional::isPresent )
+                .map( Optional::get )
                 .findFirst();
+    }
 
-        if ( !savedProfile.isPresent() )
+    private Optional<BitSet> readPageIds( Profile profile )
+    {
+        try ( InputStream input = profile.read( fs ) )
         {
-            return 0;
+            ByteArrayOutputStream bitmap = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ( (read = input.read( buffer )) != -1 )
+            {
+                bitmap.write( buffer, 0, read );
+            }
+            // The profile stores the bit for page id N in bit N % 8 of byte N / 8, which is also the BitSet layout.
+            return Optional.of( BitSet.valueOf( bitmap.toByteArray() ) );
         }
+        catch ( IOException ignore )
+        {
+            return Optional.empty();
+        }
+    }
 
-        // The file contents checks out. Let's load it in.
-        long pagesLoaded = 0;
-        try ( InputStream input = savedProfile.get().read( fs );
-              PageLoader loader = pageLoaderFactory.getLoader( file ) )
+    private long awaitPagesLoaded( Future<Long> future ) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while waiting for page cache warmup", e );
+        }
+        catch ( ExecutionException e )
         {
-            long pageId = 0;
-            int b;
-            while ( (b = input.read()) != -1 )
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException )
             {
-                for ( int i = 0; i < 8; i++ )
-                {
-                    if ( stopped )
-                    {
-                        pageCache.reportEvents();
-                        return pagesLoaded;
-                    }
-                    if ( (b & 1) == 1 )
-                    {
-                        loader.load( pageId );
-                        pagesLoaded++;
-                    }
-                    b >>= 1;
-                    pageId++;
-                }
+                throw (IOException) cause;
             }
+            throw new IOException( cause );
         }
-        pageCache.reportEvents();
-        return pagesLoaded;
     }
 
-    private boolean verifyChecksum( Profile profile )
+    /**
+     * Native indexes and the label scan store are GBPTrees, where every lookup starts by walking down from the root,
+     * so having their pages in memory pays off for almost every query. The relationship group store comes next,
+     * since every expansion of a dense node goes through it.
+     */
+    static int loadPriority( File file )
     {
-        // Successfully reading through and closing the compressed file implies verifying the gzip checksum.
-        try ( InputStream input = profile.read( fs ) )
+        String name = file.getName();
+        if ( name.equals( NativeLabelScanStore.FILE_NAME ) || isInSchemaIndexDirectory( file ) )
         {
-            int b;
-            do
-            {
-                b = input.read();
-            }
-            while ( b != -1 );
+            return 0;
         }
-        catch ( IOException ignore )
+        if ( name.equals( StoreFile.RELATIONSHIP_GROUP_STORE.storeFileName() ) )
+        {
+            return 1;
+        }
+        return 2;
+    }
+
+    private static boolean isInSchemaIndexDirectory( File file )
+    {
+        for ( File dir = file.getParentFile(); dir != null; dir = dir.getParentFile() )
         {
-            return false;
+            File parent = dir.getParentFile();
+            if ( parent != null && dir.getName().equals( "index" ) && parent.getName().equals( "schema" ) )
+            {
+                return true;
+            }
         }
-        return true;
+        return false;
     }
 
     private long profile( PagedFile file, Profile[] existingProfiles ) throws IOException
@@ -323,4 +407,70 @@ public class PageCacheWarmer implements NeoStoreFileListing.StoreFileProvider
                          .flatMap( dir -> Profile.findProfilesInDirectory( fs, dir ) )
                          .toArray( Profile[]::new );
     }
+
+    /**
+     * Loads the profiled pages within a range of page ids of a file, in file offset order.
+     */
+    private class PageLoadTask implements Callable<Long>
+    {
+        private final PagedFile file;
+        private final BitSet pageIds;
+        private final int fromPageId;
+        private final int toPageId;
+        private final boolean parallel;
+
+        PageLoadTask( PagedFile file, BitSet pageIds, int fromPageId, int toPageId, boolean parallel )
+        {
+            this.file = file;
+            this.pageIds = pageIds;
+            this.fromPageId = fromPageId;
+            this.toPageId = toPageId;
+            this.parallel = parallel;
+        }
+
+        @Override
+        public Long call() throws IOException
+        {
+            long pagesLoaded = 0;
+            long unreportedPages = 0;
+            try ( PageCursor sparseCursor = file.io( 0, PF_SHARED_READ_LOCK );
+                  PageCursor sequentialCursor = file.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                int pageId = pageIds.nextSetBit( fromPageId );
+                while ( pageId != -1 && pageId < toPageId && !stopped )
+                {
+                    int runEnd = Math.min( pageIds.nextClearBit( pageId ), toPageId );
+                    PageCursor cursor = runEnd - pageId >= SEQUENTIAL_RUN_PAGES ? sequentialCursor : sparseCursor;
+                    for ( ; pageId < runEnd && !stopped; pageId++ )
+                    {
+                        cursor.next( pageId );
+                        pagesLoaded++;
+                        unreportedPages++;
+                    }
+                    if ( unreportedPages >= PROGRESS_REPORT_PAGES )
+                    {
+                        monitor.warmupProgress( unreportedPages );
+                        unreportedPages = 0;
+                    }
+                    pageId = pageIds.nextSetBit( runEnd );
+                }
+            }
+            catch ( FileIsNotMappedException ignore )
+            {
+                // The database is allowed to map and unmap files while we are trying to heat it up.
+            }
+            finally
+            {
+                if ( unreportedPages > 0 )
+                {
+                    monitor.warmupProgress( unreportedPages );
+                }
+                if ( parallel )
+                {
+                    pageCache.reportEvents();
+                }
+            }
+            return pagesLoaded;
+        }
+    }
 }
@@ -50,7 +50,7 @@ class PageCacheWarmerKernelExtension extends LifecycleAdapter
         this.availabilityGuard = availabilityGuard;
         this.fileListing = fileListing;
         this.config = config;
-        pageCacheWarmer = new PageCacheWarmer( fs, pageCache, scheduler );
+        pageCacheWarmer = new PageCacheWarmer( fs, pageCache, scheduler, monitor );
         availabilityListener = new WarmupAvailabilityListener( scheduler, pageCacheWarmer, config, log, monitor );
     }
 
@@ -24,6 +24,34 @@ package org.neo4j.kernel.impl.pagecache;
 
 public interface PageCacheWarmerMonitor
 {
+    /**
+     * The warmup has read the profiles, and is about to start loading the given number of pages.
+     */
+    default void warmupStarted( long pagesToLoad )
+    {
+    }
+
+    /**
+     * The warmup has loaded the given number of additional pages since it last reported progress. Note that progress
+     * may be reported concurrently from multiple threads, when files are warmed up in parallel.
+     */
+    default void warmupProgress( long pagesLoaded )
+    {
+    }
+
     void warmupCompleted( long pagesLoaded );
     void profileCompleted( long pagesInMemory );
+
+    class Adapter implements PageCacheWarmerMonitor
+    {
+        @Override
+        public void warmupCompleted( long pagesLoaded )
+        {
+        }
+
+        @Override
+        public void profileCompleted( long pagesInMemory )
+        {
+        }
+    }
 }
@@ -1,52 +0,0 @@
-/*
- * Copyright (c) 2002-2020 "Neo4j,"
- * Neo4j Sweden AB [http://neo4j.com]
- *
- * This file is part of Neo4j Enterprise Edition. The included source
- * code can be redistributed and/or modified under the terms of the
- * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
- * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
- * Commons Clause, as found in the associated LICENSE.txt file.
- *
- * This program is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
- * GNU Affero General Public License for more details.
- *
- * Neo4j object code can be licensed independently from the source
- * under separate terms from the AGPL. Inquiries can be directed to:
- * licensing@neo4j.com
- *
- * More information is also available at:
- * https://neo4j.com/licensing/
- */
-package org.neo4j.kernel.impl.pagecache;
-
-import java.io.IOException;
-
-import org.neo4j.io.pagecache.PageCursor;
-import org.neo4j.io.pagecache.PagedFile;
-
-import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
-
-class SingleCursorPageLoader implements PageLoader
-{
-    private final PageCursor cursor;
-
-    SingleCursorPageLoader( PagedFile file ) throws IOException
-    {
-        cursor = file.io( 0, PF_SHARED_READ_LOCK );
-    }
-
-    @Override
-    public void load( long pageId ) throws IOException
-    {
-        cursor.next( pageId );
-    }
-
-    @Override
-    public void close()
-    {
-        cursor.close();
-    }
-}
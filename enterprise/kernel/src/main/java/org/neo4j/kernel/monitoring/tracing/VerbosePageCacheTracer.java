@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.neo4j.helpers.TimeUtil;
 import org.neo4j.io.ByteUnit;
@@ -52,6 +53,8 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
     private final SystemNanoClock clock;
     private final AtomicLong flushedPages = new AtomicLong();
     private final AtomicLong flushBytesWritten = new AtomicLong();
+    // Number of vectored writes done by major flushes, bucketed by the power of two of their size in pages.
+    private final AtomicLongArray vectoredWrites = new AtomicLongArray( Integer.SIZE );
 
     VerbosePageCacheTracer( Log log, SystemNanoClock clock )
     {
@@ -88,6 +91,45 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
         return new FileFlushEvent( fileName, flushedPages.get(), flushBytesWritten.get(), clock.nanos() );
     }
 
+    private void addVectoredWrite( int pageCount )
+    {
+        if ( pageCount > 0 )
+        {
+            vectoredWrites.incrementAndGet( Integer.SIZE - 1 - Integer.numberOfLeadingZeros( pageCount ) );
+        }
+    }
+
+    private long[] vectoredWritesSnapshot()
+    {
+        long[] snapshot = new long[vectoredWrites.length()];
+        for ( int i = 0; i < snapshot.length; i++ )
+        {
+            snapshot[i] = vectoredWrites.get( i );
+        }
+        return snapshot;
+    }
+
+    private void logWriteSizes( String flushName, long[] vectoredWritesOnStart )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < vectoredWritesOnStart.length; i++ )
+        {
+            long writes = vectoredWrites.get( i ) - vectoredWritesOnStart[i];
+            if ( writes > 0 )
+            {
+                long minPages = 1L << i;
+                long maxPages = (minPages << 1) - 1;
+                sb.append( sb.length() == 0 ? "" : ", " );
+                sb.append( minPages == maxPages ? "1 page" : minPages + "-" + maxPages + " pages" );
+                sb.append( ": " ).append( writes );
+            }
+        }
+        if ( sb.length() > 0 )
+        {
+            log.info( "%s write sizes: %s.", flushName, sb );
+        }
+    }
+
     private static String nanosToString( long nanos )
     {
         if ( USE_RAW_REPORTING_UNITS )
@@ -163,6 +205,7 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
         private final String fileName;
         private long flushesOnStart;
         private long bytesWrittenOnStart;
+        private final long[] vectoredWritesOnStart;
 
         FileFlushEvent( String fileName, long flushesOnStart, long bytesWrittenOnStart, long startTimeNanos )
         {
@@ -170,6 +213,7 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
             this.flushesOnStart = flushesOnStart;
             this.bytesWrittenOnStart = bytesWrittenOnStart;
             this.startTimeNanos = startTimeNanos;
+            this.vectoredWritesOnStart = vectoredWritesSnapshot();
         }
 
         @Override
@@ -178,6 +222,12 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
             return new VerboseFlushOpportunity( fileName, startTimeNanos, bytesWrittenOnStart );
         }
 
+        @Override
+        public void addVectoredWrite( int pageCount )
+        {
+            VerbosePageCacheTracer.this.addVectoredWrite( pageCount );
+        }
+
         @Override
         public void close()
         {
@@ -188,6 +238,7 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
                     fileName,
                     bytesToString( bytesWrittenInTotal ), flushedPagesInTotal,
                     nanosToString( fileFlushNanos ), flushSpeed( bytesWrittenInTotal, fileFlushNanos ) );
+            logWriteSizes( format( "'%s' flush", fileName ), vectoredWritesOnStart );
         }
     }
 
@@ -196,12 +247,14 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
         private final long flushesOnStart;
         private final long bytesWrittenOnStart;
         private final long startTimeNanos;
+        private final long[] vectoredWritesOnStart;
 
         PageCacheMajorFlushEvent( long flushesOnStart, long bytesWrittenOnStart, long startTimeNanos )
         {
             this.flushesOnStart = flushesOnStart;
             this.bytesWrittenOnStart = bytesWrittenOnStart;
             this.startTimeNanos = startTimeNanos;
+            this.vectoredWritesOnStart = vectoredWritesSnapshot();
         }
 
         @Override
@@ -210,6 +263,12 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
             return new VerboseFlushOpportunity( "Page Cache", startTimeNanos, bytesWrittenOnStart );
         }
 
+        @Override
+        public void addVectoredWrite( int pageCount )
+        {
+            VerbosePageCacheTracer.this.addVectoredWrite( pageCount );
+        }
+
         @Override
         public void close()
         {
@@ -220,6 +279,7 @@ public class VerbosePageCacheTracer extends DefaultPageCacheTracer
                     bytesToString( bytesWrittenInTotal ), flushedPagesInTotal,
                     nanosToString(pageCacheFlushNanos),
                     flushSpeed( bytesWrittenInTotal, pageCacheFlushNanos ) );
+            logWriteSizes( "Page cache flush", vectoredWritesOnStart );
         }
     }
 
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.kernel.enterprise.builtinprocs;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.ImpermanentEnterpriseDatabaseRule;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class PageCacheStatsProcedureTest
+{
+    @Rule
+    public final DatabaseRule db = new ImpermanentEnterpriseDatabaseRule();
+
+    @Test
+    public void mustListStatsOfMappedFiles()
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.createNode();
+            tx.success();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            Iterables.count( db.getAllNodes() );
+            tx.success();
+        }
+
+        Map<String,Map<String,Object>> stats = new HashMap<>();
+        try ( Result result = db.execute( "CALL dbms.pagecache.stats()" ) )
+        {
+            result.forEachRemaining( row -> stats.put( (String) row.get( "file" ), row ) );
+        }
+
+        Map<String,Object> nodeStore = stats.entrySet().stream()
+                .filter( entry -> entry.getKey().endsWith( "neostore.nodestore.db" ) )
+                .map( Map.Entry::getValue )
+                .findFirst()
+                .orElseThrow( () -> new AssertionError( "No stats for the node store in " + stats.keySet() ) );
+        assertThat( (Long) nodeStore.get( "hits" ) + (Long) nodeStore.get( "faults" ), greaterThan( 0L ) );
+        assertThat( (Long) nodeStore.get( "evictions" ), greaterThanOrEqualTo( 0L ) );
+        double hitRatio = (Double) nodeStore.get( "hitRatio" );
+        assertTrue( "hit ratio " + hitRatio, hitRatio >= 0.0 && hitRatio <= 1.0 );
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link LockMap} with the {@link ConcurrentHashMap} it replaced, for the two ways
+ * {@link ForsetiClient} uses it:
+ * <ul>
+ * <li>spin: all threads call {@code putIfAbsent} for a few resources which are already locked, as clients waiting
+ * for an exclusive lock do in a loop. For the {@link LockMap} this is also measured with the stripe write lock
+ * taken on every call, which is what {@code putIfAbsent} did before it looked for an existing lock first.</li>
+ * <li>acquire/release: every thread puts and removes locks of its own resources, as uncontended clients do.</li>
+ * </ul>
+ * Run with the number of threads as the first argument, and optionally the number of locked resources to spin on
+ * and the number of seconds to run each round.
+ */
+public class LockMapBenchmark
+{
+    private static final int ROUNDS = 4;
+
+    public static void main( String[] args ) throws Exception
+    {
+        int threads = args.length > 0 ? Integer.parseInt( args[0] ) : Runtime.getRuntime().availableProcessors();
+        int lockedResources = args.length > 1 ? Integer.parseInt( args[1] ) : 1;
+        long roundMillis = TimeUnit.SECONDS.toMillis( args.length > 2 ? Integer.parseInt( args[2] ) : 2 );
+
+        for ( int round = 0; round < ROUNDS; round++ )
+        {
+            // The first round is warmup
+            boolean print = round > 0;
+            spin( "chm", threads, lockedResources, roundMillis, print, concurrentHashMap() );
+            spin( "lockmap", threads, lockedResources, roundMillis, print, lockMap( false ) );
+            spin( "lockmap write-locked", threads, lockedResources, roundMillis, print, lockMap( true ) );
+            acquireRelease( "chm", threads, roundMillis, print, concurrentHashMap() );
+            acquireRelease( "lockmap", threads, roundMillis, print, lockMap( false ) );
+        }
+    }
+
+    private static void spin( String name, int threads, int lockedResources, long roundMillis, boolean print,
+            Operations map ) throws InterruptedException
+    {
+        ForsetiLockManager.Lock held = new ExclusiveLock( null );
+        ForsetiLockManager.Lock waiting = new ExclusiveLock( null );
+        for ( int i = 0; i < lockedResources; i++ )
+        {
+            map.putIfAbsent( i, held );
+        }
+        run( "spin " + name, threads, roundMillis, print, thread ->
+        {
+            long resourceId = thread % lockedResources;
+            if ( map.putIfAbsent( resourceId, waiting ) != held )
+            {
+                throw new IllegalStateException( "Lock of resource " + resourceId + " was replaced" );
+            }
+        } );
+    }
+
+    private static void acquireRelease( String name, int threads, long roundMillis, boolean print, Operations map )
+            throws InterruptedException
+    {
+        ForsetiLockManager.Lock lock = new ExclusiveLock( null );
+        run( "acquire/release " + name, threads, roundMillis, print, thread ->
+        {
+            long resourceId = thread;
+            map.putIfAbsent( resourceId, lock );
+            map.remove( resourceId );
+        } );
+    }
+
+    private static void run( String name, int threads, long roundMillis, boolean print, Operation operation )
+            throws InterruptedException
+    {
+        CountDownLatch start = new CountDownLatch( 1 );
+        long[] operations = new long[threads];
+        long[] elapsedNanos = new long[threads];
+        Thread[] workers = new Thread[threads];
+        for ( int i = 0; i < threads; i++ )
+        {
+            int thread = i;
+            workers[i] = new Thread( () ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long startTime = System.nanoTime();
+                long deadline = startTime + TimeUnit.MILLISECONDS.toNanos( roundMillis );
+                long count = 0;
+                do
+                {
+                    // Check the time only every so often, to not measure the clock
+                    for ( int j = 0; j < 1_000; j++ )
+                    {
+                        operation.run( thread );
+                    }
+                    count += 1_000;
+                }
+                while ( System.nanoTime() < deadline );
+                operations[thread] = count;
+                elapsedNanos[thread] = System.nanoTime() - startTime;
+            } );
+            workers[i].start();
+        }
+        start.countDown();
+        long totalOperations = 0;
+        long totalNanos = 0;
+        for ( int i = 0; i < threads; i++ )
+        {
+            workers[i].join();
+            totalOperations += operations[i];
+            totalNanos += elapsedNanos[i];
+        }
+        if ( print )
+        {
+            System.out.printf( "%-36s %3d threads %10.1f ns/op %10.2f Mops/s%n", name, threads,
+                    totalNanos / (double) totalOperations,
+                    totalOperations / (totalNanos / (double) threads) * 1_000 );
+        }
+    }
+
+    private static Operations concurrentHashMap()
+    {
+        ConcurrentMap<Long,ForsetiLockManager.Lock> map = new ConcurrentHashMap<>();
+        return new Operations()
+        {
+            @Override
+            public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+            {
+                return map.putIfAbsent( resourceId, lock );
+            }
+
+            @Override
+            public void remove( long resourceId )
+            {
+                map.remove( resourceId );
+            }
+        };
+    }
+
+    private static Operations lockMap( boolean writeLocked )
+    {
+        LockMap map = new LockMap();
+        return new Operations()
+        {
+            @Override
+            public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+            {
+                if ( writeLocked )
+                {
+                    // Takes the stripe write lock whether or not there is a lock, like the spin loop used to
+                    ForsetiLockManager.Lock existing = map.get( resourceId );
+                    if ( existing != null )
+                    {
+                        map.put( resourceId, existing );
+                        return existing;
+                    }
+                }
+                return map.putIfAbsent( resourceId, lock );
+            }
+
+            @Override
+            public void remove( long resourceId )
+            {
+                map.remove( resourceId );
+            }
+        };
+    }
+
+    private interface Operations
+    {
+        ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock );
+
+        void remove( long resourceId );
+    }
+
+    private interface Operation
+    {
+        void run( int thread );
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.test.Race;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class LockMapTest
+{
+    private final LockMap lockMap = new LockMap();
+
+    @Test
+    public void shouldPutGetAndRemoveLocks()
+    {
+        ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+
+        assertNull( lockMap.get( 42 ) );
+        assertNull( lockMap.putIfAbsent( 42, lock ) );
+        assertSame( lock, lockMap.get( 42 ) );
+        assertSame( lock, lockMap.remove( 42 ) );
+        assertNull( lockMap.get( 42 ) );
+        assertNull( lockMap.remove( 42 ) );
+    }
+
+    @Test
+    public void shouldNotReplaceExistingLockOnPutIfAbsent()
+    {
+        ForsetiLockManager.Lock first = mock( ForsetiLockManager.Lock.class );
+        ForsetiLockManager.Lock second = mock( ForsetiLockManager.Lock.class );
+        lockMap.putIfAbsent( -1, first );
+
+        assertSame( first, lockMap.putIfAbsent( -1, second ) );
+        assertSame( first, lockMap.get( -1 ) );
+        assertSame( first, lockMap.put( -1, second ) );
+        assertSame( second, lockMap.get( -1 ) );
+    }
+
+    @Test
+    public void shouldBehaveLikeMapUnderRandomOperations()
+    {
+        Random random = new Random();
+        Map<Long,ForsetiLockManager.Lock> expected = new HashMap<>();
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            // A small range of ids, both to get collisions within stripes and to remove ids which are present
+            long resourceId = random.nextInt( 10_000 ) - 100;
+            if ( random.nextInt( 3 ) == 0 )
+            {
+                assertSame( expected.remove( resourceId ), lockMap.remove( resourceId ) );
+            }
+            else
+            {
+                ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+                assertSame( expected.putIfAbsent( resourceId, lock ), lockMap.putIfAbsent( resourceId, lock ) );
+            }
+        }
+
+        for ( long resourceId = -100; resourceId < 10_000 - 100; resourceId++ )
+        {
+            assertSame( expected.get( resourceId ), lockMap.get( resourceId ) );
+        }
+        Map<Long,ForsetiLockManager.Lock> visited = new HashMap<>();
+        lockMap.visit( visited::put );
+        assertEquals( expected, visited );
+    }
+
+    @Test
+    public void shouldLetOnlyOneOfConcurrentPutsWin() throws Throwable
+    {
+        int threads = 4;
+        int resources = 10_000;
+        AtomicInteger wins = new AtomicInteger();
+        Race race = new Race();
+        race.addContestants( threads, () ->
+        {
+            ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+            for ( long resourceId = 0; resourceId < resources; resourceId++ )
+            {
+                if ( lockMap.putIfAbsent( resourceId, lock ) == null )
+                {
+                    wins.incrementAndGet();
+                }
+            }
+        } );
+        race.go();
+        assertEquals( resources, wins.get() );
+
+        AtomicInteger removed = new AtomicInteger();
+        race = new Race();
+        race.addContestants( threads, () ->
+        {
+            for ( long resourceId = 0; resourceId < resources; resourceId++ )
+            {
+                if ( lockMap.remove( resourceId ) != null )
+                {
+                    removed.incrementAndGet();
+                }
+            }
+        } );
+        race.go();
+        assertEquals( resources, removed.get() );
+        for ( long resourceId = 0; resourceId < resources; resourceId++ )
+        {
+            assertNull( lockMap.get( resourceId ) );
+        }
+    }
+}
@@ -25,8 +25,13 @@ package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.ByteUnit;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThresholdTestSupport;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointWorkload;
 import org.neo4j.kernel.impl.transaction.log.pruning.LogPruning;
 
 import static org.hamcrest.Matchers.is;
@@ -35,10 +40,14 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
 
 public class EnterpriseCheckPointThresholdTest extends CheckPointThresholdTestSupport
 {
     private boolean haveLogsToPrune;
+    private long dirtyPages;
+    private long appendedLogBytes;
+    private long replayBytesPerSecond;
 
     @Before
     @Override
@@ -59,6 +68,26 @@ public class EnterpriseCheckPointThresholdTest extends CheckPointThresholdTestSu
                 return haveLogsToPrune;
             }
         };
+        workload = new CheckPointWorkload()
+        {
+            @Override
+            public long dirtyPages()
+            {
+                return dirtyPages;
+            }
+
+            @Override
+            public long appendedLogBytes()
+            {
+                return appendedLogBytes;
+            }
+
+            @Override
+            public long replayBytesPerSecond()
+            {
+                return replayBytesPerSecond;
+            }
+        };
     }
 
     @Test
@@ -101,4 +130,85 @@ public class EnterpriseCheckPointThresholdTest extends CheckPointThresholdTestSu
         verifyTriggered( "continuous" );
         verifyNoMoreTriggers();
     }
+
+    @Test
+    public void recoveryTimePolicyMustTriggerWhenTheLogToReplayWouldTakeTooLong()
+    {
+        withRecoveryTime( "10s", "1m" );
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 2 );
+
+        appendLog( 5, 1 );
+        assertFalse( threshold.isCheckPointingNeeded( 3, notTriggered ) );
+        appendLog( 5, 1 );
+        assertTrue( threshold.isCheckPointingNeeded( 4, triggered ) );
+        verifyTriggered( "recovery time" );
+
+        threshold.checkPointHappened( 4 );
+        appendLog( 1, 1 );
+        assertFalse( threshold.isCheckPointingNeeded( 5, notTriggered ) );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void recoveryTimePolicyMustNotTriggerWithoutNewTransactions()
+    {
+        withRecoveryTime( "10s", "1m" );
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 2 );
+
+        appendLog( 20, 1 );
+        assertFalse( threshold.isCheckPointingNeeded( 2, notTriggered ) );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void recoveryTimePolicyMustTriggerEarlierWhenWritingBackDirtyPagesTakesLonger()
+    {
+        withRecoveryTime( "10s", "1m" );
+        config.augment( stringMap( GraphDatabaseSettings.check_point_iops_limit.name(), "100" ) );
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 2 );
+
+        // Writing back 500 pages at 100 IOPS takes 5 seconds, during which 5 MiB more log is appended
+        for ( int i = 0; i < 6; i++ )
+        {
+            appendLog( 1, 1 );
+            assertFalse( threshold.isCheckPointingNeeded( 3, notTriggered ) );
+        }
+        dirtyPages = 500;
+        appendLog( 0, 0 );
+        assertTrue( threshold.isCheckPointingNeeded( 3, triggered ) );
+        verifyTriggered( "recovery time" );
+        verifyNoMoreTriggers();
+    }
+
+    @Test
+    public void recoveryTimePolicyMustPreferMeasuredReplayRate()
+    {
+        withRecoveryTime( "10s", "1m" );
+        replayBytesPerSecond = ByteUnit.mebiBytes( 2 );
+        CheckPointThreshold threshold = createThreshold();
+        threshold.initialize( 2 );
+
+        appendLog( 15, 1 );
+        assertFalse( threshold.isCheckPointingNeeded( 3, notTriggered ) );
+        appendLog( 5, 1 );
+        assertTrue( threshold.isCheckPointingNeeded( 3, triggered ) );
+        verifyTriggered( "recovery time" );
+        verifyNoMoreTriggers();
+    }
+
+    private void withRecoveryTime( String recoveryTime, String replayRate )
+    {
+        withPolicy( "recovery-time" );
+        config.augment( stringMap( GraphDatabaseSettings.check_point_recovery_time.name(), recoveryTime,
+                GraphDatabaseSettings.check_point_recovery_replay_rate.name(), replayRate ) );
+    }
+
+    private void appendLog( long mebiBytes, long seconds )
+    {
+        appendedLogBytes += ByteUnit.mebiBytes( mebiBytes );
+        clock.forward( seconds, TimeUnit.SECONDS );
+    }
 }
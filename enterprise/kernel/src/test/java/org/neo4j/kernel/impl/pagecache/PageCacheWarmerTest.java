@@ -37,6 +37,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.OptionalLong;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
@@ -49,7 +50,10 @@ import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
 import org.neo4j.kernel.impl.scheduler.CentralJobScheduler;
+import org.neo4j.kernel.impl.store.StoreFile;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.storageengine.api.StoreFileMetadata;
@@ -257,6 +261,78 @@ public class PageCacheWarmerTest
         }
     }
 
+    @Test
+    public void reheatMustReportProgressToMonitor() throws Exception
+    {
+        int pageCount = 100;
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile pf = pageCache.map( file, pageCache.pageSize(), StandardOpenOption.CREATE ) )
+        {
+            try ( PageCursor writer = pf.io( 0, PagedFile.PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int pageId = 0; pageId < pageCount; pageId++ )
+                {
+                    assertTrue( writer.next( pageId ) );
+                }
+            }
+            pf.flushAndForce();
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler );
+            warmer.start();
+            warmer.profile();
+        }
+
+        AtomicLong pagesToLoad = new AtomicLong();
+        AtomicLong pagesLoaded = new AtomicLong();
+        PageCacheWarmerMonitor monitor = new PageCacheWarmerMonitor.Adapter()
+        {
+            @Override
+            public void warmupStarted( long pages )
+            {
+                pagesToLoad.set( pages );
+            }
+
+            @Override
+            public void warmupProgress( long pages )
+            {
+                pagesLoaded.addAndGet( pages );
+            }
+        };
+        try ( PageCache pageCache = pageCacheRule.getPageCache( fs, cfg );
+              PagedFile pf = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = new PageCacheWarmer( fs, pageCache, scheduler, monitor );
+            warmer.start();
+            assertThat( warmer.reheat(), is( OptionalLong.of( pageCount ) ) );
+            assertThat( pagesToLoad.get(), is( (long) pageCount ) );
+            assertThat( pagesLoaded.get(), is( (long) pageCount ) );
+
+            try ( PageCursor reader = pf.io( 0, PagedFile.PF_SHARED_READ_LOCK | PagedFile.PF_NO_FAULT ) )
+            {
+                for ( int pageId = 0; pageId < pageCount; pageId++ )
+                {
+                    assertTrue( reader.next( pageId ) );
+                    assertThat( reader.getCurrentPageId(), is( (long) pageId ) );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nativeIndexesAndRelationshipGroupsMustBeLoadedFirst()
+    {
+        File storeDir = dir.directory( "db" );
+        File labelScanStore = new File( storeDir, NativeLabelScanStore.FILE_NAME );
+        File indexDir = new File( IndexDirectoryStructure.baseSchemaIndexFolder( storeDir ), "1" );
+        File nativeIndex = new File( indexDir, "index-1" );
+        File relationshipGroupStore = new File( storeDir, StoreFile.RELATIONSHIP_GROUP_STORE.storeFileName() );
+        File nodeStore = new File( storeDir, StoreFile.NODE_STORE.storeFileName() );
+
+        assertThat( PageCacheWarmer.loadPriority( labelScanStore ), is( 0 ) );
+        assertThat( PageCacheWarmer.loadPriority( nativeIndex ), is( 0 ) );
+        assertThat( PageCacheWarmer.loadPriority( relationshipGroupStore ), is( 1 ) );
+        assertThat( PageCacheWarmer.loadPriority( nodeStore ), is( 2 ) );
+    }
+
     @SuppressWarnings( "unused" )
     @Test
     public void profileMustNotDeleteFilesCurrentlyExposedViaFileListing() throws Exception
@@ -130,6 +130,30 @@ public class VerbosePageCacheTracerTest
         logProvider.assertLogStringContains( "'fileToFlush' flush completed. Flushed 2.000MiB in 110 pages. Flush took: 1s. Average speed: 2.000MiB/s." );
     }
 
+    @Test
+    public void traceWriteSizeDistribution()
+    {
+        VerbosePageCacheTracer tracer = createTracer();
+        DummyPageSwapper swapper = new DummyPageSwapper( "fileToFlush", 1 );
+        try ( MajorFlushEvent cacheFlush = tracer.beginCacheFlush() )
+        {
+            try ( MajorFlushEvent fileToFlush = tracer.beginFileFlush( swapper ) )
+            {
+                fileToFlush.addVectoredWrite( 1 );
+                fileToFlush.addVectoredWrite( 3 );
+                fileToFlush.addVectoredWrite( 2 );
+            }
+            try ( MajorFlushEvent fileToFlush = tracer.beginFileFlush( swapper ) )
+            {
+                fileToFlush.addVectoredWrite( 600 );
+            }
+        }
+        logProvider.assertLogStringContains( "'fileToFlush' flush write sizes: 1 page: 1, 2-3 pages: 2." );
+        logProvider.assertLogStringContains( "'fileToFlush' flush write sizes: 512-1023 pages: 1." );
+        logProvider.assertLogStringContains(
+                "Page cache flush write sizes: 1 page: 1, 2-3 pages: 2, 512-1023 pages: 1." );
+    }
+
     private VerbosePageCacheTracer createTracer()
     {
         return new VerbosePageCacheTracer( log, clock );
@@ -61,6 +61,13 @@ public interface PageCache
                   "Otherwise it could indicate drive failure, storage space, or permission problems." )
     long getEvictionExceptions();
 
+    @Description( "Number of pages evicted by page faulting threads, because the background eviction threads " +
+                  "could not keep up. A steadily growing number suggests that more eviction threads are needed." )
+    default long getCooperativeEvictions()
+    {
+        return 0;
+    }
+
     @Description( "The percentage of used pages. Will return NaN if it cannot be determined." )
     default double getUsageRatio()
     {
@@ -72,4 +79,10 @@ public interface PageCache
     {
        return Double.NaN;
     }
+
+    @Description( "Hits, faults, evictions and flushes of each file that is currently mapped into the page cache." )
+    default PagedFileInfo[] getPagedFiles()
+    {
+        return new PagedFileInfo[0];
+    }
 }
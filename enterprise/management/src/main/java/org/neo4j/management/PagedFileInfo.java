@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.management;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+public final class PagedFileInfo implements Serializable
+{
+    private static final long serialVersionUID = 4527281640283742541L;
+
+    private String file;
+    private long hits;
+    private long faults;
+    private long evictions;
+    private long flushes;
+    private long bytesRead;
+    private long bytesWritten;
+    private double hitRatio;
+
+    @ConstructorProperties( {"file", "hits", "faults", "evictions", "flushes", "bytesRead", "bytesWritten",
+            "hitRatio"} )
+    public PagedFileInfo( String file, long hits, long faults, long evictions, long flushes, long bytesRead,
+            long bytesWritten, double hitRatio )
+    {
+        this.file = file;
+        this.hits = hits;
+        this.faults = faults;
+        this.evictions = evictions;
+        this.flushes = flushes;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.hitRatio = hitRatio;
+    }
+
+    public String getFile()
+    {
+        return file;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public long getFaults()
+    {
+        return faults;
+    }
+
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    public long getFlushes()
+    {
+        return flushes;
+    }
+
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    public double getHitRatio()
+    {
+        return hitRatio;
+    }
+}
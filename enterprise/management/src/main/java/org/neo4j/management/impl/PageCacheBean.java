@@ -22,13 +22,16 @@
  */
 package org.neo4j.management.impl;
 
+import java.util.List;
 import javax.management.NotCompliantMBeanException;
 
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.jmx.impl.ManagementBeanProvider;
 import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
 import org.neo4j.management.PageCache;
+import org.neo4j.management.PagedFileInfo;
 
 public final class PageCacheBean extends ManagementBeanProvider
 {
@@ -113,10 +116,31 @@ public final class PageCacheBean extends ManagementBeanProvider
             return pageCacheCounters.evictionExceptions();
         }
 
+        @Override
+        public long getCooperativeEvictions()
+        {
+            return pageCacheCounters.cooperativeEvictions();
+        }
+
         @Override
         public double getUsageRatio()
         {
             return pageCacheCounters.usageRatio();
         }
+
+        @Override
+        public PagedFileInfo[] getPagedFiles()
+        {
+            List<PagedFileCounters> files = pageCacheCounters.pagedFileCounters();
+            PagedFileInfo[] infos = new PagedFileInfo[files.size()];
+            for ( int i = 0; i < infos.length; i++ )
+            {
+                PagedFileCounters counters = files.get( i );
+                infos[i] = new PagedFileInfo( counters.file().getPath(), counters.hits(), counters.faults(),
+                        counters.evictions(), counters.flushes(), counters.bytesRead(), counters.bytesWritten(),
+                        counters.hitRatio() );
+            }
+            return infos;
+        }
     }
 }
@@ -54,12 +54,14 @@ import org.neo4j.metrics.source.db.CypherMetrics;
 import org.neo4j.metrics.source.db.EntityCountMetrics;
 import org.neo4j.metrics.source.db.LogRotationMetrics;
 import org.neo4j.metrics.source.db.PageCacheMetrics;
+import org.neo4j.metrics.source.db.PageCacheWarmupMetrics;
 import org.neo4j.metrics.source.db.TransactionMetrics;
 import org.neo4j.metrics.source.jvm.GCMetrics;
 import org.neo4j.metrics.source.jvm.MemoryBuffersMetrics;
 import org.neo4j.metrics.source.jvm.MemoryPoolMetrics;
 import org.neo4j.metrics.source.jvm.ThreadMetrics;
 import org.neo4j.metrics.source.server.ServerMetrics;
+import org.neo4j.scheduler.JobScheduler;
 
 public class Neo4jMetricsBuilder
 {
@@ -90,6 +92,8 @@ public class Neo4jMetricsBuilder
         Supplier<CoreMetaData> raft();
 
         Supplier<TransactionIdStore> transactionIdStore();
+
+        JobScheduler scheduler();
     }
 
     public Neo4jMetricsBuilder( MetricRegistry registry, EventReporter reporter, Config config, LogService logService,
@@ -116,7 +120,9 @@ public class Neo4jMetricsBuilder
 
         if ( config.get( MetricsSettings.neoPageCacheEnabled ) )
         {
-            life.add( new PageCacheMetrics( registry, dependencies.pageCacheCounters() ) );
+            life.add( new PageCacheMetrics( registry, dependencies.pageCacheCounters(), dependencies.scheduler(),
+                    kernelContext.storeDir(), logService.getInternalLog( PageCacheMetrics.class ) ) );
+            life.add( new PageCacheWarmupMetrics( registry, dependencies.monitors() ) );
             result = true;
         }
 
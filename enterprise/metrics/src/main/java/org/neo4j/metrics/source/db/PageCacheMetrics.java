@@ -25,11 +25,26 @@ package org.neo4j.metrics.source.db;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.JobScheduler;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 @Documented( ".Database page cache metrics" )
 public class PageCacheMetrics extends LifecycleAdapter
@@ -38,6 +53,9 @@ public class PageCacheMetrics extends LifecycleAdapter
 
     @Documented( "The total number of exceptions seen during the eviction process in the page cache" )
     public static final String PC_EVICTION_EXCEPTIONS = name( PAGE_CACHE_PREFIX, "eviction_exceptions" );
+    @Documented( "The total number of page evictions done by page faulting threads, because the eviction threads " +
+                 "could not keep the free-list filled" )
+    public static final String PC_COOPERATIVE_EVICTIONS = name( PAGE_CACHE_PREFIX, "cooperative_evictions" );
     @Documented( "The total number of flushes executed by the page cache" )
     public static final String PC_FLUSHES = name( PAGE_CACHE_PREFIX, "flushes" );
     @Documented( "The total number of page unpins executed by the page cache" )
@@ -54,14 +72,32 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_HIT_RATIO = name( PAGE_CACHE_PREFIX, "hit_ratio" );
     @Documented( "The ratio of number of used pages to total number of available pages" )
     public static final String PC_USAGE_RATIO = name( PAGE_CACHE_PREFIX, "usage_ratio" );
+    @Documented( "The hits, page faults, evictions, flushes and hit ratio of each mapped file, reported as " +
+                 "neo4j.page_cache.file.<file>.hits and so on, where <file> is the path of the file relative to " +
+                 "the store directory, with the path separators replaced by dots. Files that would get the same name " +
+                 "get a numeric suffix, as in <file>_1" )
+    public static final String PC_FILE_PREFIX = name( PAGE_CACHE_PREFIX, "file" );
+
+    private static final String[] PC_FILE_METRICS = {"hits", "page_faults", "evictions", "flushes", "hit_ratio"};
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
+    private final JobScheduler scheduler;
+    private final Path storeDir;
+    private final Log log;
+    // The per-file metric name prefixes, of the files we have registered metrics for, or null for the files whose
+    // metrics could not be registered. Guarded by this.
+    private final Map<PagedFileCounters,String> registeredFiles = new HashMap<>();
+    private JobScheduler.JobHandle refreshJob;
 
-    public PageCacheMetrics( MetricRegistry registry, PageCacheCounters pageCacheCounters )
+    public PageCacheMetrics( MetricRegistry registry, PageCacheCounters pageCacheCounters, JobScheduler scheduler,
+            File storeDir, Log log )
     {
         this.registry = registry;
         this.pageCacheCounters = pageCacheCounters;
+        this.scheduler = scheduler;
+        this.storeDir = storeDir.getAbsoluteFile().toPath();
+        this.log = log;
     }
 
     @Override
@@ -74,8 +110,15 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_HITS, (Gauge<Long>) pageCacheCounters::hits );
         registry.register( PC_FLUSHES, (Gauge<Long>) pageCacheCounters::flushes );
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
+        registry.register( PC_COOPERATIVE_EVICTIONS, (Gauge<Long>) pageCacheCounters::cooperativeEvictions );
         registry.register( PC_HIT_RATIO, (Gauge<Double>) pageCacheCounters::hitRatio );
         registry.register( PC_USAGE_RATIO, (Gauge<Double>) pageCacheCounters::usageRatio );
+
+        // Files come and go as the database maps and unmaps them, so we keep the per-file metrics in sync with the
+        // current mappings in the background.
+        refreshPagedFileMetrics();
+        refreshJob = scheduler.scheduleRecurring(
+                JobScheduler.Groups.metricsEvent, this::refreshPagedFileMetrics, 1, SECONDS );
     }
 
     @Override
@@ -88,7 +131,140 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_HITS );
         registry.remove( PC_FLUSHES );
         registry.remove( PC_EVICTION_EXCEPTIONS );
+        registry.remove( PC_COOPERATIVE_EVICTIONS );
         registry.remove( PC_HIT_RATIO );
         registry.remove( PC_USAGE_RATIO );
+
+        if ( refreshJob != null )
+        {
+            refreshJob.cancel( false );
+            refreshJob = null;
+        }
+        removeAllPagedFileMetrics();
+    }
+
+    synchronized void refreshPagedFileMetrics()
+    {
+        Set<PagedFileCounters> mappedFiles = new HashSet<>( pageCacheCounters.pagedFileCounters() );
+        Iterator<Map.Entry<PagedFileCounters,String>> registered = registeredFiles.entrySet().iterator();
+        while ( registered.hasNext() )
+        {
+            Map.Entry<PagedFileCounters,String> entry = registered.next();
+            if ( !mappedFiles.contains( entry.getKey() ) )
+            {
+                if ( entry.getValue() != null )
+                {
+                    removePagedFileMetrics( entry.getValue() );
+                }
+                registered.remove();
+            }
+        }
+        for ( PagedFileCounters counters : mappedFiles )
+        {
+            if ( !registeredFiles.containsKey( counters ) )
+            {
+                registeredFiles.put( counters, registerPagedFileMetrics( counters ) );
+            }
+        }
+    }
+
+    /**
+     * @return the metric name prefix of the registered metrics, or {@code null} if they could not be registered.
+     */
+    private String registerPagedFileMetrics( PagedFileCounters counters )
+    {
+        String prefix = uniquePrefix( name( PC_FILE_PREFIX, fileMetricName( counters.file() ) ) );
+        List<String> registered = new ArrayList<>();
+        try
+        {
+            register( registered, name( prefix, "hits" ), (Gauge<Long>) counters::hits );
+            register( registered, name( prefix, "page_faults" ), (Gauge<Long>) counters::faults );
+            register( registered, name( prefix, "evictions" ), (Gauge<Long>) counters::evictions );
+            register( registered, name( prefix, "flushes" ), (Gauge<Long>) counters::flushes );
+            register( registered, name( prefix, "hit_ratio" ), (Gauge<Double>) counters::hitRatio );
+            return prefix;
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // Someone else registered one of our names in the meantime. We leave their metric alone, and give up on
+            // this file rather than failing the refresh of all the others. It is not retried until it is remapped.
+            registered.forEach( registry::remove );
+            log.warn( "Could not register page cache metrics for " + counters.file(), e );
+            return null;
+        }
+    }
+
+    private void register( List<String> registered, String name, Gauge<?> gauge )
+    {
+        registry.register( name, gauge );
+        registered.add( name );
+    }
+
+    /**
+     * Different files can map to the same metric name, e.g. files outside of the store directory that have the same
+     * file name, so names that are already taken get a numeric suffix.
+     */
+    private String uniquePrefix( String prefix )
+    {
+        String candidate = prefix;
+        for ( int suffix = 1; isTaken( candidate ); suffix++ )
+        {
+            candidate = prefix + "_" + suffix;
+        }
+        return candidate;
+    }
+
+    private boolean isTaken( String prefix )
+    {
+        if ( registeredFiles.containsValue( prefix ) )
+        {
+            return true;
+        }
+        Set<String> names = registry.getNames();
+        for ( String metric : PC_FILE_METRICS )
+        {
+            if ( names.contains( name( prefix, metric ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void removeAllPagedFileMetrics()
+    {
+        registeredFiles.values().stream().filter( Objects::nonNull ).forEach( this::removePagedFileMetrics );
+        registeredFiles.clear();
+    }
+
+    private void removePagedFileMetrics( String prefix )
+    {
+        for ( String metric : PC_FILE_METRICS )
+        {
+            registry.remove( name( prefix, metric ) );
+        }
+    }
+
+    private String fileMetricName( File file )
+    {
+        Path path = file.getAbsoluteFile().toPath();
+        if ( path.startsWith( storeDir ) )
+        {
+            path = storeDir.relativize( path );
+        }
+        else
+        {
+            path = path.getFileName();
+        }
+        StringBuilder sb = new StringBuilder();
+        for ( Path element : path )
+        {
+            if ( sb.length() > 0 )
+            {
+                sb.append( '.' );
+            }
+            sb.append( element.toString().replaceAll( "[^A-Za-z0-9_.-]", "_" ) );
+        }
+        return sb.toString();
     }
 }
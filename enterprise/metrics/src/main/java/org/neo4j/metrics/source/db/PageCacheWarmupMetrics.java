@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Page cache warmup metrics" )
+public class PageCacheWarmupMetrics extends LifecycleAdapter
+{
+    private static final String WARMUP_PREFIX = "neo4j.page_cache.warmup";
+
+    @Documented( "The number of pages the current, or most recent, page cache warmup set out to load" )
+    public static final String WARMUP_PAGES_TO_LOAD = name( WARMUP_PREFIX, "pages_to_load" );
+    @Documented( "The number of pages loaded so far by the current, or most recent, page cache warmup" )
+    public static final String WARMUP_PAGES_LOADED = name( WARMUP_PREFIX, "pages_loaded" );
+    @Documented( "The ratio, between 0.0 and 1.0, of the profiled pages that the page cache warmup has loaded " +
+                 "so far. The instance is warm when this reaches 1.0" )
+    public static final String WARMUP_PROGRESS = name( WARMUP_PREFIX, "progress" );
+
+    private final MetricRegistry registry;
+    private final Monitors monitors;
+    private final WarmupProgressListener listener = new WarmupProgressListener();
+
+    public PageCacheWarmupMetrics( MetricRegistry registry, Monitors monitors )
+    {
+        this.registry = registry;
+        this.monitors = monitors;
+    }
+
+    @Override
+    public void start()
+    {
+        monitors.addMonitorListener( listener );
+
+        registry.register( WARMUP_PAGES_TO_LOAD, (Gauge<Long>) listener.pagesToLoad::get );
+        registry.register( WARMUP_PAGES_LOADED, (Gauge<Long>) listener.pagesLoaded::get );
+        registry.register( WARMUP_PROGRESS, (Gauge<Double>) listener::progress );
+    }
+
+    @Override
+    public void stop()
+    {
+        monitors.removeMonitorListener( listener );
+
+        registry.remove( WARMUP_PAGES_TO_LOAD );
+        registry.remove( WARMUP_PAGES_LOADED );
+        registry.remove( WARMUP_PROGRESS );
+    }
+
+    private static class WarmupProgressListener implements PageCacheWarmerMonitor
+    {
+        private final AtomicLong pagesToLoad = new AtomicLong();
+        private final AtomicLong pagesLoaded = new AtomicLong();
+        private volatile boolean completed;
+
+        @Override
+        public void warmupStarted( long pagesToLoad )
+        {
+            completed = false;
+            this.pagesLoaded.set( 0 );
+            this.pagesToLoad.set( pagesToLoad );
+        }
+
+        @Override
+        public void warmupProgress( long pagesLoaded )
+        {
+            this.pagesLoaded.addAndGet( pagesLoaded );
+        }
+
+        @Override
+        public void warmupCompleted( long pagesLoaded )
+        {
+            this.pagesLoaded.set( pagesLoaded );
+            completed = true;
+        }
+
+        @Override
+        public void profileCompleted( long pagesInMemory )
+        {
+        }
+
+        double progress()
+        {
+            long toLoad = pagesToLoad.get();
+            if ( completed || toLoad == 0 )
+            {
+                return completed ? 1.0 : 0.0;
+            }
+            return Math.min( 1.0, pagesLoaded.get() / (double) toLoad );
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2002-2020 "Neo4j,"
+ * Neo4j Sweden AB [http://neo4j.com]
+ *
+ * This file is part of Neo4j Enterprise Edition. The included source
+ * code can be redistributed and/or modified under the terms of the
+ * GNU AFFERO GENERAL PUBLIC LICENSE Version 3
+ * (http://www.fsf.org/licensing/licenses/agpl-3.0.html) with the
+ * Commons Clause, as found in the associated LICENSE.txt file.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * Neo4j object code can be licensed independently from the source
+ * under separate terms from the AGPL. Inquiries can be directed to:
+ * licensing@neo4j.com
+ *
+ * More information is also available at:
+ * https://neo4j.com/licensing/
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.logging.NullLog;
+import org.neo4j.scheduler.JobScheduler;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PageCacheMetricsTest
+{
+    private final MetricRegistry registry = new MetricRegistry();
+    private final PageCacheCounters pageCacheCounters = mock( PageCacheCounters.class );
+    private final PageCacheMetrics metrics = new PageCacheMetrics( registry, pageCacheCounters,
+            mock( JobScheduler.class ), new File( "store" ), NullLog.getInstance() );
+
+    @Test
+    public void filesWithTheSameNameMustGetUniqueMetricNames()
+    {
+        PagedFileCounters a = counters( new File( "a", "neostore" ) );
+        PagedFileCounters b = counters( new File( "b", "neostore" ) );
+        when( pageCacheCounters.pagedFileCounters() ).thenReturn( Arrays.asList( a, b ) );
+
+        metrics.refreshPagedFileMetrics();
+
+        assertThat( registry.getGauges().keySet(), containsInAnyOrder(
+                "neo4j.page_cache.file.neostore.hits",
+                "neo4j.page_cache.file.neostore.page_faults",
+                "neo4j.page_cache.file.neostore.evictions",
+                "neo4j.page_cache.file.neostore.flushes",
+                "neo4j.page_cache.file.neostore.hit_ratio",
+                "neo4j.page_cache.file.neostore_1.hits",
+                "neo4j.page_cache.file.neostore_1.page_faults",
+                "neo4j.page_cache.file.neostore_1.evictions",
+                "neo4j.page_cache.file.neostore_1.flushes",
+                "neo4j.page_cache.file.neostore_1.hit_ratio" ) );
+
+        when( pageCacheCounters.pagedFileCounters() ).thenReturn( Collections.emptyList() );
+        metrics.refreshPagedFileMetrics();
+
+        assertThat( registry.getGauges().keySet(), empty() );
+    }
+
+    @Test
+    public void mustNotReplaceMetricsRegisteredByOthers()
+    {
+        registry.counter( "neo4j.page_cache.file.neostore.hits" );
+        when( pageCacheCounters.pagedFileCounters() ).thenReturn(
+                Collections.singletonList( counters( new File( "neostore" ) ) ) );
+
+        metrics.refreshPagedFileMetrics();
+
+        assertThat( registry.getCounters().keySet(), containsInAnyOrder( "neo4j.page_cache.file.neostore.hits" ) );
+        assertThat( registry.getGauges().keySet(), containsInAnyOrder(
+                "neo4j.page_cache.file.neostore_1.hits",
+                "neo4j.page_cache.file.neostore_1.page_faults",
+                "neo4j.page_cache.file.neostore_1.evictions",
+                "neo4j.page_cache.file.neostore_1.flushes",
+                "neo4j.page_cache.file.neostore_1.hit_ratio" ) );
+    }
+
+    private static PagedFileCounters counters( File file )
+    {
+        PagedFileCounters counters = mock( PagedFileCounters.class );
+        when( counters.file() ).thenReturn( file.getAbsoluteFile() );
+        return counters;
+    }
+}
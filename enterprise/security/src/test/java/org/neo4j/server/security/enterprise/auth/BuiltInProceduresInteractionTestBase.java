@@ -76,6 +76,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.neo4j.bolt.v1.runtime.integration.TransactionIT.createHttpServer;
 import static org.neo4j.concurrent.Runnables.EMPTY_RUNNABLE;
 import static org.neo4j.graphdb.security.AuthorizationViolationException.PERMISSION_DENIED;
@@ -842,6 +843,19 @@ public abstract class BuiltInProceduresInteractionTestBase<S> extends ProcedureI
         assertEmpty( adminSubject, call );
     }
 
+    //---------- page cache stats -----------
+
+    @Test
+    public void pageCacheStatsShouldBeAccessibleOnlyToAdmins()
+    {
+        String call = "CALL dbms.pagecache.stats()";
+        assertFail( writeSubject, call, PERMISSION_DENIED );
+        assertFail( schemaSubject, call, PERMISSION_DENIED );
+        assertFail( readSubject, call, PERMISSION_DENIED );
+
+        assertSuccess( adminSubject, call, r -> assertTrue( r.hasNext() ) );
+    }
+
     //---------- procedure guard -----------
 
     @Test